@@ -98,6 +98,20 @@ public interface BidiConstants {
   /** placeholder for low surrogate */
   int SURROGATE = 20;
 
+  // isolate categories, introduced in unicode 6.3
+
+  /** left-to-right isolate class */
+  int LRI = 21;
+
+  /** right-to-left isolate class */
+  int RLI = 22;
+
+  /** first strong isolate class */
+  int FSI = 23;
+
+  /** pop directional isolate class */
+  int PDI = 24;
+
   // other constants
 
   /**
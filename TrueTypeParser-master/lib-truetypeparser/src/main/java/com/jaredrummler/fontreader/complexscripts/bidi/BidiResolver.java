@@ -0,0 +1,732 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.bidi;
+
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.AL;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.AN;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.B;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.BN;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.CS;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.EN;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.ES;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.ET;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.FSI;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.L;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.LRE;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.LRI;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.LRO;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.NSM;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.ON;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.PDF;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.PDI;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.R;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.RLE;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.RLI;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.RLO;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.S;
+import static com.jaredrummler.fontreader.complexscripts.bidi.BidiConstants.WS;
+
+/**
+ * <p>Resolves embedding levels according to the Unicode Bidirectional Algorithm (UAX #9),
+ * including isolates and paired brackets.</p>
+ *
+ * <p>The resolver works on code points and writes levels into a caller supplied array. Its
+ * working buffers are sized to the longest paragraph seen so far and reused, so a resolver
+ * kept per thread does not allocate once it has warmed up. Each paragraph is resolved in a
+ * single pass over its isolating run sequences.</p>
+ *
+ * <p>Characters removed by rule X9 (embedding controls and boundary neutrals) are given the
+ * level of the preceding character. Rule L1 is applied at segment and paragraph separators
+ * and at the end of each paragraph; callers breaking paragraphs into lines should reset
+ * trailing whitespace of each line themselves.</p>
+ */
+public final class BidiResolver {
+
+  /** resolve the paragraph level from the text, defaulting to left-to-right */
+  public static final int LEVEL_DEFAULT_LTR = -1;
+
+  /** resolve the paragraph level from the text, defaulting to right-to-left */
+  public static final int LEVEL_DEFAULT_RTL = -2;
+
+  private static final int MAX_DEPTH = 125;
+  private static final int MAX_PAIRING_DEPTH = 63;
+
+  /** directional status stack */
+  private final byte[] stackLevel = new byte[MAX_DEPTH + 2];
+  private final byte[] stackOverride = new byte[MAX_DEPTH + 2];
+  private final boolean[] stackIsolate = new boolean[MAX_DEPTH + 2];
+
+  /** bracket pairing stack */
+  private final int[] openerPosition = new int[MAX_PAIRING_DEPTH];
+  private final int[] openerCloser = new int[MAX_PAIRING_DEPTH];
+
+  /** per paragraph buffers, indexed relative to the paragraph start */
+  private byte[] initialTypes = new byte[0];
+  private byte[] types = new byte[0];
+  /** explicit embedding levels, kept while implicit levels are written to the caller's array */
+  private byte[] embeddingLevels = new byte[0];
+  private int[] matches = new int[0];
+  private int[] sequence = new int[0];
+  private int[] scratch = new int[0];
+
+  /**
+   * Resolve the embedding levels of a text. The text is split into paragraphs at paragraph
+   * separators, and each paragraph is resolved on its own.
+   *
+   * @param cps
+   *     the text as unicode scalar values
+   * @param n
+   *     the number of code points to resolve
+   * @param paragraphLevel
+   *     the paragraph embedding level (0 or 1), or {@link #LEVEL_DEFAULT_LTR} or
+   *     {@link #LEVEL_DEFAULT_RTL} to determine it from the first strong character of
+   *     each paragraph
+   * @param levels
+   *     receives the resolved level of each code point
+   * @return the embedding level of the first paragraph
+   */
+  public int resolveLevels(int[] cps, int n, int paragraphLevel, byte[] levels) {
+    if (levels.length < n) {
+      throw new IllegalArgumentException("levels must hold " + n + " values");
+    }
+    int first = -1;
+    int ps = 0;
+    while (ps < n) {
+      int pe = ps;
+      while ((pe < n) && (BidiClass.getBidiClass(cps[pe]) != B)) {
+        pe++;
+      }
+      if (pe < n) {
+        pe++;
+      }
+      int level = resolveParagraph(cps, ps, pe, paragraphLevel, levels);
+      if (first < 0) {
+        first = level;
+      }
+      ps = pe;
+    }
+    if (first < 0) {
+      first = (paragraphLevel >= 0) ? paragraphLevel : ((paragraphLevel == LEVEL_DEFAULT_RTL) ? 1 : 0);
+    }
+    return first;
+  }
+
+  /**
+   * Split resolved levels into runs of equal level.
+   *
+   * @param levels
+   *     the resolved levels
+   * @param start
+   *     the start index, inclusive
+   * @param end
+   *     the end index, exclusive
+   * @param runStarts
+   *     receives the start index of each run; must hold up to {@code end - start} values
+   * @param runLevels
+   *     receives the level of each run; must hold up to {@code end - start} values
+   * @return the number of runs
+   */
+  public static int getRuns(byte[] levels, int start, int end, int[] runStarts, int[] runLevels) {
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      if ((i == start) || (levels[i] != levels[i - 1])) {
+        runStarts[count] = i;
+        runLevels[count] = levels[i];
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Compute the visual order of a line according to rule L2.
+   *
+   * @param levels
+   *     the resolved levels
+   * @param start
+   *     the start index of the line, inclusive
+   * @param end
+   *     the end index of the line, exclusive
+   * @param visualToLogical
+   *     receives, for each visual position, the logical index of the code point displayed
+   *     there; must hold {@code end - start} values
+   */
+  public static void reorder(byte[] levels, int start, int end, int[] visualToLogical) {
+    int n = end - start;
+    int highest = 0;
+    int lowestOdd = MAX_DEPTH + 2;
+    for (int i = 0; i < n; i++) {
+      int level = levels[start + i];
+      visualToLogical[i] = start + i;
+      if (level > highest) {
+        highest = level;
+      }
+      if (((level & 1) != 0) && (level < lowestOdd)) {
+        lowestOdd = level;
+      }
+    }
+    for (int level = highest; level >= lowestOdd; level--) {
+      int i = 0;
+      while (i < n) {
+        if (levels[start + i] >= level) {
+          int j = i + 1;
+          while ((j < n) && (levels[start + j] >= level)) {
+            j++;
+          }
+          for (int a = i, b = j - 1; a < b; a++, b--) {
+            int t = visualToLogical[a];
+            visualToLogical[a] = visualToLogical[b];
+            visualToLogical[b] = t;
+          }
+          i = j;
+        } else {
+          i++;
+        }
+      }
+    }
+  }
+
+  private int resolveParagraph(int[] cps, int ps, int pe, int requestedLevel, byte[] levels) {
+    int m = pe - ps;
+    ensureCapacity(m);
+    byte[] initial = initialTypes;
+    for (int i = 0; i < m; i++) {
+      initial[i] = (byte) BidiClass.getBidiClass(cps[ps + i]);
+    }
+    System.arraycopy(initial, 0, types, 0, m);
+    matchIsolates(m);
+
+    int pl = requestedLevel;
+    if (pl < 0) {
+      int strong = firstStrong(0, m);
+      pl = (strong >= 0) ? strong : ((requestedLevel == LEVEL_DEFAULT_RTL) ? 1 : 0);
+    }
+
+    resolveExplicit(ps, m, pl, levels);
+    System.arraycopy(levels, ps, embeddingLevels, 0, m);
+    resolveSequences(cps, ps, m, pl, levels);
+
+    // removed characters take the level of the preceding character
+    for (int i = 0; i < m; i++) {
+      if (isRemoved(initial[i])) {
+        levels[ps + i] = (byte) ((i > 0) ? levels[ps + i - 1] : pl);
+      }
+    }
+    resetWhitespace(ps, m, pl, levels);
+    return pl;
+  }
+
+  private void ensureCapacity(int m) {
+    if (initialTypes.length < m) {
+      int size = Math.max(m, initialTypes.length + (initialTypes.length >> 1));
+      initialTypes = new byte[size];
+      types = new byte[size];
+      embeddingLevels = new byte[size];
+      matches = new int[size];
+      sequence = new int[size];
+      scratch = new int[size];
+    }
+  }
+
+  /** BD9: match isolate initiators with their PDIs. */
+  private void matchIsolates(int m) {
+    byte[] initial = initialTypes;
+    int[] stack = scratch;
+    int depth = 0;
+    for (int i = 0; i < m; i++) {
+      matches[i] = -1;
+      int t = initial[i];
+      if (isIsolateInitiator(t)) {
+        stack[depth++] = i;
+      } else if ((t == PDI) && (depth > 0)) {
+        int opener = stack[--depth];
+        matches[opener] = i;
+        matches[i] = opener;
+      }
+    }
+  }
+
+  /**
+   * P2, P3: find the first strong character, skipping isolates.
+   *
+   * @return 0 for L, 1 for R or AL, or -1 if there is no strong character
+   */
+  private int firstStrong(int from, int to) {
+    byte[] initial = initialTypes;
+    for (int i = from; i < to; i++) {
+      int t = initial[i];
+      if (t == L) {
+        return 0;
+      } else if ((t == R) || (t == AL)) {
+        return 1;
+      } else if (isIsolateInitiator(t)) {
+        if (matches[i] < 0) {
+          break;
+        }
+        i = matches[i];
+      }
+    }
+    return -1;
+  }
+
+  /** X1 - X8: explicit levels and directions. */
+  private void resolveExplicit(int ps, int m, int pl, byte[] levels) {
+    byte[] initial = initialTypes;
+    int sp = 1;
+    stackLevel[0] = (byte) pl;
+    stackOverride[0] = 0;
+    stackIsolate[0] = false;
+    int overflowIsolates = 0;
+    int overflowEmbeddings = 0;
+    int validIsolates = 0;
+    for (int i = 0; i < m; i++) {
+      int t = initial[i];
+      int top = sp - 1;
+      int level = stackLevel[top];
+      switch (t) {
+        case RLE:
+        case LRE:
+        case RLO:
+        case LRO: {
+          boolean rtl = (t == RLE) || (t == RLO);
+          int newLevel = rtl ? ((level + 1) | 1) : ((level + 2) & ~1);
+          if ((newLevel <= MAX_DEPTH) && (overflowIsolates == 0) && (overflowEmbeddings == 0)) {
+            stackLevel[sp] = (byte) newLevel;
+            stackOverride[sp] = (byte) ((t == RLO) ? R : ((t == LRO) ? L : 0));
+            stackIsolate[sp] = false;
+            sp++;
+          } else if (overflowIsolates == 0) {
+            overflowEmbeddings++;
+          }
+          levels[ps + i] = (byte) level;
+          break;
+        }
+        case RLI:
+        case LRI:
+        case FSI: {
+          levels[ps + i] = (byte) level;
+          if (stackOverride[top] != 0) {
+            types[i] = stackOverride[top];
+          }
+          boolean rtl = (t == RLI);
+          if (t == FSI) {
+            rtl = firstStrong(i + 1, (matches[i] >= 0) ? matches[i] : m) == 1;
+          }
+          int newLevel = rtl ? ((level + 1) | 1) : ((level + 2) & ~1);
+          if ((newLevel <= MAX_DEPTH) && (overflowIsolates == 0) && (overflowEmbeddings == 0)) {
+            validIsolates++;
+            stackLevel[sp] = (byte) newLevel;
+            stackOverride[sp] = 0;
+            stackIsolate[sp] = true;
+            sp++;
+          } else {
+            overflowIsolates++;
+          }
+          break;
+        }
+        case PDI:
+          if (overflowIsolates > 0) {
+            overflowIsolates--;
+          } else if (validIsolates > 0) {
+            overflowEmbeddings = 0;
+            while (!stackIsolate[sp - 1]) {
+              sp--;
+            }
+            sp--;
+            validIsolates--;
+          }
+          top = sp - 1;
+          levels[ps + i] = stackLevel[top];
+          if (stackOverride[top] != 0) {
+            types[i] = stackOverride[top];
+          }
+          break;
+        case PDF:
+          if (overflowIsolates > 0) {
+            // nothing to do
+          } else if (overflowEmbeddings > 0) {
+            overflowEmbeddings--;
+          } else if (!stackIsolate[top] && (sp >= 2)) {
+            sp--;
+          }
+          levels[ps + i] = (byte) level;
+          break;
+        case B:
+          levels[ps + i] = (byte) pl;
+          break;
+        case BN:
+          levels[ps + i] = (byte) level;
+          break;
+        default:
+          levels[ps + i] = (byte) level;
+          if (stackOverride[top] != 0) {
+            types[i] = stackOverride[top];
+          }
+          break;
+      }
+    }
+    // X9: removed characters are marked BN and skipped from here on
+    for (int i = 0; i < m; i++) {
+      if (isRemoved(initial[i])) {
+        types[i] = BN;
+      }
+    }
+  }
+
+  /**
+   * X10: resolve each isolating run sequence. Level runs and the sos and eos of each sequence
+   * are found from the explicit embedding levels, which are not changed by the implicit levels
+   * written for the sequences resolved before it.
+   */
+  private void resolveSequences(int[] cps, int ps, int m, int pl, byte[] levels) {
+    byte[] initial = initialTypes;
+    byte[] embedding = embeddingLevels;
+    int[] seq = sequence;
+    int p = 0;
+    while (p < m) {
+      if (types[p] == BN) {
+        p++;
+        continue;
+      }
+      int firstRunEnd = runEnd(p, m);
+      if ((initial[p] == PDI) && (matches[p] >= 0)) {
+        // continues the sequence of its isolate initiator
+        p = firstRunEnd;
+        continue;
+      }
+      int len = 0;
+      int q = p;
+      while (true) {
+        int e = runEnd(q, m);
+        for (int i = q; i < e; i++) {
+          if (types[i] != BN) {
+            seq[len++] = i;
+          }
+        }
+        int last = seq[len - 1];
+        if (isIsolateInitiator(initial[last]) && (matches[last] >= 0)) {
+          q = matches[last];
+        } else {
+          break;
+        }
+      }
+      p = firstRunEnd;
+
+      int level = embedding[seq[0]];
+      int before = seq[0] - 1;
+      while ((before >= 0) && (types[before] == BN)) {
+        before--;
+      }
+      int sos = Math.max(level, (before >= 0) ? embedding[before] : pl);
+      int last = seq[len - 1];
+      int eos;
+      if (isIsolateInitiator(initial[last])) {
+        eos = Math.max(level, pl);
+      } else {
+        int after = last + 1;
+        while ((after < m) && (types[after] == BN)) {
+          after++;
+        }
+        eos = Math.max(level, (after < m) ? embedding[after] : pl);
+      }
+      resolveSequence(cps, ps, len, level, ((sos & 1) != 0) ? R : L, ((eos & 1) != 0) ? R : L, levels);
+    }
+  }
+
+  /** Returns the end of the level run starting at {@code start}, skipping removed characters. */
+  private int runEnd(int start, int m) {
+    byte[] embedding = embeddingLevels;
+    int level = embedding[start];
+    int e = start + 1;
+    int end = e;
+    while (e < m) {
+      if (types[e] != BN) {
+        if (embedding[e] != level) {
+          break;
+        }
+        end = e + 1;
+      }
+      e++;
+    }
+    return end;
+  }
+
+  private void resolveSequence(int[] cps, int ps, int len, int level, int sos, int eos, byte[] levels) {
+    byte[] t = types;
+    int[] seq = sequence;
+
+    // W1: non-spacing marks take the type of the previous character
+    int prev = sos;
+    for (int k = 0; k < len; k++) {
+      int i = seq[k];
+      if (t[i] == NSM) {
+        t[i] = (byte) ((isIsolateInitiator(prev) || (prev == PDI)) ? ON : prev);
+      }
+      prev = t[i];
+    }
+
+    // W2, W3: european numbers after arabic letters, arabic letters become R
+    int lastStrong = sos;
+    boolean hasNumbers = false;
+    boolean hasNeutrals = false;
+    for (int k = 0; k < len; k++) {
+      int i = seq[k];
+      int ti = t[i];
+      if ((ti == L) || (ti == R)) {
+        lastStrong = ti;
+      } else if (ti == AL) {
+        lastStrong = AL;
+        t[i] = R;
+      } else if (ti == EN) {
+        hasNumbers = true;
+        if (lastStrong == AL) {
+          t[i] = AN;
+        }
+      } else if (ti == AN) {
+        hasNumbers = true;
+      } else {
+        hasNeutrals = true;
+      }
+    }
+
+    if (hasNumbers) {
+      // W4: single separators between numbers
+      for (int k = 1; k < len - 1; k++) {
+        int i = seq[k];
+        int ti = t[i];
+        if ((ti == ES) || (ti == CS)) {
+          int a = t[seq[k - 1]];
+          int b = t[seq[k + 1]];
+          if ((a == EN) && (b == EN)) {
+            t[i] = EN;
+          } else if ((ti == CS) && (a == AN) && (b == AN)) {
+            t[i] = AN;
+          }
+        }
+      }
+      // W5: terminators adjacent to european numbers
+      for (int k = 0; k < len; k++) {
+        if (t[seq[k]] == ET) {
+          int e = k + 1;
+          while ((e < len) && (t[seq[e]] == ET)) {
+            e++;
+          }
+          boolean en = ((k > 0) && (t[seq[k - 1]] == EN)) || ((e < len) && (t[seq[e]] == EN));
+          if (en) {
+            for (int j = k; j < e; j++) {
+              t[seq[j]] = EN;
+            }
+          }
+          k = e - 1;
+        }
+      }
+    }
+
+    // W6: remaining separators and terminators become neutral
+    // W7: european numbers after L become L
+    lastStrong = sos;
+    for (int k = 0; k < len; k++) {
+      int i = seq[k];
+      int ti = t[i];
+      if ((ti == ES) || (ti == ET) || (ti == CS)) {
+        t[i] = ON;
+        hasNeutrals = true;
+      } else if ((ti == L) || (ti == R)) {
+        lastStrong = ti;
+      } else if ((ti == EN) && (lastStrong == L)) {
+        t[i] = L;
+      }
+    }
+
+    int embedding = ((level & 1) != 0) ? R : L;
+    if (hasNeutrals) {
+      resolvePairedBrackets(cps, ps, len, sos, embedding);
+
+      // N1, N2: sequences of neutrals
+      for (int k = 0; k < len; k++) {
+        if (isNeutral(t[seq[k]])) {
+          int e = k + 1;
+          while ((e < len) && isNeutral(t[seq[e]])) {
+            e++;
+          }
+          int leading = (k == 0) ? sos : strongDirection(t[seq[k - 1]]);
+          int trailing = (e == len) ? eos : strongDirection(t[seq[e]]);
+          int dir = (leading == trailing) ? leading : embedding;
+          for (int j = k; j < e; j++) {
+            t[seq[j]] = (byte) dir;
+          }
+          k = e - 1;
+        }
+      }
+    }
+
+    // I1, I2: implicit levels
+    for (int k = 0; k < len; k++) {
+      int i = seq[k];
+      int ti = t[i];
+      if ((level & 1) == 0) {
+        if (ti == R) {
+          levels[ps + i] = (byte) (level + 1);
+        } else if ((ti == AN) || (ti == EN)) {
+          levels[ps + i] = (byte) (level + 2);
+        }
+      } else if ((ti == L) || (ti == EN) || (ti == AN)) {
+        levels[ps + i] = (byte) (level + 1);
+      }
+    }
+  }
+
+  /** BD16, N0: resolve paired brackets. */
+  private void resolvePairedBrackets(int[] cps, int ps, int len, int sos, int embedding) {
+    byte[] t = types;
+    int[] seq = sequence;
+    int[] closers = scratch;
+    int sp = 0;
+    boolean found = false;
+    for (int k = 0; k < len; k++) {
+      closers[k] = -1;
+    }
+    for (int k = 0; k < len; k++) {
+      int i = seq[k];
+      if (t[i] != ON) {
+        continue;
+      }
+      int c = canonicalBracket(cps[ps + i]);
+      int close = BidiClass.getClosingBracket(c);
+      if (close >= 0) {
+        if (sp == MAX_PAIRING_DEPTH) {
+          break;
+        }
+        openerPosition[sp] = k;
+        openerCloser[sp] = canonicalBracket(close);
+        sp++;
+      } else {
+        for (int j = sp - 1; j >= 0; j--) {
+          if (openerCloser[j] == c) {
+            closers[openerPosition[j]] = k;
+            found = true;
+            sp = j;
+            break;
+          }
+        }
+      }
+    }
+    if (!found) {
+      return;
+    }
+    byte[] initial = initialTypes;
+    int opposite = (embedding == L) ? R : L;
+    int context = sos;
+    int swept = 0;
+    for (int k = 0; k < len; k++) {
+      int closer = closers[k];
+      if (closer < 0) {
+        continue;
+      }
+      boolean hasEmbedding = false;
+      boolean hasOpposite = false;
+      for (int j = k + 1; j < closer; j++) {
+        int dir = strongDirection(t[seq[j]]);
+        if (dir == embedding) {
+          hasEmbedding = true;
+          break;
+        } else if (dir == opposite) {
+          hasOpposite = true;
+        }
+      }
+      int dir;
+      if (hasEmbedding) {
+        dir = embedding;
+      } else if (hasOpposite) {
+        // the strong context before the opening bracket, types before k are final
+        for (; swept < k; swept++) {
+          int d = strongDirection(t[seq[swept]]);
+          if (d != ON) {
+            context = d;
+          }
+        }
+        dir = (context == opposite) ? opposite : embedding;
+      } else {
+        continue;
+      }
+      setBracketDirection(seq, initial, k, len, dir);
+      setBracketDirection(seq, initial, closer, len, dir);
+    }
+  }
+
+  private void setBracketDirection(int[] seq, byte[] initial, int k, int len, int dir) {
+    types[seq[k]] = (byte) dir;
+    for (int j = k + 1; (j < len) && (initial[seq[j]] == NSM); j++) {
+      types[seq[j]] = (byte) dir;
+    }
+  }
+
+  /** L1: reset separators and trailing whitespace to the paragraph level. */
+  private void resetWhitespace(int ps, int m, int pl, byte[] levels) {
+    byte[] initial = initialTypes;
+    for (int i = 0; i <= m; i++) {
+      int t = (i < m) ? initial[i] : B;
+      if ((t == S) || (t == B)) {
+        if (i < m) {
+          levels[ps + i] = (byte) pl;
+        }
+        for (int j = i - 1; (j >= 0) && isWhitespaceLike(initial[j]); j--) {
+          levels[ps + j] = (byte) pl;
+        }
+      }
+    }
+  }
+
+  private static int canonicalBracket(int c) {
+    if (c == 0x2329) {
+      return 0x3008;
+    } else if (c == 0x232A) {
+      return 0x3009;
+    } else {
+      return c;
+    }
+  }
+
+  /** Returns L or R for strong types, treating numbers as R, and ON otherwise. */
+  private static int strongDirection(int t) {
+    if (t == L) {
+      return L;
+    } else if ((t == R) || (t == EN) || (t == AN)) {
+      return R;
+    } else {
+      return ON;
+    }
+  }
+
+  private static boolean isIsolateInitiator(int t) {
+    return (t == LRI) || (t == RLI) || (t == FSI);
+  }
+
+  private static boolean isRemoved(int t) {
+    return (t == RLE) || (t == LRE) || (t == RLO) || (t == LRO) || (t == PDF) || (t == BN);
+  }
+
+  private static boolean isNeutral(int t) {
+    return (t == B) || (t == S) || (t == WS) || (t == ON) || isIsolateInitiator(t) || (t == PDI);
+  }
+
+  private static boolean isWhitespaceLike(int t) {
+    return (t == WS) || isIsolateInitiator(t) || (t == PDI) || isRemoved(t);
+  }
+
+}
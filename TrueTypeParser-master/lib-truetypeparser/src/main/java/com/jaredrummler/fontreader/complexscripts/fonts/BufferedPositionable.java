@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.fonts;
+
+/**
+ * <p>Optional extension of {@link Positionable} which indicates that glyph positioning can be
+ * performed into a reusable {@link PositionBuffer}, avoiding an array per glyph.</p>
+ */
+public interface BufferedPositionable extends Positionable {
+
+  /**
+   * Perform glyph positioning into a reusable buffer.
+   *
+   * @param cs
+   *     character sequence to map to position offsets (advancement adjustments)
+   * @param script
+   *     a script identifier
+   * @param language
+   *     a language identifier
+   * @param fontSize
+   *     font size
+   * @param adjustments
+   *     buffer that is reset to receive one 4-tuple of placement [PX,PY] and advance [AX,AY] adjustments for each
+   *     element of glyph sequence
+   * @return true if some non-zero adjustment applies; otherwise, false
+   */
+  boolean performPositioning(CharSequence cs, String script, String language, int fontSize,
+                             PositionBuffer adjustments);
+
+}
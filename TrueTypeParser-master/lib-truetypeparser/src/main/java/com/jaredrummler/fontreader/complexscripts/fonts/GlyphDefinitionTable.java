@@ -22,6 +22,7 @@ import com.jaredrummler.fontreader.fonts.GlyphSubtable;
 import com.jaredrummler.fontreader.truetype.GlyphTable;
 import com.jaredrummler.fontreader.complexscripts.scripts.ScriptProcessor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -42,6 +43,8 @@ public class GlyphDefinitionTable extends GlyphTable {
   public static final int GDEF_LOOKUP_TYPE_LIGATURE_CARET = 3;
   /** mark attachment subtable type */
   public static final int GDEF_LOOKUP_TYPE_MARK_ATTACHMENT = 4;
+  /** mark glyph sets subtable type */
+  public static final int GDEF_LOOKUP_TYPE_MARK_GLYPH_SETS = 5;
 
   /** pre-defined glyph class - base glyph */
   public static final int GLYPH_CLASS_BASE = 1;
@@ -60,6 +63,14 @@ public class GlyphDefinitionTable extends GlyphTable {
   // private LigatureCaretSubtable lct;   // NOT YET USED
   /** singleton mark attachment table */
   private MarkAttachmentSubtable mat;
+  /** singleton mark glyph sets table */
+  private MarkGlyphSetsSubtable mgs;
+  /** dense glyph classes, indexed by glyph, each biased by one so zero denotes no class; or null */
+  private byte[] glyphClasses;
+  /** dense mark attachment classes, indexed by glyph, each biased by one so zero denotes no class; or null */
+  private byte[] markAttachClasses;
+  /** mark glyph sets, one bit per glyph, indexed by set; or null */
+  private long[][] markGlyphSets;
 
   /**
    * Instantiate a <code>GlyphDefinitionTable</code> object using the specified subtables.
@@ -81,6 +92,61 @@ public class GlyphDefinitionTable extends GlyphTable {
         }
       }
       freezeSubtables();
+      // materialize classes and sets for constant time tests during lookup application
+      this.glyphClasses = (gct != null) ? createClassArray(gct.getClasses()) : null;
+      this.markAttachClasses = (mat != null) ? createClassArray(mat.getClasses()) : null;
+      this.markGlyphSets = (mgs != null) ? mgs.createGlyphSets() : null;
+    }
+  }
+
+  /**
+   * Create a dense array of the classes of a class mapping, indexed by glyph, where each class is biased by one
+   * so that zero denotes a glyph without class.
+   *
+   * @param cm
+   *     a class mapping (or null)
+   * @return array of biased classes, or null if the mapping cannot be enumerated or has classes that do not fit
+   */
+  private static byte[] createClassArray(GlyphClassMapping cm) {
+    if (!(cm instanceof GlyphMappingTable)) {
+      return null;
+    }
+    GlyphMappingTable mt = (GlyphMappingTable) cm;
+    List entries = mt.getEntries();
+    int last = -1;
+    if (mt.getType() == GlyphMappingTable.GLYPH_MAPPING_TYPE_MAPPED) {
+      // first entry is first glyph, followed by one class per glyph
+      if ((entries != null) && (entries.size() > 1)) {
+        last = ((Integer) entries.get(0)).intValue() + entries.size() - 2;
+      }
+    } else if (mt.getType() == GlyphMappingTable.GLYPH_MAPPING_TYPE_RANGE) {
+      if (entries != null) {
+        for (Iterator it = entries.iterator(); it.hasNext(); ) {
+          last = Math.max(last, ((GlyphMappingTable.MappingRange) it.next()).getEnd());
+        }
+      }
+    } else if (mt.getType() != GlyphMappingTable.GLYPH_MAPPING_TYPE_EMPTY) {
+      return null;
+    }
+    if (last > 0xFFFF) {
+      return null;
+    }
+    byte[] classes = new byte[last + 1];
+    for (int gid = 0; gid <= last; gid++) {
+      int c = cm.getClassIndex(gid, 0);
+      if ((c < -1) || (c > 254)) {
+        return null;
+      }
+      classes[gid] = (byte) (c + 1);
+    }
+    return classes;
+  }
+
+  private static int getClass(byte[] classes, int gid) {
+    if ((gid >= 0) && (gid < classes.length)) {
+      return (classes[gid] & 0xFF) - 1;
+    } else {
+      return -1;
     }
   }
 
@@ -120,6 +186,8 @@ public class GlyphDefinitionTable extends GlyphTable {
       // this.lct = (LigatureCaretSubtable) subtable;
     } else if (subtable instanceof MarkAttachmentSubtable) {
       this.mat = (MarkAttachmentSubtable) subtable;
+    } else if (subtable instanceof MarkGlyphSetsSubtable) {
+      this.mgs = (MarkGlyphSetsSubtable) subtable;
     } else {
       throw new UnsupportedOperationException("unsupported glyph definition subtable type: " + subtable);
     }
@@ -135,7 +203,9 @@ public class GlyphDefinitionTable extends GlyphTable {
    * @return true if glyph belongs to specified glyph class
    */
   public boolean isGlyphClass(int gid, int gc) {
-    if (gct != null) {
+    if (glyphClasses != null) {
+      return getClass(glyphClasses, gid) == gc;
+    } else if (gct != null) {
       return gct.isGlyphClass(gid, gc);
     } else {
       return false;
@@ -150,7 +220,9 @@ public class GlyphDefinitionTable extends GlyphTable {
    * @return a pre-defined glyph class (GLYPH_CLASS_BASE|GLYPH_CLASS_LIGATURE|GLYPH_CLASS_MARK|GLYPH_CLASS_COMPONENT).
    */
   public int getGlyphClass(int gid) {
-    if (gct != null) {
+    if (glyphClasses != null) {
+      return getClass(glyphClasses, gid);
+    } else if (gct != null) {
       return gct.getGlyphClass(gid);
     } else {
       return -1;
@@ -167,7 +239,9 @@ public class GlyphDefinitionTable extends GlyphTable {
    * @return true if glyph belongs to specified mark attachment class
    */
   public boolean isMarkAttachClass(int gid, int mac) {
-    if (mat != null) {
+    if (markAttachClasses != null) {
+      return getClass(markAttachClasses, gid) == mac;
+    } else if (mat != null) {
       return mat.isMarkAttachClass(gid, mac);
     } else {
       return false;
@@ -182,13 +256,39 @@ public class GlyphDefinitionTable extends GlyphTable {
    * @return a non-negative mark attachment class, or -1 if no class defined
    */
   public int getMarkAttachClass(int gid) {
-    if (mat != null) {
+    if (markAttachClasses != null) {
+      return getClass(markAttachClasses, gid);
+    } else if (mat != null) {
       return mat.getMarkAttachClass(gid);
     } else {
       return -1;
     }
   }
 
+  /** @return number of mark glyph sets */
+  public int getMarkGlyphSetCount() {
+    return (markGlyphSets != null) ? markGlyphSets.length : 0;
+  }
+
+  /**
+   * Determine if glyph belongs to (font specific) mark glyph set.
+   *
+   * @param gid
+   *     a glyph identifier (index)
+   * @param set
+   *     a mark glyph set index
+   * @return true if glyph belongs to specified mark glyph set
+   */
+  public boolean isMarkGlyphSetMember(int gid, int set) {
+    if ((markGlyphSets != null) && (set >= 0) && (set < markGlyphSets.length) && (gid >= 0)) {
+      long[] bits = markGlyphSets[set];
+      int w = gid >> 6;
+      return (w < bits.length) && ((bits[w] & (1L << gid)) != 0);
+    } else {
+      return false;
+    }
+  }
+
   /**
    * Map a lookup type name to its constant (integer) value.
    *
@@ -207,6 +307,8 @@ public class GlyphDefinitionTable extends GlyphTable {
       t = GDEF_LOOKUP_TYPE_LIGATURE_CARET;
     } else if ("markattachment".equals(s)) {
       t = GDEF_LOOKUP_TYPE_MARK_ATTACHMENT;
+    } else if ("markglyphsets".equals(s)) {
+      t = GDEF_LOOKUP_TYPE_MARK_GLYPH_SETS;
     } else {
       t = -1;
     }
@@ -235,6 +337,9 @@ public class GlyphDefinitionTable extends GlyphTable {
       case GDEF_LOOKUP_TYPE_MARK_ATTACHMENT:
         tn = "markattachment";
         break;
+      case GDEF_LOOKUP_TYPE_MARK_GLYPH_SETS:
+        tn = "markglyphsets";
+        break;
       default:
         tn = "unknown";
         break;
@@ -277,6 +382,9 @@ public class GlyphDefinitionTable extends GlyphTable {
       case GDEF_LOOKUP_TYPE_MARK_ATTACHMENT:
         st = MarkAttachmentSubtable.create(id, sequence, flags, format, mapping, entries);
         break;
+      case GDEF_LOOKUP_TYPE_MARK_GLYPH_SETS:
+        st = MarkGlyphSetsSubtable.create(id, sequence, flags, format, mapping, entries);
+        break;
       default:
         break;
     }
@@ -518,4 +626,104 @@ public class GlyphDefinitionTable extends GlyphTable {
     }
   }
 
+  private abstract static class MarkGlyphSetsSubtable extends GlyphDefinitionSubtable {
+
+    MarkGlyphSetsSubtable(String id, int sequence, int flags, int format, GlyphMappingTable mapping, List entries) {
+      super(id, sequence, flags, format, mapping);
+    }
+
+    /** {@inheritDoc} */
+    public int getType() {
+      return GDEF_LOOKUP_TYPE_MARK_GLYPH_SETS;
+    }
+
+    /**
+     * Create mark glyph sets, one bit per glyph.
+     *
+     * @return array of bit sets, indexed by mark glyph set index
+     */
+    public abstract long[][] createGlyphSets();
+
+    static GlyphDefinitionSubtable create(String id, int sequence, int flags, int format, GlyphMappingTable mapping,
+                                          List entries) {
+      if (format == 1) {
+        return new MarkGlyphSetsSubtableFormat1(id, sequence, flags, format, mapping, entries);
+      } else {
+        throw new UnsupportedOperationException();
+      }
+    }
+  }
+
+  private static class MarkGlyphSetsSubtableFormat1 extends MarkGlyphSetsSubtable {
+
+    private GlyphCoverageTable[] msca;              // mark set coverage array, ordered by mark set index
+
+    MarkGlyphSetsSubtableFormat1(String id, int sequence, int flags, int format, GlyphMappingTable mapping,
+                                 List entries) {
+      super(id, sequence, flags, format, mapping, entries);
+      populate(entries);
+    }
+
+    /** {@inheritDoc} */
+    public List getEntries() {
+      List entries = new ArrayList(msca.length);
+      for (int i = 0, n = msca.length; i < n; i++) {
+        entries.add(msca[i]);
+      }
+      return entries;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isCompatible(GlyphSubtable subtable) {
+      return subtable instanceof MarkGlyphSetsSubtable;
+    }
+
+    /** {@inheritDoc} */
+    public long[][] createGlyphSets() {
+      long[][] sets = new long[msca.length][];
+      for (int i = 0, n = msca.length; i < n; i++) {
+        List entries = msca[i].getEntries();
+        int last = -1;
+        for (Iterator it = entries.iterator(); it.hasNext(); ) {
+          Object o = it.next();
+          if (o instanceof Integer) {
+            last = Math.max(last, ((Integer) o).intValue());
+          } else if (o instanceof GlyphMappingTable.MappingRange) {
+            last = Math.max(last, ((GlyphMappingTable.MappingRange) o).getEnd());
+          }
+        }
+        long[] bits = new long[(last >> 6) + 1];
+        for (Iterator it = entries.iterator(); it.hasNext(); ) {
+          Object o = it.next();
+          if (o instanceof Integer) {
+            int gid = ((Integer) o).intValue();
+            bits[gid >> 6] |= 1L << gid;
+          } else if (o instanceof GlyphMappingTable.MappingRange) {
+            GlyphMappingTable.MappingRange r = (GlyphMappingTable.MappingRange) o;
+            for (int gid = r.getStart(), e = r.getEnd(); gid <= e; gid++) {
+              bits[gid >> 6] |= 1L << gid;
+            }
+          }
+        }
+        sets[i] = bits;
+      }
+      return sets;
+    }
+
+    private void populate(List entries) {
+      if (entries == null) {
+        throw new AdvancedTypographicTableFormatException("illegal entries, must be non-null");
+      }
+      msca = new GlyphCoverageTable[entries.size()];
+      for (int i = 0, n = msca.length; i < n; i++) {
+        Object o = entries.get(i);
+        if (!(o instanceof GlyphCoverageTable)) {
+          throw new AdvancedTypographicTableFormatException(
+              "illegal entries, entry must be a GlyphCoverageTable, but is: " + ((o != null) ? o.getClass() : null));
+        }
+        msca[i] = (GlyphCoverageTable) o;
+      }
+    }
+  }
+
 }
@@ -34,9 +34,13 @@ public class GlyphPositioningState extends GlyphProcessingState {
   /** default advancements */
   private int[] widths;
   /** current adjustments */
-  private int[][] adjustments;
+  private PositionBuffer adjustments;
   /** if true, then some adjustment was applied */
   private boolean adjusted;
+  /** position of last base glyph search, or -1 if none */
+  private int basePosition = -1;
+  /** result of last base glyph search */
+  private int baseResult = -1;
 
   /**
    * Construct default (reset) glyph positioning state.
@@ -65,7 +69,7 @@ public class GlyphPositioningState extends GlyphProcessingState {
    *     script context tester (or null)
    */
   public GlyphPositioningState(GlyphSequence gs, String script, String language, String feature, int fontSize,
-                               int[] widths, int[][] adjustments, ScriptContextTester sct) {
+                               int[] widths, PositionBuffer adjustments, ScriptContextTester sct) {
     super(gs, script, language, feature, sct);
     this.fontSize = fontSize;
     this.widths = widths;
@@ -107,12 +111,14 @@ public class GlyphPositioningState extends GlyphProcessingState {
    *     script context tester (or null)
    */
   public GlyphPositioningState reset(GlyphSequence gs, String script, String language, String feature, int fontSize,
-                                     int[] widths, int[][] adjustments, ScriptContextTester sct) {
+                                     int[] widths, PositionBuffer adjustments, ScriptContextTester sct) {
     super.reset(gs, script, language, feature, sct);
     this.fontSize = fontSize;
     this.widths = widths;
     this.adjustments = adjustments;
     this.adjusted = false;
+    this.basePosition = -1;
+    this.baseResult = -1;
     return this;
   }
 
@@ -154,14 +160,56 @@ public class GlyphPositioningState extends GlyphProcessingState {
   public boolean adjust(GlyphPositioningTable.Value v, int offset) {
     assert v != null;
     if ((index + offset) < indexLast) {
-      return v.adjust(adjustments[index + offset], fontSize);
+      return v.adjust(adjustments, index + offset, fontSize);
     } else {
       throw new IndexOutOfBoundsException();
     }
   }
 
   /**
-   * Obtain current adjustments at current position index.
+   * Record the attachment of the glyph at the current position index to a parent glyph, whose placement is added
+   * to that of the attached glyph once all lookups have applied. The placement the glyph follows from its parent
+   * is cleared, so an anchor adjustment is to be applied after attaching.
+   *
+   * @param offset
+   *     of parent glyph from current position index
+   * @param type
+   *     attachment type, {@link PositionBuffer#ATTACH_MARK} or {@link PositionBuffer#ATTACH_CURSIVE}
+   * @see PositionBuffer#resolveAttachments()
+   */
+  public void attach(int offset, int type) {
+    if (((index + offset) >= 0) && ((index + offset) < indexLast)) {
+      adjustments.attach(index, index + offset, type);
+    } else {
+      throw new IndexOutOfBoundsException();
+    }
+  }
+
+  /**
+   * Obtain the position of the nearest glyph preceding the current position index that is not a mark, being
+   * the base (or ligature) glyph to which a mark at the current position attaches. A search stops where the
+   * previous search started, so all searches made while applying a lookup to a run take linear time in total.
+   *
+   * @return position of base glyph, or -1 if only marks precede the current position
+   */
+  public int getBasePosition() {
+    int base = -1;
+    for (int i = index - 1; i >= 0; i--) {
+      if (!isMark(igs.getGlyph(i))) {
+        base = i;
+        break;
+      } else if (i == basePosition) {
+        base = baseResult;
+        break;
+      }
+    }
+    basePosition = index;
+    baseResult = base;
+    return base;
+  }
+
+  /**
+   * Obtain a copy of current adjustments at current position index.
    *
    * @return array of adjustments (int[4]) at current position
    */
@@ -170,7 +218,7 @@ public class GlyphPositioningState extends GlyphProcessingState {
   }
 
   /**
-   * Obtain current adjustments at specified offset from current position index.
+   * Obtain a copy of current adjustments at specified offset from current position index.
    *
    * @param offset
    *     from current position index
@@ -179,8 +227,27 @@ public class GlyphPositioningState extends GlyphProcessingState {
    *     if offset is invalid
    */
   public int[] getAdjustment(int offset) throws IndexOutOfBoundsException {
+    int[] aa = new int[PositionBuffer.STRIDE];
+    for (int i = 0; i < aa.length; i++) {
+      aa[i] = getAdjustment(offset, i);
+    }
+    return aa;
+  }
+
+  /**
+   * Obtain current adjustment at specified offset from current position index.
+   *
+   * @param offset
+   *     from current position index
+   * @param component
+   *     index within adjustments 4-tuple, e.g., {@link GlyphPositioningTable.Value#IDX_X_ADVANCE}
+   * @return adjustment at specified offset
+   * @throws IndexOutOfBoundsException
+   *     if offset is invalid
+   */
+  public int getAdjustment(int offset, int component) throws IndexOutOfBoundsException {
     if ((index + offset) < indexLast) {
-      return adjustments[index + offset];
+      return adjustments.get(index + offset, component);
     } else {
       throw new IndexOutOfBoundsException();
     }
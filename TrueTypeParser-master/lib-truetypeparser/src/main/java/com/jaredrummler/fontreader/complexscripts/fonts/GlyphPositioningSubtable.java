@@ -134,13 +134,13 @@ public abstract class GlyphPositioningSubtable extends GlyphSubtable implements
    * @param widths
    *     array
    * @param adjustments
-   *     array (receives output adjustments)
+   *     buffer (receives output adjustments)
    * @param sct
    *     script context tester
    * @return true if a non-zero adjustment occurred
    */
   public static final boolean position(GlyphSequence gs, String script, String language, String feature, int fontSize,
-                                       GlyphPositioningSubtable[] sta, int[] widths, int[][] adjustments,
+                                       GlyphPositioningSubtable[] sta, int[] widths, PositionBuffer adjustments,
                                        ScriptContextTester sct) {
     synchronized (STATE) {
       return position(STATE.reset(gs, script, language, feature, fontSize, widths, adjustments, sct), sta, -1);
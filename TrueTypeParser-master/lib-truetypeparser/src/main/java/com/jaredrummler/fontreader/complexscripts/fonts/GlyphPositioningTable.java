@@ -260,6 +260,31 @@ public class GlyphPositioningTable extends GlyphTable {
    */
   public boolean position(GlyphSequence gs, String script, String language, int fontSize, int[] widths,
                           int[][] adjustments) {
+    PositionBuffer pb = PositionBuffer.fromArray(adjustments);
+    boolean adjusted = position(gs, script, language, fontSize, widths, pb);
+    pb.copyTo(adjustments);
+    return adjusted;
+  }
+
+  /**
+   * Perform positioning processing using all matching lookups.
+   *
+   * @param gs
+   *     an input glyph sequence
+   * @param script
+   *     a script identifier
+   * @param language
+   *     a language identifier
+   * @param fontSize
+   *     size in device units
+   * @param widths
+   *     array of default advancements for each glyph
+   * @param adjustments
+   *     accumulated adjustments buffer, with one 4-tuple for each element of glyph sequence
+   * @return true if some adjustment is not zero; otherwise, false
+   */
+  public boolean position(GlyphSequence gs, String script, String language, int fontSize, int[] widths,
+                          PositionBuffer adjustments) {
     Map/*<LookupSpec,List<LookupTable>>*/ lookups = matchLookups(script, language, "*");
     if ((lookups != null) && (lookups.size() > 0)) {
       ScriptProcessor sp = ScriptProcessor.getInstance(script);
@@ -455,51 +480,49 @@ public class GlyphPositioningTable extends GlyphTable {
       int gi = ps.getGlyph(0);
       int ci;
       if ((ci = getCoverageIndex(gi)) >= 0) {
-        int[] counts = ps.getGlyphsAvailable(0);
-        int nga = counts[0];
-        if (nga > 1) {
-          int[] iga = ps.getGlyphs(0, 2, null, counts);
-          if ((iga != null) && (iga.length == 2)) {
-            PairValues pv = getPairValues(ci, iga[0], iga[1]);
-            if (pv != null) {
-              int offset = 0;
-              int offsetLast = counts[0] + counts[1];
-              // skip any ignored glyphs prior to first non-ignored glyph
-              for (; offset < offsetLast; ++offset) {
-                if (!ps.isIgnoredGlyph(offset)) {
-                  break;
-                } else {
-                  ps.consume(1);
-                }
+        GlyphScratchArena scratch = ps.getScratch();
+        int[] counts = scratch.getCounts();
+        int[] iga = scratch.getGlyphs(2);
+        if (ps.fetchGlyphs(0, 2, false, ps.getIgnoreDefault(), iga, counts) == 2) {
+          PairValues pv = getPairValues(ci, iga[0], iga[1]);
+          if (pv != null) {
+            int offset = 0;
+            int offsetLast = counts[0] + counts[1];
+            // skip any ignored glyphs prior to first non-ignored glyph
+            for (; offset < offsetLast; ++offset) {
+              if (!ps.isIgnoredGlyph(offset)) {
+                break;
+              } else {
+                ps.consume(1);
               }
-              // adjust first non-ignored glyph if first value isn't null
-              Value v1 = pv.getValue1();
-              if (v1 != null) {
-                if (ps.adjust(v1, offset)) {
-                  ps.setAdjusted(true);
-                }
-                ps.consume(1);          // consume first non-ignored glyph
-                ++offset;
+            }
+            // adjust first non-ignored glyph if first value isn't null
+            Value v1 = pv.getValue1();
+            if (v1 != null) {
+              if (ps.adjust(v1, offset)) {
+                ps.setAdjusted(true);
               }
-              // skip any ignored glyphs prior to second non-ignored glyph
-              for (; offset < offsetLast; ++offset) {
-                if (!ps.isIgnoredGlyph(offset)) {
-                  break;
-                } else {
-                  ps.consume(1);
-                }
+              ps.consume(1);          // consume first non-ignored glyph
+              ++offset;
+            }
+            // skip any ignored glyphs prior to second non-ignored glyph
+            for (; offset < offsetLast; ++offset) {
+              if (!ps.isIgnoredGlyph(offset)) {
+                break;
+              } else {
+                ps.consume(1);
               }
-              // adjust second non-ignored glyph if second value isn't null
-              Value v2 = pv.getValue2();
-              if (v2 != null) {
-                if (ps.adjust(v2, offset)) {
-                  ps.setAdjusted(true);
-                }
-                ps.consume(1);          // consume second non-ignored glyph
-                ++offset;
+            }
+            // adjust second non-ignored glyph if second value isn't null
+            Value v2 = pv.getValue2();
+            if (v2 != null) {
+              if (ps.adjust(v2, offset)) {
+                ps.setAdjusted(true);
               }
-              applied = true;
+              ps.consume(1);          // consume second non-ignored glyph
+              ++offset;
             }
+            applied = true;
           }
         }
       }
@@ -702,32 +725,32 @@ public class GlyphPositioningTable extends GlyphTable {
       int gi = ps.getGlyph(0);
       int ci;
       if ((ci = getCoverageIndex(gi)) >= 0) {
-        int[] counts = ps.getGlyphsAvailable(0);
-        int nga = counts[0];
-        if (nga > 1) {
-          int[] iga = ps.getGlyphs(0, 2, null, counts);
-          if ((iga != null) && (iga.length == 2)) {
-            // int gi1 = gi;
-            int ci1 = ci;
-            int gi2 = iga[1];
-            int ci2 = getCoverageIndex(gi2);
-            Anchor[] aa = getExitEntryAnchors(ci1, ci2);
-            if (aa != null) {
-              Anchor exa = aa[0];
-              Anchor ena = aa[1];
-              // int exw = ps.getWidth ( gi1 );
-              int enw = ps.getWidth(gi2);
-              if ((exa != null) && (ena != null)) {
-                Value v = ena.getAlignmentAdjustment(exa);
-                v.adjust(-enw, 0, 0, 0);
-                if (ps.adjust(v)) {
-                  ps.setAdjusted(true);
-                }
+        GlyphScratchArena scratch = ps.getScratch();
+        int[] counts = scratch.getCounts();
+        int[] iga = scratch.getGlyphs(2);
+        if (ps.fetchGlyphs(0, 2, false, ps.getIgnoreDefault(), iga, counts) == 2) {
+          // int gi1 = gi;
+          int ci1 = ci;
+          int gi2 = iga[1];
+          int ci2 = getCoverageIndex(gi2);
+          Anchor[] aa = getExitEntryAnchors(ci1, ci2);
+          if (aa != null) {
+            Anchor exa = aa[0];
+            Anchor ena = aa[1];
+            // int exw = ps.getWidth ( gi1 );
+            int enw = ps.getWidth(gi2);
+            if ((exa != null) && (ena != null)) {
+              Value v = ena.getAlignmentAdjustment(exa);
+              v.adjust(-enw, 0, 0, 0);
+              // first glyph follows second glyph, skipping glyphs ignored between them
+              ps.attach(1 + counts[1], PositionBuffer.ATTACH_CURSIVE);
+              if (ps.adjust(v)) {
+                ps.setAdjusted(true);
               }
-              // consume only first glyph of exit/entry glyph pair
-              ps.consume(1);
-              applied = true;
             }
+            // consume only first glyph of exit/entry glyph pair
+            ps.consume(1);
+            applied = true;
           }
         }
       }
@@ -840,30 +863,24 @@ public class GlyphPositioningTable extends GlyphTable {
       int ciMark;
       if ((ciMark = getCoverageIndex(giMark)) >= 0) {
         MarkAnchor ma = getMarkAnchor(ciMark, giMark);
-        if (ma != null) {
-          for (int i = 0, n = ps.getPosition(); i < n; i++) {
-            int gi = ps.getGlyph(-(i + 1));
-            if (ps.isMark(gi)) {
-              continue;
-            } else {
-              Anchor a = getBaseAnchor(gi, ma.getMarkClass());
-              if (a != null) {
-                Value v = a.getAlignmentAdjustment(ma);
-                // start experimental fix for END OF AYAH in Lateef/Scheherazade
-                int[] aa = ps.getAdjustment();
-                if (aa[2] == 0) {
-                  v.adjust(0, 0, -ps.getWidth(giMark), 0);
-                }
-                // end experimental fix for END OF AYAH in Lateef/Scheherazade
-                if (ps.adjust(v)) {
-                  ps.setAdjusted(true);
-                }
-              }
-              ps.consume(1);
-              applied = true;
-              break;
+        int base;
+        if ((ma != null) && ((base = ps.getBasePosition()) >= 0)) {
+          int offset = base - ps.getPosition();
+          Anchor a = getBaseAnchor(ps.getGlyph(offset), ma.getMarkClass());
+          if (a != null) {
+            Value v = a.getAlignmentAdjustment(ma);
+            // start experimental fix for END OF AYAH in Lateef/Scheherazade
+            if (ps.getAdjustment(0, Value.IDX_X_ADVANCE) == 0) {
+              v.adjust(0, 0, -ps.getWidth(giMark), 0);
+            }
+            // end experimental fix for END OF AYAH in Lateef/Scheherazade
+            ps.attach(offset, PositionBuffer.ATTACH_MARK);
+            if (ps.adjust(v)) {
+              ps.setAdjusted(true);
             }
           }
+          ps.consume(1);
+          applied = true;
         }
       }
       return applied;
@@ -1013,23 +1030,18 @@ public class GlyphPositioningTable extends GlyphTable {
       if ((ciMark = getCoverageIndex(giMark)) >= 0) {
         MarkAnchor ma = getMarkAnchor(ciMark, giMark);
         int mxc = getMaxComponentCount();
-        if (ma != null) {
-          for (int i = 0, n = ps.getPosition(); i < n; i++) {
-            int gi = ps.getGlyph(-(i + 1));
-            if (ps.isMark(gi)) {
-              continue;
-            } else {
-              Anchor a = getLigatureAnchor(gi, mxc, i, ma.getMarkClass());
-              if (a != null) {
-                if (ps.adjust(a.getAlignmentAdjustment(ma))) {
-                  ps.setAdjusted(true);
-                }
-              }
-              ps.consume(1);
-              applied = true;
-              break;
+        int base;
+        if ((ma != null) && ((base = ps.getBasePosition()) >= 0)) {
+          int offset = base - ps.getPosition();
+          Anchor a = getLigatureAnchor(ps.getGlyph(offset), mxc, -(offset + 1), ma.getMarkClass());
+          if (a != null) {
+            ps.attach(offset, PositionBuffer.ATTACH_MARK);
+            if (ps.adjust(a.getAlignmentAdjustment(ma))) {
+              ps.setAdjusted(true);
             }
           }
+          ps.consume(1);
+          applied = true;
         }
       }
       return applied;
@@ -1209,6 +1221,7 @@ public class GlyphPositioningTable extends GlyphTable {
           if (ps.hasPrev()) {
             Anchor a = getMark2Anchor(ps.getGlyph(-1), ma.getMarkClass());
             if (a != null) {
+              ps.attach(-1, PositionBuffer.ATTACH_MARK);
               if (ps.adjust(a.getAlignmentAdjustment(ma))) {
                 ps.setAdjusted(true);
               }
@@ -1363,7 +1376,7 @@ public class GlyphPositioningTable extends GlyphTable {
       int gi = ps.getGlyph();
       int ci;
       if ((ci = getCoverageIndex(gi)) >= 0) {
-        int[] rv = new int[1];
+        int[] rv = ps.getScratch().getReturnValues();
         RuleLookup[] la = getLookups(ci, gi, ps, rv);
         if (la != null) {
           ps.apply(la, rv[0]);
@@ -1442,8 +1455,9 @@ public class GlyphPositioningTable extends GlyphTable {
             Rule r = ra[i];
             if ((r != null) && (r instanceof ChainedGlyphSequenceRule)) {
               ChainedGlyphSequenceRule cr = (ChainedGlyphSequenceRule) r;
-              int[] iga = cr.getGlyphs(gi);
-              if (matches(ps, iga, 0, rv)) {
+              int[] iga = ps.getScratch().getSequence(cr.getGlyphs().length + 1);
+              int nig = cr.getGlyphs(gi, iga);
+              if (matches(ps, iga, nig, 0, rv)) {
                 return r.getLookups();
               }
             }
@@ -1454,18 +1468,21 @@ public class GlyphPositioningTable extends GlyphTable {
     }
 
     static boolean matches(GlyphPositioningState ps, int[] glyphs, int offset, int[] rv) {
-      if ((glyphs == null) || (glyphs.length == 0)) {
+      return matches(ps, glyphs, (glyphs != null) ? glyphs.length : 0, offset, rv);
+    }
+
+    static boolean matches(GlyphPositioningState ps, int[] glyphs, int ngm, int offset, int[] rv) {
+      if ((glyphs == null) || (ngm == 0)) {
         return true;                            // match null or empty glyph sequence
       } else {
         boolean reverse = offset < 0;
         GlyphTester ignores = ps.getIgnoreDefault();
-        int[] counts = ps.getGlyphsAvailable(offset, reverse, ignores);
-        int nga = counts[0];
-        int ngm = glyphs.length;
-        if (nga < ngm) {
+        GlyphScratchArena scratch = ps.getScratch();
+        int[] counts = scratch.getCounts();
+        int[] ga = scratch.getGlyphs(ngm);
+        if (ps.fetchGlyphs(offset, ngm, reverse, ignores, ga, counts) < ngm) {
           return false;                       // insufficient glyphs available to match
         } else {
-          int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, null, counts);
           for (int k = 0; k < ngm; k++) {
             if (ga[k] != glyphs[k]) {
               return false;               // match fails at ga [ k ]
@@ -1540,8 +1557,9 @@ public class GlyphPositioningTable extends GlyphTable {
             Rule r = ra[i];
             if ((r != null) && (r instanceof ChainedClassSequenceRule)) {
               ChainedClassSequenceRule cr = (ChainedClassSequenceRule) r;
-              int[] ca = cr.getClasses(cdt.getClassIndex(gi, ps.getClassMatchSet(gi)));
-              if (matches(ps, cdt, ca, 0, rv)) {
+              int[] ca = ps.getScratch().getSequence(cr.getClasses().length + 1);
+              int nic = cr.getClasses(cdt.getClassIndex(gi, ps.getClassMatchSet(gi)), ca);
+              if (matches(ps, cdt, ca, nic, 0, rv)) {
                 return r.getLookups();
               }
             }
@@ -1552,18 +1570,21 @@ public class GlyphPositioningTable extends GlyphTable {
     }
 
     static boolean matches(GlyphPositioningState ps, GlyphClassTable cdt, int[] classes, int offset, int[] rv) {
-      if ((cdt == null) || (classes == null) || (classes.length == 0)) {
+      return matches(ps, cdt, classes, (classes != null) ? classes.length : 0, offset, rv);
+    }
+
+    static boolean matches(GlyphPositioningState ps, GlyphClassTable cdt, int[] classes, int ngm, int offset, int[] rv) {
+      if ((cdt == null) || (classes == null) || (ngm == 0)) {
         return true;                            // match null class definitions, null or empty class sequence
       } else {
         boolean reverse = offset < 0;
         GlyphTester ignores = ps.getIgnoreDefault();
-        int[] counts = ps.getGlyphsAvailable(offset, reverse, ignores);
-        int nga = counts[0];
-        int ngm = classes.length;
-        if (nga < ngm) {
+        GlyphScratchArena scratch = ps.getScratch();
+        int[] counts = scratch.getCounts();
+        int[] ga = scratch.getGlyphs(ngm);
+        if (ps.fetchGlyphs(offset, ngm, reverse, ignores, ga, counts) < ngm) {
           return false;                       // insufficient glyphs available to match
         } else {
-          int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, null, counts);
           for (int k = 0; k < ngm; k++) {
             int gi = ga[k];
             int ms = ps.getClassMatchSet(gi);
@@ -1673,13 +1694,13 @@ public class GlyphPositioningTable extends GlyphTable {
       } else {
         boolean reverse = offset < 0;
         GlyphTester ignores = ps.getIgnoreDefault();
-        int[] counts = ps.getGlyphsAvailable(offset, reverse, ignores);
-        int nga = counts[0];
         int ngm = gca.length;
-        if (nga < ngm) {
+        GlyphScratchArena scratch = ps.getScratch();
+        int[] counts = scratch.getCounts();
+        int[] ga = scratch.getGlyphs(ngm);
+        if (ps.fetchGlyphs(offset, ngm, reverse, ignores, ga, counts) < ngm) {
           return false;                       // insufficient glyphs available to match
         } else {
-          int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, null, counts);
           for (int k = 0; k < ngm; k++) {
             GlyphCoverageTable ct = gca[k];
             if (ct != null) {
@@ -1737,7 +1758,7 @@ public class GlyphPositioningTable extends GlyphTable {
       int gi = ps.getGlyph();
       int ci;
       if ((ci = getCoverageIndex(gi)) >= 0) {
-        int[] rv = new int[1];
+        int[] rv = ps.getScratch().getReturnValues();
         RuleLookup[] la = getLookups(ci, gi, ps, rv);
         if (la != null) {
           ps.apply(la, rv[0]);
@@ -1816,8 +1837,9 @@ public class GlyphPositioningTable extends GlyphTable {
             Rule r = ra[i];
             if ((r != null) && (r instanceof ChainedGlyphSequenceRule)) {
               ChainedGlyphSequenceRule cr = (ChainedGlyphSequenceRule) r;
-              int[] iga = cr.getGlyphs(gi);
-              if (matches(ps, iga, 0, rv)) {
+              int[] iga = ps.getScratch().getSequence(cr.getGlyphs().length + 1);
+              int nig = cr.getGlyphs(gi, iga);
+              if (matches(ps, iga, nig, 0, rv)) {
                 int[] bga = cr.getBacktrackGlyphs();
                 if (matches(ps, bga, -1, null)) {
                   int[] lga = cr.getLookaheadGlyphs();
@@ -1837,6 +1859,10 @@ public class GlyphPositioningTable extends GlyphTable {
       return ContextualSubtableFormat1.matches(ps, glyphs, offset, rv);
     }
 
+    private boolean matches(GlyphPositioningState ps, int[] glyphs, int ngm, int offset, int[] rv) {
+      return ContextualSubtableFormat1.matches(ps, glyphs, ngm, offset, rv);
+    }
+
     private void populate(List entries) {
       if (entries == null) {
         throw new AdvancedTypographicTableFormatException("illegal entries, must be non-null");
@@ -1902,8 +1928,9 @@ public class GlyphPositioningTable extends GlyphTable {
             Rule r = ra[i];
             if ((r != null) && (r instanceof ChainedClassSequenceRule)) {
               ChainedClassSequenceRule cr = (ChainedClassSequenceRule) r;
-              int[] ica = cr.getClasses(icdt.getClassIndex(gi, ps.getClassMatchSet(gi)));
-              if (matches(ps, icdt, ica, 0, rv)) {
+              int[] ica = ps.getScratch().getSequence(cr.getClasses().length + 1);
+              int nic = cr.getClasses(icdt.getClassIndex(gi, ps.getClassMatchSet(gi)), ica);
+              if (matches(ps, icdt, ica, nic, 0, rv)) {
                 int[] bca = cr.getBacktrackClasses();
                 if (matches(ps, bcdt, bca, -1, null)) {
                   int[] lca = cr.getLookaheadClasses();
@@ -1923,6 +1950,10 @@ public class GlyphPositioningTable extends GlyphTable {
       return ContextualSubtableFormat2.matches(ps, cdt, classes, offset, rv);
     }
 
+    private boolean matches(GlyphPositioningState ps, GlyphClassTable cdt, int[] classes, int ngm, int offset, int[] rv) {
+      return ContextualSubtableFormat2.matches(ps, cdt, classes, ngm, offset, rv);
+    }
+
     private void populate(List entries) {
       if (entries == null) {
         throw new AdvancedTypographicTableFormatException("illegal entries, must be non-null");
@@ -2262,47 +2293,69 @@ public class GlyphPositioningTable extends GlyphTable {
      * @return true if some adjustment was made
      */
     public boolean adjust(int[] adjustments, int fontSize) {
+      return adjust(adjustments, 0, fontSize);
+    }
+
+    /**
+     * Apply value to adjustments of a glyph in a position buffer using font size for device table adjustments.
+     *
+     * @param adjustments
+     *     position buffer
+     * @param index
+     *     index of glyph in position buffer
+     * @param fontSize
+     *     font size for device table adjustments
+     * @return true if some adjustment was made
+     */
+    public boolean adjust(PositionBuffer adjustments, int index, int fontSize) {
+      if ((index < 0) || (index >= adjustments.size())) {
+        throw new IndexOutOfBoundsException("index " + index + " out of range [0," + adjustments.size() + ")");
+      }
+      return adjust(adjustments.getValues(), index * PositionBuffer.STRIDE, fontSize);
+    }
+
+    private boolean adjust(int[] adjustments, int offset, int fontSize) {
       boolean adjust = false;
       int dv;
       if ((dv = xPlacement) != 0) {
-        adjustments[IDX_X_PLACEMENT] += dv;
+        adjustments[offset + IDX_X_PLACEMENT] += dv;
         adjust = true;
       }
       if ((dv = yPlacement) != 0) {
-        adjustments[IDX_Y_PLACEMENT] += dv;
+        adjustments[offset + IDX_Y_PLACEMENT] += dv;
         adjust = true;
       }
       if ((dv = xAdvance) != 0) {
-        adjustments[IDX_X_ADVANCE] += dv;
+        adjustments[offset + IDX_X_ADVANCE] += dv;
         adjust = true;
       }
       if ((dv = yAdvance) != 0) {
-        adjustments[IDX_Y_ADVANCE] += dv;
+        adjustments[offset + IDX_Y_ADVANCE] += dv;
         adjust = true;
       }
       if (fontSize != 0) {
         DeviceTable dt;
         if ((dt = xPlaDevice) != null) {
           if ((dv = dt.findAdjustment(fontSize)) != 0) {
-            adjustments[IDX_X_PLACEMENT] += dv;
+            adjustments[offset + IDX_X_PLACEMENT] += dv;
             adjust = true;
           }
         }
         if ((dt = yPlaDevice) != null) {
           if ((dv = dt.findAdjustment(fontSize)) != 0) {
-            adjustments[IDX_Y_PLACEMENT] += dv;
+            adjustments[offset + IDX_Y_PLACEMENT] += dv;
             adjust = true;
           }
         }
         if ((dt = xAdvDevice) != null) {
           if ((dv = dt.findAdjustment(fontSize)) != 0) {
-            adjustments[IDX_X_ADVANCE] += dv;
+            adjustments[offset + IDX_X_ADVANCE] += dv;
             adjust = true;
           }
         }
         if ((dt = yAdvDevice) != null) {
           if ((dv = dt.findAdjustment(fontSize)) != 0) {
-            adjustments[IDX_Y_ADVANCE] += dv;
+            adjustments[offset + IDX_Y_ADVANCE] += dv;
             adjust = true;
           }
         }
@@ -18,14 +18,13 @@
 package com.jaredrummler.fontreader.complexscripts.fonts;
 
 import com.jaredrummler.fontreader.complexscripts.util.CharAssociation;
+import com.jaredrummler.fontreader.complexscripts.util.CharAssociationBuffer;
 import com.jaredrummler.fontreader.util.GlyphSequence;
 import com.jaredrummler.fontreader.fonts.GlyphSubtable;
 import com.jaredrummler.fontreader.util.GlyphTester;
 import com.jaredrummler.fontreader.util.ScriptContextTester;
 
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * <p>The <code>GlyphProcessingState</code> implements a common, base state object used during glyph substitution
@@ -69,6 +68,12 @@ public class GlyphProcessingState {
   protected GlyphTester ignoreDefault;
   /** current subtable */
   private GlyphSubtable subtable;
+  /** combined ignore glyph testers, indexed by ignore lookup flags */
+  private GlyphTester[] combinedIgnoreTesters;
+  /** most recently used negated ignore glyph tester */
+  private NotGlyphTester ignoredTester;
+  /** scratch storage for glyph matching, shared with copies of this state */
+  private GlyphScratchArena scratch;
 
   /**
    * Construct default (reset) glyph processing state.
@@ -99,6 +104,23 @@ public class GlyphProcessingState {
     this.indexLast = gs.getGlyphCount();
     this.sct = sct;
     this.gct = (sct != null) ? sct.getTester(feature) : null;
+    createIgnoreTesters();
+  }
+
+  /**
+   * Construct glyph processing state using an existing state object using shallow copy
+   * except as follows: input glyph sequence is copied deep except for its characters array.
+   *
+   * @param s
+   *     existing processing state to copy from
+   */
+  protected GlyphProcessingState(GlyphProcessingState s) {
+    this(new GlyphSequence(s.igs), s.script, s.language, s.feature, s.sct);
+    setPosition(s.index);
+    this.scratch = s.getScratch();
+  }
+
+  private void createIgnoreTesters() {
     this.ignoreBase = new GlyphTester() {
 
       public boolean test(int gi, int flags) {
@@ -117,18 +139,7 @@ public class GlyphProcessingState {
         return isIgnoredMark(gi, flags);
       }
     };
-  }
-
-  /**
-   * Construct glyph processing state using an existing state object using shallow copy
-   * except as follows: input glyph sequence is copied deep except for its characters array.
-   *
-   * @param s
-   *     existing processing state to copy from
-   */
-  protected GlyphProcessingState(GlyphProcessingState s) {
-    this(new GlyphSequence(s.igs), s.script, s.language, s.feature, s.sct);
-    setPosition(s.index);
+    this.combinedIgnoreTesters = null;
   }
 
   /**
@@ -160,24 +171,9 @@ public class GlyphProcessingState {
     this.classMatchSet = 0; // @SuppressFBWarnings("URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
     this.sct = sct;
     this.gct = (sct != null) ? sct.getTester(feature) : null;
-    this.ignoreBase = new GlyphTester() {
-
-      public boolean test(int gi, int flags) {
-        return isIgnoredBase(gi, flags);
-      }
-    };
-    this.ignoreLigature = new GlyphTester() {
-
-      public boolean test(int gi, int flags) {
-        return isIgnoredLigature(gi, flags);
-      }
-    };
-    this.ignoreMark = new GlyphTester() {
-
-      public boolean test(int gi, int flags) {
-        return isIgnoredMark(gi, flags);
-      }
-    };
+    if (this.ignoreBase == null) {
+      createIgnoreTesters();
+    }
     this.ignoreDefault = null;
     this.subtable = null;
     return this;
@@ -281,6 +277,19 @@ public class GlyphProcessingState {
     }
   }
 
+  /**
+   * Obtain scratch storage for glyph matching. The arena is shared with copies of this state
+   * made for nested lookups, so its arrays must not be held across the application of a lookup.
+   *
+   * @return scratch arena
+   */
+  public GlyphScratchArena getScratch() {
+    if (scratch == null) {
+      scratch = new GlyphScratchArena();
+    }
+    return scratch;
+  }
+
   /**
    * Obtain current position index in input glyph sequence.
    *
@@ -537,7 +546,7 @@ public class GlyphProcessingState {
    * @param ignoreTester
    *     glyph tester to use to determine which glyphs are ignored (or null, in which case none are ignored)
    * @param glyphs
-   *     array to use to fetch glyphs
+   *     array to use to fetch glyphs, whose length is at least <code>count</code> (or null)
    * @param counts
    *     int[2] array to receive fetched glyph counts, where counts[0] will
    *     receive the number of glyphs obtained, and counts[1] will receive the number of glyphs
@@ -550,7 +559,7 @@ public class GlyphProcessingState {
   public int[] getGlyphs(int offset, int count, boolean reverseOrder, GlyphTester ignoreTester, int[] glyphs,
                          int[] counts) throws IndexOutOfBoundsException {
     if (count < 0) {
-      count = getGlyphsAvailable(offset, reverseOrder, ignoreTester)[0];
+      count = getGlyphsAvailable(offset, reverseOrder, ignoreTester, getScratch().getCounts())[0];
     }
     int start = index + offset;
     if (start < 0) {
@@ -562,9 +571,9 @@ public class GlyphProcessingState {
     }
     if (glyphs == null) {
       glyphs = new int[count];
-    } else if (glyphs.length != count) {
+    } else if (glyphs.length < count) {
       throw new IllegalArgumentException(
-          "glyphs array is non-null, but its length (" + glyphs.length + "), is not equal to count (" + count + ")");
+          "glyphs array is non-null, but its length (" + glyphs.length + "), is less than count (" + count + ")");
     }
     if (!reverseOrder) {
       return getGlyphsForward(start, count, ignoreTester, glyphs, counts);
@@ -629,7 +638,7 @@ public class GlyphProcessingState {
    * @param count
    *     number of glyphs to obtain
    * @param glyphs
-   *     array to use to fetch glyphs
+   *     array to use to fetch glyphs, whose length is at least <code>count</code> (or null)
    * @param counts
    *     int[2] array to receive fetched glyph counts, where counts[0] will
    *     receive the number of glyphs obtained, and counts[1] will receive the number of glyphs
@@ -654,6 +663,42 @@ public class GlyphProcessingState {
     return getGlyphs(0, indexLast - index, false, null, null, null);
   }
 
+  /**
+   * Fetch up to <code>count</code> glyphs starting at specified offset from current position, stopping
+   * early rather than failing if fewer glyphs are available. Unlike {@link #getGlyphsAvailable(int,
+   * boolean, GlyphTester)}, this never examines more of the input sequence than is needed to obtain
+   * <code>count</code> glyphs, so it is suited to matching short sequences in long runs.
+   *
+   * @param offset
+   *     from current position
+   * @param count
+   *     maximum number of glyphs to obtain
+   * @param reverseOrder
+   *     true if to obtain in reverse order
+   * @param ignoreTester
+   *     glyph tester to use to determine which glyphs are ignored (or null, in which case none are ignored)
+   * @param glyphs
+   *     array to receive glyphs, whose length is at least <code>count</code>
+   * @param counts
+   *     int[2] array to receive fetched glyph counts, where counts[0] will
+   *     receive the number of glyphs obtained, and counts[1] will receive the number of glyphs
+   *     ignored
+   * @return the number of glyphs obtained
+   */
+  public int fetchGlyphs(int offset, int count, boolean reverseOrder, GlyphTester ignoreTester, int[] glyphs,
+                         int[] counts) {
+    int start = index + offset;
+    if ((start < 0) || (start > indexLast) || (reverseOrder && (start == indexLast))) {
+      counts[0] = 0;
+      counts[1] = 0;
+    } else if (!reverseOrder) {
+      getGlyphsForward(start, count, ignoreTester, glyphs, counts);
+    } else {
+      getGlyphsReverse(start, count, ignoreTester, glyphs, counts);
+    }
+    return counts[0];
+  }
+
   /**
    * Obtain <code>count</code> ignored glyphs starting at specified offset from current position. If
    * <code>reverseOrder</code> is true, then glyphs are returned in reverse order starting at specified offset
@@ -668,7 +713,7 @@ public class GlyphProcessingState {
    * @param ignoreTester
    *     glyph tester to use to determine which glyphs are ignored (or null, in which case none are ignored)
    * @param glyphs
-   *     array to use to fetch glyphs
+   *     array to use to fetch glyphs, whose length is at least <code>count</code> (or null)
    * @param counts
    *     int[2] array to receive fetched glyph counts, where counts[0] will
    *     receive the number of glyphs obtained, and counts[1] will receive the number of glyphs
@@ -680,7 +725,7 @@ public class GlyphProcessingState {
    */
   public int[] getIgnoredGlyphs(int offset, int count, boolean reverseOrder, GlyphTester ignoreTester, int[] glyphs,
                                 int[] counts) throws IndexOutOfBoundsException {
-    return getGlyphs(offset, count, reverseOrder, new NotGlyphTester(ignoreTester), glyphs, counts);
+    return getGlyphs(offset, count, reverseOrder, getIgnoredTester(ignoreTester), glyphs, counts);
   }
 
   /**
@@ -764,17 +809,43 @@ public class GlyphProcessingState {
    */
   public int[] getGlyphsAvailable(int offset, boolean reverseOrder, GlyphTester ignoreTester)
       throws IndexOutOfBoundsException {
+    return getGlyphsAvailable(offset, reverseOrder, ignoreTester, new int[2]);
+  }
+
+  /**
+   * Determine number of glyphs available starting at specified offset from current position. If
+   * <code>reverseOrder</code> is true, then search backwards in input glyph sequence.
+   *
+   * @param offset
+   *     from current position
+   * @param reverseOrder
+   *     true if to obtain in reverse order
+   * @param ignoreTester
+   *     glyph tester to use to determine which glyphs to count (or null, in which case none are ignored)
+   * @param counts
+   *     int[2] array to receive counts, where counts[0] will receive the number of glyphs available, and
+   *     counts[1] will receive the number of glyphs ignored
+   * @return the specified counts array
+   * @throws IndexOutOfBoundsException
+   *     if offset or count results in an
+   *     invalid index into input glyph sequence
+   */
+  public int[] getGlyphsAvailable(int offset, boolean reverseOrder, GlyphTester ignoreTester, int[] counts)
+      throws IndexOutOfBoundsException {
     int start = index + offset;
     if ((start < 0) || (start > indexLast)) {
-      return new int[]{0, 0};
+      counts[0] = 0;
+      counts[1] = 0;
+      return counts;
     } else if (!reverseOrder) {
-      return getGlyphsAvailableForward(start, ignoreTester);
+      return getGlyphsAvailableForward(start, ignoreTester, counts);
     } else {
-      return getGlyphsAvailableReverse(start, ignoreTester);
+      return getGlyphsAvailableReverse(start, ignoreTester, counts);
     }
   }
 
-  private int[] getGlyphsAvailableForward(int start, GlyphTester ignoreTester) throws IndexOutOfBoundsException {
+  private int[] getGlyphsAvailableForward(int start, GlyphTester ignoreTester, int[] counts)
+      throws IndexOutOfBoundsException {
     int counted = 0;
     int ignored = 0;
     if (ignoreTester == null) {
@@ -793,10 +864,13 @@ public class GlyphProcessingState {
         }
       }
     }
-    return new int[]{counted, ignored};
+    counts[0] = counted;
+    counts[1] = ignored;
+    return counts;
   }
 
-  private int[] getGlyphsAvailableReverse(int start, GlyphTester ignoreTester) throws IndexOutOfBoundsException {
+  private int[] getGlyphsAvailableReverse(int start, GlyphTester ignoreTester, int[] counts)
+      throws IndexOutOfBoundsException {
     int counted = 0;
     int ignored = 0;
     if (ignoreTester == null) {
@@ -815,7 +889,9 @@ public class GlyphProcessingState {
         }
       }
     }
-    return new int[]{counted, ignored};
+    counts[0] = counted;
+    counts[1] = ignored;
+    return counts;
   }
 
   /**
@@ -868,7 +944,7 @@ public class GlyphProcessingState {
    * @param ignoreTester
    *     glyph tester to use to determine which glyphs are ignored (or null, in which case none are ignored)
    * @param associations
-   *     array to use to fetch associations
+   *     array to use to fetch associations, whose length is at least <code>count</code> (or null)
    * @param counts
    *     int[2] array to receive fetched association counts, where counts[0] will
    *     receive the number of associations obtained, and counts[1] will receive the number of glyphs whose
@@ -882,7 +958,7 @@ public class GlyphProcessingState {
                                            CharAssociation[] associations, int[] counts)
       throws IndexOutOfBoundsException {
     if (count < 0) {
-      count = getGlyphsAvailable(offset, reverseOrder, ignoreTester)[0];
+      count = getGlyphsAvailable(offset, reverseOrder, ignoreTester, getScratch().getCounts())[0];
     }
     int start = index + offset;
     if (start < 0) {
@@ -894,9 +970,9 @@ public class GlyphProcessingState {
     }
     if (associations == null) {
       associations = new CharAssociation[count];
-    } else if (associations.length != count) {
+    } else if (associations.length < count) {
       throw new IllegalArgumentException(
-          "associations array is non-null, but its length (" + associations.length + "), is not equal to count (" +
+          "associations array is non-null, but its length (" + associations.length + "), is less than count (" +
               count + ")");
     }
     if (!reverseOrder) {
@@ -997,7 +1073,7 @@ public class GlyphProcessingState {
    * @param ignoreTester
    *     glyph tester to use to determine which glyphs are ignored (or null, in which case none are ignored)
    * @param associations
-   *     array to use to fetch associations
+   *     array to use to fetch associations, whose length is at least <code>count</code> (or null)
    * @param counts
    *     int[2] array to receive fetched association counts, where counts[0] will
    *     receive the number of associations obtained, and counts[1] will receive the number of glyphs whose
@@ -1010,7 +1086,7 @@ public class GlyphProcessingState {
   public CharAssociation[] getIgnoredAssociations(int offset, int count, boolean reverseOrder, GlyphTester ignoreTester,
                                                   CharAssociation[] associations, int[] counts)
       throws IndexOutOfBoundsException {
-    return getAssociations(offset, count, reverseOrder, new NotGlyphTester(ignoreTester), associations, counts);
+    return getAssociations(offset, count, reverseOrder, getIgnoredTester(ignoreTester), associations, counts);
   }
 
   /**
@@ -1075,22 +1151,24 @@ public class GlyphProcessingState {
     }
     int ng = nig + gsCount - count;
     IntBuffer gb = IntBuffer.allocate(ng);
-    List al = new ArrayList(ng);
+    CharAssociationBuffer ab = new CharAssociationBuffer(ng);
     for (int i = 0, n = position; i < n; i++) {
       gb.put(igs.getGlyph(i));
-      al.add(igs.getAssociation(i));
     }
+    ab.add(igs.getAssociationBuffer(), 0, position);
     for (int i = gsOffset, n = gsOffset + gsCount; i < n; i++) {
       gb.put(gs.getGlyph(i));
-      al.add(gs.getAssociation(i));
+    }
+    if (gsCount > 0) {
+      ab.add(gs.getAssociationBuffer(), gsOffset, gsOffset + gsCount);
     }
     for (int i = position + count, n = nig; i < n; i++) {
       gb.put(igs.getGlyph(i));
-      al.add(igs.getAssociation(i));
     }
+    ab.add(igs.getAssociationBuffer(), position + count, nig);
     gb.flip();
     if (igs.compareGlyphs(gb) != 0) {
-      this.igs = new GlyphSequence(igs.getCharacters(), gb, al);
+      this.igs = new GlyphSequence(igs.getCharacters(), gb, ab, false);
       this.indexLast = gb.limit();
       return true;
     } else {
@@ -1309,18 +1387,47 @@ public class GlyphProcessingState {
    * @return a glyph tester
    */
   public GlyphTester getCombinedIgnoreTester(int flags) {
-    GlyphTester[] gta = new GlyphTester[3];
-    int ngt = 0;
+    int key = (flags & (GlyphSubtable.LF_IGNORE_BASE | GlyphSubtable.LF_IGNORE_LIGATURE
+        | GlyphSubtable.LF_IGNORE_MARK)) >> 1;
+    if (combinedIgnoreTesters == null) {
+      combinedIgnoreTesters = new GlyphTester[8];
+    }
+    GlyphTester gt = combinedIgnoreTesters[key];
+    if (gt == null) {
+      gt = createCombinedIgnoreTester(flags);
+      combinedIgnoreTesters[key] = gt;
+    }
+    return gt;
+  }
+
+  private GlyphTester createCombinedIgnoreTester(int flags) {
+    // one bit per ignored glyph class, so each glyph is tested with a single class lookup
+    int classes = 0;
     if ((flags & GlyphSubtable.LF_IGNORE_BASE) != 0) {
-      gta[ngt++] = ignoreBase;
+      classes |= 1 << GlyphDefinitionTable.GLYPH_CLASS_BASE;
     }
     if ((flags & GlyphSubtable.LF_IGNORE_LIGATURE) != 0) {
-      gta[ngt++] = ignoreLigature;
+      classes |= 1 << GlyphDefinitionTable.GLYPH_CLASS_LIGATURE;
     }
     if ((flags & GlyphSubtable.LF_IGNORE_MARK) != 0) {
-      gta[ngt++] = ignoreMark;
+      classes |= 1 << GlyphDefinitionTable.GLYPH_CLASS_MARK;
+    }
+    final int ignoredClasses = classes;
+    return new GlyphTester() {
+
+      public boolean test(int gi, int flags) {
+        return isIgnoredClass(gi, ignoredClasses);
+      }
+    };
+  }
+
+  private boolean isIgnoredClass(int gi, int classes) {
+    if (gdef != null) {
+      int gc = gdef.getGlyphClass(gi);
+      return (gc > 0) && (gc < 32) && (((classes >> gc) & 1) != 0);
+    } else {
+      return false;
     }
-    return getCombinedOrTester(gta, ngt);
   }
 
   /**
@@ -1407,10 +1514,17 @@ public class GlyphProcessingState {
     }
   }
 
+  private GlyphTester getIgnoredTester(GlyphTester ignoreTester) {
+    if ((ignoredTester == null) || (ignoredTester.gt != ignoreTester)) {
+      ignoredTester = new NotGlyphTester(ignoreTester);
+    }
+    return ignoredTester;
+  }
+
   /** NOT glyph tester */
   private static class NotGlyphTester implements GlyphTester {
 
-    private GlyphTester gt;
+    private final GlyphTester gt;
 
     NotGlyphTester(GlyphTester gt) {
       this.gt = gt;
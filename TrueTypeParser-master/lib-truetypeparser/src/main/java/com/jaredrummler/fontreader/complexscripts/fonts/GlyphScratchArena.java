@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.fonts;
+
+/**
+ * <p>Reusable scratch storage for glyph matching, owned by a {@link GlyphProcessingState} and
+ * shared with the copies of that state made for nested lookups.</p>
+ *
+ * <p>Arrays handed out by an arena remain owned by it: their contents are only valid until the
+ * next request for the same kind of array, and they may be longer than requested. Arrays grow
+ * geometrically to the longest sequence matched, so once a run has warmed up, matching a
+ * glyph allocates nothing.</p>
+ */
+public final class GlyphScratchArena {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** counts of fetched and ignored glyphs */
+  private final int[] counts = new int[2];
+  /** multiple return values of rule lookups */
+  private final int[] returnValues = new int[1];
+  /** glyphs fetched from the input sequence */
+  private int[] glyphs = new int[DEFAULT_CAPACITY];
+  /** rule sequence augmented by its first glyph or class */
+  private int[] sequence = new int[DEFAULT_CAPACITY];
+
+  /**
+   * Obtain an int[2] array to receive fetched glyph counts.
+   *
+   * @return the counts array
+   */
+  public int[] getCounts() {
+    return counts;
+  }
+
+  /**
+   * Obtain an int[1] array to receive the input sequence length of a matched rule.
+   *
+   * @return the return values array
+   */
+  public int[] getReturnValues() {
+    return returnValues;
+  }
+
+  /**
+   * Obtain an array to receive glyphs fetched from the input sequence.
+   *
+   * @param count
+   *     minimum length of array
+   * @return an array whose length is at least <code>count</code>
+   */
+  public int[] getGlyphs(int count) {
+    if (glyphs.length < count) {
+      glyphs = new int[Math.max(count, glyphs.length * 2)];
+    }
+    return glyphs;
+  }
+
+  /**
+   * Obtain an array to receive a rule's glyph or class sequence.
+   *
+   * @param count
+   *     minimum length of array
+   * @return an array whose length is at least <code>count</code>
+   */
+  public int[] getSequence(int count) {
+    if (sequence.length < count) {
+      sequence = new int[Math.max(count, sequence.length * 2)];
+    }
+    return sequence;
+  }
+
+}
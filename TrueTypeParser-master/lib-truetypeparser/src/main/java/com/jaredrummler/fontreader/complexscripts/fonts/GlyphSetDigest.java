@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.fonts;
+
+import com.jaredrummler.fontreader.util.GlyphSequence;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>A compact, conservative digest of a set of glyph identifiers.</p>
+ *
+ * <p>The digest records each glyph as one bit in each of three 64-bit masks, indexed by the glyph
+ * identifier shifted right by 0, 4 and 9 bits respectively. Two digests whose masks are disjoint in any
+ * of the three positions cannot share a glyph; otherwise they may, so a digest answers "no" exactly
+ * and "maybe" approximately. Ranges of glyphs, as found in coverage tables, set contiguous bits.</p>
+ */
+public final class GlyphSetDigest {
+
+  private static final int SHIFT_1 = 0;
+  private static final int SHIFT_2 = 4;
+  private static final int SHIFT_3 = 9;
+
+  private long mask1;
+  private long mask2;
+  private long mask3;
+
+  /** Instantiate an empty digest. */
+  public GlyphSetDigest() {
+  }
+
+  /**
+   * Instantiate a digest of the glyphs of a glyph sequence.
+   *
+   * @param gs
+   *     a glyph sequence
+   */
+  public GlyphSetDigest(GlyphSequence gs) {
+    add(gs);
+  }
+
+  /**
+   * Add a glyph to this digest.
+   *
+   * @param gid
+   *     glyph identifier
+   */
+  public void add(int gid) {
+    mask1 |= 1L << ((gid >> SHIFT_1) & 63);
+    mask2 |= 1L << ((gid >> SHIFT_2) & 63);
+    mask3 |= 1L << ((gid >> SHIFT_3) & 63);
+  }
+
+  /**
+   * Add a range of glyphs to this digest.
+   *
+   * @param first
+   *     first glyph identifier of range
+   * @param last
+   *     last glyph identifier of range (inclusive)
+   */
+  public void addRange(int first, int last) {
+    if (first <= last) {
+      mask1 |= rangeMask(first >> SHIFT_1, last >> SHIFT_1);
+      mask2 |= rangeMask(first >> SHIFT_2, last >> SHIFT_2);
+      mask3 |= rangeMask(first >> SHIFT_3, last >> SHIFT_3);
+    }
+  }
+
+  private static long rangeMask(int a, int b) {
+    if ((b - a) >= 63) {
+      return -1L;
+    }
+    long ma = 1L << (a & 63);
+    long mb = 1L << (b & 63);
+    if ((a & 63) <= (b & 63)) {
+      return (mb - ma) | mb;
+    } else {
+      return -ma | mb | (mb - 1);
+    }
+  }
+
+  /**
+   * Add the glyphs of a glyph sequence to this digest.
+   *
+   * @param gs
+   *     a glyph sequence
+   */
+  public void add(GlyphSequence gs) {
+    for (int i = 0, n = gs.getGlyphCount(); i < n; i++) {
+      add(gs.getGlyph(i));
+    }
+  }
+
+  /**
+   * Add the glyphs of a coverage mapping to this digest. If the glyphs of the mapping cannot be
+   * enumerated, then this digest is filled.
+   *
+   * @param coverage
+   *     a coverage mapping (or null)
+   */
+  public void add(GlyphCoverageMapping coverage) {
+    if (!(coverage instanceof GlyphMappingTable)) {
+      fill();
+      return;
+    }
+    List<?> entries = ((GlyphMappingTable) coverage).getEntries();
+    if (entries != null) {
+      for (Iterator<?> it = entries.iterator(); it.hasNext(); ) {
+        Object o = it.next();
+        if (o instanceof Integer) {
+          add((Integer) o);
+        } else if (o instanceof GlyphMappingTable.MappingRange) {
+          GlyphMappingTable.MappingRange r = (GlyphMappingTable.MappingRange) o;
+          addRange(r.getStart(), r.getEnd());
+        } else {
+          fill();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Add the glyphs of another digest to this digest.
+   *
+   * @param digest
+   *     a digest
+   */
+  public void add(GlyphSetDigest digest) {
+    mask1 |= digest.mask1;
+    mask2 |= digest.mask2;
+    mask3 |= digest.mask3;
+  }
+
+  /** Fill this digest, such that it may contain any glyph. */
+  public void fill() {
+    mask1 = -1L;
+    mask2 = -1L;
+    mask3 = -1L;
+  }
+
+  /** @return true if this digest contains no glyph */
+  public boolean isEmpty() {
+    return (mask1 | mask2 | mask3) == 0;
+  }
+
+  /**
+   * Determine if this digest may contain a glyph.
+   *
+   * @param gid
+   *     glyph identifier
+   * @return false if this digest definitely does not contain the glyph; otherwise, true
+   */
+  public boolean mayContain(int gid) {
+    return ((mask1 & (1L << ((gid >> SHIFT_1) & 63))) != 0)
+        && ((mask2 & (1L << ((gid >> SHIFT_2) & 63))) != 0)
+        && ((mask3 & (1L << ((gid >> SHIFT_3) & 63))) != 0);
+  }
+
+  /**
+   * Determine if this digest may share a glyph with another digest.
+   *
+   * @param digest
+   *     a digest
+   * @return false if the digests definitely share no glyph; otherwise, true
+   */
+  public boolean mayIntersect(GlyphSetDigest digest) {
+    return ((mask1 & digest.mask1) != 0) && ((mask2 & digest.mask2) != 0) && ((mask3 & digest.mask3) != 0);
+  }
+
+  /** {@inheritDoc} */
+  public String toString() {
+    return "{ " + Long.toHexString(mask1) + ", " + Long.toHexString(mask2) + ", " + Long.toHexString(mask3) + " }";
+  }
+
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.fonts;
+
+/**
+ * <p>A reusable buffer of glyph position adjustments, packed into a single <code>int</code> array.</p>
+ *
+ * <p>The buffer holds one 4-tuple of placement [PX,PY] and advance [AX,AY] adjustments for each element of a
+ * glyph sequence, in that order, stored at <code>index * STRIDE</code> and indexed within the tuple by
+ * {@link GlyphPositioningTable.Value#IDX_X_PLACEMENT} and related constants. A buffer may be {@link #reset}
+ * and reused for any number of runs; its array grows to the longest run positioned. The <code>int[][]</code>
+ * form used by older positioning methods is available through {@link #fromArray}, {@link #copyTo} and
+ * {@link #toArray}.</p>
+ *
+ * <p>Mark and cursive attachment lookups do not chase their attachment chains while they apply; instead they
+ * {@link #attach} a glyph to its parent, and {@link #resolveAttachments} adds the placement of each parent to its
+ * attached children in a single pass once all lookups of a run have applied, such that stacked marks and chains of
+ * cursive glyphs follow the glyphs they are attached to. Attaching a glyph clears the placement it follows from its
+ * parent, so a glyph attached again by a later lookup, e.g., a mark attached to its base by <code>mark</code> and
+ * then to a preceding mark by <code>mkmk</code>, is placed relative to its last parent only.</p>
+ */
+public final class PositionBuffer {
+
+  /** Number of values per glyph. */
+  public static final int STRIDE = 4;
+
+  /** No attachment. */
+  public static final int ATTACH_NONE = 0;
+  /** Mark attachment, where the child follows both placements of its parent. */
+  public static final int ATTACH_MARK = 1;
+  /** Cursive attachment, where the child follows the cross-stream (Y) placement of its parent. */
+  public static final int ATTACH_CURSIVE = 2;
+
+  private int[] values;
+  private int size;
+  /** parent glyph index of each glyph, valid where its attachment type is not ATTACH_NONE; lazily allocated */
+  private int[] parents;
+  /** attachment type of each glyph, negated while being resolved; lazily allocated */
+  private byte[] attachTypes;
+  /** scratch stack of glyph indices used while resolving */
+  private int[] chain;
+  /** true if some attachment is recorded */
+  private boolean attached;
+
+  /** Instantiate an empty buffer. */
+  public PositionBuffer() {
+    this(0);
+  }
+
+  /**
+   * Instantiate a buffer of zero adjustments.
+   *
+   * @param size
+   *     number of glyphs
+   */
+  public PositionBuffer(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("size must be non-negative: " + size);
+    }
+    this.values = new int[size * STRIDE];
+    this.size = size;
+  }
+
+  /**
+   * Instantiate a buffer holding a copy of an array of adjustments.
+   *
+   * @param adjustments
+   *     array (sequence) of 4-tuples of placement [PX,PY] and advance [AX,AY] adjustments
+   * @return a new buffer
+   */
+  public static PositionBuffer fromArray(int[][] adjustments) {
+    PositionBuffer pb = new PositionBuffer(adjustments.length);
+    pb.copyFrom(adjustments);
+    return pb;
+  }
+
+  /**
+   * Reset this buffer to hold zero adjustments for a number of glyphs, growing it if necessary.
+   *
+   * @param size
+   *     number of glyphs
+   * @return this buffer
+   */
+  public PositionBuffer reset(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("size must be non-negative: " + size);
+    }
+    clearAttachments();
+    int n = size * STRIDE;
+    if (values.length < n) {
+      values = new int[Math.max(n, values.length * 2)];
+    } else {
+      for (int i = 0; i < n; i++) {
+        values[i] = 0;
+      }
+    }
+    this.size = size;
+    return this;
+  }
+
+  /** @return number of glyphs */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Obtain the packed values of this buffer. The array may be longer than <code>size() * STRIDE</code>, and is
+   * replaced if the buffer grows.
+   *
+   * @return the packed values array
+   */
+  public int[] getValues() {
+    return values;
+  }
+
+  /**
+   * Obtain an adjustment.
+   *
+   * @param index
+   *     glyph index
+   * @param component
+   *     index within 4-tuple, e.g., {@link GlyphPositioningTable.Value#IDX_X_ADVANCE}
+   * @return the adjustment
+   */
+  public int get(int index, int component) {
+    return values[offset(index, component)];
+  }
+
+  /**
+   * Set an adjustment.
+   *
+   * @param index
+   *     glyph index
+   * @param component
+   *     index within 4-tuple, e.g., {@link GlyphPositioningTable.Value#IDX_X_ADVANCE}
+   * @param value
+   *     the adjustment
+   */
+  public void set(int index, int component, int value) {
+    values[offset(index, component)] = value;
+  }
+
+  /**
+   * Add to an adjustment.
+   *
+   * @param index
+   *     glyph index
+   * @param component
+   *     index within 4-tuple, e.g., {@link GlyphPositioningTable.Value#IDX_X_ADVANCE}
+   * @param delta
+   *     amount to add
+   */
+  public void add(int index, int component, int delta) {
+    values[offset(index, component)] += delta;
+  }
+
+  private int offset(int index, int component) {
+    checkIndex(index);
+    return index * STRIDE + component;
+  }
+
+  private void checkIndex(int index) {
+    if ((index < 0) || (index >= size)) {
+      throw new IndexOutOfBoundsException("index " + index + " out of range [0," + size + ")");
+    }
+  }
+
+  /**
+   * Record the attachment of a glyph to a parent glyph, replacing any attachment already recorded for it. The
+   * placement the glyph follows from its parent, [PX,PY] for {@link #ATTACH_MARK} and [PY] for
+   * {@link #ATTACH_CURSIVE}, is cleared, so the anchor adjustment applied after attaching is relative to the new
+   * parent and replaces any made relative to an earlier one.
+   *
+   * @param index
+   *     glyph index of attached (child) glyph
+   * @param parent
+   *     glyph index of parent glyph
+   * @param type
+   *     attachment type, {@link #ATTACH_MARK} or {@link #ATTACH_CURSIVE}
+   */
+  public void attach(int index, int parent, int type) {
+    checkIndex(index);
+    checkIndex(parent);
+    if ((type != ATTACH_MARK) && (type != ATTACH_CURSIVE)) {
+      throw new IllegalArgumentException("invalid attachment type: " + type);
+    }
+    if ((parents == null) || (parents.length < size)) {
+      int n = values.length / STRIDE;
+      parents = new int[n];
+      attachTypes = new byte[n];
+      chain = new int[n];
+    }
+    parents[index] = parent;
+    attachTypes[index] = (byte) type;
+    attached = true;
+    int c = index * STRIDE;
+    if (type == ATTACH_MARK) {
+      values[c + GlyphPositioningTable.Value.IDX_X_PLACEMENT] = 0;
+    }
+    values[c + GlyphPositioningTable.Value.IDX_Y_PLACEMENT] = 0;
+  }
+
+  /**
+   * Obtain the parent of an attached glyph.
+   *
+   * @param index
+   *     glyph index
+   * @return glyph index of parent glyph, or -1 if no attachment is recorded for the glyph
+   */
+  public int getAttachParent(int index) {
+    checkIndex(index);
+    return (getAttachType(index) != ATTACH_NONE) ? parents[index] : -1;
+  }
+
+  /**
+   * Obtain the attachment type of a glyph.
+   *
+   * @param index
+   *     glyph index
+   * @return attachment type, or {@link #ATTACH_NONE} if no attachment is recorded for the glyph
+   */
+  public int getAttachType(int index) {
+    checkIndex(index);
+    return attached ? Math.abs(attachTypes[index]) : ATTACH_NONE;
+  }
+
+  /**
+   * Resolve recorded attachments, adding the final placement of each parent glyph to its attached children, and
+   * then clear the attachments. Every glyph is visited at most twice, regardless of the depth of attachment chains;
+   * a cyclic chain is cut where it closes.
+   *
+   * @return true if some attachment was resolved
+   */
+  public boolean resolveAttachments() {
+    if (!attached) {
+      return false;
+    }
+    int[] pv = values;
+    for (int i = 0; i < size; i++) {
+      if (attachTypes[i] <= 0) {
+        continue;
+      }
+      // walk up unresolved links to a root, marking each link in progress
+      int depth = 0;
+      int j = i;
+      while (attachTypes[j] > 0) {
+        attachTypes[j] = (byte) -attachTypes[j];
+        chain[depth++] = j;
+        j = parents[j];
+      }
+      // resolve from root back down to glyph i
+      while (depth > 0) {
+        int k = chain[--depth];
+        int p = parents[k] * STRIDE;
+        int c = k * STRIDE;
+        if (attachTypes[k] == -ATTACH_MARK) {
+          pv[c + GlyphPositioningTable.Value.IDX_X_PLACEMENT] += pv[p + GlyphPositioningTable.Value.IDX_X_PLACEMENT];
+        }
+        pv[c + GlyphPositioningTable.Value.IDX_Y_PLACEMENT] += pv[p + GlyphPositioningTable.Value.IDX_Y_PLACEMENT];
+        attachTypes[k] = ATTACH_NONE;
+      }
+    }
+    attached = false;
+    return true;
+  }
+
+  private void clearAttachments() {
+    if (attached) {
+      for (int i = 0, n = Math.min(attachTypes.length, size); i < n; i++) {
+        attachTypes[i] = ATTACH_NONE;
+      }
+      attached = false;
+    }
+  }
+
+  /** @return true if some adjustment is not zero */
+  public boolean isAdjusted() {
+    for (int i = 0, n = size * STRIDE; i < n; i++) {
+      if (values[i] != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Copy adjustments from an array, whose length must equal the size of this buffer.
+   *
+   * @param adjustments
+   *     array (sequence) of 4-tuples of placement [PX,PY] and advance [AX,AY] adjustments
+   */
+  public void copyFrom(int[][] adjustments) {
+    checkLength(adjustments);
+    for (int i = 0, k = 0; i < size; i++, k += STRIDE) {
+      System.arraycopy(adjustments[i], 0, values, k, STRIDE);
+    }
+  }
+
+  /**
+   * Copy adjustments to an array, whose length must equal the size of this buffer.
+   *
+   * @param adjustments
+   *     array (sequence) of 4-tuples of placement [PX,PY] and advance [AX,AY] adjustments
+   */
+  public void copyTo(int[][] adjustments) {
+    checkLength(adjustments);
+    for (int i = 0, k = 0; i < size; i++, k += STRIDE) {
+      System.arraycopy(values, k, adjustments[i], 0, STRIDE);
+    }
+  }
+
+  private void checkLength(int[][] adjustments) {
+    if (adjustments.length != size) {
+      throw new IllegalArgumentException(
+          "adjustments length " + adjustments.length + " does not match buffer size " + size);
+    }
+  }
+
+  /** @return a new array (sequence) of 4-tuples holding the adjustments of this buffer */
+  public int[][] toArray() {
+    int[][] adjustments = new int[size][STRIDE];
+    copyTo(adjustments);
+    return adjustments;
+  }
+
+}
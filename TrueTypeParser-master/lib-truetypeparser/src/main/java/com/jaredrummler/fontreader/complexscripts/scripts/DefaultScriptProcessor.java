@@ -17,7 +17,6 @@
 
 package com.jaredrummler.fontreader.complexscripts.scripts;
 
-import com.jaredrummler.fontreader.complexscripts.util.CharAssociation;
 import com.jaredrummler.fontreader.util.GlyphSequence;
 import com.jaredrummler.fontreader.util.ScriptContextTester;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphDefinitionTable;
@@ -90,57 +89,31 @@ public class DefaultScriptProcessor extends ScriptProcessor {
     }
     // only reorder if there is at least one mark and at least one non-mark glyph
     if ((nm > 0) && ((ng - nm) > 0)) {
-      CharAssociation[] aa = gs.getAssociations(0, -1);
-      int[] nga = new int[ng];
+      int[] order = new int[ng];
       int[][] npa = (gpa != null) ? new int[ng][] : null;
-      CharAssociation[] naa = new CharAssociation[ng];
       int k = 0;
-      CharAssociation ba = null;
-      int bg = -1;
-      int[] bpa = null;
+      int bi = -1;
       for (int i = 0; i < ng; i++) {
-        int gid = ga[i];
-        int[] pa = (gpa != null) ? gpa[i] : null;
-        CharAssociation ca = aa[i];
         if (isReorderedMark(gdef, ga, unscaledWidths, i)) {
-          nga[k] = gid;
-          naa[k] = ca;
-          if (npa != null) {
-            npa[k] = pa;
-          }
-          k++;
+          order[k++] = i;
         } else {
-          if (bg != -1) {
-            nga[k] = bg;
-            naa[k] = ba;
-            if (npa != null) {
-              npa[k] = bpa;
-            }
-            k++;
-            bg = -1;
-            ba = null;
-            bpa = null;
-          }
-          if (bg == -1) {
-            bg = gid;
-            ba = ca;
-            bpa = pa;
+          if (bi != -1) {
+            order[k++] = bi;
           }
+          bi = i;
         }
       }
-      if (bg != -1) {
-        nga[k] = bg;
-        naa[k] = ba;
-        if (npa != null) {
-          npa[k] = bpa;
-        }
-        k++;
+      if (bi != -1) {
+        order[k++] = bi;
       }
       assert k == ng;
       if (npa != null) {
+        for (int i = 0; i < ng; i++) {
+          npa[i] = gpa[order[i]];
+        }
         System.arraycopy(npa, 0, gpa, 0, ng);
       }
-      return new GlyphSequence(gs, null, nga, null, null, naa, null);
+      return GlyphSequence.select(gs, order, ng);
     } else {
       return gs;
     }
@@ -17,12 +17,14 @@
 
 package com.jaredrummler.fontreader.complexscripts.scripts;
 
-import com.jaredrummler.fontreader.complexscripts.util.CharAssociation;
+import com.jaredrummler.fontreader.complexscripts.util.CharAssociationBuffer;
 import com.jaredrummler.fontreader.complexscripts.util.CharScript;
 import com.jaredrummler.fontreader.util.GlyphSequence;
 import com.jaredrummler.fontreader.truetype.GlyphTable;
 import com.jaredrummler.fontreader.util.ScriptContextTester;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphContextTester;
+import com.jaredrummler.fontreader.complexscripts.fonts.GlyphSetDigest;
+import com.jaredrummler.fontreader.complexscripts.fonts.PositionBuffer;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -182,12 +184,14 @@ public class IndicScriptProcessor extends DefaultScriptProcessor {
     // 2. process each syllable
     for (int i = 0, n = sa.length; i < n; i++) {
       GlyphSequence s = sa[i];
+      GlyphSetDigest digest = new GlyphSetDigest(s);
       // apply basic shaping subs
       for (int j = 0, m = usa.length; j < m; j++) {
         GlyphTable.UseSpec us = usa[j];
-        if (isBasicShapingUse(us)) {
+        if (isBasicShapingUse(us) && us.getLookupTable().mayApply(digest)) {
           s.setPredications(true);
           s = us.substitute(s, script, language, sct);
+          digest.add(s);
         }
       }
       // reorder pre-base matra
@@ -197,9 +201,10 @@ public class IndicScriptProcessor extends DefaultScriptProcessor {
       // apply presentation subs
       for (int j = 0, m = usa.length; j < m; j++) {
         GlyphTable.UseSpec us = usa[j];
-        if (isPresentationUse(us)) {
+        if (isPresentationUse(us) && us.getLookupTable().mayApply(digest)) {
           s.setPredications(true);
           s = us.substitute(s, script, language, sct);
+          digest.add(s);
         }
       }
       // record result
@@ -365,7 +370,7 @@ public class IndicScriptProcessor extends DefaultScriptProcessor {
   /** {@inheritDoc} */
   @Override
   public boolean position(GlyphSequence gs, String script, String language, int fontSize, GlyphTable.UseSpec[] usa,
-                          int[] widths, int[][] adjustments, ScriptContextTester sct) {
+                          int[] widths, PositionBuffer adjustments, ScriptContextTester sct) {
     boolean adjusted = super.position(gs, script, language, fontSize, usa, widths, adjustments, sct);
     return adjusted;
   }
@@ -536,23 +541,19 @@ public class IndicScriptProcessor extends DefaultScriptProcessor {
      */
     protected GlyphSequence[] segmentize(GlyphSequence gs, Segment[] sa) {
       int ng = gs.getGlyphCount();
-      int[] ga = gs.getGlyphArray(false);
-      CharAssociation[] aa = gs.getAssociations(0, -1);
+      CharAssociationBuffer ab = gs.getAssociationBuffer();
+      int[] selected = new int[ng];
       Vector<GlyphSequence> nsv = new Vector<GlyphSequence>();
       for (int i = 0, ns = sa.length; i < ns; i++) {
         Segment s = sa[i];
-        Vector<Integer> ngv = new Vector<Integer>(ng);
-        Vector<CharAssociation> nav = new Vector<CharAssociation>(ng);
+        int k = 0;
         for (int j = 0; j < ng; j++) {
-          CharAssociation ca = aa[j];
-          if (ca.contained(s.getOffset(), s.getCount())) {
-            ngv.add(ga[j]);
-            nav.add(ca);
+          if (ab.contained(j, s.getOffset(), s.getCount())) {
+            selected[k++] = j;
           }
         }
-        if (ngv.size() > 0) {
-          nsv.add(new GlyphSequence(gs, null, toIntArray(ngv), null, null, nav.toArray(new CharAssociation[nav.size()]),
-              null));
+        if (k > 0) {
+          nsv.add(GlyphSequence.select(gs, selected, k));
         }
       }
       if (nsv.size() > 0) {
@@ -591,15 +592,6 @@ public class IndicScriptProcessor extends DefaultScriptProcessor {
     protected int findEndOfSyllable(int[] ca, int s, int e) {
       return s;
     }
-
-    private static int[] toIntArray(Vector<Integer> iv) {
-      int ni = iv.size();
-      int[] ia = new int[iv.size()];
-      for (int i = 0, n = ni; i < n; i++) {
-        ia[i] = iv.get(i);
-      }
-      return ia;
-    }
   }
 
   /** Syllabic segment. */
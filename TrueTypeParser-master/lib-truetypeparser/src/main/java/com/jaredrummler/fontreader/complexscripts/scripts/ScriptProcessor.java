@@ -21,6 +21,8 @@ import com.jaredrummler.fontreader.fonts.GlyphSubstitutionTable;
 import com.jaredrummler.fontreader.truetype.GlyphTable;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphDefinitionTable;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphPositioningTable;
+import com.jaredrummler.fontreader.complexscripts.fonts.GlyphSetDigest;
+import com.jaredrummler.fontreader.complexscripts.fonts.PositionBuffer;
 import com.jaredrummler.fontreader.complexscripts.util.CharScript;
 import com.jaredrummler.fontreader.util.GlyphSequence;
 import com.jaredrummler.fontreader.util.ScriptContextTester;
@@ -125,9 +127,17 @@ public abstract class ScriptProcessor {
   public GlyphSequence substitute(GlyphSequence gs, String script, String language, GlyphTable.UseSpec[] usa,
                                   ScriptContextTester sct) {
     assert usa != null;
+    // skip lookups that cover no glyph of the run; glyphs introduced by a lookup are added to the digest
+    GlyphSetDigest digest = new GlyphSetDigest(gs);
     for (int i = 0, n = usa.length; i < n; i++) {
       GlyphTable.UseSpec us = usa[i];
-      gs = us.substitute(gs, script, language, sct);
+      if (us.getLookupTable().mayApply(digest)) {
+        GlyphSequence gso = us.substitute(gs, script, language, sct);
+        if (gso != gs) {
+          digest.add(gso);
+          gs = gso;
+        }
+      }
     }
     return gs;
   }
@@ -206,6 +216,36 @@ public abstract class ScriptProcessor {
   public final boolean position(GlyphPositioningTable gpos, GlyphSequence gs, String script, String language,
                                 int fontSize, Map/*<LookupSpec,List<LookupTable>>*/ lookups, int[] widths,
                                 int[][] adjustments) {
+    PositionBuffer pb = PositionBuffer.fromArray(adjustments);
+    boolean adjusted = position(gpos, gs, script, language, fontSize, lookups, widths, pb);
+    pb.copyTo(adjustments);
+    return adjusted;
+  }
+
+  /**
+   * Perform positioning processing using a specific set of lookup tables.
+   *
+   * @param gpos
+   *     the glyph positioning table that applies
+   * @param gs
+   *     an input glyph sequence
+   * @param script
+   *     a script identifier
+   * @param language
+   *     a language identifier
+   * @param fontSize
+   *     size in device units
+   * @param lookups
+   *     a mapping from lookup specifications to glyph subtables to use for positioning processing
+   * @param widths
+   *     array of default advancements for each glyph
+   * @param adjustments
+   *     accumulated adjustments buffer, with one 4-tuple for each element of glyph sequence
+   * @return true if some adjustment is not zero; otherwise, false
+   */
+  public final boolean position(GlyphPositioningTable gpos, GlyphSequence gs, String script, String language,
+                                int fontSize, Map/*<LookupSpec,List<LookupTable>>*/ lookups, int[] widths,
+                                PositionBuffer adjustments) {
     return position(gs, script, language, fontSize, assembleLookups(gpos, getPositioningFeatures(), lookups), widths,
         adjustments, getPositioningContextTester());
   }
@@ -233,16 +273,50 @@ public abstract class ScriptProcessor {
    *     a script specific context tester (or null)
    * @return true if some adjustment is not zero; otherwise, false
    */
+  public final boolean position(GlyphSequence gs, String script, String language, int fontSize,
+                                GlyphTable.UseSpec[] usa, int[] widths, int[][] adjustments, ScriptContextTester sct) {
+    PositionBuffer pb = PositionBuffer.fromArray(adjustments);
+    boolean adjusted = position(gs, script, language, fontSize, usa, widths, pb, sct);
+    pb.copyTo(adjustments);
+    return adjusted;
+  }
+
+  /**
+   * Perform positioning processing using a specific set of ordered glyph table use specifications.
+   *
+   * @param gs
+   *     an input glyph sequence
+   * @param script
+   *     a script identifier
+   * @param language
+   *     a language identifier
+   * @param fontSize
+   *     size in device units
+   * @param usa
+   *     an ordered array of glyph table use specs
+   * @param widths
+   *     array of default advancements for each glyph in font
+   * @param adjustments
+   *     accumulated adjustments buffer, with one 4-tuple for each element of glyph sequence
+   * @param sct
+   *     a script specific context tester (or null)
+   * @return true if some adjustment is not zero; otherwise, false
+   */
   public boolean position(GlyphSequence gs, String script, String language, int fontSize, GlyphTable.UseSpec[] usa,
-                          int[] widths, int[][] adjustments, ScriptContextTester sct) {
+                          int[] widths, PositionBuffer adjustments, ScriptContextTester sct) {
     assert usa != null;
     boolean adjusted = false;
+    // skip lookups that cover no glyph of the run
+    GlyphSetDigest digest = new GlyphSetDigest(gs);
     for (int i = 0, n = usa.length; i < n; i++) {
       GlyphTable.UseSpec us = usa[i];
-      if (us.position(gs, script, language, fontSize, widths, adjustments, sct)) {
+      if (us.getLookupTable().mayApply(digest)
+          && us.position(gs, script, language, fontSize, widths, adjustments, sct)) {
         adjusted = true;
       }
     }
+    // propagate placements along cursive and mark attachment chains recorded by the lookups
+    adjustments.resolveAttachments();
     return adjusted;
   }
 
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.scripts;
+
+import com.jaredrummler.fontreader.complexscripts.fonts.GlyphDefinitionTable;
+import com.jaredrummler.fontreader.complexscripts.fonts.GlyphPositioningTable;
+import com.jaredrummler.fontreader.complexscripts.fonts.PositionBuffer;
+import com.jaredrummler.fontreader.fonts.GlyphSubstitutionTable;
+import com.jaredrummler.fontreader.fonts.GlyphSubtable;
+import com.jaredrummler.fontreader.truetype.GlyphTable;
+import com.jaredrummler.fontreader.util.GlyphSequence;
+import com.jaredrummler.fontreader.util.ScriptContextTester;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An immutable, precompiled plan for shaping text of one script and language with a font's
+ * glyph tables.</p>
+ *
+ * <p>Creating a plan resolves everything that {@link GlyphSubstitutionTable#substitute(GlyphSequence, String,
+ * String)} and {@link GlyphPositioningTable#position(GlyphSequence, String, String, int, int[], int[][])} otherwise
+ * derive on every call: the script processor, its features and context testers, and the ordered lookups that
+ * apply. A plan may be shared between threads and reused for any number of glyph sequences; the time taken to
+ * create it is available from {@link #getCreationTime()}.</p>
+ */
+public final class ShapePlan {
+
+  private static final GlyphTable.UseSpec[] NO_LOOKUPS = new GlyphTable.UseSpec[0];
+
+  private final String script;
+  private final String language;
+  private final ScriptProcessor processor;
+  private final GlyphDefinitionTable gdef;
+  /** ordered substitution lookups, or null if the substitution table has none for the script */
+  private final GlyphTable.UseSpec[] substitutions;
+  private final int[] substitutionFlags;
+  private final ScriptContextTester substitutionContextTester;
+  /** ordered positioning lookups, or null if the positioning table has none for the script */
+  private final GlyphTable.UseSpec[] positionings;
+  private final int[] positioningFlags;
+  private final ScriptContextTester positioningContextTester;
+  private final long creationTime;
+
+  private ShapePlan(String script, String language, ScriptProcessor processor, GlyphDefinitionTable gdef,
+                    GlyphTable.UseSpec[] substitutions, GlyphTable.UseSpec[] positionings, long creationTime) {
+    this.script = script;
+    this.language = language;
+    this.processor = processor;
+    this.gdef = gdef;
+    this.substitutions = substitutions;
+    this.substitutionFlags = getLookupFlags(substitutions);
+    this.substitutionContextTester = processor.getSubstitutionContextTester();
+    this.positionings = positionings;
+    this.positioningFlags = getLookupFlags(positionings);
+    this.positioningContextTester = processor.getPositioningContextTester();
+    this.creationTime = creationTime;
+  }
+
+  /**
+   * Create a shape plan.
+   *
+   * @param gsub
+   *     the glyph substitution table (or null)
+   * @param gpos
+   *     the glyph positioning table (or null)
+   * @param gdef
+   *     the glyph definition table (or null)
+   * @param script
+   *     a script identifier
+   * @param language
+   *     a language identifier
+   * @param features
+   *     feature identifiers to apply, or null to apply the script processor's substitution and positioning features
+   * @return a new shape plan
+   */
+  public static ShapePlan create(GlyphSubstitutionTable gsub, GlyphPositioningTable gpos, GlyphDefinitionTable gdef,
+                                 String script, String language, String[] features) {
+    long start = System.nanoTime();
+    ScriptProcessor sp = ScriptProcessor.getInstance(script);
+    GlyphTable.UseSpec[] usa = null;
+    if (gsub != null) {
+      usa = assembleLookups(gsub, (features != null) ? features : sp.getSubstitutionFeatures(), script, language);
+    }
+    GlyphTable.UseSpec[] upa = null;
+    if (gpos != null) {
+      upa = assembleLookups(gpos, (features != null) ? features : sp.getPositioningFeatures(), script, language);
+    }
+    return new ShapePlan(script, language, sp, gdef, usa, upa, System.nanoTime() - start);
+  }
+
+  private static GlyphTable.UseSpec[] assembleLookups(GlyphTable table, String[] features, String script,
+                                                      String language) {
+    Map<GlyphTable.LookupSpec, List<GlyphTable.LookupTable>> lookups = table.matchLookups(script, language, "*");
+    if ((lookups != null) && (lookups.size() > 0)) {
+      return table.assembleLookups(features, lookups);
+    } else {
+      return null;
+    }
+  }
+
+  private static int[] getLookupFlags(GlyphTable.UseSpec[] usa) {
+    if (usa == null) {
+      return new int[0];
+    }
+    int[] flags = new int[usa.length];
+    for (int i = 0, n = usa.length; i < n; i++) {
+      GlyphSubtable[] sta = usa[i].getLookupTable().getSubtables();
+      if ((sta != null) && (sta.length > 0) && (sta[0] != null)) {
+        flags[i] = sta[0].getFlags();
+      }
+    }
+    return flags;
+  }
+
+  /** @return script identifier */
+  public String getScript() {
+    return script;
+  }
+
+  /** @return language identifier */
+  public String getLanguage() {
+    return language;
+  }
+
+  /** @return script processor */
+  public ScriptProcessor getProcessor() {
+    return processor;
+  }
+
+  /** @return time taken to create this plan, in nanoseconds */
+  public long getCreationTime() {
+    return creationTime;
+  }
+
+  /** @return ordered substitution lookups */
+  public GlyphTable.UseSpec[] getSubstitutionLookups() {
+    return (substitutions != null) ? substitutions.clone() : NO_LOOKUPS;
+  }
+
+  /**
+   * Obtain the lookup flags of a substitution lookup.
+   *
+   * @param index
+   *     index into {@link #getSubstitutionLookups()}
+   * @return lookup flags
+   */
+  public int getSubstitutionLookupFlags(int index) {
+    return substitutionFlags[index];
+  }
+
+  /** @return ordered positioning lookups */
+  public GlyphTable.UseSpec[] getPositioningLookups() {
+    return (positionings != null) ? positionings.clone() : NO_LOOKUPS;
+  }
+
+  /**
+   * Obtain the lookup flags of a positioning lookup.
+   *
+   * @param index
+   *     index into {@link #getPositioningLookups()}
+   * @return lookup flags
+   */
+  public int getPositioningLookupFlags(int index) {
+    return positioningFlags[index];
+  }
+
+  /** @return true if this plan performs substitution */
+  public boolean performsSubstitution() {
+    return substitutions != null;
+  }
+
+  /** @return true if this plan performs positioning */
+  public boolean performsPositioning() {
+    return positionings != null;
+  }
+
+  /**
+   * Perform substitution processing.
+   *
+   * @param gs
+   *     an input glyph sequence
+   * @return the substituted (output) glyph sequence
+   */
+  public GlyphSequence substitute(GlyphSequence gs) {
+    if (substitutions != null) {
+      return processor.substitute(gs, script, language, substitutions, substitutionContextTester);
+    } else {
+      return gs;
+    }
+  }
+
+  /**
+   * Reorder combining marks using the script processor's reordering rules.
+   *
+   * @param gs
+   *     an input glyph sequence
+   * @param widths
+   *     associated advance widths (also reordered)
+   * @param gpa
+   *     associated glyph position adjustments (also reordered)
+   * @return the reordered (output) glyph sequence
+   * @see ScriptProcessor#reorderCombiningMarks(GlyphDefinitionTable, GlyphSequence, int[], int[][], String, String)
+   */
+  public GlyphSequence reorderCombiningMarks(GlyphSequence gs, int[] widths, int[][] gpa) {
+    if (gdef != null) {
+      return processor.reorderCombiningMarks(gdef, gs, widths, gpa, script, language);
+    } else {
+      return gs;
+    }
+  }
+
+  /**
+   * Perform positioning processing.
+   *
+   * @param gs
+   *     an input glyph sequence
+   * @param fontSize
+   *     size in device units
+   * @param widths
+   *     array of default advancements for each glyph in font
+   * @param adjustments
+   *     accumulated adjustments array (sequence) of 4-tuples of placement [PX,PY] and advance [AX,AY] adjustments, in
+   *     that order, with one 4-tuple for each element of glyph sequence
+   * @return true if some adjustment is not zero; otherwise, false
+   */
+  public boolean position(GlyphSequence gs, int fontSize, int[] widths, int[][] adjustments) {
+    PositionBuffer pb = PositionBuffer.fromArray(adjustments);
+    boolean adjusted = position(gs, fontSize, widths, pb);
+    pb.copyTo(adjustments);
+    return adjusted;
+  }
+
+  /**
+   * Perform positioning processing.
+   *
+   * @param gs
+   *     an input glyph sequence
+   * @param fontSize
+   *     size in device units
+   * @param widths
+   *     array of default advancements for each glyph in font
+   * @param adjustments
+   *     accumulated adjustments buffer, with one 4-tuple for each element of glyph sequence
+   * @return true if some adjustment is not zero; otherwise, false
+   */
+  public boolean position(GlyphSequence gs, int fontSize, int[] widths, PositionBuffer adjustments) {
+    return (positionings != null) && processor.position(gs, script, language, fontSize, positionings, widths,
+        adjustments, positioningContextTester);
+  }
+
+  /** {@inheritDoc} */
+  public String toString() {
+    return "{ script = " + script + ", language = " + language
+        + ", substitutions = " + ((substitutions != null) ? substitutions.length : 0)
+        + ", positionings = " + ((positionings != null) ? positionings.length : 0)
+        + ", creationTime = " + creationTime + " }";
+  }
+
+}
@@ -68,6 +68,14 @@ public class CharAssociation implements Cloneable {
     this.subIntervals = ((subIntervals != null) && (subIntervals.length > 2)) ? subIntervals : null;
   }
 
+  /**
+   * Instantiate a character association sharing an existing predications map.
+   */
+  CharAssociation(int offset, int count, int[] subIntervals, Map<String, Object> predications) {
+    this(offset, count, subIntervals);
+    this.predications = predications;
+  }
+
   /**
    * Instantiate a non-disjoint character association.
    *
@@ -171,6 +179,11 @@ public class CharAssociation implements Cloneable {
     }
   }
 
+  /** @return predications map, or null if no predication was set */
+  Map<String, Object> predications() {
+    return predications;
+  }
+
   /**
    * Get predication KEY.
    *
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A growable sequence of character associations stored in parallel primitive arrays, one
+ * entry per glyph.</p>
+ *
+ * <p>The offset and count of each association are kept in <code>int</code> arrays. Sub-intervals
+ * of disjoint associations and predications are kept in side arrays that are only allocated
+ * once a disjoint association is added or a predication is set, so the common case of
+ * contiguous associations without predications needs no object per glyph.
+ * {@link CharAssociation} instances are created on demand by {@link #get(int)}. A view shares
+ * the predications of its entry, if it has any; new predications should be set through
+ * {@link #setPredication(int, String, Object)}.</p>
+ */
+public final class CharAssociationBuffer {
+
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private int[] offsets;
+  private int[] counts;
+  /** sub-intervals of disjoint associations, or null if none was added */
+  private int[][] subIntervals;
+  /** predications of each association, or null if none was set */
+  private Map<String, Object>[] predications;
+  private int size;
+
+  /**
+   * Instantiate an empty buffer.
+   *
+   * @param capacity
+   *     initial number of associations the buffer can hold without growing
+   */
+  public CharAssociationBuffer(int capacity) {
+    capacity = Math.max(capacity, 1);
+    offsets = new int[capacity];
+    counts = new int[capacity];
+  }
+
+  /**
+   * Instantiate an empty buffer with a default capacity.
+   */
+  public CharAssociationBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiate a buffer holding identity associations, where each glyph is associated with
+   * the character at the same index, and glyphs beyond the last character with none.
+   *
+   * @param numChars
+   *     number of characters
+   * @param numGlyphs
+   *     number of glyphs
+   * @return a new buffer
+   */
+  public static CharAssociationBuffer identity(int numChars, int numGlyphs) {
+    CharAssociationBuffer ab = new CharAssociationBuffer(numGlyphs);
+    for (int i = 0; i < numGlyphs; i++) {
+      ab.offsets[i] = i;
+      ab.counts[i] = (i < numChars) ? 1 : 0;
+    }
+    ab.size = numGlyphs;
+    return ab;
+  }
+
+  /**
+   * Instantiate a buffer from a list of associations.
+   *
+   * @param associations
+   *     list of {@link CharAssociation} instances
+   * @return a new buffer
+   */
+  public static CharAssociationBuffer fromList(List<? extends CharAssociation> associations) {
+    CharAssociationBuffer ab = new CharAssociationBuffer(associations.size());
+    for (int i = 0, n = associations.size(); i < n; i++) {
+      ab.add(associations.get(i));
+    }
+    return ab;
+  }
+
+  /** @return number of associations */
+  public int size() {
+    return size;
+  }
+
+  /** Remove all associations, keeping the allocated storage. */
+  public void clear() {
+    if (subIntervals != null) {
+      Arrays.fill(subIntervals, 0, size, null);
+    }
+    if (predications != null) {
+      Arrays.fill(predications, 0, size, null);
+    }
+    size = 0;
+  }
+
+  /**
+   * @param index
+   *     of association
+   * @return offset (start of association interval)
+   */
+  public int getOffset(int index) {
+    checkIndex(index);
+    return offsets[index];
+  }
+
+  /**
+   * @param index
+   *     of association
+   * @return count (number of character codes in association)
+   */
+  public int getCount(int index) {
+    checkIndex(index);
+    return counts[index];
+  }
+
+  /**
+   * @param index
+   *     of association
+   * @return sub-intervals if association is disjoint, otherwise null
+   */
+  public int[] getSubIntervals(int index) {
+    checkIndex(index);
+    return (subIntervals != null) ? subIntervals[index] : null;
+  }
+
+  /**
+   * Obtain a view of an association.
+   *
+   * @param index
+   *     of association
+   * @return a character association holding the association's interval and predications
+   */
+  public CharAssociation get(int index) {
+    checkIndex(index);
+    int[] sia = (subIntervals != null) ? subIntervals[index] : null;
+    Map<String, Object> pm = (predications != null) ? predications[index] : null;
+    return new CharAssociation(offsets[index], counts[index], sia, pm);
+  }
+
+  /**
+   * Append an association.
+   *
+   * @param offset
+   *     into array of Unicode scalar values
+   * @param count
+   *     of Unicode scalar values
+   */
+  public void add(int offset, int count) {
+    ensureCapacity(size + 1);
+    offsets[size] = offset;
+    counts[size] = count;
+    size++;
+  }
+
+  /**
+   * Append an association. The association's predications, if any, are shared rather than
+   * copied.
+   *
+   * @param a
+   *     association to append
+   */
+  public void add(CharAssociation a) {
+    ensureCapacity(size + 1);
+    offsets[size] = a.getOffset();
+    counts[size] = a.getCount();
+    if (a.isDisjoint()) {
+      subIntervals()[size] = a.getSubIntervals();
+    }
+    if (a.predications() != null) {
+      predications()[size] = a.predications();
+    }
+    size++;
+  }
+
+  /**
+   * Append a range of associations from another buffer, sharing their predications.
+   *
+   * @param ab
+   *     buffer to copy from
+   * @param start
+   *     index of first association to copy
+   * @param end
+   *     index after last association to copy
+   */
+  public void add(CharAssociationBuffer ab, int start, int end) {
+    if ((start < 0) || (end > ab.size) || (start > end)) {
+      throw new IndexOutOfBoundsException("[" + start + "," + end + ") of " + ab.size);
+    }
+    int n = end - start;
+    ensureCapacity(size + n);
+    System.arraycopy(ab.offsets, start, offsets, size, n);
+    System.arraycopy(ab.counts, start, counts, size, n);
+    if (ab.subIntervals != null) {
+      System.arraycopy(ab.subIntervals, start, subIntervals(), size, n);
+    }
+    if (ab.predications != null) {
+      System.arraycopy(ab.predications, start, predications(), size, n);
+    }
+    size += n;
+  }
+
+  /**
+   * Append one association from another buffer, sharing its predications.
+   *
+   * @param ab
+   *     buffer to copy from
+   * @param index
+   *     index of association to copy
+   */
+  public void add(CharAssociationBuffer ab, int index) {
+    ab.checkIndex(index);
+    ensureCapacity(size + 1);
+    offsets[size] = ab.offsets[index];
+    counts[size] = ab.counts[index];
+    if ((ab.subIntervals != null) && (ab.subIntervals[index] != null)) {
+      subIntervals()[size] = ab.subIntervals[index];
+    }
+    if ((ab.predications != null) && (ab.predications[index] != null)) {
+      predications()[size] = ab.predications[index];
+    }
+    size++;
+  }
+
+  /**
+   * Determine if an association is contained within an interval.
+   *
+   * @param index
+   *     of association
+   * @param offset
+   *     of interval in sequence
+   * @param count
+   *     length of interval
+   * @return true if the association is contained within [offset,offset+count)
+   * @see CharAssociation#contained(int, int)
+   */
+  public boolean contained(int index, int offset, int count) {
+    checkIndex(index);
+    int s = offset;
+    int e = offset + count;
+    int[] sia = (subIntervals != null) ? subIntervals[index] : null;
+    if (sia == null) {
+      int s0 = offsets[index];
+      int e0 = s0 + counts[index];
+      return (s0 >= s) && (e0 <= e);
+    } else {
+      for (int i = 0, n = sia.length; i < n; i += 2) {
+        if ((sia[i] >= s) && (sia[i + 1] <= e)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Set predication &lt;KEY,VALUE&gt; of an association.
+   *
+   * @param index
+   *     of association
+   * @param key
+   *     predication key
+   * @param value
+   *     predication value
+   */
+  public void setPredication(int index, String key, Object value) {
+    checkIndex(index);
+    Map<String, Object>[] pma = predications();
+    if (pma[index] == null) {
+      pma[index] = new HashMap<String, Object>();
+    }
+    pma[index].put(key, value);
+  }
+
+  /**
+   * Get predication KEY of an association.
+   *
+   * @param index
+   *     of association
+   * @param key
+   *     predication key
+   * @return predication value or null if none exists
+   */
+  public Object getPredication(int index, String key) {
+    checkIndex(index);
+    if ((predications != null) && (predications[index] != null)) {
+      return predications[index].get(key);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Obtain a copy of this buffer. Predication maps are shared with this buffer.
+   *
+   * @return new buffer holding the same associations
+   */
+  public CharAssociationBuffer copy() {
+    CharAssociationBuffer ab = new CharAssociationBuffer(size);
+    ab.add(this, 0, size);
+    return ab;
+  }
+
+  /**
+   * Obtain a read-only list view of this buffer, whose elements are created on demand by
+   * {@link #get(int)}.
+   *
+   * @return list of {@link CharAssociation}
+   */
+  public List<CharAssociation> asList() {
+    return new AbstractList<CharAssociation>() {
+
+      @Override
+      public CharAssociation get(int index) {
+        return CharAssociationBuffer.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append('[');
+      sb.append(offsets[i]);
+      sb.append(',');
+      sb.append(counts[i]);
+      sb.append(']');
+    }
+    return sb.toString();
+  }
+
+  private void checkIndex(int index) {
+    if ((index < 0) || (index >= size)) {
+      throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > offsets.length) {
+      int n = Math.max(capacity, offsets.length * 2);
+      offsets = Arrays.copyOf(offsets, n);
+      counts = Arrays.copyOf(counts, n);
+      if (subIntervals != null) {
+        subIntervals = Arrays.copyOf(subIntervals, n);
+      }
+      if (predications != null) {
+        predications = Arrays.copyOf(predications, n);
+      }
+    }
+  }
+
+  private int[][] subIntervals() {
+    if (subIntervals == null) {
+      subIntervals = new int[offsets.length][];
+    }
+    return subIntervals;
+  }
+
+  private Map<String, Object>[] predications() {
+    if (predications == null) {
+      predications = newPredications(offsets.length);
+    }
+    return predications;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object>[] newPredications(int n) {
+    return (Map<String, Object>[]) new Map<?, ?>[n];
+  }
+
+}
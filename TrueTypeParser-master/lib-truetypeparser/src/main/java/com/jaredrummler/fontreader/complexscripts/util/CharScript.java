@@ -17,8 +17,6 @@
 
 package com.jaredrummler.fontreader.complexscripts.util;
 
-import com.jaredrummler.fontreader.util.CharUtilities;
-
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -123,6 +121,8 @@ public final class CharScript {
   public static final int SCRIPT_HAN = 500;  // 'hani'
   /** katakana script constant */
   public static final int SCRIPT_KATAKANA = 410;  // 'kana'
+  /** inherited script constant, used by combining marks that take the script of their base */
+  public static final int SCRIPT_INHERITED = 994;  // 'zinh'
   /** math script constant */
   public static final int SCRIPT_MATH = 995;  // 'zmth'
   /** symbol script constant */
@@ -587,79 +587,66 @@ public final class CharScript {
   }
 
   /**
-   * Obtain ISO15924 numeric script code of character. If script is not or cannot be determined,
-   * then the script code 998 ('zyyy') is returned.
+   * Obtain ISO15924 numeric script code of character, according to the Unicode Script
+   * property. Characters common to several scripts map to 998 ('zyyy'), combining marks
+   * that take the script of their base map to 994 ('zinh') and unassigned code points map
+   * to 999 ('zzzz').
    *
    * @param c
    *     the character to obtain script
    * @return an ISO15924 script code
    */
-  public static int scriptOf(int c) { // [TBD] - needs optimization!!!
-    if (CharUtilities.isAnySpace(c)) {
-      return SCRIPT_UNDETERMINED;
-    } else if (isPunctuation(c)) {
-      return SCRIPT_UNDETERMINED;
-    } else if (isDigit(c)) {
-      return SCRIPT_UNDETERMINED;
-    } else if (isLatin(c)) {
-      return SCRIPT_LATIN;
-    } else if (isCyrillic(c)) {
-      return SCRIPT_CYRILLIC;
-    } else if (isGreek(c)) {
-      return SCRIPT_GREEK;
-    } else if (isHan(c)) {
-      return SCRIPT_HAN;
-    } else if (isBopomofo(c)) {
-      return SCRIPT_BOPOMOFO;
-    } else if (isKatakana(c)) {
-      return SCRIPT_KATAKANA;
-    } else if (isHiragana(c)) {
-      return SCRIPT_HIRAGANA;
-    } else if (isHangul(c)) {
-      return SCRIPT_HANGUL;
-    } else if (isArabic(c)) {
-      return SCRIPT_ARABIC;
-    } else if (isHebrew(c)) {
-      return SCRIPT_HEBREW;
-    } else if (isMongolian(c)) {
-      return SCRIPT_MONGOLIAN;
-    } else if (isGeorgian(c)) {
-      return SCRIPT_GEORGIAN;
-    } else if (isGurmukhi(c)) {
-      return useV2IndicRules(SCRIPT_GURMUKHI);
-    } else if (isDevanagari(c)) {
-      return useV2IndicRules(SCRIPT_DEVANAGARI);
-    } else if (isGujarati(c)) {
-      return useV2IndicRules(SCRIPT_GUJARATI);
-    } else if (isBengali(c)) {
-      return useV2IndicRules(SCRIPT_BENGALI);
-    } else if (isOriya(c)) {
-      return useV2IndicRules(SCRIPT_ORIYA);
-    } else if (isTibetan(c)) {
-      return SCRIPT_TIBETAN;
-    } else if (isTelugu(c)) {
-      return useV2IndicRules(SCRIPT_TELUGU);
-    } else if (isKannada(c)) {
-      return useV2IndicRules(SCRIPT_KANNADA);
-    } else if (isTamil(c)) {
-      return useV2IndicRules(SCRIPT_TAMIL);
-    } else if (isMalayalam(c)) {
-      return useV2IndicRules(SCRIPT_MALAYALAM);
-    } else if (isSinhalese(c)) {
-      return SCRIPT_SINHALESE;
-    } else if (isBurmese(c)) {
-      return SCRIPT_BURMESE;
-    } else if (isThai(c)) {
-      return SCRIPT_THAI;
-    } else if (isKhmer(c)) {
-      return SCRIPT_KHMER;
-    } else if (isLao(c)) {
-      return SCRIPT_LAO;
-    } else if (isEthiopic(c)) {
-      return SCRIPT_ETHIOPIC;
-    } else {
-      return SCRIPT_UNDETERMINED;
+  public static int scriptOf(int c) {
+    return CharScriptTable.scriptOf(c);
+  }
+
+  /**
+   * Split a sequence of code points into runs of the same script. Common and inherited
+   * characters are resolved against their neighbours: they join the run of the preceding
+   * character, or, at the start of the sequence, the run of the first character with a
+   * real script. If no character has a real script, a single run of SCRIPT_UNDETERMINED
+   * is produced. No objects are allocated.
+   *
+   * @param cps
+   *     the code points
+   * @param n
+   *     the number of code points to segment
+   * @param runStartsOut
+   *     receives the index of the first code point of each run; must hold up to n values
+   * @param runScriptsOut
+   *     receives the script code of each run; must hold up to n values
+   * @return the number of runs
+   */
+  public static int segmentByScript(int[] cps, int n, int[] runStartsOut, int[] runScriptsOut) {
+    int count = 0;
+    int current = -1;
+    for (int i = 0; i < n; i++) {
+      int sc = CharScriptTable.scriptOf(cps[i]);
+      switch (sc) {
+        case SCRIPT_UNDETERMINED:
+        case SCRIPT_INHERITED:
+        case SCRIPT_UNCODED:
+          break;
+        default:
+          if (current < 0) {
+            runStartsOut[0] = 0;
+            runScriptsOut[0] = sc;
+            count = 1;
+          } else if (sc != current) {
+            runStartsOut[count] = i;
+            runScriptsOut[count] = sc;
+            count++;
+          }
+          current = sc;
+          break;
+      }
+    }
+    if ((count == 0) && (n > 0)) {
+      runStartsOut[0] = 0;
+      runScriptsOut[0] = SCRIPT_UNDETERMINED;
+      count = 1;
     }
+    return count;
   }
 
   /**
@@ -729,6 +716,7 @@ public final class CharScript {
       int s = k.intValue();
       switch (s) {
         case SCRIPT_UNDETERMINED:
+        case SCRIPT_INHERITED:
         case SCRIPT_UNCODED:
           break;
         default:
@@ -805,17 +793,11 @@ public final class CharScript {
    * @return a  script tag
    */
   public static String scriptTagFromCode(int code) {
-    Map<Integer, String> m = getScriptTagsMap();
-    if (m != null) {
-      String tag;
-      if ((tag = m.get(Integer.valueOf(code))) != null) {
-        return tag;
-      } else {
-        return "";
-      }
-    } else {
-      return "";
+    String tag = null;
+    if ((code >= 0) && (code < SCRIPT_TAGS.length)) {
+      tag = SCRIPT_TAGS[code];
     }
+    return (tag != null) ? tag : "";
   }
 
   /**
@@ -826,91 +808,69 @@ public final class CharScript {
    * @return a script code
    */
   public static int scriptCodeFromTag(String tag) {
-    Map<String, Integer> m = getScriptCodeMap();
-    if (m != null) {
-      Integer c;
-      if ((c = m.get(tag)) != null) {
-        return c;
-      } else {
-        return SCRIPT_UNDETERMINED;
-      }
-    } else {
-      return SCRIPT_UNDETERMINED;
-    }
+    Integer c = SCRIPT_CODES.get(tag);
+    return (c != null) ? c : SCRIPT_UNDETERMINED;
   }
 
-  private static Map<Integer, String> scriptTagsMap;
-  private static Map<String, Integer> scriptCodeMap;
+  private static final String[] SCRIPT_TAGS = new String[2000];
+  private static final Map<String, Integer> SCRIPT_CODES = new HashMap<String, Integer>();
 
-  private static void putScriptTag(Map tm, Map cm, int code, String tag) {
+  private static void putScriptTag(int code, String tag) {
     assert tag != null;
     assert tag.length() != 0;
     assert code >= 0;
     assert code < 2000;
-    tm.put(Integer.valueOf(code), tag);
-    cm.put(tag, Integer.valueOf(code));
-  }
-
-  private static void makeScriptMaps() {
-    HashMap<Integer, String> tm = new HashMap<Integer, String>();
-    HashMap<String, Integer> cm = new HashMap<String, Integer>();
-    putScriptTag(tm, cm, SCRIPT_HEBREW, "hebr");
-    putScriptTag(tm, cm, SCRIPT_MONGOLIAN, "mong");
-    putScriptTag(tm, cm, SCRIPT_ARABIC, "arab");
-    putScriptTag(tm, cm, SCRIPT_GREEK, "grek");
-    putScriptTag(tm, cm, SCRIPT_LATIN, "latn");
-    putScriptTag(tm, cm, SCRIPT_CYRILLIC, "cyrl");
-    putScriptTag(tm, cm, SCRIPT_GEORGIAN, "geor");
-    putScriptTag(tm, cm, SCRIPT_BOPOMOFO, "bopo");
-    putScriptTag(tm, cm, SCRIPT_HANGUL, "hang");
-    putScriptTag(tm, cm, SCRIPT_GURMUKHI, "guru");
-    putScriptTag(tm, cm, SCRIPT_GURMUKHI_2, "gur2");
-    putScriptTag(tm, cm, SCRIPT_DEVANAGARI, "deva");
-    putScriptTag(tm, cm, SCRIPT_DEVANAGARI_2, "dev2");
-    putScriptTag(tm, cm, SCRIPT_GUJARATI, "gujr");
-    putScriptTag(tm, cm, SCRIPT_GUJARATI_2, "gjr2");
-    putScriptTag(tm, cm, SCRIPT_BENGALI, "beng");
-    putScriptTag(tm, cm, SCRIPT_BENGALI_2, "bng2");
-    putScriptTag(tm, cm, SCRIPT_ORIYA, "orya");
-    putScriptTag(tm, cm, SCRIPT_ORIYA_2, "ory2");
-    putScriptTag(tm, cm, SCRIPT_TIBETAN, "tibt");
-    putScriptTag(tm, cm, SCRIPT_TELUGU, "telu");
-    putScriptTag(tm, cm, SCRIPT_TELUGU_2, "tel2");
-    putScriptTag(tm, cm, SCRIPT_KANNADA, "knda");
-    putScriptTag(tm, cm, SCRIPT_KANNADA_2, "knd2");
-    putScriptTag(tm, cm, SCRIPT_TAMIL, "taml");
-    putScriptTag(tm, cm, SCRIPT_TAMIL_2, "tml2");
-    putScriptTag(tm, cm, SCRIPT_MALAYALAM, "mlym");
-    putScriptTag(tm, cm, SCRIPT_MALAYALAM_2, "mlm2");
-    putScriptTag(tm, cm, SCRIPT_SINHALESE, "sinh");
-    putScriptTag(tm, cm, SCRIPT_BURMESE, "mymr");
-    putScriptTag(tm, cm, SCRIPT_THAI, "thai");
-    putScriptTag(tm, cm, SCRIPT_KHMER, "khmr");
-    putScriptTag(tm, cm, SCRIPT_LAO, "laoo");
-    putScriptTag(tm, cm, SCRIPT_HIRAGANA, "hira");
-    putScriptTag(tm, cm, SCRIPT_ETHIOPIC, "ethi");
-    putScriptTag(tm, cm, SCRIPT_HAN, "hani");
-    putScriptTag(tm, cm, SCRIPT_KATAKANA, "kana");
-    putScriptTag(tm, cm, SCRIPT_MATH, "zmth");
-    putScriptTag(tm, cm, SCRIPT_SYMBOL, "zsym");
-    putScriptTag(tm, cm, SCRIPT_UNDETERMINED, "zyyy");
-    putScriptTag(tm, cm, SCRIPT_UNCODED, "zzzz");
-    scriptTagsMap = tm;
-    scriptCodeMap = cm;
-  }
-
-  private static Map<Integer, String> getScriptTagsMap() {
-    if (scriptTagsMap == null) {
-      makeScriptMaps();
-    }
-    return scriptTagsMap;
-  }
-
-  private static Map<String, Integer> getScriptCodeMap() {
-    if (scriptCodeMap == null) {
-      makeScriptMaps();
+    SCRIPT_TAGS[code] = tag;
+    SCRIPT_CODES.put(tag, Integer.valueOf(code));
+  }
+
+  static {
+    putScriptTag(SCRIPT_HEBREW, "hebr");
+    putScriptTag(SCRIPT_MONGOLIAN, "mong");
+    putScriptTag(SCRIPT_ARABIC, "arab");
+    putScriptTag(SCRIPT_GREEK, "grek");
+    putScriptTag(SCRIPT_LATIN, "latn");
+    putScriptTag(SCRIPT_CYRILLIC, "cyrl");
+    putScriptTag(SCRIPT_GEORGIAN, "geor");
+    putScriptTag(SCRIPT_BOPOMOFO, "bopo");
+    putScriptTag(SCRIPT_HANGUL, "hang");
+    putScriptTag(SCRIPT_GURMUKHI, "guru");
+    putScriptTag(SCRIPT_GURMUKHI_2, "gur2");
+    putScriptTag(SCRIPT_DEVANAGARI, "deva");
+    putScriptTag(SCRIPT_DEVANAGARI_2, "dev2");
+    putScriptTag(SCRIPT_GUJARATI, "gujr");
+    putScriptTag(SCRIPT_GUJARATI_2, "gjr2");
+    putScriptTag(SCRIPT_BENGALI, "beng");
+    putScriptTag(SCRIPT_BENGALI_2, "bng2");
+    putScriptTag(SCRIPT_ORIYA, "orya");
+    putScriptTag(SCRIPT_ORIYA_2, "ory2");
+    putScriptTag(SCRIPT_TIBETAN, "tibt");
+    putScriptTag(SCRIPT_TELUGU, "telu");
+    putScriptTag(SCRIPT_TELUGU_2, "tel2");
+    putScriptTag(SCRIPT_KANNADA, "knda");
+    putScriptTag(SCRIPT_KANNADA_2, "knd2");
+    putScriptTag(SCRIPT_TAMIL, "taml");
+    putScriptTag(SCRIPT_TAMIL_2, "tml2");
+    putScriptTag(SCRIPT_MALAYALAM, "mlym");
+    putScriptTag(SCRIPT_MALAYALAM_2, "mlm2");
+    putScriptTag(SCRIPT_SINHALESE, "sinh");
+    putScriptTag(SCRIPT_BURMESE, "mymr");
+    putScriptTag(SCRIPT_THAI, "thai");
+    putScriptTag(SCRIPT_KHMER, "khmr");
+    putScriptTag(SCRIPT_LAO, "laoo");
+    putScriptTag(SCRIPT_HIRAGANA, "hira");
+    putScriptTag(SCRIPT_ETHIOPIC, "ethi");
+    putScriptTag(SCRIPT_HAN, "hani");
+    putScriptTag(SCRIPT_KATAKANA, "kana");
+    putScriptTag(SCRIPT_INHERITED, "zinh");
+    putScriptTag(SCRIPT_MATH, "zmth");
+    putScriptTag(SCRIPT_SYMBOL, "zsym");
+    putScriptTag(SCRIPT_UNDETERMINED, "zyyy");
+    putScriptTag(SCRIPT_UNCODED, "zzzz");
+    // remaining scripts of the Unicode Script property
+    for (int i = 0; i < CharScriptTable.EXTRA_SCRIPT_CODES.length; i++) {
+      putScriptTag(CharScriptTable.EXTRA_SCRIPT_CODES[i], CharScriptTable.EXTRA_SCRIPT_TAGS[i]);
     }
-    return scriptCodeMap;
   }
 
 }
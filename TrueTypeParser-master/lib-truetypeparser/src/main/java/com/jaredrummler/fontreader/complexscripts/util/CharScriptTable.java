@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.util;
+
+/**
+ * Unicode Script property lookup table.
+ *
+ * <p>The property is stored as runs of code points sharing a script, generated from the
+ * Unicode 13.0 Scripts.txt. Script values are the CharScript codes: ISO 15924 numeric codes,
+ * except where CharScript already defines a different code (Bengali, Katakana). Tirhuta,
+ * whose ISO code 326 is taken by SCRIPT_BENGALI, is given the private code 1900.</p>
+ *
+ * <p>On first lookup the runs are expanded into a {@link CodePointTable}.</p>
+ */
+final class CharScriptTable {
+
+  private CharScriptTable() {
+  }
+
+  private static final int[] SR_START = {
+      0, 65, 91, 97, 123, 170, 171, 186, 187, 192, 215, 216, 247, 248, 697, 736, 741, 746, 748, 768, 880, 884, 885,
+      888, 890, 894, 895, 896, 900, 901, 902, 903, 904, 907, 908, 909, 910, 930, 931, 994, 1008, 1024, 1157, 1159,
+      1328, 1329, 1367, 1369, 1419, 1421, 1424, 1425, 1480, 1488, 1515, 1519, 1525, 1536, 1541, 1542, 1548, 1549,
+      1563, 1564, 1565, 1566, 1567, 1568, 1600, 1601, 1611, 1622, 1648, 1649, 1757, 1758, 1792, 1806, 1807, 1867,
+      1869, 1872, 1920, 1970, 1984, 2043, 2045, 2048, 2094, 2096, 2111, 2112, 2140, 2142, 2143, 2144, 2155, 2208,
+      2229, 2230, 2248, 2259, 2274, 2275, 2304, 2385, 2389, 2404, 2406, 2432, 2436, 2437, 2445, 2447, 2449, 2451,
+      2473, 2474, 2481, 2482, 2483, 2486, 2490, 2492, 2501, 2503, 2505, 2507, 2511, 2519, 2520, 2524, 2526, 2527,
+      2532, 2534, 2559, 2561, 2564, 2565, 2571, 2575, 2577, 2579, 2601, 2602, 2609, 2610, 2612, 2613, 2615, 2616,
+      2618, 2620, 2621, 2622, 2627, 2631, 2633, 2635, 2638, 2641, 2642, 2649, 2653, 2654, 2655, 2662, 2679, 2689,
+      2692, 2693, 2702, 2703, 2706, 2707, 2729, 2730, 2737, 2738, 2740, 2741, 2746, 2748, 2758, 2759, 2762, 2763,
+      2766, 2768, 2769, 2784, 2788, 2790, 2802, 2809, 2816, 2817, 2820, 2821, 2829, 2831, 2833, 2835, 2857, 2858,
+      2865, 2866, 2868, 2869, 2874, 2876, 2885, 2887, 2889, 2891, 2894, 2901, 2904, 2908, 2910, 2911, 2916, 2918,
+      2936, 2946, 2948, 2949, 2955, 2958, 2961, 2962, 2966, 2969, 2971, 2972, 2973, 2974, 2976, 2979, 2981, 2984,
+      2987, 2990, 3002, 3006, 3011, 3014, 3017, 3018, 3022, 3024, 3025, 3031, 3032, 3046, 3067, 3072, 3085, 3086,
+      3089, 3090, 3113, 3114, 3130, 3133, 3141, 3142, 3145, 3146, 3150, 3157, 3159, 3160, 3163, 3168, 3172, 3174,
+      3184, 3191, 3200, 3213, 3214, 3217, 3218, 3241, 3242, 3252, 3253, 3258, 3260, 3269, 3270, 3273, 3274, 3278,
+      3285, 3287, 3294, 3295, 3296, 3300, 3302, 3312, 3313, 3315, 3328, 3341, 3342, 3345, 3346, 3397, 3398, 3401,
+      3402, 3408, 3412, 3428, 3430, 3456, 3457, 3460, 3461, 3479, 3482, 3506, 3507, 3516, 3517, 3518, 3520, 3527,
+      3530, 3531, 3535, 3541, 3542, 3543, 3544, 3552, 3558, 3568, 3570, 3573, 3585, 3643, 3647, 3648, 3676, 3713,
+      3715, 3716, 3717, 3718, 3723, 3724, 3748, 3749, 3750, 3751, 3774, 3776, 3781, 3782, 3783, 3784, 3790, 3792,
+      3802, 3804, 3808, 3840, 3912, 3913, 3949, 3953, 3992, 3993, 4029, 4030, 4045, 4046, 4053, 4057, 4059, 4096,
+      4256, 4294, 4295, 4296, 4301, 4302, 4304, 4347, 4348, 4352, 4608, 4681, 4682, 4686, 4688, 4695, 4696, 4697,
+      4698, 4702, 4704, 4745, 4746, 4750, 4752, 4785, 4786, 4790, 4792, 4799, 4800, 4801, 4802, 4806, 4808, 4823,
+      4824, 4881, 4882, 4886, 4888, 4955, 4957, 4989, 4992, 5018, 5024, 5110, 5112, 5118, 5120, 5760, 5789, 5792,
+      5867, 5870, 5881, 5888, 5901, 5902, 5909, 5920, 5941, 5943, 5952, 5972, 5984, 5997, 5998, 6001, 6002, 6004,
+      6016, 6110, 6112, 6122, 6128, 6138, 6144, 6146, 6148, 6149, 6150, 6159, 6160, 6170, 6176, 6265, 6272, 6315,
+      6320, 6390, 6400, 6431, 6432, 6444, 6448, 6460, 6464, 6465, 6468, 6480, 6510, 6512, 6517, 6528, 6572, 6576,
+      6602, 6608, 6619, 6622, 6624, 6656, 6684, 6686, 6688, 6751, 6752, 6781, 6783, 6794, 6800, 6810, 6816, 6830,
+      6832, 6849, 6912, 6988, 6992, 7037, 7040, 7104, 7156, 7164, 7168, 7224, 7227, 7242, 7245, 7248, 7296, 7305,
+      7312, 7355, 7357, 7360, 7368, 7376, 7379, 7380, 7393, 7394, 7401, 7405, 7406, 7412, 7413, 7416, 7418, 7419,
+      7424, 7462, 7467, 7468, 7517, 7522, 7526, 7531, 7544, 7545, 7615, 7616, 7674, 7675, 7680, 7936, 7958, 7960,
+      7966, 7968, 8006, 8008, 8014, 8016, 8024, 8025, 8026, 8027, 8028, 8029, 8030, 8031, 8062, 8064, 8117, 8118,
+      8133, 8134, 8148, 8150, 8156, 8157, 8176, 8178, 8181, 8182, 8191, 8192, 8204, 8206, 8293, 8294, 8305, 8306,
+      8308, 8319, 8320, 8335, 8336, 8349, 8352, 8384, 8400, 8433, 8448, 8486, 8487, 8490, 8492, 8498, 8499, 8526,
+      8527, 8544, 8585, 8588, 8592, 9255, 9280, 9291, 9312, 10240, 10496, 11124, 11126, 11158, 11159, 11264, 11311,
+      11312, 11359, 11360, 11392, 11508, 11513, 11520, 11558, 11559, 11560, 11565, 11566, 11568, 11624, 11631, 11633,
+      11647, 11648, 11671, 11680, 11687, 11688, 11695, 11696, 11703, 11704, 11711, 11712, 11719, 11720, 11727, 11728,
+      11735, 11736, 11743, 11744, 11776, 11859, 11904, 11930, 11931, 12020, 12032, 12246, 12272, 12284, 12288, 12293,
+      12294, 12295, 12296, 12321, 12330, 12334, 12336, 12344, 12348, 12352, 12353, 12439, 12441, 12443, 12445, 12448,
+      12449, 12539, 12541, 12544, 12549, 12592, 12593, 12687, 12688, 12704, 12736, 12772, 12784, 12800, 12831, 12832,
+      12896, 12927, 13008, 13055, 13056, 13144, 13312, 19904, 19968, 40957, 40960, 42125, 42128, 42183, 42192, 42240,
+      42540, 42560, 42656, 42744, 42752, 42786, 42888, 42891, 42944, 42946, 42955, 42997, 43008, 43053, 43056, 43066,
+      43072, 43128, 43136, 43206, 43214, 43226, 43232, 43264, 43310, 43311, 43312, 43348, 43359, 43360, 43389, 43392,
+      43470, 43471, 43472, 43482, 43486, 43488, 43519, 43520, 43575, 43584, 43598, 43600, 43610, 43612, 43616, 43648,
+      43715, 43739, 43744, 43767, 43777, 43783, 43785, 43791, 43793, 43799, 43808, 43815, 43816, 43823, 43824, 43867,
+      43868, 43877, 43878, 43882, 43884, 43888, 43968, 44014, 44016, 44026, 44032, 55204, 55216, 55239, 55243, 55292,
+      63744, 64110, 64112, 64218, 64256, 64263, 64275, 64280, 64285, 64311, 64312, 64317, 64318, 64319, 64320, 64322,
+      64323, 64325, 64326, 64336, 64450, 64467, 64830, 64832, 64848, 64912, 64914, 64968, 65008, 65022, 65024, 65040,
+      65050, 65056, 65070, 65072, 65107, 65108, 65127, 65128, 65132, 65136, 65141, 65142, 65277, 65279, 65280, 65281,
+      65313, 65339, 65345, 65371, 65382, 65392, 65393, 65438, 65440, 65471, 65474, 65480, 65482, 65488, 65490, 65496,
+      65498, 65501, 65504, 65511, 65512, 65519, 65529, 65534, 65536, 65548, 65549, 65575, 65576, 65595, 65596, 65598,
+      65599, 65614, 65616, 65630, 65664, 65787, 65792, 65795, 65799, 65844, 65847, 65856, 65935, 65936, 65949, 65952,
+      65953, 66000, 66045, 66046, 66176, 66205, 66208, 66257, 66272, 66273, 66300, 66304, 66340, 66349, 66352, 66379,
+      66384, 66427, 66432, 66462, 66463, 66464, 66500, 66504, 66518, 66560, 66640, 66688, 66718, 66720, 66730, 66736,
+      66772, 66776, 66812, 66816, 66856, 66864, 66916, 66927, 66928, 67072, 67383, 67392, 67414, 67424, 67432, 67584,
+      67590, 67592, 67593, 67594, 67638, 67639, 67641, 67644, 67645, 67647, 67648, 67670, 67671, 67680, 67712, 67743,
+      67751, 67760, 67808, 67827, 67828, 67830, 67835, 67840, 67868, 67871, 67872, 67898, 67903, 67904, 67968, 68000,
+      68024, 68028, 68048, 68050, 68096, 68100, 68101, 68103, 68108, 68116, 68117, 68120, 68121, 68150, 68152, 68155,
+      68159, 68169, 68176, 68185, 68192, 68224, 68256, 68288, 68327, 68331, 68343, 68352, 68406, 68409, 68416, 68438,
+      68440, 68448, 68467, 68472, 68480, 68498, 68505, 68509, 68521, 68528, 68608, 68681, 68736, 68787, 68800, 68851,
+      68858, 68864, 68904, 68912, 68922, 69216, 69247, 69248, 69290, 69291, 69294, 69296, 69298, 69376, 69416, 69424,
+      69466, 69552, 69580, 69600, 69623, 69632, 69710, 69714, 69744, 69759, 69760, 69826, 69837, 69838, 69840, 69865,
+      69872, 69882, 69888, 69941, 69942, 69960, 69968, 70007, 70016, 70112, 70113, 70133, 70144, 70162, 70163, 70207,
+      70272, 70279, 70280, 70281, 70282, 70286, 70287, 70302, 70303, 70314, 70320, 70379, 70384, 70394, 70400, 70404,
+      70405, 70413, 70415, 70417, 70419, 70441, 70442, 70449, 70450, 70452, 70453, 70458, 70459, 70460, 70469, 70471,
+      70473, 70475, 70478, 70480, 70481, 70487, 70488, 70493, 70500, 70502, 70509, 70512, 70517, 70656, 70748, 70749,
+      70754, 70784, 70856, 70864, 70874, 71040, 71094, 71096, 71134, 71168, 71237, 71248, 71258, 71264, 71277, 71296,
+      71353, 71360, 71370, 71424, 71451, 71453, 71468, 71472, 71488, 71680, 71740, 71840, 71923, 71935, 71936, 71943,
+      71945, 71946, 71948, 71956, 71957, 71959, 71960, 71990, 71991, 71993, 71995, 72007, 72016, 72026, 72096, 72104,
+      72106, 72152, 72154, 72165, 72192, 72264, 72272, 72355, 72384, 72441, 72704, 72713, 72714, 72759, 72760, 72774,
+      72784, 72813, 72816, 72848, 72850, 72872, 72873, 72887, 72960, 72967, 72968, 72970, 72971, 73015, 73018, 73019,
+      73020, 73022, 73023, 73032, 73040, 73050, 73056, 73062, 73063, 73065, 73066, 73103, 73104, 73106, 73107, 73113,
+      73120, 73130, 73440, 73465, 73648, 73649, 73664, 73714, 73727, 73728, 74650, 74752, 74863, 74864, 74869, 74880,
+      75076, 77824, 78895, 78896, 78905, 82944, 83527, 92160, 92729, 92736, 92767, 92768, 92778, 92782, 92784, 92880,
+      92910, 92912, 92918, 92928, 92998, 93008, 93018, 93019, 93026, 93027, 93048, 93053, 93072, 93760, 93851, 93952,
+      94027, 94031, 94088, 94095, 94112, 94176, 94177, 94178, 94180, 94181, 94192, 94194, 94208, 100344, 100352,
+      101120, 101590, 101632, 101641, 110592, 110879, 110928, 110931, 110948, 110952, 110960, 111356, 113664, 113771,
+      113776, 113789, 113792, 113801, 113808, 113818, 113820, 113824, 113828, 118784, 119030, 119040, 119079, 119081,
+      119143, 119146, 119163, 119171, 119173, 119180, 119210, 119214, 119273, 119296, 119366, 119520, 119540, 119552,
+      119639, 119648, 119673, 119808, 119893, 119894, 119965, 119966, 119968, 119970, 119971, 119973, 119975, 119977,
+      119981, 119982, 119994, 119995, 119996, 119997, 120004, 120005, 120070, 120071, 120075, 120077, 120085, 120086,
+      120093, 120094, 120122, 120123, 120127, 120128, 120133, 120134, 120135, 120138, 120145, 120146, 120486, 120488,
+      120780, 120782, 120832, 121484, 121499, 121504, 121505, 121520, 122880, 122887, 122888, 122905, 122907, 122914,
+      122915, 122917, 122918, 122923, 123136, 123181, 123184, 123198, 123200, 123210, 123214, 123216, 123584, 123642,
+      123647, 123648, 124928, 125125, 125127, 125143, 125184, 125260, 125264, 125274, 125278, 125280, 126065, 126133,
+      126209, 126270, 126464, 126468, 126469, 126496, 126497, 126499, 126500, 126501, 126503, 126504, 126505, 126515,
+      126516, 126520, 126521, 126522, 126523, 126524, 126530, 126531, 126535, 126536, 126537, 126538, 126539, 126540,
+      126541, 126544, 126545, 126547, 126548, 126549, 126551, 126552, 126553, 126554, 126555, 126556, 126557, 126558,
+      126559, 126560, 126561, 126563, 126564, 126565, 126567, 126571, 126572, 126579, 126580, 126584, 126585, 126589,
+      126590, 126591, 126592, 126602, 126603, 126620, 126625, 126628, 126629, 126634, 126635, 126652, 126704, 126706,
+      126976, 127020, 127024, 127124, 127136, 127151, 127153, 127168, 127169, 127184, 127185, 127222, 127232, 127406,
+      127462, 127488, 127489, 127491, 127504, 127548, 127552, 127561, 127568, 127570, 127584, 127590, 127744, 128728,
+      128736, 128749, 128752, 128765, 128768, 128884, 128896, 128985, 128992, 129004, 129024, 129036, 129040, 129096,
+      129104, 129114, 129120, 129160, 129168, 129198, 129200, 129202, 129280, 129401, 129402, 129484, 129485, 129620,
+      129632, 129646, 129648, 129653, 129656, 129659, 129664, 129671, 129680, 129705, 129712, 129719, 129728, 129731,
+      129744, 129751, 129792, 129939, 129940, 129995, 130032, 130042, 131072, 173790, 173824, 177973, 177984, 178206,
+      178208, 183970, 183984, 191457, 194560, 195102, 196608, 201547, 917505, 917506, 917536, 917632, 917760, 918000
+  };
+
+  private static final short[] SR_SCRIPT = {
+      998, 215, 998, 215, 998, 215, 998, 215, 998, 215, 998, 215, 998, 215, 998, 215, 998, 285, 998, 994, 200, 998,
+      200, 999, 200, 998, 200, 999, 200, 998, 200, 998, 200, 999, 200, 999, 200, 999, 200, 204, 200, 220, 994, 220,
+      999, 230, 999, 230, 999, 230, 999, 125, 999, 125, 999, 125, 999, 160, 998, 160, 998, 160, 998, 160, 999, 160,
+      998, 160, 998, 160, 994, 160, 994, 160, 998, 160, 135, 999, 135, 999, 135, 160, 170, 999, 165, 999, 165, 123,
+      999, 123, 999, 140, 999, 140, 999, 135, 999, 160, 999, 160, 999, 160, 998, 160, 315, 994, 315, 998, 315, 326,
+      999, 326, 999, 326, 999, 326, 999, 326, 999, 326, 999, 326, 999, 326, 999, 326, 999, 326, 999, 326, 999, 326,
+      999, 326, 999, 326, 999, 310, 999, 310, 999, 310, 999, 310, 999, 310, 999, 310, 999, 310, 999, 310, 999, 310,
+      999, 310, 999, 310, 999, 310, 999, 310, 999, 310, 999, 310, 999, 310, 999, 320, 999, 320, 999, 320, 999, 320,
+      999, 320, 999, 320, 999, 320, 999, 320, 999, 320, 999, 320, 999, 320, 999, 320, 999, 320, 999, 320, 999, 327,
+      999, 327, 999, 327, 999, 327, 999, 327, 999, 327, 999, 327, 999, 327, 999, 327, 999, 327, 999, 327, 999, 327,
+      999, 327, 999, 327, 999, 346, 999, 346, 999, 346, 999, 346, 999, 346, 999, 346, 999, 346, 999, 346, 999, 346,
+      999, 346, 999, 346, 999, 346, 999, 346, 999, 346, 999, 346, 999, 346, 999, 340, 999, 340, 999, 340, 999, 340,
+      999, 340, 999, 340, 999, 340, 999, 340, 999, 340, 999, 340, 999, 340, 999, 340, 345, 999, 345, 999, 345, 999,
+      345, 999, 345, 999, 345, 999, 345, 999, 345, 999, 345, 999, 345, 999, 345, 999, 345, 999, 345, 999, 347, 999,
+      347, 999, 347, 999, 347, 999, 347, 999, 347, 999, 347, 999, 348, 999, 348, 999, 348, 999, 348, 999, 348, 999,
+      348, 999, 348, 999, 348, 999, 348, 999, 348, 999, 348, 999, 348, 999, 352, 999, 998, 352, 999, 356, 999, 356,
+      999, 356, 999, 356, 999, 356, 999, 356, 999, 356, 999, 356, 999, 356, 999, 356, 999, 356, 999, 330, 999, 330,
+      999, 330, 999, 330, 999, 330, 999, 330, 998, 330, 999, 350, 240, 999, 240, 999, 240, 999, 240, 998, 240, 286,
+      430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999,
+      430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 445, 999, 445, 999, 440, 212, 999, 211,
+      998, 211, 999, 370, 999, 370, 999, 371, 998, 999, 372, 999, 373, 999, 373, 999, 373, 999, 355, 999, 355, 999,
+      355, 999, 145, 998, 145, 998, 145, 999, 145, 999, 145, 999, 145, 999, 440, 999, 336, 999, 336, 999, 336, 999,
+      336, 999, 336, 353, 999, 353, 999, 354, 999, 354, 999, 354, 999, 354, 355, 367, 999, 367, 351, 999, 351, 999,
+      351, 999, 351, 999, 351, 999, 994, 999, 360, 999, 360, 999, 362, 365, 999, 365, 335, 999, 335, 999, 335, 261,
+      220, 999, 240, 999, 240, 362, 999, 994, 998, 994, 998, 994, 998, 994, 998, 994, 998, 994, 998, 999, 215, 200,
+      220, 215, 200, 215, 200, 215, 220, 215, 200, 994, 999, 994, 215, 200, 999, 200, 999, 200, 999, 200, 999, 200,
+      999, 200, 999, 200, 999, 200, 999, 200, 999, 200, 999, 200, 999, 200, 999, 200, 999, 200, 999, 200, 999, 200,
+      999, 998, 994, 998, 999, 998, 215, 999, 998, 215, 998, 999, 215, 999, 998, 999, 994, 999, 998, 200, 998, 215,
+      998, 215, 998, 215, 998, 215, 998, 999, 998, 999, 998, 999, 998, 570, 998, 999, 998, 999, 998, 225, 999, 225,
+      999, 215, 204, 999, 204, 240, 999, 240, 999, 240, 999, 120, 999, 120, 999, 120, 430, 999, 430, 999, 430, 999,
+      430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 430, 999, 220, 998, 999, 500, 999, 500, 999, 500, 999, 998,
+      999, 998, 500, 998, 500, 998, 500, 994, 286, 998, 500, 998, 999, 410, 999, 994, 998, 410, 998, 410, 998, 410,
+      999, 285, 999, 286, 999, 998, 285, 998, 999, 410, 286, 999, 998, 286, 998, 410, 998, 410, 998, 500, 998, 500,
+      999, 460, 999, 460, 999, 399, 470, 999, 220, 435, 999, 998, 215, 998, 215, 999, 215, 999, 215, 316, 999, 998,
+      999, 331, 999, 344, 999, 344, 999, 315, 357, 998, 357, 363, 999, 363, 286, 999, 361, 999, 998, 361, 999, 361,
+      350, 999, 358, 999, 358, 999, 358, 999, 358, 350, 359, 999, 359, 337, 999, 430, 999, 430, 999, 430, 999, 430,
+      999, 430, 999, 215, 998, 215, 200, 215, 998, 999, 445, 337, 999, 337, 999, 286, 999, 286, 999, 286, 999, 500,
+      999, 500, 999, 215, 999, 230, 999, 125, 999, 125, 999, 125, 999, 125, 999, 125, 999, 125, 160, 999, 160, 998,
+      999, 160, 999, 160, 999, 160, 999, 994, 998, 999, 994, 220, 998, 999, 998, 999, 998, 999, 160, 999, 160, 999,
+      998, 999, 998, 215, 998, 215, 998, 410, 998, 410, 998, 286, 999, 286, 999, 286, 999, 286, 999, 286, 999, 998,
+      999, 998, 999, 998, 999, 401, 999, 401, 999, 401, 999, 401, 999, 401, 999, 401, 999, 401, 999, 998, 999, 998,
+      999, 998, 200, 999, 998, 999, 200, 999, 998, 994, 999, 202, 999, 201, 999, 994, 998, 999, 210, 999, 210, 206,
+      999, 227, 999, 40, 999, 40, 30, 999, 30, 999, 250, 281, 260, 999, 260, 999, 219, 999, 219, 999, 226, 999, 239,
+      999, 239, 999, 400, 999, 400, 999, 400, 999, 403, 999, 403, 999, 403, 999, 403, 999, 403, 999, 403, 124, 999,
+      124, 126, 159, 999, 159, 999, 127, 999, 127, 999, 127, 115, 999, 115, 116, 999, 116, 999, 100, 101, 999, 101,
+      999, 101, 305, 999, 305, 999, 305, 999, 305, 999, 305, 999, 305, 999, 305, 999, 305, 999, 105, 106, 999, 139,
+      999, 139, 999, 134, 999, 134, 130, 999, 130, 131, 999, 131, 132, 999, 132, 999, 132, 999, 175, 999, 176, 999,
+      176, 999, 176, 167, 999, 167, 999, 160, 999, 192, 999, 192, 999, 192, 999, 142, 999, 141, 999, 109, 999, 128,
+      999, 300, 999, 300, 999, 300, 317, 999, 317, 999, 398, 999, 398, 999, 349, 999, 349, 999, 314, 999, 319, 999,
+      348, 999, 322, 999, 322, 999, 323, 999, 323, 999, 323, 999, 323, 999, 323, 999, 318, 999, 318, 999, 343, 999,
+      343, 999, 343, 999, 343, 999, 343, 999, 343, 999, 343, 999, 994, 343, 999, 343, 999, 343, 999, 343, 999, 343,
+      999, 343, 999, 343, 999, 343, 999, 333, 999, 333, 999, 1900, 999, 1900, 999, 302, 999, 302, 999, 324, 999, 324,
+      999, 145, 999, 321, 999, 321, 999, 338, 999, 338, 999, 338, 999, 328, 999, 262, 999, 262, 342, 999, 342, 999,
+      342, 999, 342, 999, 342, 999, 342, 999, 342, 999, 342, 999, 311, 999, 311, 999, 311, 999, 339, 999, 329, 999,
+      263, 999, 334, 999, 334, 999, 334, 999, 334, 999, 332, 999, 332, 999, 332, 999, 313, 999, 313, 999, 313, 999,
+      313, 999, 313, 999, 313, 999, 313, 999, 312, 999, 312, 999, 312, 999, 312, 999, 312, 999, 312, 999, 366, 999,
+      399, 999, 346, 999, 346, 20, 999, 20, 999, 20, 999, 20, 999, 50, 999, 50, 999, 80, 999, 435, 999, 264, 999, 264,
+      999, 264, 999, 259, 999, 259, 999, 450, 999, 450, 999, 450, 999, 450, 999, 450, 999, 265, 999, 282, 999, 282,
+      999, 282, 999, 520, 499, 998, 288, 999, 500, 999, 520, 999, 520, 288, 999, 520, 999, 410, 999, 410, 999, 410,
+      999, 499, 999, 755, 999, 755, 999, 755, 999, 755, 999, 755, 998, 999, 998, 999, 998, 999, 998, 994, 998, 994,
+      998, 994, 998, 994, 998, 999, 200, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999,
+      998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999,
+      998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 95, 999, 95, 999, 95, 999, 225, 999, 225, 999, 225, 999,
+      225, 999, 225, 999, 451, 999, 451, 999, 451, 999, 451, 999, 283, 999, 283, 999, 438, 999, 438, 999, 166, 999,
+      166, 999, 166, 999, 998, 999, 998, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999,
+      160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999,
+      160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 160, 999,
+      160, 999, 160, 999, 160, 999, 160, 999, 160, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999,
+      998, 999, 998, 410, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999,
+      998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999,
+      998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999, 998, 999,
+      500, 999, 500, 999, 500, 999, 500, 999, 500, 999, 500, 999, 500, 999, 998, 999, 998, 999, 994, 999
+  };
+
+  static final int[] EXTRA_SCRIPT_CODES = {
+      166, 239, 338, 124, 230, 134, 360, 435, 259, 365, 334, 300, 570, 367, 372, 349, 440, 201, 358, 445, 109, 204,
+      403, 342, 328, 250, 755, 50, 226, 128, 225, 312, 313, 206, 343, 371, 127, 80, 450, 451, 176, 210, 361, 357, 305,
+      322, 288, 317, 351, 335, 336, 400, 401, 399, 202, 116, 314, 366, 140, 139, 332, 265, 438, 101, 100, 324, 264,
+      337, 323, 311, 106, 159, 333, 165, 499, 212, 261, 175, 219, 260, 126, 263, 227, 331, 131, 132, 115, 282, 130,
+      363, 167, 211, 123, 105, 344, 95, 281, 319, 302, 318, 141, 142, 398, 329, 362, 316, 135, 373, 321, 353, 354,
+      520, 359, 120, 370, 170, 1900, 40, 470, 262, 283, 30, 20, 192, 460, 339
+  };
+
+  static final String[] EXTRA_SCRIPT_TAGS = {
+      "adlm", "aghb", "ahom", "armi", "armn", "avst", "bali", "bamu", "bass", "batk", "bhks", "brah", "brai", "bugi",
+      "buhd", "cakm", "cans", "cari", "cham", "cher", "chrs", "copt", "cprt", "diak", "dogr", "dsrt", "dupl", "egyp",
+      "elba", "elym", "glag", "gong", "gonm", "goth", "gran", "hano", "hatr", "hluw", "hmng", "hmnp", "hung", "ital",
+      "java", "kali", "khar", "khoj", "kits", "kthi", "lana", "lepc", "limb", "lina", "linb", "lisu", "lyci", "lydi",
+      "mahj", "maka", "mand", "mani", "marc", "medf", "mend", "merc", "mero", "modi", "mroo", "mtei", "mult", "nand",
+      "narb", "nbat", "newa", "nkoo", "nshu", "ogam", "olck", "orkh", "osge", "osma", "palm", "pauc", "perm", "phag",
+      "phli", "phlp", "phnx", "plrd", "prti", "rjng", "rohg", "runr", "samr", "sarb", "saur", "sgnw", "shaw", "shrd",
+      "sidd", "sind", "sogd", "sogo", "sora", "soyo", "sund", "sylo", "syrc", "tagb", "takr", "tale", "talu", "tang",
+      "tavt", "tfng", "tglg", "thaa", "tirh", "ugar", "vaii", "wara", "wcho", "xpeo", "xsux", "yezi", "yiii", "zanb"
+  };
+
+  /**
+   * Lookup the script of a character.
+   *
+   * @param c
+   *     a unicode scalar value
+   * @return a script code
+   */
+  static int scriptOf(int c) {
+    if ((c < 0) || (c > 0x10FFFF)) {
+      return CharScript.SCRIPT_UNCODED;
+    }
+    return Stages.TABLE.get(c);
+  }
+
+  /** Holds the expanded table, which is built the first time a script is looked up. */
+  private static final class Stages {
+
+    static final CodePointTable TABLE = buildTable();
+
+  }
+
+  private static CodePointTable buildTable() {
+    short[] scripts = new short[SR_SCRIPT.length];
+    for (int i = 0; i < scripts.length; i++) {
+      scripts[i] = (short) v2(SR_SCRIPT[i]);
+    }
+    return new CodePointTable(SR_START, scripts);
+  }
+
+  /** Apply the V2 indic flavor to the scripts that have one. */
+  private static int v2(int sc) {
+    switch (sc) {
+      case CharScript.SCRIPT_BENGALI:
+      case CharScript.SCRIPT_DEVANAGARI:
+      case CharScript.SCRIPT_GUJARATI:
+      case CharScript.SCRIPT_GURMUKHI:
+      case CharScript.SCRIPT_KANNADA:
+      case CharScript.SCRIPT_MALAYALAM:
+      case CharScript.SCRIPT_ORIYA:
+      case CharScript.SCRIPT_TAMIL:
+      case CharScript.SCRIPT_TELUGU:
+        return CharScript.useV2IndicRules(sc);
+      default:
+        return sc;
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>A two-stage lookup table of a Unicode character property.</p>
+ *
+ * <p>The property is given as runs of code points sharing a value, which is how the generated
+ * property tables are stored. The runs are expanded into a page index per 256 code points
+ * and a pool of 256 entry blocks, with identical blocks stored once, so that a lookup is
+ * two array reads.</p>
+ */
+public final class CodePointTable {
+
+  private static final int PAGE_SHIFT = 8;
+  private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  private static final int MAX_CODE_POINT = 0x10FFFF;
+
+  private final char[] pages;
+  private final short[] blocks;
+
+  /**
+   * Instantiate a table from property runs.
+   *
+   * @param starts
+   *     the first code point of each run, ascending and starting at 0
+   * @param values
+   *     the property value of each run
+   */
+  public CodePointTable(int[] starts, byte[] values) {
+    this(starts, toShorts(values));
+  }
+
+  /**
+   * Instantiate a table from property runs.
+   *
+   * @param starts
+   *     the first code point of each run, ascending and starting at 0
+   * @param values
+   *     the property value of each run
+   */
+  public CodePointTable(int[] starts, short[] values) {
+    if ((starts.length == 0) || (starts[0] != 0) || (starts.length != values.length)) {
+      throw new IllegalArgumentException("runs must start at code point 0");
+    }
+    pages = new char[(MAX_CODE_POINT >> PAGE_SHIFT) + 1];
+    short[] pool = new short[PAGE_SIZE * 64];
+    int poolSize = 0;
+    Map<Integer, Integer> uniform = new HashMap<Integer, Integer>();
+    Map<Integer, Integer> shared = new HashMap<Integer, Integer>();
+    short[] block = new short[PAGE_SIZE];
+    int run = 0;
+    for (int page = 0; page < pages.length; page++) {
+      int base = page << PAGE_SHIFT;
+      int end = base + PAGE_SIZE;
+      Integer offset;
+      if ((run + 1 >= starts.length) || (starts[run + 1] >= end)) {
+        // the page lies within one run, share a block filled with its value
+        offset = uniform.get(Integer.valueOf(values[run]));
+        if (offset == null) {
+          Arrays.fill(block, values[run]);
+          offset = findBlock(pool, poolSize, block);
+          if (offset < 0) {
+            pool = addBlock(pool, poolSize, block);
+            offset = poolSize;
+            poolSize += PAGE_SIZE;
+          }
+          uniform.put(Integer.valueOf(values[run]), offset);
+        }
+        if ((run + 1 < starts.length) && (starts[run + 1] == end)) {
+          run++;
+        }
+      } else {
+        int p = base;
+        while (p < end) {
+          int runEnd = (run + 1 < starts.length) ? Math.min(end, starts[run + 1]) : end;
+          Arrays.fill(block, p - base, runEnd - base, values[run]);
+          p = runEnd;
+          if ((run + 1 < starts.length) && (p == starts[run + 1])) {
+            run++;
+          }
+        }
+        int hash = Arrays.hashCode(block);
+        offset = shared.get(hash);
+        if ((offset == null) || !sameBlock(pool, offset, block)) {
+          offset = findBlock(pool, poolSize, block);
+          if (offset < 0) {
+            pool = addBlock(pool, poolSize, block);
+            offset = poolSize;
+            poolSize += PAGE_SIZE;
+          }
+          shared.put(hash, offset);
+        }
+      }
+      pages[page] = (char) (offset >> PAGE_SHIFT);
+    }
+    blocks = Arrays.copyOf(pool, poolSize);
+  }
+
+  /**
+   * Lookup the property value of a character.
+   *
+   * @param c
+   *     a unicode scalar value, between 0 and 0x10FFFF
+   * @return the property value
+   */
+  public int get(int c) {
+    return blocks[(pages[c >> PAGE_SHIFT] << PAGE_SHIFT) | (c & (PAGE_SIZE - 1))];
+  }
+
+  private static short[] toShorts(byte[] values) {
+    short[] sa = new short[values.length];
+    for (int i = 0; i < values.length; i++) {
+      sa[i] = values[i];
+    }
+    return sa;
+  }
+
+  private static short[] addBlock(short[] pool, int poolSize, short[] block) {
+    if (poolSize == pool.length) {
+      pool = Arrays.copyOf(pool, pool.length * 2);
+    }
+    System.arraycopy(block, 0, pool, poolSize, PAGE_SIZE);
+    return pool;
+  }
+
+  private static boolean sameBlock(short[] pool, int offset, short[] block) {
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      if (pool[offset + i] != block[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int findBlock(short[] pool, int poolSize, short[] block) {
+    for (int offset = 0; offset < poolSize; offset += PAGE_SIZE) {
+      if (sameBlock(pool, offset, block)) {
+        return offset;
+      }
+    }
+    return -1;
+  }
+
+}
@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.util;
+
+/**
+ * <p>Extended grapheme cluster boundaries, as by Unicode text segmentation (UAX #29).</p>
+ *
+ * <p>The Grapheme_Cluster_Break property is generated for Unicode 13.0, with Extended_Pictographic characters and
+ * the consonants and viramas of the Indic conjunct break rule (Indic_Conjunct_Break Consonant and Linker, for the
+ * Devanagari, Bengali, Gujarati, Oriya, Telugu and Malayalam scripts) given classes of their own. Classes are stored
+ * as runs and expanded into a {@link CodePointTable} on first lookup.</p>
+ *
+ * <p>The pair rules GB3 to GB9b are resolved into a table of whether a cluster may continue from each class to the
+ * next. The rules that depend on more context, for conjuncts (GB9c), emoji zero width joiner sequences (GB11) and
+ * flags (GB12, GB13), are applied by carrying a few bits of state along with the previous class, so that clusters
+ * are found in one pass without allocating. Emoji modifiers, variation selectors and tag characters extend a
+ * cluster.</p>
+ */
+public final class GraphemeClusterBreaker {
+
+  // grapheme cluster break classes
+  /** any other character */
+  public static final int OTHER = 0;
+  /** carriage return */
+  public static final int CR = 1;
+  /** line feed */
+  public static final int LF = 2;
+  /** control and format characters, and line and paragraph separators */
+  public static final int CONTROL = 3;
+  /** grapheme extender, including emoji modifiers */
+  public static final int EXTEND = 4;
+  /** zero width joiner */
+  public static final int ZWJ = 5;
+  /** regional indicator */
+  public static final int REGIONAL_INDICATOR = 6;
+  /** prepended concatenation mark */
+  public static final int PREPEND = 7;
+  /** spacing combining mark */
+  public static final int SPACING_MARK = 8;
+  /** hangul leading jamo */
+  public static final int L = 9;
+  /** hangul vowel jamo */
+  public static final int V = 10;
+  /** hangul trailing jamo */
+  public static final int T = 11;
+  /** hangul LV syllable */
+  public static final int LV = 12;
+  /** hangul LVT syllable */
+  public static final int LVT = 13;
+  /** extended pictographic, otherwise {@link #OTHER} */
+  public static final int EXTENDED_PICTOGRAPHIC = 14;
+  /** indic consonant that joins a conjunct, otherwise {@link #OTHER} */
+  public static final int CONJUNCT_CONSONANT = 15;
+  /** indic virama that links a conjunct, otherwise {@link #EXTEND} */
+  public static final int CONJUNCT_LINKER = 16;
+
+  private static final int CLASS_COUNT = 17;
+  /** pseudo class before the first character */
+  private static final int SOT = CLASS_COUNT;
+
+  // state: the class of the previous character, and context of the characters before it
+  private static final int CLASS_MASK = 0x1F;
+  /** the previous character ends an odd number of regional indicators */
+  private static final int ODD_INDICATORS = 0x20;
+  /** the previous character ends an extended pictographic followed by extenders */
+  private static final int PICTOGRAPHIC = 0x40;
+  /** the previous character is a zero width joiner following {@link #PICTOGRAPHIC} */
+  private static final int PICTOGRAPHIC_JOINER = 0x80;
+  /** the previous character ends a conjunct consonant followed by extenders */
+  private static final int CONSONANT = 0x100;
+  /** the previous character ends a conjunct consonant followed by extenders, of which one is a linker */
+  private static final int LINKED = 0x200;
+  /** a boundary precedes the character whose class was last added to the state */
+  private static final int BOUNDARY = 0x400;
+
+  private GraphemeClusterBreaker() {
+  }
+
+  private static final int[] GCB_START = {
+      0, 10, 11, 13, 14, 32, 127, 160, 169, 170, 173, 174, 175, 768, 880, 1155, 1162, 1425, 1470, 1471, 1472, 1473,
+      1475, 1476, 1478, 1479, 1480, 1536, 1542, 1552, 1563, 1564, 1565, 1611, 1632, 1648, 1649, 1750, 1757, 1758, 1759,
+      1765, 1767, 1769, 1770, 1774, 1807, 1808, 1809, 1810, 1840, 1867, 1958, 1969, 2027, 2036, 2045, 2046, 2070, 2074,
+      2075, 2084, 2085, 2088, 2089, 2094, 2137, 2140, 2259, 2274, 2275, 2307, 2308, 2325, 2362, 2363, 2364, 2365, 2366,
+      2369, 2377, 2381, 2382, 2384, 2385, 2392, 2400, 2402, 2404, 2424, 2432, 2433, 2434, 2436, 2453, 2473, 2474, 2481,
+      2482, 2483, 2486, 2490, 2492, 2493, 2494, 2495, 2497, 2501, 2503, 2505, 2507, 2509, 2510, 2519, 2520, 2524, 2526,
+      2527, 2528, 2530, 2532, 2544, 2546, 2558, 2559, 2561, 2563, 2564, 2620, 2621, 2622, 2625, 2627, 2631, 2633, 2635,
+      2638, 2641, 2642, 2672, 2674, 2677, 2678, 2689, 2691, 2692, 2709, 2729, 2730, 2737, 2738, 2740, 2741, 2746, 2748,
+      2749, 2750, 2753, 2758, 2759, 2761, 2762, 2763, 2765, 2766, 2786, 2788, 2809, 2810, 2816, 2817, 2818, 2820, 2837,
+      2857, 2858, 2865, 2866, 2868, 2869, 2874, 2876, 2877, 2878, 2880, 2881, 2885, 2887, 2889, 2891, 2893, 2894, 2901,
+      2904, 2908, 2910, 2911, 2912, 2914, 2916, 2929, 2930, 2946, 2947, 3006, 3007, 3008, 3009, 3011, 3014, 3017, 3018,
+      3021, 3022, 3031, 3032, 3072, 3073, 3076, 3077, 3093, 3113, 3114, 3130, 3134, 3137, 3141, 3142, 3145, 3146, 3149,
+      3150, 3157, 3159, 3160, 3163, 3170, 3172, 3201, 3202, 3204, 3260, 3261, 3262, 3263, 3264, 3266, 3267, 3269, 3270,
+      3271, 3273, 3274, 3276, 3278, 3285, 3287, 3298, 3300, 3328, 3330, 3332, 3349, 3387, 3389, 3390, 3391, 3393, 3397,
+      3398, 3401, 3402, 3405, 3406, 3407, 3415, 3416, 3426, 3428, 3457, 3458, 3460, 3530, 3531, 3535, 3536, 3538, 3541,
+      3542, 3543, 3544, 3551, 3552, 3570, 3572, 3633, 3634, 3635, 3636, 3643, 3655, 3663, 3761, 3762, 3763, 3764, 3773,
+      3784, 3790, 3864, 3866, 3893, 3894, 3895, 3896, 3897, 3898, 3902, 3904, 3953, 3967, 3968, 3973, 3974, 3976, 3981,
+      3992, 3993, 4029, 4038, 4039, 4141, 4145, 4146, 4152, 4153, 4155, 4157, 4159, 4182, 4184, 4186, 4190, 4193, 4209,
+      4213, 4226, 4227, 4228, 4229, 4231, 4237, 4238, 4253, 4254, 4352, 4448, 4520, 4608, 4957, 4960, 5906, 5909, 5938,
+      5941, 5970, 5972, 6002, 6004, 6068, 6070, 6071, 6078, 6086, 6087, 6089, 6100, 6109, 6110, 6155, 6158, 6159, 6277,
+      6279, 6313, 6314, 6432, 6435, 6439, 6441, 6444, 6448, 6450, 6451, 6457, 6460, 6679, 6681, 6683, 6684, 6741, 6742,
+      6743, 6744, 6751, 6752, 6753, 6754, 6755, 6757, 6765, 6771, 6781, 6783, 6784, 6832, 6849, 6912, 6916, 6917, 6964,
+      6971, 6972, 6973, 6978, 6979, 6981, 7019, 7028, 7040, 7042, 7043, 7073, 7074, 7078, 7080, 7082, 7083, 7086, 7142,
+      7143, 7144, 7146, 7149, 7150, 7151, 7154, 7156, 7204, 7212, 7220, 7222, 7224, 7376, 7379, 7380, 7393, 7394, 7401,
+      7405, 7406, 7412, 7413, 7415, 7416, 7418, 7616, 7674, 7675, 7680, 8203, 8204, 8205, 8206, 8208, 8232, 8239, 8252,
+      8253, 8265, 8266, 8288, 8304, 8400, 8433, 8482, 8483, 8505, 8506, 8596, 8602, 8617, 8619, 8986, 8988, 9000, 9001,
+      9096, 9097, 9167, 9168, 9193, 9204, 9208, 9211, 9410, 9411, 9642, 9644, 9654, 9655, 9664, 9665, 9723, 9727, 9728,
+      9734, 9735, 9747, 9748, 9862, 9872, 9990, 9992, 10003, 10004, 10005, 10006, 10007, 10013, 10014, 10017, 10018,
+      10024, 10025, 10035, 10037, 10052, 10053, 10055, 10056, 10060, 10061, 10062, 10063, 10067, 10070, 10071, 10072,
+      10083, 10088, 10133, 10136, 10145, 10146, 10160, 10161, 10175, 10176, 10548, 10550, 11013, 11016, 11035, 11037,
+      11088, 11089, 11093, 11094, 11503, 11506, 11647, 11648, 11744, 11776, 12330, 12336, 12337, 12349, 12350, 12441,
+      12443, 12951, 12952, 12953, 12954, 42607, 42611, 42612, 42622, 42654, 42656, 42736, 42738, 43010, 43011, 43014,
+      43015, 43019, 43020, 43043, 43045, 43047, 43048, 43052, 43053, 43136, 43138, 43188, 43204, 43206, 43232, 43250,
+      43263, 43264, 43302, 43310, 43335, 43346, 43348, 43360, 43389, 43392, 43395, 43396, 43443, 43444, 43446, 43450,
+      43452, 43454, 43457, 43493, 43494, 43561, 43567, 43569, 43571, 43573, 43575, 43587, 43588, 43596, 43597, 43598,
+      43644, 43645, 43696, 43697, 43698, 43701, 43703, 43705, 43710, 43712, 43713, 43714, 43755, 43756, 43758, 43760,
+      43765, 43766, 43767, 44003, 44005, 44006, 44008, 44009, 44011, 44012, 44013, 44014, 44032, 44033, 44060, 44061,
+      44088, 44089, 44116, 44117, 44144, 44145, 44172, 44173, 44200, 44201, 44228, 44229, 44256, 44257, 44284, 44285,
+      44312, 44313, 44340, 44341, 44368, 44369, 44396, 44397, 44424, 44425, 44452, 44453, 44480, 44481, 44508, 44509,
+      44536, 44537, 44564, 44565, 44592, 44593, 44620, 44621, 44648, 44649, 44676, 44677, 44704, 44705, 44732, 44733,
+      44760, 44761, 44788, 44789, 44816, 44817, 44844, 44845, 44872, 44873, 44900, 44901, 44928, 44929, 44956, 44957,
+      44984, 44985, 45012, 45013, 45040, 45041, 45068, 45069, 45096, 45097, 45124, 45125, 45152, 45153, 45180, 45181,
+      45208, 45209, 45236, 45237, 45264, 45265, 45292, 45293, 45320, 45321, 45348, 45349, 45376, 45377, 45404, 45405,
+      45432, 45433, 45460, 45461, 45488, 45489, 45516, 45517, 45544, 45545, 45572, 45573, 45600, 45601, 45628, 45629,
+      45656, 45657, 45684, 45685, 45712, 45713, 45740, 45741, 45768, 45769, 45796, 45797, 45824, 45825, 45852, 45853,
+      45880, 45881, 45908, 45909, 45936, 45937, 45964, 45965, 45992, 45993, 46020, 46021, 46048, 46049, 46076, 46077,
+      46104, 46105, 46132, 46133, 46160, 46161, 46188, 46189, 46216, 46217, 46244, 46245, 46272, 46273, 46300, 46301,
+      46328, 46329, 46356, 46357, 46384, 46385, 46412, 46413, 46440, 46441, 46468, 46469, 46496, 46497, 46524, 46525,
+      46552, 46553, 46580, 46581, 46608, 46609, 46636, 46637, 46664, 46665, 46692, 46693, 46720, 46721, 46748, 46749,
+      46776, 46777, 46804, 46805, 46832, 46833, 46860, 46861, 46888, 46889, 46916, 46917, 46944, 46945, 46972, 46973,
+      47000, 47001, 47028, 47029, 47056, 47057, 47084, 47085, 47112, 47113, 47140, 47141, 47168, 47169, 47196, 47197,
+      47224, 47225, 47252, 47253, 47280, 47281, 47308, 47309, 47336, 47337, 47364, 47365, 47392, 47393, 47420, 47421,
+      47448, 47449, 47476, 47477, 47504, 47505, 47532, 47533, 47560, 47561, 47588, 47589, 47616, 47617, 47644, 47645,
+      47672, 47673, 47700, 47701, 47728, 47729, 47756, 47757, 47784, 47785, 47812, 47813, 47840, 47841, 47868, 47869,
+      47896, 47897, 47924, 47925, 47952, 47953, 47980, 47981, 48008, 48009, 48036, 48037, 48064, 48065, 48092, 48093,
+      48120, 48121, 48148, 48149, 48176, 48177, 48204, 48205, 48232, 48233, 48260, 48261, 48288, 48289, 48316, 48317,
+      48344, 48345, 48372, 48373, 48400, 48401, 48428, 48429, 48456, 48457, 48484, 48485, 48512, 48513, 48540, 48541,
+      48568, 48569, 48596, 48597, 48624, 48625, 48652, 48653, 48680, 48681, 48708, 48709, 48736, 48737, 48764, 48765,
+      48792, 48793, 48820, 48821, 48848, 48849, 48876, 48877, 48904, 48905, 48932, 48933, 48960, 48961, 48988, 48989,
+      49016, 49017, 49044, 49045, 49072, 49073, 49100, 49101, 49128, 49129, 49156, 49157, 49184, 49185, 49212, 49213,
+      49240, 49241, 49268, 49269, 49296, 49297, 49324, 49325, 49352, 49353, 49380, 49381, 49408, 49409, 49436, 49437,
+      49464, 49465, 49492, 49493, 49520, 49521, 49548, 49549, 49576, 49577, 49604, 49605, 49632, 49633, 49660, 49661,
+      49688, 49689, 49716, 49717, 49744, 49745, 49772, 49773, 49800, 49801, 49828, 49829, 49856, 49857, 49884, 49885,
+      49912, 49913, 49940, 49941, 49968, 49969, 49996, 49997, 50024, 50025, 50052, 50053, 50080, 50081, 50108, 50109,
+      50136, 50137, 50164, 50165, 50192, 50193, 50220, 50221, 50248, 50249, 50276, 50277, 50304, 50305, 50332, 50333,
+      50360, 50361, 50388, 50389, 50416, 50417, 50444, 50445, 50472, 50473, 50500, 50501, 50528, 50529, 50556, 50557,
+      50584, 50585, 50612, 50613, 50640, 50641, 50668, 50669, 50696, 50697, 50724, 50725, 50752, 50753, 50780, 50781,
+      50808, 50809, 50836, 50837, 50864, 50865, 50892, 50893, 50920, 50921, 50948, 50949, 50976, 50977, 51004, 51005,
+      51032, 51033, 51060, 51061, 51088, 51089, 51116, 51117, 51144, 51145, 51172, 51173, 51200, 51201, 51228, 51229,
+      51256, 51257, 51284, 51285, 51312, 51313, 51340, 51341, 51368, 51369, 51396, 51397, 51424, 51425, 51452, 51453,
+      51480, 51481, 51508, 51509, 51536, 51537, 51564, 51565, 51592, 51593, 51620, 51621, 51648, 51649, 51676, 51677,
+      51704, 51705, 51732, 51733, 51760, 51761, 51788, 51789, 51816, 51817, 51844, 51845, 51872, 51873, 51900, 51901,
+      51928, 51929, 51956, 51957, 51984, 51985, 52012, 52013, 52040, 52041, 52068, 52069, 52096, 52097, 52124, 52125,
+      52152, 52153, 52180, 52181, 52208, 52209, 52236, 52237, 52264, 52265, 52292, 52293, 52320, 52321, 52348, 52349,
+      52376, 52377, 52404, 52405, 52432, 52433, 52460, 52461, 52488, 52489, 52516, 52517, 52544, 52545, 52572, 52573,
+      52600, 52601, 52628, 52629, 52656, 52657, 52684, 52685, 52712, 52713, 52740, 52741, 52768, 52769, 52796, 52797,
+      52824, 52825, 52852, 52853, 52880, 52881, 52908, 52909, 52936, 52937, 52964, 52965, 52992, 52993, 53020, 53021,
+      53048, 53049, 53076, 53077, 53104, 53105, 53132, 53133, 53160, 53161, 53188, 53189, 53216, 53217, 53244, 53245,
+      53272, 53273, 53300, 53301, 53328, 53329, 53356, 53357, 53384, 53385, 53412, 53413, 53440, 53441, 53468, 53469,
+      53496, 53497, 53524, 53525, 53552, 53553, 53580, 53581, 53608, 53609, 53636, 53637, 53664, 53665, 53692, 53693,
+      53720, 53721, 53748, 53749, 53776, 53777, 53804, 53805, 53832, 53833, 53860, 53861, 53888, 53889, 53916, 53917,
+      53944, 53945, 53972, 53973, 54000, 54001, 54028, 54029, 54056, 54057, 54084, 54085, 54112, 54113, 54140, 54141,
+      54168, 54169, 54196, 54197, 54224, 54225, 54252, 54253, 54280, 54281, 54308, 54309, 54336, 54337, 54364, 54365,
+      54392, 54393, 54420, 54421, 54448, 54449, 54476, 54477, 54504, 54505, 54532, 54533, 54560, 54561, 54588, 54589,
+      54616, 54617, 54644, 54645, 54672, 54673, 54700, 54701, 54728, 54729, 54756, 54757, 54784, 54785, 54812, 54813,
+      54840, 54841, 54868, 54869, 54896, 54897, 54924, 54925, 54952, 54953, 54980, 54981, 55008, 55009, 55036, 55037,
+      55064, 55065, 55092, 55093, 55120, 55121, 55148, 55149, 55176, 55177, 55204, 55216, 55239, 55243, 55292, 55296,
+      57344, 64286, 64287, 65024, 65040, 65056, 65072, 65279, 65280, 65438, 65440, 65520, 65532, 66045, 66046, 66272,
+      66273, 66422, 66427, 68097, 68100, 68101, 68103, 68108, 68112, 68152, 68155, 68159, 68160, 68325, 68327, 68900,
+      68904, 69291, 69293, 69446, 69457, 69632, 69633, 69634, 69635, 69688, 69703, 69759, 69762, 69763, 69808, 69811,
+      69815, 69817, 69819, 69821, 69822, 69837, 69838, 69888, 69891, 69927, 69932, 69933, 69941, 69957, 69959, 70003,
+      70004, 70016, 70018, 70019, 70067, 70070, 70079, 70081, 70082, 70084, 70089, 70093, 70094, 70095, 70096, 70188,
+      70191, 70194, 70196, 70197, 70198, 70200, 70206, 70207, 70367, 70368, 70371, 70379, 70400, 70402, 70404, 70459,
+      70461, 70462, 70463, 70464, 70465, 70469, 70471, 70473, 70475, 70478, 70487, 70488, 70498, 70500, 70502, 70509,
+      70512, 70517, 70709, 70712, 70720, 70722, 70725, 70726, 70727, 70750, 70751, 70832, 70833, 70835, 70841, 70842,
+      70843, 70845, 70846, 70847, 70849, 70850, 70852, 71087, 71088, 71090, 71094, 71096, 71100, 71102, 71103, 71105,
+      71132, 71134, 71216, 71219, 71227, 71229, 71230, 71231, 71233, 71339, 71340, 71341, 71342, 71344, 71350, 71351,
+      71352, 71453, 71456, 71458, 71462, 71463, 71468, 71724, 71727, 71736, 71737, 71739, 71984, 71985, 71990, 71991,
+      71993, 71995, 71997, 71998, 71999, 72000, 72001, 72002, 72003, 72004, 72145, 72148, 72152, 72154, 72156, 72160,
+      72161, 72164, 72165, 72193, 72203, 72243, 72249, 72250, 72251, 72255, 72263, 72264, 72273, 72279, 72281, 72284,
+      72324, 72330, 72343, 72344, 72346, 72751, 72752, 72759, 72760, 72766, 72767, 72768, 72850, 72872, 72873, 72874,
+      72881, 72882, 72884, 72885, 72887, 73009, 73015, 73018, 73019, 73020, 73022, 73023, 73030, 73031, 73032, 73098,
+      73103, 73104, 73106, 73107, 73109, 73110, 73111, 73112, 73459, 73461, 73463, 78896, 78905, 92912, 92917, 92976,
+      92983, 94031, 94032, 94033, 94088, 94095, 94099, 94180, 94181, 94192, 94194, 113821, 113823, 113824, 113828,
+      119141, 119142, 119143, 119146, 119149, 119150, 119155, 119163, 119171, 119173, 119180, 119210, 119214, 119362,
+      119365, 121344, 121399, 121403, 121453, 121461, 121462, 121476, 121477, 121499, 121504, 121505, 121520, 122880,
+      122887, 122888, 122905, 122907, 122914, 122915, 122917, 122918, 122923, 123184, 123191, 123628, 123632, 125136,
+      125143, 125252, 125259, 126976, 127232, 127245, 127248, 127279, 127280, 127340, 127346, 127358, 127360, 127374,
+      127375, 127377, 127387, 127405, 127462, 127488, 127489, 127504, 127514, 127515, 127535, 127536, 127538, 127547,
+      127548, 127552, 127561, 127995, 128000, 128318, 128326, 128592, 128640, 128768, 128884, 128896, 128981, 129024,
+      129036, 129040, 129096, 129104, 129114, 129120, 129160, 129168, 129198, 129280, 129292, 129339, 129340, 129350,
+      129351, 129792, 130048, 131070, 917504, 917536, 917632, 917760, 918000, 921600
+  };
+
+  private static final byte[] GCB_CLASS = {
+      3, 2, 3, 1, 3, 0, 3, 0, 14, 0, 3, 14, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 7, 0, 4, 0, 3, 0, 4, 0, 4, 0,
+      4, 7, 0, 4, 0, 4, 0, 4, 0, 7, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 7, 4, 8, 0, 15, 4,
+      8, 4, 0, 8, 4, 8, 16, 8, 0, 4, 15, 0, 4, 0, 15, 0, 4, 8, 0, 15, 0, 15, 0, 15, 0, 15, 0, 4, 0, 4, 8, 4, 0, 8, 0, 8,
+      16, 0, 4, 0, 15, 0, 15, 0, 4, 0, 15, 0, 4, 0, 4, 8, 0, 4, 0, 8, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 8, 0, 15,
+      0, 15, 0, 15, 0, 15, 0, 4, 0, 8, 4, 0, 4, 8, 0, 8, 16, 0, 4, 0, 15, 4, 0, 4, 8, 0, 15, 0, 15, 0, 15, 0, 15, 0, 4,
+      0, 4, 8, 4, 0, 8, 0, 8, 16, 0, 4, 0, 15, 0, 15, 0, 4, 0, 15, 0, 4, 0, 4, 8, 4, 8, 0, 8, 0, 8, 4, 0, 4, 0, 4, 8, 4,
+      0, 15, 0, 15, 0, 4, 8, 0, 4, 0, 4, 16, 0, 4, 0, 15, 0, 4, 0, 4, 8, 0, 4, 0, 8, 4, 8, 4, 8, 0, 4, 8, 0, 8, 4, 0, 4,
+      0, 4, 0, 4, 8, 0, 15, 4, 0, 4, 8, 4, 0, 8, 0, 8, 16, 7, 0, 4, 0, 4, 0, 4, 8, 0, 4, 0, 4, 8, 4, 0, 4, 0, 8, 4, 0,
+      8, 0, 4, 0, 8, 4, 0, 4, 0, 4, 0, 8, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 8, 0, 4, 8, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0,
+      4, 8, 4, 0, 4, 8, 4, 0, 8, 4, 0, 4, 0, 4, 0, 4, 0, 8, 4, 0, 4, 0, 4, 0, 9, 10, 11, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4,
+      0, 4, 8, 4, 8, 4, 8, 4, 0, 4, 0, 4, 3, 0, 4, 0, 4, 0, 4, 8, 4, 8, 0, 8, 4, 8, 4, 0, 4, 8, 4, 0, 8, 4, 8, 4, 0, 4,
+      0, 4, 0, 4, 8, 4, 0, 4, 0, 4, 0, 4, 8, 0, 4, 8, 4, 8, 4, 8, 0, 4, 0, 4, 8, 0, 8, 4, 8, 4, 8, 4, 0, 4, 8, 4, 8, 4,
+      8, 4, 8, 0, 8, 4, 8, 4, 0, 4, 0, 4, 8, 4, 0, 4, 0, 4, 0, 8, 4, 0, 4, 0, 4, 0, 3, 4, 5, 3, 0, 3, 0, 14, 0, 14, 0,
+      3, 0, 4, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14,
+      0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0,
+      14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 4, 0, 4, 0, 4, 0, 4, 14, 0, 14, 0, 4,
+      0, 14, 0, 14, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 8, 4, 8, 0, 4, 0, 8, 0, 8, 4, 0, 4, 0, 4, 0, 4, 0, 4,
+      8, 0, 9, 0, 4, 8, 0, 4, 8, 4, 8, 4, 8, 0, 4, 0, 4, 8, 4, 8, 4, 0, 4, 0, 4, 8, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4,
+      0, 8, 4, 8, 0, 8, 4, 0, 8, 4, 8, 4, 8, 0, 8, 4, 0, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13,
+      12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 12, 13, 0, 10, 0,
+      11, 0, 3, 0, 4, 0, 4, 0, 4, 0, 3, 0, 4, 0, 3, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0,
+      4, 0, 8, 4, 8, 0, 4, 0, 4, 8, 0, 8, 4, 8, 4, 0, 7, 0, 7, 0, 4, 0, 4, 8, 4, 0, 8, 0, 4, 0, 4, 8, 0, 8, 4, 8, 0, 7,
+      0, 4, 0, 8, 4, 0, 8, 4, 8, 4, 8, 4, 0, 4, 0, 4, 8, 4, 0, 4, 8, 0, 4, 0, 4, 8, 4, 8, 0, 8, 0, 8, 0, 4, 0, 8, 0, 4,
+      0, 4, 0, 8, 4, 8, 4, 8, 4, 0, 4, 0, 4, 8, 4, 8, 4, 8, 4, 8, 4, 8, 4, 0, 4, 8, 4, 0, 8, 4, 8, 4, 0, 4, 0, 8, 4, 8,
+      4, 8, 4, 0, 4, 8, 4, 8, 4, 8, 4, 0, 4, 0, 4, 8, 4, 0, 8, 4, 8, 4, 0, 4, 8, 0, 8, 0, 4, 8, 4, 7, 8, 7, 8, 4, 0, 8,
+      4, 0, 4, 8, 4, 0, 8, 0, 4, 0, 4, 8, 7, 4, 0, 4, 0, 4, 8, 4, 0, 7, 4, 8, 4, 0, 8, 4, 0, 4, 8, 4, 0, 4, 0, 8, 4, 8,
+      4, 8, 4, 0, 4, 0, 4, 0, 4, 0, 4, 7, 4, 0, 8, 0, 4, 0, 8, 4, 8, 4, 0, 4, 8, 0, 3, 0, 4, 0, 4, 0, 4, 0, 8, 0, 4, 0,
+      4, 0, 8, 0, 4, 0, 3, 0, 4, 8, 4, 0, 8, 4, 3, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4,
+      0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 4, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 6, 0, 14, 0, 14,
+      0, 14, 0, 14, 0, 14, 0, 14, 4, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0, 14, 0,
+      14, 0, 14, 0, 3, 4, 3, 4, 3, 0
+  };
+
+  /** Holds the expanded tables, which are built the first time a class is looked up. */
+  private static final class Stages {
+
+    static final CodePointTable TABLE = new CodePointTable(GCB_START, GCB_CLASS);
+    /** whether a boundary lies between a class, or the start of text, and the next class */
+    static final boolean[] PAIRS = createPairs();
+
+  }
+
+  /**
+   * Lookup the grapheme cluster break class of a character.
+   *
+   * @param c
+   *     a unicode scalar value
+   * @return grapheme cluster break class
+   */
+  public static int getGraphemeClusterBreak(int c) {
+    if ((c < 0) || (c > 0x10FFFF)) {
+      return OTHER;
+    }
+    return Stages.TABLE.get(c);
+  }
+
+  /**
+   * Find the extended grapheme clusters of a text, without allocating.
+   *
+   * @param codePoints
+   *     the text, as unicode scalar values
+   * @param start
+   *     index of first code point of the text
+   * @param end
+   *     index after last code point of the text
+   * @param boundaries
+   *     receives the index of the first code point of each cluster, followed by end; must hold at least
+   *     <code>end - start + 1</code> values
+   * @return the number of clusters
+   */
+  public static int findBoundaries(int[] codePoints, int start, int end, int[] boundaries) {
+    if ((start < 0) || (end > codePoints.length) || (start > end)) {
+      throw new IndexOutOfBoundsException("range [" + start + "," + end + ") out of bounds [0,"
+          + codePoints.length + ")");
+    }
+    if (boundaries.length < end - start + 1) {
+      throw new IllegalArgumentException("boundaries must hold " + (end - start + 1) + " values");
+    }
+    CodePointTable table = Stages.TABLE;
+    boolean[] pairs = Stages.PAIRS;
+    int count = 0;
+    int state = SOT;
+    for (int i = start; i < end; i++) {
+      int c = codePoints[i];
+      state = next(pairs, state, ((c >= 0) && (c <= 0x10FFFF)) ? table.get(c) : OTHER);
+      if ((state & BOUNDARY) != 0) {
+        boundaries[count++] = i;
+      }
+    }
+    boundaries[count] = end;
+    return count;
+  }
+
+  /**
+   * Find the end of the extended grapheme cluster that starts at an index of a text, without allocating.
+   *
+   * @param text
+   *     the text
+   * @param index
+   *     index of the first character of a cluster
+   * @param end
+   *     index after last character of the text
+   * @return index after the last character of the cluster, or index if index is not less than end
+   */
+  public static int nextBoundary(CharSequence text, int index, int end) {
+    if ((index < 0) || (end > text.length())) {
+      throw new IndexOutOfBoundsException("range [" + index + "," + end + ") out of bounds [0,"
+          + text.length() + ")");
+    }
+    if (index >= end) {
+      return index;
+    }
+    int cp = codePointAt(text, index, end);
+    int i = index + Character.charCount(cp);
+    if (i < end) {
+      char c = text.charAt(i);
+      if ((cp < 0x300) && (c < 0x300) && ((cp != '\r') || (c != '\n'))) {
+        return i; // no character below U+0300 extends a cluster
+      }
+    }
+    CodePointTable table = Stages.TABLE;
+    boolean[] pairs = Stages.PAIRS;
+    int state = next(pairs, SOT, table.get(cp));
+    while (i < end) {
+      int next = codePointAt(text, i, end);
+      state = next(pairs, state, table.get(next));
+      if ((state & BOUNDARY) != 0) {
+        return i;
+      }
+      i += Character.charCount(next);
+    }
+    return end;
+  }
+
+  private static int codePointAt(CharSequence text, int index, int end) {
+    char c = text.charAt(index);
+    if (Character.isHighSurrogate(c) && ((index + 1) < end)) {
+      char d = text.charAt(index + 1);
+      if (Character.isLowSurrogate(d)) {
+        return Character.toCodePoint(c, d);
+      }
+    }
+    return c;
+  }
+
+  /**
+   * Add the class of the next character to a state.
+   *
+   * @param pairs
+   *     the pair table
+   * @param state
+   *     the state after the previous character, or {@link #SOT} at the start of text
+   * @param cls
+   *     class of the next character
+   * @return the state after the next character, with {@link #BOUNDARY} set if a cluster starts at it
+   */
+  private static int next(boolean[] pairs, int state, int cls) {
+    int prev = state & CLASS_MASK;
+    boolean boundary = pairs[prev * CLASS_COUNT + cls];
+    if (boundary) {
+      if ((cls == REGIONAL_INDICATOR) && ((state & ODD_INDICATORS) != 0)) {
+        boundary = false; // GB12, GB13
+      } else if ((cls == EXTENDED_PICTOGRAPHIC) && ((state & PICTOGRAPHIC_JOINER) != 0)) {
+        boundary = false; // GB11
+      } else if ((cls == CONJUNCT_CONSONANT) && ((state & LINKED) != 0)) {
+        boundary = false; // GB9c
+      }
+    }
+    int s = cls;
+    if (boundary) {
+      s |= BOUNDARY;
+    }
+    if ((cls == REGIONAL_INDICATOR) && ((state & ODD_INDICATORS) == 0)) {
+      s |= ODD_INDICATORS;
+    }
+    boolean extend = (cls == EXTEND) || (cls == CONJUNCT_LINKER);
+    if ((cls == EXTENDED_PICTOGRAPHIC) || (extend && ((state & PICTOGRAPHIC) != 0))) {
+      s |= PICTOGRAPHIC;
+    } else if ((cls == ZWJ) && ((state & PICTOGRAPHIC) != 0)) {
+      s |= PICTOGRAPHIC_JOINER;
+    }
+    if (cls == CONJUNCT_CONSONANT) {
+      s |= CONSONANT;
+    } else if ((state & (CONSONANT | LINKED)) != 0) {
+      if (cls == CONJUNCT_LINKER) {
+        s |= LINKED;
+      } else if ((cls == EXTEND) || (cls == ZWJ)) {
+        s |= state & (CONSONANT | LINKED);
+      }
+    }
+    return s;
+  }
+
+  private static boolean[] createPairs() {
+    boolean[] pairs = new boolean[(CLASS_COUNT + 1) * CLASS_COUNT];
+    for (int b = 0; b <= CLASS_COUNT; b++) {
+      for (int a = 0; a < CLASS_COUNT; a++) {
+        pairs[b * CLASS_COUNT + a] = isBoundary(b, a);
+      }
+    }
+    return pairs;
+  }
+
+  /**
+   * Apply the pair rules GB1 to GB9b and GB999 to a class and the class after it.
+   *
+   * @param b
+   *     class before, or {@link #SOT}
+   * @param a
+   *     class after
+   * @return true if a cluster boundary lies between the classes
+   */
+  private static boolean isBoundary(int b, int a) {
+    if (b == SOT) {
+      return true; // GB1
+    }
+    if ((b == CR) && (a == LF)) {
+      return false; // GB3
+    }
+    if ((b == CR) || (b == LF) || (b == CONTROL) || (a == CR) || (a == LF) || (a == CONTROL)) {
+      return true; // GB4, GB5
+    }
+    if (((b == L) && ((a == L) || (a == V) || (a == LV) || (a == LVT)))
+        || (((b == LV) || (b == V)) && ((a == V) || (a == T)))
+        || (((b == LVT) || (b == T)) && (a == T))) {
+      return false; // GB6, GB7, GB8
+    }
+    if ((a == EXTEND) || (a == ZWJ) || (a == CONJUNCT_LINKER) || (a == SPACING_MARK) || (b == PREPEND)) {
+      return false; // GB9, GB9a, GB9b
+    }
+    return true; // GB999, unless GB9c, GB11 or GB12 and GB13 apply
+  }
+
+}
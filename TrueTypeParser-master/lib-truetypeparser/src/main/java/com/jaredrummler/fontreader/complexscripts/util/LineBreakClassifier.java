@@ -0,0 +1,604 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.util;
+
+/**
+ * <p>Line break opportunities, as by the Unicode line breaking algorithm (UAX #14).</p>
+ *
+ * <p>Line break classes are generated for Unicode 13.0 and resolved as by rule LB1: ambiguous, surrogate and
+ * unknown characters are alphabetic, conditional Japanese starters are nonstarters, and characters of South East Asian
+ * scripts are combining marks if they are marks and alphabetic otherwise, so that such text breaks only at spaces.
+ * Classes are stored as runs and expanded into a {@link CodePointTable} on first lookup.</p>
+ *
+ * <p>The pair rules LB11 to LB30b are resolved into a table of the action between each class and the class after
+ * it, with or without intervening spaces; {@link #findBreaks(int[], int, int, byte[], int)} then classifies a text
+ * in one pass, applying the rules that depend on more context as it goes, without allocating.</p>
+ */
+public final class LineBreakClassifier {
+
+  /** A line may not break after the character. */
+  public static final byte PROHIBITED = 0;
+  /** A line may break after the character. */
+  public static final byte ALLOWED = 1;
+  /** A line must break after the character. */
+  public static final byte MANDATORY = 2;
+
+  // line break classes, after resolution by rule LB1
+  /** mandatory break */
+  public static final int BK = 0;
+  /** carriage return */
+  public static final int CR = 1;
+  /** line feed */
+  public static final int LF = 2;
+  /** next line */
+  public static final int NL = 3;
+  /** space */
+  public static final int SP = 4;
+  /** zero width space */
+  public static final int ZW = 5;
+  /** word joiner */
+  public static final int WJ = 6;
+  /** non-breaking ("glue") */
+  public static final int GL = 7;
+  /** combining mark */
+  public static final int CM = 8;
+  /** zero width joiner */
+  public static final int ZWJ = 9;
+  /** break after */
+  public static final int BA = 10;
+  /** break before */
+  public static final int BB = 11;
+  /** break opportunity before and after */
+  public static final int B2 = 12;
+  /** hyphen */
+  public static final int HY = 13;
+  /** contingent break opportunity */
+  public static final int CB = 14;
+  /** close punctuation */
+  public static final int CL = 15;
+  /** close parenthesis */
+  public static final int CP = 16;
+  /** exclamation or interrogation */
+  public static final int EX = 17;
+  /** inseparable */
+  public static final int IN = 18;
+  /** nonstarter */
+  public static final int NS = 19;
+  /** open punctuation */
+  public static final int OP = 20;
+  /** quotation */
+  public static final int QU = 21;
+  /** infix numeric separator */
+  public static final int IS = 22;
+  /** numeric */
+  public static final int NU = 23;
+  /** postfix numeric */
+  public static final int PO = 24;
+  /** prefix numeric */
+  public static final int PR = 25;
+  /** symbols allowing break after */
+  public static final int SY = 26;
+  /** alphabetic */
+  public static final int AL = 27;
+  /** hebrew letter */
+  public static final int HL = 28;
+  /** ideographic */
+  public static final int ID = 29;
+  /** emoji base */
+  public static final int EB = 30;
+  /** emoji modifier */
+  public static final int EM = 31;
+  /** hangul LV syllable */
+  public static final int H2 = 32;
+  /** hangul LVT syllable */
+  public static final int H3 = 33;
+  /** hangul L jamo */
+  public static final int JL = 34;
+  /** hangul V jamo */
+  public static final int JV = 35;
+  /** hangul T jamo */
+  public static final int JT = 36;
+  /** regional indicator */
+  public static final int RI = 37;
+
+  private static final int CLASS_COUNT = 38;
+
+  // pair table actions
+  private static final byte DIRECT = 0;
+  private static final byte INDIRECT = 1;
+  private static final byte PROHIBITED_PAIR = 2;
+
+  private LineBreakClassifier() {
+  }
+
+  private static final int[] LB_START = {
+      0, 9, 10, 11, 13, 14, 32, 33, 34, 35, 36, 37, 38, 39, 40, 41, 42, 43, 44, 45, 46, 47, 48, 58, 60, 63, 64, 91, 92,
+      93, 94, 123, 124, 125, 126, 127, 133, 134, 160, 161, 162, 163, 166, 171, 172, 173, 174, 176, 177, 178, 180, 181,
+      187, 188, 191, 192, 712, 713, 716, 717, 735, 736, 768, 847, 848, 860, 867, 880, 894, 895, 1155, 1162, 1417, 1418,
+      1419, 1423, 1424, 1425, 1470, 1471, 1472, 1473, 1475, 1476, 1478, 1479, 1480, 1488, 1515, 1519, 1523, 1545, 1548,
+      1550, 1552, 1563, 1564, 1565, 1568, 1611, 1632, 1642, 1643, 1648, 1649, 1748, 1749, 1750, 1757, 1759, 1765, 1767,
+      1769, 1770, 1774, 1776, 1786, 1809, 1810, 1840, 1867, 1958, 1969, 1984, 1994, 2027, 2036, 2040, 2041, 2042, 2045,
+      2046, 2048, 2070, 2074, 2075, 2084, 2085, 2088, 2089, 2094, 2137, 2140, 2259, 2274, 2275, 2308, 2362, 2365, 2366,
+      2384, 2385, 2392, 2402, 2404, 2406, 2416, 2433, 2436, 2492, 2493, 2494, 2501, 2503, 2505, 2507, 2510, 2519, 2520,
+      2530, 2532, 2534, 2544, 2546, 2548, 2553, 2554, 2555, 2556, 2558, 2559, 2561, 2564, 2620, 2621, 2622, 2627, 2631,
+      2633, 2635, 2638, 2641, 2642, 2662, 2672, 2674, 2677, 2678, 2689, 2692, 2748, 2749, 2750, 2758, 2759, 2762, 2763,
+      2766, 2786, 2788, 2790, 2800, 2801, 2802, 2810, 2816, 2817, 2820, 2876, 2877, 2878, 2885, 2887, 2889, 2891, 2894,
+      2901, 2904, 2914, 2916, 2918, 2928, 2946, 2947, 3006, 3011, 3014, 3017, 3018, 3022, 3031, 3032, 3046, 3056, 3065,
+      3066, 3072, 3077, 3134, 3141, 3142, 3145, 3146, 3150, 3157, 3159, 3170, 3172, 3174, 3184, 3201, 3204, 3260, 3261,
+      3262, 3269, 3270, 3273, 3274, 3278, 3285, 3287, 3298, 3300, 3302, 3312, 3328, 3332, 3387, 3389, 3390, 3397, 3398,
+      3401, 3402, 3406, 3415, 3416, 3426, 3428, 3430, 3440, 3449, 3450, 3457, 3460, 3530, 3531, 3535, 3541, 3542, 3543,
+      3544, 3552, 3558, 3568, 3570, 3572, 3633, 3634, 3636, 3643, 3647, 3648, 3655, 3663, 3664, 3674, 3676, 3761, 3762,
+      3764, 3773, 3784, 3790, 3792, 3802, 3841, 3845, 3846, 3848, 3849, 3851, 3852, 3853, 3858, 3859, 3860, 3861, 3864,
+      3866, 3872, 3882, 3892, 3893, 3894, 3895, 3896, 3897, 3898, 3899, 3900, 3901, 3902, 3904, 3953, 3967, 3968, 3973,
+      3974, 3976, 3981, 3992, 3993, 4029, 4030, 4032, 4038, 4039, 4048, 4050, 4051, 4052, 4057, 4059, 4139, 4159, 4160,
+      4170, 4172, 4182, 4186, 4190, 4193, 4194, 4197, 4199, 4206, 4209, 4213, 4226, 4238, 4239, 4240, 4250, 4254, 4352,
+      4448, 4520, 4608, 4957, 4960, 4969, 5120, 5121, 5760, 5761, 5787, 5788, 5789, 5867, 5870, 5906, 5909, 5938, 5941,
+      5943, 5970, 5972, 6002, 6004, 6068, 6100, 6102, 6103, 6104, 6105, 6106, 6107, 6108, 6109, 6110, 6112, 6122, 6144,
+      6146, 6148, 6150, 6151, 6152, 6154, 6155, 6158, 6159, 6160, 6170, 6277, 6279, 6313, 6314, 6432, 6444, 6448, 6460,
+      6468, 6470, 6480, 6608, 6618, 6679, 6684, 6741, 6751, 6752, 6781, 6783, 6784, 6794, 6800, 6810, 6832, 6849, 6912,
+      6917, 6964, 6981, 6992, 7002, 7004, 7005, 7009, 7019, 7028, 7040, 7043, 7073, 7086, 7088, 7098, 7142, 7156, 7204,
+      7224, 7227, 7232, 7242, 7248, 7258, 7294, 7296, 7376, 7379, 7380, 7401, 7405, 7406, 7412, 7413, 7415, 7418, 7616,
+      7674, 7675, 7680, 8189, 8190, 8192, 8199, 8200, 8203, 8204, 8205, 8206, 8208, 8209, 8210, 8212, 8213, 8214, 8216,
+      8218, 8219, 8222, 8223, 8224, 8228, 8231, 8232, 8234, 8239, 8240, 8248, 8249, 8251, 8252, 8254, 8260, 8261, 8262,
+      8263, 8266, 8278, 8279, 8280, 8284, 8285, 8288, 8289, 8294, 8304, 8317, 8318, 8319, 8333, 8334, 8335, 8352, 8359,
+      8360, 8374, 8375, 8379, 8380, 8382, 8383, 8384, 8385, 8400, 8433, 8451, 8452, 8457, 8458, 8470, 8471, 8722, 8724,
+      8943, 8944, 8968, 8969, 8970, 8971, 8972, 8986, 8988, 9001, 9002, 9003, 9193, 9197, 9200, 9201, 9203, 9204, 9725,
+      9727, 9748, 9750, 9757, 9758, 9800, 9812, 9855, 9856, 9875, 9876, 9889, 9890, 9898, 9900, 9917, 9919, 9924, 9926,
+      9934, 9935, 9940, 9941, 9962, 9963, 9970, 9972, 9973, 9974, 9977, 9978, 9979, 9981, 9982, 9989, 9990, 9994, 9998,
+      10024, 10025, 10060, 10061, 10062, 10063, 10067, 10070, 10071, 10072, 10075, 10081, 10082, 10084, 10088, 10089,
+      10090, 10091, 10092, 10093, 10094, 10095, 10096, 10097, 10098, 10099, 10100, 10101, 10102, 10133, 10136, 10160,
+      10161, 10175, 10176, 10181, 10182, 10183, 10214, 10215, 10216, 10217, 10218, 10219, 10220, 10221, 10222, 10223,
+      10224, 10627, 10628, 10629, 10630, 10631, 10632, 10633, 10634, 10635, 10636, 10637, 10638, 10639, 10640, 10641,
+      10642, 10643, 10644, 10645, 10646, 10647, 10648, 10649, 10712, 10713, 10714, 10715, 10716, 10748, 10749, 10750,
+      11035, 11037, 11088, 11089, 11093, 11094, 11503, 11506, 11513, 11514, 11517, 11518, 11519, 11520, 11647, 11648,
+      11744, 11776, 11790, 11798, 11799, 11800, 11801, 11803, 11804, 11806, 11808, 11810, 11811, 11812, 11813, 11814,
+      11815, 11816, 11817, 11818, 11822, 11823, 11824, 11826, 11827, 11829, 11834, 11836, 11839, 11840, 11842, 11843,
+      11851, 11852, 11853, 11854, 11856, 11904, 11930, 11931, 12020, 12032, 12246, 12272, 12284, 12288, 12289, 12291,
+      12293, 12294, 12296, 12297, 12298, 12299, 12300, 12301, 12302, 12303, 12304, 12305, 12306, 12308, 12309, 12310,
+      12311, 12312, 12313, 12314, 12315, 12316, 12317, 12318, 12320, 12330, 12336, 12347, 12349, 12351, 12353, 12354,
+      12355, 12356, 12357, 12358, 12359, 12360, 12361, 12362, 12387, 12388, 12419, 12420, 12421, 12422, 12423, 12424,
+      12430, 12431, 12437, 12439, 12441, 12443, 12447, 12448, 12450, 12451, 12452, 12453, 12454, 12455, 12456, 12457,
+      12458, 12483, 12484, 12515, 12516, 12517, 12518, 12519, 12520, 12526, 12527, 12533, 12535, 12539, 12543, 12544,
+      12549, 12592, 12593, 12687, 12688, 12772, 12784, 12800, 12831, 12832, 12872, 12880, 19904, 19968, 40981, 40982,
+      42125, 42128, 42183, 42510, 42511, 42528, 42538, 42607, 42611, 42612, 42622, 42654, 42656, 42736, 42738, 43010,
+      43011, 43014, 43015, 43019, 43020, 43043, 43048, 43052, 43053, 43064, 43065, 43124, 43126, 43128, 43136, 43138,
+      43188, 43206, 43214, 43216, 43226, 43232, 43250, 43263, 43264, 43274, 43302, 43310, 43312, 43335, 43348, 43360,
+      43389, 43392, 43396, 43443, 43457, 43463, 43466, 43472, 43482, 43493, 43494, 43504, 43514, 43561, 43575, 43587,
+      43588, 43596, 43598, 43600, 43610, 43613, 43616, 43643, 43646, 43696, 43697, 43698, 43701, 43703, 43705, 43710,
+      43712, 43713, 43714, 43755, 43760, 43762, 43765, 43767, 44003, 44011, 44012, 44014, 44016, 44026, 44032, 44033,
+      44060, 44061, 44088, 44089, 44116, 44117, 44144, 44145, 44172, 44173, 44200, 44201, 44228, 44229, 44256, 44257,
+      44284, 44285, 44312, 44313, 44340, 44341, 44368, 44369, 44396, 44397, 44424, 44425, 44452, 44453, 44480, 44481,
+      44508, 44509, 44536, 44537, 44564, 44565, 44592, 44593, 44620, 44621, 44648, 44649, 44676, 44677, 44704, 44705,
+      44732, 44733, 44760, 44761, 44788, 44789, 44816, 44817, 44844, 44845, 44872, 44873, 44900, 44901, 44928, 44929,
+      44956, 44957, 44984, 44985, 45012, 45013, 45040, 45041, 45068, 45069, 45096, 45097, 45124, 45125, 45152, 45153,
+      45180, 45181, 45208, 45209, 45236, 45237, 45264, 45265, 45292, 45293, 45320, 45321, 45348, 45349, 45376, 45377,
+      45404, 45405, 45432, 45433, 45460, 45461, 45488, 45489, 45516, 45517, 45544, 45545, 45572, 45573, 45600, 45601,
+      45628, 45629, 45656, 45657, 45684, 45685, 45712, 45713, 45740, 45741, 45768, 45769, 45796, 45797, 45824, 45825,
+      45852, 45853, 45880, 45881, 45908, 45909, 45936, 45937, 45964, 45965, 45992, 45993, 46020, 46021, 46048, 46049,
+      46076, 46077, 46104, 46105, 46132, 46133, 46160, 46161, 46188, 46189, 46216, 46217, 46244, 46245, 46272, 46273,
+      46300, 46301, 46328, 46329, 46356, 46357, 46384, 46385, 46412, 46413, 46440, 46441, 46468, 46469, 46496, 46497,
+      46524, 46525, 46552, 46553, 46580, 46581, 46608, 46609, 46636, 46637, 46664, 46665, 46692, 46693, 46720, 46721,
+      46748, 46749, 46776, 46777, 46804, 46805, 46832, 46833, 46860, 46861, 46888, 46889, 46916, 46917, 46944, 46945,
+      46972, 46973, 47000, 47001, 47028, 47029, 47056, 47057, 47084, 47085, 47112, 47113, 47140, 47141, 47168, 47169,
+      47196, 47197, 47224, 47225, 47252, 47253, 47280, 47281, 47308, 47309, 47336, 47337, 47364, 47365, 47392, 47393,
+      47420, 47421, 47448, 47449, 47476, 47477, 47504, 47505, 47532, 47533, 47560, 47561, 47588, 47589, 47616, 47617,
+      47644, 47645, 47672, 47673, 47700, 47701, 47728, 47729, 47756, 47757, 47784, 47785, 47812, 47813, 47840, 47841,
+      47868, 47869, 47896, 47897, 47924, 47925, 47952, 47953, 47980, 47981, 48008, 48009, 48036, 48037, 48064, 48065,
+      48092, 48093, 48120, 48121, 48148, 48149, 48176, 48177, 48204, 48205, 48232, 48233, 48260, 48261, 48288, 48289,
+      48316, 48317, 48344, 48345, 48372, 48373, 48400, 48401, 48428, 48429, 48456, 48457, 48484, 48485, 48512, 48513,
+      48540, 48541, 48568, 48569, 48596, 48597, 48624, 48625, 48652, 48653, 48680, 48681, 48708, 48709, 48736, 48737,
+      48764, 48765, 48792, 48793, 48820, 48821, 48848, 48849, 48876, 48877, 48904, 48905, 48932, 48933, 48960, 48961,
+      48988, 48989, 49016, 49017, 49044, 49045, 49072, 49073, 49100, 49101, 49128, 49129, 49156, 49157, 49184, 49185,
+      49212, 49213, 49240, 49241, 49268, 49269, 49296, 49297, 49324, 49325, 49352, 49353, 49380, 49381, 49408, 49409,
+      49436, 49437, 49464, 49465, 49492, 49493, 49520, 49521, 49548, 49549, 49576, 49577, 49604, 49605, 49632, 49633,
+      49660, 49661, 49688, 49689, 49716, 49717, 49744, 49745, 49772, 49773, 49800, 49801, 49828, 49829, 49856, 49857,
+      49884, 49885, 49912, 49913, 49940, 49941, 49968, 49969, 49996, 49997, 50024, 50025, 50052, 50053, 50080, 50081,
+      50108, 50109, 50136, 50137, 50164, 50165, 50192, 50193, 50220, 50221, 50248, 50249, 50276, 50277, 50304, 50305,
+      50332, 50333, 50360, 50361, 50388, 50389, 50416, 50417, 50444, 50445, 50472, 50473, 50500, 50501, 50528, 50529,
+      50556, 50557, 50584, 50585, 50612, 50613, 50640, 50641, 50668, 50669, 50696, 50697, 50724, 50725, 50752, 50753,
+      50780, 50781, 50808, 50809, 50836, 50837, 50864, 50865, 50892, 50893, 50920, 50921, 50948, 50949, 50976, 50977,
+      51004, 51005, 51032, 51033, 51060, 51061, 51088, 51089, 51116, 51117, 51144, 51145, 51172, 51173, 51200, 51201,
+      51228, 51229, 51256, 51257, 51284, 51285, 51312, 51313, 51340, 51341, 51368, 51369, 51396, 51397, 51424, 51425,
+      51452, 51453, 51480, 51481, 51508, 51509, 51536, 51537, 51564, 51565, 51592, 51593, 51620, 51621, 51648, 51649,
+      51676, 51677, 51704, 51705, 51732, 51733, 51760, 51761, 51788, 51789, 51816, 51817, 51844, 51845, 51872, 51873,
+      51900, 51901, 51928, 51929, 51956, 51957, 51984, 51985, 52012, 52013, 52040, 52041, 52068, 52069, 52096, 52097,
+      52124, 52125, 52152, 52153, 52180, 52181, 52208, 52209, 52236, 52237, 52264, 52265, 52292, 52293, 52320, 52321,
+      52348, 52349, 52376, 52377, 52404, 52405, 52432, 52433, 52460, 52461, 52488, 52489, 52516, 52517, 52544, 52545,
+      52572, 52573, 52600, 52601, 52628, 52629, 52656, 52657, 52684, 52685, 52712, 52713, 52740, 52741, 52768, 52769,
+      52796, 52797, 52824, 52825, 52852, 52853, 52880, 52881, 52908, 52909, 52936, 52937, 52964, 52965, 52992, 52993,
+      53020, 53021, 53048, 53049, 53076, 53077, 53104, 53105, 53132, 53133, 53160, 53161, 53188, 53189, 53216, 53217,
+      53244, 53245, 53272, 53273, 53300, 53301, 53328, 53329, 53356, 53357, 53384, 53385, 53412, 53413, 53440, 53441,
+      53468, 53469, 53496, 53497, 53524, 53525, 53552, 53553, 53580, 53581, 53608, 53609, 53636, 53637, 53664, 53665,
+      53692, 53693, 53720, 53721, 53748, 53749, 53776, 53777, 53804, 53805, 53832, 53833, 53860, 53861, 53888, 53889,
+      53916, 53917, 53944, 53945, 53972, 53973, 54000, 54001, 54028, 54029, 54056, 54057, 54084, 54085, 54112, 54113,
+      54140, 54141, 54168, 54169, 54196, 54197, 54224, 54225, 54252, 54253, 54280, 54281, 54308, 54309, 54336, 54337,
+      54364, 54365, 54392, 54393, 54420, 54421, 54448, 54449, 54476, 54477, 54504, 54505, 54532, 54533, 54560, 54561,
+      54588, 54589, 54616, 54617, 54644, 54645, 54672, 54673, 54700, 54701, 54728, 54729, 54756, 54757, 54784, 54785,
+      54812, 54813, 54840, 54841, 54868, 54869, 54896, 54897, 54924, 54925, 54952, 54953, 54980, 54981, 55008, 55009,
+      55036, 55037, 55064, 55065, 55092, 55093, 55120, 55121, 55148, 55149, 55176, 55177, 55204, 55216, 55239, 55243,
+      55292, 63744, 64256, 64285, 64286, 64287, 64297, 64298, 64311, 64312, 64317, 64318, 64319, 64320, 64322, 64323,
+      64325, 64326, 64336, 64830, 64831, 64832, 65020, 65021, 65024, 65040, 65041, 65043, 65045, 65047, 65048, 65049,
+      65050, 65056, 65072, 65077, 65078, 65079, 65080, 65081, 65082, 65083, 65084, 65085, 65086, 65087, 65088, 65089,
+      65090, 65091, 65092, 65093, 65095, 65096, 65097, 65104, 65105, 65106, 65107, 65108, 65110, 65112, 65113, 65114,
+      65115, 65116, 65117, 65118, 65119, 65127, 65128, 65129, 65130, 65131, 65132, 65279, 65280, 65281, 65282, 65284,
+      65285, 65286, 65288, 65289, 65290, 65292, 65293, 65294, 65295, 65296, 65306, 65308, 65311, 65312, 65339, 65340,
+      65341, 65342, 65371, 65372, 65373, 65374, 65375, 65376, 65378, 65379, 65381, 65382, 65383, 65393, 65438, 65440,
+      65504, 65505, 65506, 65509, 65511, 65529, 65532, 65533, 65792, 65795, 66045, 66046, 66272, 66273, 66422, 66427,
+      66463, 66464, 66512, 66513, 66720, 66730, 67871, 67872, 68097, 68100, 68101, 68103, 68108, 68112, 68152, 68155,
+      68159, 68160, 68176, 68184, 68325, 68327, 68336, 68342, 68343, 68409, 68416, 68900, 68904, 68912, 68922, 69291,
+      69293, 69294, 69446, 69457, 69632, 69635, 69688, 69703, 69705, 69734, 69744, 69759, 69763, 69808, 69819, 69822,
+      69826, 69872, 69882, 69888, 69891, 69927, 69941, 69942, 69952, 69956, 69957, 69959, 70003, 70004, 70016, 70019,
+      70067, 70081, 70085, 70087, 70088, 70089, 70093, 70094, 70096, 70106, 70109, 70112, 70188, 70200, 70202, 70203,
+      70205, 70206, 70207, 70313, 70314, 70367, 70379, 70384, 70394, 70400, 70404, 70459, 70461, 70462, 70469, 70471,
+      70473, 70475, 70478, 70487, 70488, 70498, 70500, 70502, 70509, 70512, 70517, 70709, 70727, 70731, 70735, 70736,
+      70746, 70748, 70750, 70751, 70832, 70852, 70864, 70874, 71087, 71094, 71096, 71105, 71106, 71108, 71110, 71113,
+      71128, 71132, 71134, 71216, 71233, 71235, 71248, 71258, 71339, 71352, 71360, 71370, 71453, 71468, 71472, 71482,
+      71484, 71487, 71724, 71739, 71904, 71914, 71984, 71990, 71991, 71993, 71995, 71999, 72000, 72001, 72002, 72004,
+      72016, 72026, 72145, 72152, 72154, 72161, 72164, 72165, 72193, 72203, 72243, 72250, 72251, 72255, 72263, 72264,
+      72273, 72284, 72330, 72346, 72751, 72759, 72760, 72768, 72784, 72794, 72817, 72818, 72850, 72872, 72873, 72887,
+      73009, 73015, 73018, 73019, 73020, 73022, 73023, 73030, 73031, 73032, 73040, 73050, 73098, 73103, 73104, 73106,
+      73107, 73112, 73120, 73130, 73459, 73463, 73693, 73697, 74864, 74869, 78424, 78427, 78430, 78466, 78467, 78470,
+      78471, 78474, 78713, 78714, 78716, 78896, 78905, 83406, 83407, 83408, 92768, 92778, 92782, 92784, 92912, 92917,
+      92918, 92976, 92983, 92986, 92996, 92997, 93008, 93018, 94031, 94032, 94033, 94088, 94095, 94099, 94176, 94180,
+      94181, 94192, 94194, 94208, 100344, 100352, 101590, 101632, 101641, 110592, 110879, 110928, 110931, 110948,
+      110952, 110960, 111356, 113821, 113823, 113824, 113828, 119141, 119146, 119149, 119171, 119173, 119180, 119210,
+      119214, 119362, 119365, 120782, 120832, 121344, 121399, 121403, 121453, 121461, 121462, 121476, 121477, 121479,
+      121483, 121499, 121504, 121505, 121520, 122880, 122887, 122888, 122905, 122907, 122914, 122915, 122917, 122918,
+      122923, 123184, 123191, 123200, 123210, 123628, 123632, 123642, 123647, 123648, 125136, 125143, 125252, 125259,
+      125264, 125274, 125278, 125280, 126128, 126129, 126976, 127232, 127245, 127462, 127488, 127877, 127878, 127938,
+      127941, 127943, 127944, 127946, 127949, 127995, 128000, 128066, 128068, 128070, 128081, 128102, 128121, 128124,
+      128125, 128129, 128132, 128133, 128136, 128143, 128144, 128145, 128146, 128170, 128171, 128372, 128374, 128378,
+      128379, 128400, 128401, 128405, 128407, 128581, 128584, 128587, 128592, 128630, 128633, 128636, 128675, 128676,
+      128692, 128695, 128704, 128705, 128716, 128717, 129292, 129293, 129295, 129296, 129304, 129312, 129318, 129319,
+      129328, 129338, 129340, 129343, 129399, 129400, 129461, 129463, 129464, 129466, 129467, 129468, 129485, 129488,
+      129489, 129502, 129792, 130032, 130042, 130048, 131070, 131072, 196606, 196608, 262142, 917505, 917506, 917536,
+      917632, 917760, 918000
+  };
+
+  private static final byte[] LB_CLASS = {
+      8, 10, 2, 0, 1, 8, 4, 17, 21, 27, 25, 24, 27, 21, 20, 16, 27, 25, 22, 13, 22, 26, 23, 22, 27, 17, 27, 20, 25, 16,
+      27, 20, 10, 15, 27, 8, 3, 8, 7, 20, 24, 25, 27, 21, 27, 10, 27, 24, 25, 27, 11, 27, 21, 27, 20, 27, 11, 27, 11,
+      27, 11, 27, 8, 7, 8, 7, 8, 27, 22, 27, 8, 27, 22, 10, 27, 25, 27, 8, 10, 8, 27, 8, 27, 8, 17, 8, 27, 28, 27, 28,
+      27, 24, 22, 27, 8, 17, 8, 17, 27, 8, 23, 24, 27, 8, 27, 17, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 27, 8, 27,
+      8, 27, 23, 27, 8, 27, 22, 17, 27, 8, 25, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27,
+      8, 10, 23, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 24, 27, 24, 27, 25, 27, 8, 27, 8, 27, 8,
+      27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 25, 27, 8, 27,
+      8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 25, 27, 8, 27,
+      8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 27, 8, 27,
+      8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 24, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 27, 8, 27, 8, 27,
+      25, 27, 8, 27, 23, 10, 27, 8, 27, 8, 27, 8, 27, 23, 27, 11, 27, 11, 7, 11, 10, 7, 17, 7, 27, 17, 27, 8, 27, 23,
+      27, 10, 8, 27, 8, 27, 8, 20, 15, 20, 15, 8, 27, 8, 10, 8, 10, 8, 27, 8, 27, 8, 27, 10, 27, 8, 27, 11, 10, 11, 27,
+      7, 27, 8, 27, 23, 10, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 23, 8, 27, 34, 35, 36, 27, 8, 10, 27, 10,
+      27, 10, 27, 20, 15, 27, 10, 27, 8, 27, 8, 10, 27, 8, 27, 8, 27, 8, 10, 19, 27, 10, 27, 10, 25, 27, 8, 27, 23, 27,
+      10, 17, 10, 11, 27, 17, 27, 8, 7, 27, 23, 27, 8, 27, 8, 27, 8, 27, 8, 27, 17, 23, 27, 23, 27, 8, 27, 8, 27, 8, 27,
+      8, 23, 27, 23, 27, 8, 27, 8, 27, 8, 27, 23, 10, 27, 10, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 27, 8, 27, 10, 23, 27,
+      23, 27, 10, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 11, 27, 10, 7, 10, 5, 8, 9, 8, 10, 7, 10, 12, 10,
+      27, 21, 20, 21, 20, 21, 27, 18, 10, 0, 8, 7, 24, 27, 21, 27, 19, 27, 22, 20, 15, 19, 27, 10, 27, 10, 27, 10, 6,
+      27, 8, 27, 20, 15, 27, 20, 15, 27, 25, 24, 25, 24, 25, 24, 25, 24, 25, 24, 27, 8, 27, 24, 27, 24, 27, 25, 27, 25,
+      27, 18, 27, 20, 15, 20, 15, 27, 29, 27, 20, 15, 27, 29, 27, 29, 27, 29, 27, 29, 27, 29, 27, 30, 27, 29, 27, 29,
+      27, 29, 27, 29, 27, 29, 27, 29, 27, 29, 27, 29, 27, 29, 27, 29, 27, 29, 27, 29, 27, 30, 29, 27, 29, 27, 29, 27,
+      30, 27, 29, 27, 29, 27, 29, 27, 29, 27, 29, 27, 21, 27, 17, 27, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15,
+      20, 15, 27, 29, 27, 29, 27, 29, 27, 20, 15, 27, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 27, 20, 15, 20, 15, 20,
+      15, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 27, 20, 15, 20, 15, 27, 20, 15, 27, 29, 27,
+      29, 27, 29, 27, 8, 27, 17, 10, 27, 17, 10, 27, 8, 27, 8, 21, 10, 27, 10, 20, 10, 27, 21, 27, 21, 20, 15, 20, 15,
+      20, 15, 20, 15, 10, 17, 27, 10, 27, 10, 27, 12, 10, 27, 10, 20, 10, 27, 10, 27, 10, 27, 29, 27, 29, 27, 29, 27,
+      29, 27, 10, 15, 29, 19, 29, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 29, 20, 15, 20, 15, 20, 15, 20, 15, 19, 20,
+      15, 29, 8, 29, 19, 29, 27, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 27,
+      8, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 19, 29, 27, 29,
+      27, 29, 27, 29, 27, 19, 29, 27, 29, 27, 29, 27, 29, 19, 29, 27, 29, 27, 17, 27, 23, 27, 8, 27, 8, 27, 8, 27, 8,
+      27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 24, 27, 11, 17, 27, 8, 27, 8, 27, 10, 23, 27, 8, 27, 8, 23, 27, 8, 10, 27,
+      8, 27, 34, 27, 8, 27, 8, 27, 10, 27, 23, 27, 8, 27, 23, 27, 8, 27, 8, 27, 8, 27, 23, 27, 10, 27, 8, 27, 8, 27, 8,
+      27, 8, 27, 8, 27, 8, 27, 8, 10, 27, 8, 27, 8, 10, 8, 27, 23, 27, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33, 32, 33,
+      32, 33, 27, 35, 27, 36, 27, 29, 27, 28, 8, 28, 27, 28, 27, 28, 27, 28, 27, 28, 27, 28, 27, 28, 27, 15, 20, 27, 24,
+      27, 8, 22, 15, 22, 17, 20, 15, 18, 27, 8, 29, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 20, 15, 29,
+      20, 15, 29, 15, 29, 15, 27, 19, 17, 29, 20, 15, 20, 15, 20, 15, 29, 27, 29, 25, 24, 29, 27, 6, 27, 17, 29, 25, 24,
+      29, 20, 15, 29, 15, 29, 15, 29, 23, 19, 29, 17, 29, 20, 29, 15, 29, 20, 29, 15, 29, 20, 15, 20, 15, 19, 27, 19,
+      27, 19, 27, 24, 25, 29, 25, 27, 8, 14, 27, 10, 27, 8, 27, 8, 27, 8, 27, 10, 27, 10, 27, 23, 27, 10, 27, 8, 27, 8,
+      27, 8, 27, 8, 27, 8, 27, 10, 27, 8, 27, 10, 18, 27, 10, 27, 8, 27, 23, 27, 8, 10, 27, 8, 27, 8, 27, 8, 10, 27, 23,
+      27, 8, 27, 8, 27, 10, 27, 23, 27, 8, 27, 8, 27, 23, 10, 27, 8, 27, 8, 27, 8, 27, 8, 27, 10, 27, 10, 8, 27, 8, 23,
+      27, 10, 27, 8, 10, 27, 10, 27, 8, 27, 10, 27, 8, 27, 23, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8,
+      27, 8, 27, 8, 27, 10, 27, 23, 10, 27, 8, 27, 8, 27, 23, 27, 8, 27, 8, 27, 10, 17, 27, 10, 27, 8, 27, 8, 10, 27,
+      23, 27, 8, 27, 23, 27, 8, 27, 23, 27, 10, 27, 8, 27, 23, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 27, 8,
+      27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 17, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8,
+      27, 8, 27, 8, 27, 23, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 27, 25, 27, 10, 27, 20, 15, 27, 15, 27, 20, 15, 27, 20,
+      15, 27, 8, 27, 20, 15, 27, 23, 27, 10, 27, 8, 10, 27, 8, 10, 27, 10, 27, 23, 27, 8, 27, 8, 27, 8, 27, 19, 8, 27,
+      8, 27, 29, 27, 29, 27, 29, 27, 29, 27, 19, 27, 19, 27, 29, 27, 8, 10, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27,
+      23, 27, 8, 27, 8, 27, 8, 27, 8, 27, 10, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 8, 27, 23, 27, 8, 23,
+      27, 25, 27, 8, 27, 8, 27, 23, 27, 20, 27, 25, 27, 29, 27, 29, 37, 29, 30, 29, 30, 29, 30, 29, 30, 29, 31, 29, 30,
+      29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30,
+      29, 21, 19, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29, 30, 29,
+      30, 29, 30, 29, 30, 29, 30, 29, 27, 23, 27, 29, 27, 29, 27, 29, 27, 8, 27, 8, 27, 8, 27
+  };
+
+  /** Holds the expanded tables, which are built the first time a class is looked up. */
+  private static final class Stages {
+
+    static final CodePointTable TABLE = new CodePointTable(LB_START, LB_CLASS);
+    /** action between a class, before any spaces, and the class after it, at index before * CLASS_COUNT + after */
+    static final byte[] PAIRS = createPairs();
+
+  }
+
+  /**
+   * Lookup the line break class of a character, resolved as by rule LB1.
+   *
+   * @param c
+   *     a unicode scalar value
+   * @return line break class
+   */
+  public static int getLineBreakClass(int c) {
+    if ((c < 0) || (c > 0x10FFFF)) {
+      return AL;
+    }
+    return Stages.TABLE.get(c);
+  }
+
+  /**
+   * Find the line break action after each code point of a text. The action after the last code point is always
+   * {@link #MANDATORY}, as the end of the text.
+   *
+   * @param codePoints
+   *     the text, as unicode scalar values
+   * @param start
+   *     index of first code point of the text
+   * @param end
+   *     index after last code point of the text
+   * @param actions
+   *     receives {@link #PROHIBITED}, {@link #ALLOWED} or {@link #MANDATORY} after each code point
+   * @param offset
+   *     index in actions of the action after the first code point
+   */
+  public static void findBreaks(int[] codePoints, int start, int end, byte[] actions, int offset) {
+    if ((start < 0) || (end > codePoints.length) || (start > end)) {
+      throw new IndexOutOfBoundsException("range [" + start + "," + end + ") out of bounds [0,"
+          + codePoints.length + ")");
+    }
+    if ((offset < 0) || (offset > actions.length - (end - start))) {
+      throw new IndexOutOfBoundsException("actions must hold " + (end - start) + " values at " + offset);
+    }
+    if (start == end) {
+      return;
+    }
+    CodePointTable table = Stages.TABLE;
+    byte[] pairs = Stages.PAIRS;
+    int cls = getLineBreakClass(codePoints[start]);
+    // class before any spaces, with combining marks absorbed into their base (LB9)
+    int before = startClass(cls);
+    boolean spaces = cls == SP;
+    boolean afterZwj = cls == ZWJ;
+    // whether the last class is a hyphen or break after that follows a hebrew letter (LB21a)
+    boolean afterHebrewHyphen = false;
+    // number of regional indicators in the current sequence (LB30a)
+    int indicators = (cls == RI) ? 1 : 0;
+    int a = offset;
+    for (int i = start + 1; i < end; i++, a++) {
+      int prev = cls;
+      int c = codePoints[i];
+      cls = ((c >= 0) && (c <= 0x10FFFF)) ? table.get(c) : AL;
+      byte action;
+      if ((prev == BK) || (prev == LF) || (prev == NL) || ((prev == CR) && (cls != LF))) {
+        // LB4, LB5: start again after a mandatory break
+        actions[a] = MANDATORY;
+        before = startClass(cls);
+        spaces = cls == SP;
+        afterZwj = cls == ZWJ;
+        afterHebrewHyphen = false;
+        indicators = (cls == RI) ? 1 : 0;
+        continue;
+      } else if ((cls == BK) || (cls == CR) || (cls == LF) || (cls == NL) || (cls == SP) || (cls == ZW)) {
+        // LB6, LB7: no break before explicit breaks or spaces
+        actions[a] = PROHIBITED;
+        afterZwj = false;
+        if (cls == SP) {
+          spaces = true;
+        } else {
+          before = cls;
+          spaces = false;
+          afterHebrewHyphen = false;
+          indicators = 0;
+        }
+        continue;
+      } else if (before == ZW) {
+        action = ALLOWED; // LB8
+      } else if (((cls == CM) || (cls == ZWJ)) && !spaces) {
+        // LB9: the mark takes the class of its base
+        actions[a] = PROHIBITED;
+        afterZwj = cls == ZWJ;
+        continue;
+      } else if (afterZwj) {
+        action = PROHIBITED; // LB8a
+      } else {
+        int after = ((cls == CM) || (cls == ZWJ)) ? AL : cls; // LB10
+        switch (pairs[before * CLASS_COUNT + after]) {
+          case DIRECT:
+            action = ALLOWED;
+            break;
+          case INDIRECT:
+            action = spaces ? ALLOWED : PROHIBITED;
+            break;
+          default:
+            action = PROHIBITED;
+            break;
+        }
+        if (!spaces) {
+          if (afterHebrewHyphen) {
+            action = PROHIBITED; // LB21a
+          } else if ((before == RI) && (after == RI)) {
+            action = ((indicators & 1) != 0) ? PROHIBITED : ALLOWED; // LB30a
+          }
+        }
+      }
+      actions[a] = action;
+      int after = ((cls == CM) || (cls == ZWJ)) ? AL : cls;
+      afterHebrewHyphen = !spaces && (before == HL) && ((after == HY) || (after == BA));
+      indicators = (after != RI) ? 0 : ((before == RI) && !spaces) ? indicators + 1 : 1;
+      before = after;
+      spaces = false;
+      afterZwj = cls == ZWJ;
+    }
+    actions[a] = MANDATORY; // LB3
+  }
+
+  /** Resolve the class of the first character of a text, or of a line after a mandatory break (LB2, LB10). */
+  private static int startClass(int cls) {
+    switch (cls) {
+      case SP:
+        return WJ; // no break at the start of text, before or between leading spaces
+      case LF:
+      case NL:
+        return BK;
+      case CM:
+      case ZWJ:
+        return AL;
+      default:
+        return cls;
+    }
+  }
+
+  private static byte[] createPairs() {
+    byte[] pairs = new byte[CLASS_COUNT * CLASS_COUNT];
+    for (int b = 0; b < CLASS_COUNT; b++) {
+      for (int a = 0; a < CLASS_COUNT; a++) {
+        byte action;
+        if (isBreak(b, a, false)) {
+          action = DIRECT;
+        } else if (isBreak(b, a, true)) {
+          action = INDIRECT;
+        } else {
+          action = PROHIBITED_PAIR;
+        }
+        pairs[b * CLASS_COUNT + a] = action;
+      }
+    }
+    return pairs;
+  }
+
+  /**
+   * Apply the pair rules LB11 to LB31 to a class and the class after it.
+   *
+   * @param b
+   *     class before the break, and before any spaces
+   * @param a
+   *     class after the break
+   * @param spaces
+   *     true if spaces lie between the classes
+   * @return true if a line may break
+   */
+  private static boolean isBreak(int b, int a, boolean spaces) {
+    if ((a == WJ) || (a == CL) || (a == CP) || (a == EX) || (a == IS) || (a == SY)) {
+      return false; // LB11, LB13
+    }
+    if (spaces) {
+      // LB14 to LB17 hold across spaces, otherwise LB18 breaks after them
+      return !((b == OP) || ((b == QU) && (a == OP)) || (((b == CL) || (b == CP)) && (a == NS))
+          || ((b == B2) && (a == B2)));
+    }
+    if ((b == WJ) || (b == GL) || ((a == GL) && (b != BA) && (b != HY))) {
+      return false; // LB11, LB12, LB12a
+    }
+    if ((b == OP) || ((b == QU) && (a == OP)) || (((b == CL) || (b == CP)) && (a == NS))
+        || ((b == B2) && (a == B2))) {
+      return false; // LB14 to LB17
+    }
+    if ((a == QU) || (b == QU)) {
+      return false; // LB19
+    }
+    if ((a == CB) || (b == CB)) {
+      return true; // LB20
+    }
+    if ((a == BA) || (a == HY) || (a == NS) || (b == BB)) {
+      return false; // LB21
+    }
+    if ((b == SY) && (a == HL)) {
+      return false; // LB21b
+    }
+    if (a == IN) {
+      return false; // LB22
+    }
+    boolean letterB = (b == AL) || (b == HL);
+    boolean letterA = (a == AL) || (a == HL);
+    if ((letterB && (a == NU)) || ((b == NU) && letterA)) {
+      return false; // LB23
+    }
+    if (((b == PR) && ((a == ID) || (a == EB) || (a == EM))) || (((b == ID) || (b == EB) || (b == EM)) && (a == PO))) {
+      return false; // LB23a
+    }
+    if ((((b == PR) || (b == PO)) && letterA) || (letterB && ((a == PR) || (a == PO)))) {
+      return false; // LB24
+    }
+    if ((((b == CL) || (b == CP) || (b == NU)) && ((a == PO) || (a == PR)))
+        || (((b == PO) || (b == PR)) && ((a == OP) || (a == NU)))
+        || (((b == HY) || (b == IS) || (b == NU) || (b == SY)) && (a == NU))) {
+      return false; // LB25, as pairs
+    }
+    boolean jamoA = (a == JL) || (a == JV) || (a == JT) || (a == H2) || (a == H3);
+    if (((b == JL) && ((a == JL) || (a == JV) || (a == H2) || (a == H3)))
+        || (((b == JV) || (b == H2)) && ((a == JV) || (a == JT)))
+        || (((b == JT) || (b == H3)) && (a == JT))) {
+      return false; // LB26
+    }
+    if ((((b == JL) || (b == JV) || (b == JT) || (b == H2) || (b == H3)) && (a == PO)) || ((b == PR) && jamoA)) {
+      return false; // LB27
+    }
+    if (letterB && letterA) {
+      return false; // LB28
+    }
+    if ((b == IS) && letterA) {
+      return false; // LB29
+    }
+    if (((letterB || (b == NU)) && (a == OP)) || ((b == CP) && (letterA || (a == NU)))) {
+      return false; // LB30
+    }
+    if ((b == RI) && (a == RI)) {
+      return false; // LB30a, by parity when classifying
+    }
+    if ((b == EB) && (a == EM)) {
+      return false; // LB30b
+    }
+    return true; // LB31
+  }
+
+}
@@ -18,72 +18,140 @@
 package com.jaredrummler.fontreader.fonts;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * <p>Maps Unicode characters to the code points of a single-byte encoding.</p>
+ *
+ * <p>Each mapping precomputes a two-level table, indexed by the high byte of a character to select a page of 256
+ * codes and by its low byte within that page, so that a character is mapped with two array loads. Pages holding no
+ * mapped character share a single empty page.</p>
+ */
 public class CodePointMapping {
 
-  private char[] latin1Map;
-  private char[] characters;
-  private char[] codepoints;
+  /** Replacement policy of {@link #encode(CharSequence, int, int, byte[], int, int)} omitting unmapped characters. */
+  public static final int REPLACE_SKIP = -1;
+  /** Replacement policy of {@link #encode(CharSequence, int, int, byte[], int, int)} rejecting unmapped characters. */
+  public static final int REPLACE_FAIL = -2;
+
+  private static final byte[] EMPTY_PAGE = new byte[256];
+
+  /** code of each character, indexed by high byte then low byte, where zero is unmapped */
+  private final byte[][] pages;
 
   private CodePointMapping(int[] table) {
-    int nonLatin1 = 0;
-    latin1Map = new char[256];
+    pages = new byte[256][];
     for (int i = 0; i < table.length; i += 2) {
-      if (table[i + 1] < 256)
-        latin1Map[table[i + 1]] = (char) table[i];
-      else
-        ++nonLatin1;
+      int c = table[i + 1];
+      byte[] page = pages[c >> 8];
+      if (page == null) {
+        page = pages[c >> 8] = new byte[256];
+      }
+      // where a character is listed more than once, the last listed code applies
+      page[c & 0xFF] = (byte) table[i];
     }
-    characters = new char[nonLatin1];
-    codepoints = new char[nonLatin1];
-    int top = 0;
-    for (int i = 0; i < table.length; i += 2) {
-      char c = (char) table[i + 1];
-      if (c >= 256) {
-        ++top;
-        for (int j = top - 1; j >= 0; --j) {
-          if (j > 0 && characters[j - 1] >= c) {
-            characters[j] = characters[j - 1];
-            codepoints[j] = codepoints[j - 1];
-          } else {
-            characters[j] = c;
-            codepoints[j] = (char) table[i];
-            break;
-          }
-        }
+    for (int i = 0; i < pages.length; i++) {
+      if (pages[i] == null) {
+        pages[i] = EMPTY_PAGE;
       }
     }
   }
 
+  /**
+   * Map a character to its code in this encoding.
+   *
+   * @param c
+   *     the Unicode character to map
+   * @return the code, or {@link SingleByteEncoding#NOT_FOUND_CODE_POINT} if the character is not mapped
+   */
   public final char mapChar(char c) {
-    if (c < 256) {
-      return latin1Map[c];
-    } else {
-      int bot = 0, top = characters.length - 1;
-      while (top >= bot) {
-        int mid = (bot + top) / 2;
-        char mc = characters[mid];
+    return (char) (pages[c >> 8][c & 0xFF] & 0xFF);
+  }
+
+  /**
+   * Encode characters into bytes, replacing each unmapped character with
+   * {@link SingleByteEncoding#NOT_FOUND_CODE_POINT}.
+   *
+   * @param cs
+   *     characters to encode
+   * @param start
+   *     index of first character to encode
+   * @param end
+   *     index after last character to encode
+   * @param dest
+   *     array receiving the encoded bytes, with room for at least <code>end - start</code> bytes at offset
+   * @param offset
+   *     index into dest of first encoded byte
+   * @return number of bytes written
+   * @see #encode(CharSequence, int, int, byte[], int, int)
+   */
+  public final int encode(CharSequence cs, int start, int end, byte[] dest, int offset) {
+    return encode(cs, start, end, dest, offset, SingleByteEncoding.NOT_FOUND_CODE_POINT);
+  }
 
-        if (c == mc)
-          return codepoints[mid];
-        else if (c < mc)
-          top = mid - 1;
-        else
-          bot = mid + 1;
+  /**
+   * Encode characters into bytes without allocating. A surrogate pair, which no single-byte encoding maps, is
+   * treated as one unmapped character.
+   *
+   * @param cs
+   *     characters to encode
+   * @param start
+   *     index of first character to encode
+   * @param end
+   *     index after last character to encode
+   * @param dest
+   *     array receiving the encoded bytes, with room for at least <code>end - start</code> bytes at offset
+   * @param offset
+   *     index into dest of first encoded byte
+   * @param replacement
+   *     code (0 to 255) written for each unmapped character, or {@link #REPLACE_SKIP} to omit unmapped characters,
+   *     or {@link #REPLACE_FAIL} to reject them
+   * @return number of bytes written
+   * @throws IllegalArgumentException
+   *     if replacement is {@link #REPLACE_FAIL} and a character is not mapped, in which case the bytes encoded
+   *     before it have been written, or if replacement is not a valid policy
+   */
+  public final int encode(CharSequence cs, int start, int end, byte[] dest, int offset, int replacement) {
+    if ((start < 0) || (end > cs.length()) || (start > end)) {
+      throw new IndexOutOfBoundsException("range [" + start + "," + end + ") out of range [0," + cs.length() + ")");
+    }
+    if ((offset < 0) || ((dest.length - offset) < (end - start))) {
+      throw new IndexOutOfBoundsException(
+          "destination of " + dest.length + " bytes cannot hold " + (end - start) + " bytes at " + offset);
+    }
+    if ((replacement < REPLACE_FAIL) || (replacement > 0xFF)) {
+      throw new IllegalArgumentException("invalid replacement: " + replacement);
+    }
+    byte[][] pa = pages;
+    int o = offset;
+    for (int i = start; i < end; i++) {
+      char c = cs.charAt(i);
+      byte b = pa[c >> 8][c & 0xFF];
+      if (b != 0) {
+        dest[o++] = b;
+        continue;
+      }
+      if (replacement == REPLACE_FAIL) {
+        throw new IllegalArgumentException(
+            "character U+" + Integer.toHexString(Character.codePointAt(cs, i)).toUpperCase() + " at index " + i
+                + " is not mapped");
+      }
+      if (Character.isHighSurrogate(c) && ((i + 1) < end) && Character.isLowSurrogate(cs.charAt(i + 1))) {
+        i++;
+      }
+      if (replacement >= 0) {
+        dest[o++] = (byte) replacement;
       }
-      return 0;
     }
+    return o - offset;
   }
 
-  private static Map mappings;
-
-  static {
-    mappings = Collections.synchronizedMap(new java.util.HashMap());
-  }
+  private static final Map<String, CodePointMapping> mappings
+      = Collections.synchronizedMap(new HashMap<String, CodePointMapping>());
 
   public static CodePointMapping getMapping(String encoding) {
-    CodePointMapping mapping = (CodePointMapping) mappings.get(encoding);
+    CodePointMapping mapping = mappings.get(encoding);
     if (mapping != null) {
       return mapping;
     } else if (encoding.equals("StandardEncoding")) {
@@ -0,0 +1,708 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.fonts;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable set of Unicode code points stored as compressed bitmaps.
+ *
+ * <p>The code point space is split into 64K chunks keyed by the high 16 bits. Each chunk is
+ * kept in whichever of three containers is smallest: a sorted array of the low 16 bits, a
+ * 1024 word bitmap, or a sorted list of runs. Font coverage is mostly made of ranges, so
+ * large blocks such as CJK end up as a handful of runs.</p>
+ */
+public final class CodePointSet implements Serializable {
+
+  /** serial version UID */
+  private static final long serialVersionUID = 4094387211638702817L;
+
+  /** The empty set. */
+  public static final CodePointSet EMPTY = new CodePointSet(new char[0], new byte[0],
+      new char[0][], new long[0][], new int[0]);
+
+  static final int MAX_CODE_POINT = 0x10FFFF;
+
+  private static final byte ARRAY = 0;
+  private static final byte BITMAP = 1;
+  private static final byte RUNS = 2;
+
+  private static final int BITMAP_WORDS = 1024;
+  private static final int ARRAY_MAX = 4096;
+
+  /** high 16 bits of each container, ascending */
+  private final char[] keys;
+  /** container type, one of ARRAY, BITMAP or RUNS */
+  private final byte[] types;
+  /** sorted values for ARRAY, start/length-1 pairs for RUNS */
+  private final char[][] values;
+  /** words for BITMAP */
+  private final long[][] bitmaps;
+  private final int[] cardinalities;
+  private final int cardinality;
+
+  private CodePointSet(char[] keys, byte[] types, char[][] values, long[][] bitmaps,
+                       int[] cardinalities) {
+    this.keys = keys;
+    this.types = types;
+    this.values = values;
+    this.bitmaps = bitmaps;
+    this.cardinalities = cardinalities;
+    int total = 0;
+    for (int c : cardinalities) {
+      total += c;
+    }
+    this.cardinality = total;
+  }
+
+  /**
+   * Creates the set of code points mapped by a font's cmap. Code points mapped to glyph 0
+   * (.notdef) are not included.
+   *
+   * @param segments
+   *     the cmap segments, as returned by {@code OpenFont.getCMaps()}
+   * @return the set of mapped code points
+   */
+  public static CodePointSet fromCMaps(List<CMapSegment> segments) {
+    Builder builder = new Builder();
+    if (segments != null) {
+      for (CMapSegment segment : segments) {
+        int start = segment.getUnicodeStart();
+        if (segment.getGlyphStartIndex() == 0) {
+          start++;
+        }
+        builder.addRange(start, segment.getUnicodeEnd());
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Creates the set of code points used in a string.
+   *
+   * @param text
+   *     the text
+   * @return the set of code points in the text
+   */
+  public static CodePointSet of(CharSequence text) {
+    Builder builder = new Builder();
+    for (int i = 0; i < text.length(); ) {
+      int cp = Character.codePointAt(text, i);
+      builder.add(cp);
+      i += Character.charCount(cp);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the number of code points in this set.
+   *
+   * @return the number of code points
+   */
+  public int getCardinality() {
+    return cardinality;
+  }
+
+  /**
+   * Returns whether this set is empty.
+   *
+   * @return true if this set has no code points
+   */
+  public boolean isEmpty() {
+    return cardinality == 0;
+  }
+
+  /**
+   * Determines whether this set contains a code point.
+   *
+   * @param codePoint
+   *     the code point
+   * @return true if the code point is in this set
+   */
+  public boolean contains(int codePoint) {
+    if (codePoint < 0 || codePoint > MAX_CODE_POINT) {
+      return false;
+    }
+    int i = indexOfKey(codePoint >>> 16);
+    return i >= 0 && containerContains(i, codePoint & 0xFFFF);
+  }
+
+  /**
+   * Determines whether this set contains every code point of a string.
+   *
+   * @param text
+   *     the text
+   * @return true if all code points of the text are in this set
+   */
+  public boolean containsAll(CharSequence text) {
+    for (int i = 0; i < text.length(); ) {
+      int cp = Character.codePointAt(text, i);
+      if (!contains(cp)) {
+        return false;
+      }
+      i += Character.charCount(cp);
+    }
+    return true;
+  }
+
+  /**
+   * Determines whether this set contains every code point of another set.
+   *
+   * @param other
+   *     the other set
+   * @return true if the other set is a subset of this set
+   */
+  public boolean containsAll(CodePointSet other) {
+    if (other.cardinality > cardinality) {
+      return false;
+    }
+    for (int j = 0; j < other.keys.length; j++) {
+      int i = indexOfKey(other.keys[j]);
+      if (i < 0 || other.cardinalities[j] > cardinalities[i]
+          || intersectionCardinality(i, other, j) != other.cardinalities[j]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Determines whether this set shares at least one code point with another set.
+   *
+   * @param other
+   *     the other set
+   * @return true if the sets intersect
+   */
+  public boolean intersects(CodePointSet other) {
+    for (int j = 0; j < other.keys.length; j++) {
+      int i = indexOfKey(other.keys[j]);
+      if (i >= 0 && intersectionCardinality(i, other, j) > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of code points in both this and another set.
+   *
+   * @param other
+   *     the other set
+   * @return the size of the intersection
+   */
+  public int andCardinality(CodePointSet other) {
+    int total = 0;
+    for (int j = 0; j < other.keys.length; j++) {
+      int i = indexOfKey(other.keys[j]);
+      if (i >= 0) {
+        total += intersectionCardinality(i, other, j);
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns the code points in both this and another set.
+   *
+   * @param other
+   *     the other set
+   * @return the intersection
+   */
+  public CodePointSet and(CodePointSet other) {
+    Builder builder = new Builder();
+    long[] a = new long[BITMAP_WORDS];
+    long[] b = new long[BITMAP_WORDS];
+    for (int j = 0; j < other.keys.length; j++) {
+      int i = indexOfKey(other.keys[j]);
+      if (i < 0) {
+        continue;
+      }
+      Arrays.fill(a, 0);
+      Arrays.fill(b, 0);
+      toBitmap(i, a);
+      other.toBitmap(j, b);
+      long[] words = builder.chunk(keys[i]);
+      for (int w = 0; w < BITMAP_WORDS; w++) {
+        words[w] = a[w] & b[w];
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the code points in this set or another set.
+   *
+   * @param other
+   *     the other set
+   * @return the union
+   */
+  public CodePointSet or(CodePointSet other) {
+    Builder builder = new Builder();
+    for (int i = 0; i < keys.length; i++) {
+      toBitmap(i, builder.chunk(keys[i]));
+    }
+    for (int j = 0; j < other.keys.length; j++) {
+      other.toBitmap(j, builder.chunk(other.keys[j]));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the first code point in this set that is equal to or greater than the given
+   * code point. Use this to iterate over the set:
+   *
+   * <pre>
+   * for (int cp = set.nextCodePoint(0); cp &gt;= 0; cp = set.nextCodePoint(cp + 1)) {
+   *   ...
+   * }
+   * </pre>
+   *
+   * @param from
+   *     the code point to start at
+   * @return the next code point in this set or -1 if there is none
+   */
+  public int nextCodePoint(int from) {
+    if (from < 0) {
+      from = 0;
+    }
+    for (int i = 0; i < keys.length; i++) {
+      int base = keys[i] << 16;
+      if (base + 0xFFFF < from) {
+        continue;
+      }
+      int low = Math.max(from - base, 0);
+      int next = containerNext(i, low);
+      if (next >= 0) {
+        return base | next;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Adds the number of code points in each block of 256 code points to {@code counts},
+   * which is indexed by {@code codePoint >> 8}.
+   */
+  void countBlocks(int[] counts) {
+    for (int i = 0; i < keys.length; i++) {
+      int base = keys[i] << 8;
+      switch (types[i]) {
+        case ARRAY:
+          for (char v : values[i]) {
+            counts[base + (v >>> 8)]++;
+          }
+          break;
+        case BITMAP:
+          long[] words = bitmaps[i];
+          for (int block = 0; block < 256; block++) {
+            int w = block << 2;
+            counts[base + block] += Long.bitCount(words[w]) + Long.bitCount(words[w + 1])
+                + Long.bitCount(words[w + 2]) + Long.bitCount(words[w + 3]);
+          }
+          break;
+        default:
+          char[] runs = values[i];
+          for (int r = 0; r < runs.length; r += 2) {
+            int start = runs[r];
+            int end = start + runs[r + 1];
+            while (start <= end) {
+              int blockEnd = Math.min(end, start | 0xFF);
+              counts[base + (start >>> 8)] += blockEnd - start + 1;
+              start = blockEnd + 1;
+            }
+          }
+          break;
+      }
+    }
+  }
+
+  /**
+   * Copies the code points of one 64K chunk into a 1024 word bitmap.
+   *
+   * @return false if this set has no code points in the chunk
+   */
+  boolean copyChunk(int key, long[] words) {
+    Arrays.fill(words, 0);
+    int i = indexOfKey(key);
+    if (i < 0) {
+      return false;
+    }
+    toBitmap(i, words);
+    return true;
+  }
+
+  private int indexOfKey(int key) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == key) {
+        return i;
+      } else if (keys[i] > key) {
+        break;
+      }
+    }
+    return -1;
+  }
+
+  private boolean containerContains(int i, int low) {
+    switch (types[i]) {
+      case ARRAY:
+        return Arrays.binarySearch(values[i], (char) low) >= 0;
+      case BITMAP:
+        return (bitmaps[i][low >>> 6] & (1L << low)) != 0;
+      default:
+        int r = findRun(values[i], low);
+        return r >= 0 && low <= values[i][r] + values[i][r + 1];
+    }
+  }
+
+  private int containerNext(int i, int low) {
+    switch (types[i]) {
+      case ARRAY: {
+        char[] v = values[i];
+        int p = Arrays.binarySearch(v, (char) low);
+        if (p < 0) {
+          p = -p - 1;
+        }
+        return p < v.length ? v[p] : -1;
+      }
+      case BITMAP: {
+        long[] words = bitmaps[i];
+        int w = low >>> 6;
+        long word = words[w] & (-1L << low);
+        while (true) {
+          if (word != 0) {
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+          }
+          if (++w == BITMAP_WORDS) {
+            return -1;
+          }
+          word = words[w];
+        }
+      }
+      default: {
+        char[] runs = values[i];
+        int r = findRun(runs, low);
+        if (r >= 0 && low <= runs[r] + runs[r + 1]) {
+          return low;
+        }
+        r = r < 0 ? 0 : r + 2;
+        return r < runs.length ? runs[r] : -1;
+      }
+    }
+  }
+
+  /** Returns the index of the last run starting at or before {@code low}, or -1. */
+  private static int findRun(char[] runs, int low) {
+    int lo = 0;
+    int hi = (runs.length >> 1) - 1;
+    int found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (runs[mid << 1] <= low) {
+        found = mid << 1;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found;
+  }
+
+  private int intersectionCardinality(int i, CodePointSet other, int j) {
+    if (other.types[j] == ARRAY) {
+      int n = 0;
+      for (char v : other.values[j]) {
+        if (containerContains(i, v)) {
+          n++;
+        }
+      }
+      return n;
+    }
+    if (types[i] == ARRAY) {
+      int n = 0;
+      for (char v : values[i]) {
+        if (other.containerContains(j, v)) {
+          n++;
+        }
+      }
+      return n;
+    }
+    if (types[i] == RUNS && other.types[j] == RUNS) {
+      return runsIntersection(values[i], other.values[j]);
+    }
+    long[] a = new long[BITMAP_WORDS];
+    long[] b = new long[BITMAP_WORDS];
+    toBitmap(i, a);
+    other.toBitmap(j, b);
+    int n = 0;
+    for (int w = 0; w < BITMAP_WORDS; w++) {
+      n += Long.bitCount(a[w] & b[w]);
+    }
+    return n;
+  }
+
+  private static int runsIntersection(char[] a, char[] b) {
+    int n = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      int aEnd = a[i] + a[i + 1];
+      int bEnd = b[j] + b[j + 1];
+      int start = Math.max(a[i], b[j]);
+      int end = Math.min(aEnd, bEnd);
+      if (start <= end) {
+        n += end - start + 1;
+      }
+      if (aEnd < bEnd) {
+        i += 2;
+      } else {
+        j += 2;
+      }
+    }
+    return n;
+  }
+
+  /** ORs container {@code i} into a 1024 word bitmap. */
+  private void toBitmap(int i, long[] words) {
+    switch (types[i]) {
+      case ARRAY:
+        for (char v : values[i]) {
+          words[v >>> 6] |= 1L << v;
+        }
+        break;
+      case BITMAP:
+        long[] src = bitmaps[i];
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          words[w] |= src[w];
+        }
+        break;
+      default:
+        char[] runs = values[i];
+        for (int r = 0; r < runs.length; r += 2) {
+          setRange(words, runs[r], runs[r] + runs[r + 1]);
+        }
+        break;
+    }
+  }
+
+  static void setRange(long[] words, int start, int end) {
+    int first = start >>> 6;
+    int last = end >>> 6;
+    long firstMask = -1L << start;
+    long lastMask = -1L >>> (63 - (end & 63));
+    if (first == last) {
+      words[first] |= firstMask & lastMask;
+      return;
+    }
+    words[first] |= firstMask;
+    for (int w = first + 1; w < last; w++) {
+      words[w] = -1L;
+    }
+    words[last] |= lastMask;
+  }
+
+  @Override
+  public int hashCode() {
+    int hc = 17;
+    for (int cp = nextCodePoint(0); cp >= 0; cp = nextCodePoint(cp + 1)) {
+      hc = 31 * hc + cp;
+    }
+    return hc;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof CodePointSet) {
+      CodePointSet other = (CodePointSet) o;
+      return other.cardinality == cardinality && containsAll(other);
+    }
+    return false;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("CodePointSet: { ");
+    sb.append(cardinality);
+    sb.append(" code points in ");
+    sb.append(keys.length);
+    sb.append(" containers }");
+    return sb.toString();
+  }
+
+  /**
+   * Collects code points and builds a {@link CodePointSet}.
+   */
+  public static final class Builder {
+
+    private final long[][] chunks = new long[(MAX_CODE_POINT >>> 16) + 1][];
+
+    /**
+     * Adds a code point.
+     *
+     * @param codePoint
+     *     the code point, ignored if it is not a valid Unicode code point
+     * @return this builder
+     */
+    public Builder add(int codePoint) {
+      if (codePoint >= 0 && codePoint <= MAX_CODE_POINT) {
+        chunk(codePoint >>> 16)[(codePoint & 0xFFFF) >>> 6] |= 1L << codePoint;
+      }
+      return this;
+    }
+
+    /**
+     * Adds a range of code points. The range is clipped to the Unicode code space.
+     *
+     * @param start
+     *     the first code point
+     * @param end
+     *     the last code point, inclusive
+     * @return this builder
+     */
+    public Builder addRange(int start, int end) {
+      start = Math.max(start, 0);
+      end = Math.min(end, MAX_CODE_POINT);
+      while (start <= end) {
+        int chunkEnd = Math.min(end, start | 0xFFFF);
+        setRange(chunk(start >>> 16), start & 0xFFFF, chunkEnd & 0xFFFF);
+        start = chunkEnd + 1;
+      }
+      return this;
+    }
+
+    long[] chunk(int key) {
+      if (chunks[key] == null) {
+        chunks[key] = new long[BITMAP_WORDS];
+      }
+      return chunks[key];
+    }
+
+    /**
+     * Builds the set. Each 64K chunk is stored in its most compact container.
+     *
+     * @return the new set
+     */
+    public CodePointSet build() {
+      int count = 0;
+      int[] cards = new int[chunks.length];
+      for (int key = 0; key < chunks.length; key++) {
+        if (chunks[key] != null) {
+          for (long word : chunks[key]) {
+            cards[key] += Long.bitCount(word);
+          }
+          if (cards[key] > 0) {
+            count++;
+          }
+        }
+      }
+      char[] keys = new char[count];
+      byte[] types = new byte[count];
+      char[][] values = new char[count][];
+      long[][] bitmaps = new long[count][];
+      int[] cardinalities = new int[count];
+      int i = 0;
+      for (int key = 0; key < chunks.length; key++) {
+        if (cards[key] == 0) {
+          continue;
+        }
+        long[] words = chunks[key];
+        int runs = countRuns(words);
+        keys[i] = (char) key;
+        cardinalities[i] = cards[key];
+        // sizes in chars: array = cardinality, bitmap = 4096, runs = 2 per run
+        if (runs * 2 <= Math.min(cards[key], ARRAY_MAX)) {
+          types[i] = RUNS;
+          values[i] = toRuns(words, runs);
+        } else if (cards[key] <= ARRAY_MAX) {
+          types[i] = ARRAY;
+          values[i] = toArray(words, cards[key]);
+        } else {
+          types[i] = BITMAP;
+          bitmaps[i] = words.clone();
+        }
+        i++;
+      }
+      return new CodePointSet(keys, types, values, bitmaps, cardinalities);
+    }
+
+    private static int countRuns(long[] words) {
+      int runs = 0;
+      for (int w = 0; w < BITMAP_WORDS; w++) {
+        long word = words[w];
+        // a run starts at each set bit whose lower neighbour is clear
+        long carry = w == 0 ? 0 : words[w - 1] >>> 63;
+        runs += Long.bitCount(word & ~((word << 1) | carry));
+      }
+      return runs;
+    }
+
+    private static char[] toRuns(long[] words, int count) {
+      char[] runs = new char[count * 2];
+      int r = 0;
+      int v = nextSetBit(words, 0);
+      while (v >= 0) {
+        int end = nextClearBit(words, v);
+        runs[r++] = (char) v;
+        runs[r++] = (char) (end - 1 - v);
+        v = end < 0x10000 ? nextSetBit(words, end) : -1;
+      }
+      return runs;
+    }
+
+    private static char[] toArray(long[] words, int count) {
+      char[] array = new char[count];
+      int n = 0;
+      for (int w = 0; w < BITMAP_WORDS; w++) {
+        long word = words[w];
+        while (word != 0) {
+          array[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return array;
+    }
+
+    private static int nextSetBit(long[] words, int from) {
+      int w = from >>> 6;
+      long word = words[w] & (-1L << from);
+      while (word == 0) {
+        if (++w == BITMAP_WORDS) {
+          return -1;
+        }
+        word = words[w];
+      }
+      return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int nextClearBit(long[] words, int from) {
+      int w = from >>> 6;
+      long word = ~words[w] & (-1L << from);
+      while (word == 0) {
+        if (++w == BITMAP_WORDS) {
+          return 0x10000;
+        }
+        word = ~words[w];
+      }
+      return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+  }
+
+}
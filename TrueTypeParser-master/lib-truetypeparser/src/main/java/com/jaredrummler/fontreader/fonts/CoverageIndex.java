@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.fonts;
+
+import com.jaredrummler.fontreader.truetype.OpenFont;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An index of the code points covered by a collection of fonts.
+ *
+ * <p>Each font's coverage is kept as a {@link CodePointSet}. An inverted index lists, for
+ * every block of 256 code points, the fonts covering the whole block and the fonts covering
+ * only part of it, so a lookup only has to test the fonts that may contain the code point.
+ * Fonts are identified by their position in the index; query results are returned as a
+ * {@link BitSet} of positions.</p>
+ *
+ * <p>The index is {@link Serializable}. Only the font names and coverage sets are written;
+ * the inverted index is rebuilt when the index is read back.</p>
+ *
+ * <pre>
+ * CoverageIndex.Builder builder = new CoverageIndex.Builder();
+ * for (File file : fontFiles) {
+ *   TTFFile ttf = TTFFile.open(file);
+ *   builder.add(file.getPath(), ttf);
+ * }
+ * CoverageIndex index = builder.build();
+ * List&lt;String&gt; fonts = index.getFontNames(index.getFonts("Hello"));
+ * </pre>
+ */
+public final class CoverageIndex implements Serializable {
+
+  /** serial version UID */
+  private static final long serialVersionUID = -2874418539123402231L;
+
+  private static final int BLOCK_COUNT = (CodePointSet.MAX_CODE_POINT >>> 8) + 1;
+  private static final int[] NO_FONTS = new int[0];
+
+  private final String[] names;
+  private final CodePointSet[] coverage;
+
+  /** per 256 code point block, the fonts covering every code point of the block */
+  private transient int[][] fullBlocks;
+  /** per 256 code point block, the fonts covering some code points of the block */
+  private transient int[][] partialBlocks;
+
+  private CoverageIndex(String[] names, CodePointSet[] coverage) {
+    this.names = names;
+    this.coverage = coverage;
+    buildInvertedIndex();
+  }
+
+  private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
+    ois.defaultReadObject();
+    if (names == null || coverage == null || names.length != coverage.length) {
+      throw new IOException("Corrupt coverage index");
+    }
+    buildInvertedIndex();
+  }
+
+  private void buildInvertedIndex() {
+    int[] fullCount = new int[BLOCK_COUNT];
+    int[] partialCount = new int[BLOCK_COUNT];
+    int[] counts = new int[BLOCK_COUNT];
+    for (CodePointSet set : coverage) {
+      Arrays.fill(counts, 0);
+      set.countBlocks(counts);
+      for (int b = 0; b < BLOCK_COUNT; b++) {
+        if (counts[b] == 256) {
+          fullCount[b]++;
+        } else if (counts[b] > 0) {
+          partialCount[b]++;
+        }
+      }
+    }
+    fullBlocks = new int[BLOCK_COUNT][];
+    partialBlocks = new int[BLOCK_COUNT][];
+    for (int b = 0; b < BLOCK_COUNT; b++) {
+      fullBlocks[b] = fullCount[b] == 0 ? NO_FONTS : new int[fullCount[b]];
+      partialBlocks[b] = partialCount[b] == 0 ? NO_FONTS : new int[partialCount[b]];
+      fullCount[b] = 0;
+      partialCount[b] = 0;
+    }
+    // second pass fills the lists; counting again is cheaper than keeping counts per font
+    for (int f = 0; f < coverage.length; f++) {
+      Arrays.fill(counts, 0);
+      coverage[f].countBlocks(counts);
+      for (int b = 0; b < BLOCK_COUNT; b++) {
+        if (counts[b] == 256) {
+          fullBlocks[b][fullCount[b]++] = f;
+        } else if (counts[b] > 0) {
+          partialBlocks[b][partialCount[b]++] = f;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of fonts in the index.
+   *
+   * @return the number of fonts
+   */
+  public int getFontCount() {
+    return names.length;
+  }
+
+  /**
+   * Returns the name a font was added with.
+   *
+   * @param font
+   *     the position of the font in the index
+   * @return the font's name
+   */
+  public String getFontName(int font) {
+    return names[font];
+  }
+
+  /**
+   * Returns the code points covered by a font.
+   *
+   * @param font
+   *     the position of the font in the index
+   * @return the font's coverage
+   */
+  public CodePointSet getCoverage(int font) {
+    return coverage[font];
+  }
+
+  /**
+   * Returns the names of the fonts in a query result.
+   *
+   * @param fonts
+   *     the positions of the fonts, as returned by the {@code getFonts} methods
+   * @return the font names, in index order
+   */
+  public List<String> getFontNames(BitSet fonts) {
+    List<String> result = new ArrayList<>(fonts.cardinality());
+    for (int f = fonts.nextSetBit(0); f >= 0; f = fonts.nextSetBit(f + 1)) {
+      result.add(names[f]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the fonts covering a code point.
+   *
+   * @param codePoint
+   *     the code point
+   * @return the positions of the fonts containing the code point
+   */
+  public BitSet getFonts(int codePoint) {
+    BitSet result = new BitSet(names.length);
+    if (codePoint < 0 || codePoint > CodePointSet.MAX_CODE_POINT) {
+      return result;
+    }
+    int block = codePoint >>> 8;
+    for (int f : fullBlocks[block]) {
+      result.set(f);
+    }
+    for (int f : partialBlocks[block]) {
+      if (coverage[f].contains(codePoint)) {
+        result.set(f);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the fonts covering every code point of a string.
+   *
+   * @param text
+   *     the text
+   * @return the positions of the fonts containing all code points of the text
+   */
+  public BitSet getFonts(CharSequence text) {
+    if (text.length() == 0) {
+      BitSet all = new BitSet(names.length);
+      all.set(0, names.length);
+      return all;
+    }
+    int cp = Character.codePointAt(text, 0);
+    BitSet result = getFonts(cp);
+    for (int i = Character.charCount(cp); i < text.length() && !result.isEmpty(); ) {
+      cp = Character.codePointAt(text, i);
+      i += Character.charCount(cp);
+      if (cp < 0 || cp > CodePointSet.MAX_CODE_POINT) {
+        result.clear();
+        break;
+      }
+      int[] partial = partialBlocks[cp >>> 8];
+      if (partial.length == 0) {
+        // only fonts covering the whole block can remain
+        retain(result, fullBlocks[cp >>> 8]);
+        continue;
+      }
+      for (int f = result.nextSetBit(0); f >= 0; f = result.nextSetBit(f + 1)) {
+        if (!coverage[f].contains(cp)) {
+          result.clear(f);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the fonts covering every code point of a set.
+   *
+   * @param codePoints
+   *     the code points
+   * @return the positions of the fonts containing all of the code points
+   */
+  public BitSet getFonts(CodePointSet codePoints) {
+    BitSet result = new BitSet(names.length);
+    int first = codePoints.nextCodePoint(0);
+    if (first < 0) {
+      result.set(0, names.length);
+      return result;
+    }
+    // only fonts that have the first code point's block are candidates
+    int block = first >>> 8;
+    for (int f : fullBlocks[block]) {
+      if (coverage[f].containsAll(codePoints)) {
+        result.set(f);
+      }
+    }
+    for (int f : partialBlocks[block]) {
+      if (coverage[f].containsAll(codePoints)) {
+        result.set(f);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the code points covered by all of the given fonts.
+   *
+   * @param fonts
+   *     the positions of the fonts
+   * @return the intersection of the fonts' coverage
+   */
+  public CodePointSet getCommonCoverage(BitSet fonts) {
+    int f = fonts.nextSetBit(0);
+    if (f < 0) {
+      return CodePointSet.EMPTY;
+    }
+    CodePointSet result = coverage[f];
+    for (f = fonts.nextSetBit(f + 1); f >= 0 && !result.isEmpty(); f = fonts.nextSetBit(f + 1)) {
+      result = result.and(coverage[f]);
+    }
+    return result;
+  }
+
+  private static void retain(BitSet result, int[] fonts) {
+    BitSet keep = new BitSet();
+    for (int f : fonts) {
+      keep.set(f);
+    }
+    result.and(keep);
+  }
+
+  /**
+   * Collects font coverage and builds a {@link CoverageIndex}.
+   */
+  public static final class Builder {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<CodePointSet> coverage = new ArrayList<>();
+
+    /**
+     * Adds a font.
+     *
+     * @param name
+     *     a name identifying the font, such as its path
+     * @param coverage
+     *     the code points covered by the font
+     * @return this builder
+     */
+    public Builder add(String name, CodePointSet coverage) {
+      this.names.add(name);
+      this.coverage.add(coverage);
+      return this;
+    }
+
+    /**
+     * Adds a font from its cmap segments.
+     *
+     * @param name
+     *     a name identifying the font, such as its path
+     * @param segments
+     *     the font's cmap segments
+     * @return this builder
+     */
+    public Builder add(String name, List<CMapSegment> segments) {
+      return add(name, CodePointSet.fromCMaps(segments));
+    }
+
+    /**
+     * Adds a font that has been read.
+     *
+     * @param name
+     *     a name identifying the font, such as its path
+     * @param font
+     *     the font
+     * @return this builder
+     */
+    public Builder add(String name, OpenFont font) {
+      return add(name, font.getCMaps());
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @return the new index
+     */
+    public CoverageIndex build() {
+      return new CoverageIndex(names.toArray(new String[names.size()]),
+          coverage.toArray(new CodePointSet[coverage.size()]));
+    }
+
+  }
+
+}
@@ -17,9 +17,13 @@
 
 package com.jaredrummler.fontreader.fonts;
 
-import com.jaredrummler.fontreader.complexscripts.fonts.Substitutable;
+import com.jaredrummler.fontreader.complexscripts.fonts.BufferedPositionable;
+import com.jaredrummler.fontreader.complexscripts.fonts.PositionBuffer;
 import com.jaredrummler.fontreader.complexscripts.fonts.Positionable;
+import com.jaredrummler.fontreader.complexscripts.fonts.Substitutable;
+import com.jaredrummler.fontreader.complexscripts.util.GraphemeClusterBreaker;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -28,7 +32,7 @@ import java.util.Map;
  * This class holds font state information and provides access to the font
  * metrics.
  */
-public class Font implements Substitutable, Positionable {
+public class Font implements Substitutable, BufferedPositionable {
 
   /** Extra Bold font weight */
   public static final int WEIGHT_EXTRA_BOLD = 800;
@@ -71,6 +75,9 @@ public class Font implements Substitutable, Positionable {
 
   private final FontMetrics metric;
 
+  /** widths of this font's metrics and size, obtained on first measurement */
+  private FontWidthCache widthCache;
+
   /**
    * Main constructor
    *
@@ -202,14 +209,7 @@ public class Font implements Substitutable, Positionable {
    * @return the distance to adjust for kerning, 0 if there's no kerning
    */
   public int getKernValue(char ch1, char ch2) {
-    Map<Integer, Integer> kernPair = getKerning().get((int) ch1);
-    if (kernPair != null) {
-      Integer width = kernPair.get((int) ch2);
-      if (width != null) {
-        return width.intValue() * getFontSize() / 1000;
-      }
-    }
-    return 0;
+    return getWidthCache().getKerning(ch1, ch2);
   }
 
   /**
@@ -316,10 +316,57 @@ public class Font implements Substitutable, Positionable {
    * @return the width of the character or -1 if no width available
    */
   public int getCharWidth(char c) {
+    return getWidthCache().getWidth(c);
+  }
+
+  /**
+   * Helper method for getting the width of a unicode char
+   * from the current fontstate.
+   * This also performs some guessing on widths on various
+   * versions of space that might not exists in the font.
+   *
+   * @param c
+   *     character to inspect
+   * @return the width of the character or -1 if no width available
+   */
+  public int getCharWidth(int c) {
+    return getWidthCache().getWidth(c);
+  }
+
+  /**
+   * Obtain the width cache shared by fonts of this font's metrics and size.
+   *
+   * @return the width cache
+   */
+  public FontWidthCache getWidthCache() {
+    FontWidthCache cache = widthCache;
+    if (cache == null) {
+      cache = widthCache = FontWidthCache.getInstance(this);
+    }
+    return cache;
+  }
+
+  /**
+   * Compute the width of a character without using the width cache, estimating the
+   * width of spaces not represented in the font.
+   *
+   * @param c
+   *     code point to inspect
+   * @return the width of the character or -1 if no width available
+   */
+  int computeCharWidth(int c) {
+    if ((c < 0) || (c >= 0x10000)) {
+      // TODO !BMP
+      return -1;
+    }
+    return computeCharWidth((char) c);
+  }
+
+  private int computeCharWidth(char c) {
     int width;
 
     if ((c == '\n') || (c == '\r') || (c == '\t') || (c == '\u00A0')) {
-      width = getCharWidth(' ');
+      width = computeCharWidth(' ');
     } else {
       if (hasChar(c)) {
         int mappedChar = mapChar(c);
@@ -350,9 +397,9 @@ public class Font implements Substitutable, Positionable {
         } else if (c == '\u2006') {
           width = em / 6;
         } else if (c == '\u2007') {
-          width = getCharWidth('0');
+          width = computeCharWidth('0');
         } else if (c == '\u2008') {
-          width = getCharWidth('.');
+          width = computeCharWidth('.');
         } else if (c == '\u2009') {
           width = em / 5;
         } else if (c == '\u200A') {
@@ -360,11 +407,11 @@ public class Font implements Substitutable, Positionable {
         } else if (c == '\u200B') {
           width = 0;
         } else if (c == '\u202F') {
-          width = getCharWidth(' ') / 2;
+          width = computeCharWidth(' ') / 2;
         } else if (c == '\u2060') {
           width = 0;
         } else if (c == '\u3000') {
-          width = getCharWidth(' ') * 2;
+          width = computeCharWidth(' ') * 2;
         } else if (c == '\ufeff') {
           width = 0;
         } else {
@@ -377,46 +424,185 @@ public class Font implements Substitutable, Positionable {
     return width;
   }
 
-  /**
-   * Helper method for getting the width of a unicode char
-   * from the current fontstate.
-   * This also performs some guessing on widths on various
-   * versions of space that might not exists in the font.
-   *
-   * @param c
-   *     character to inspect
-   * @return the width of the character or -1 if no width available
-   */
-  public int getCharWidth(int c) {
-    if (c < 0x10000) {
-      return getCharWidth((char) c);
-    } else {
-      // TODO !BMP
-      return -1;
-    }
-  }
-
   /**
    * Calculates the word width.
    *
    * @param word
    *     text to get width for
    * @return the width of the text
+   * @see #measureText(CharSequence, int, int, int[], int[])
    */
   public int getWordWidth(String word) {
     if (word == null) {
       return 0;
     }
-    int wordLength = word.length();
+    FontWidthCache cache = getWidthCache();
     int width = 0;
-    char[] characters = new char[wordLength];
-    word.getChars(0, wordLength, characters, 0);
-    for (int i = 0; i < wordLength; i++) {
-      width += getCharWidth(characters[i]);
+    for (int i = 0, n = word.length(); i < n; i++) {
+      width += cache.getWidth(word.charAt(i));
     }
     return width;
   }
 
+  /**
+   * Measures a range of text in one pass, without allocating.
+   *
+   * <p>The advance of a character is its width, plus the kerning between the previous character and this one. A
+   * surrogate pair, which is not mapped by this font, measures as one unmapped character, with its advance stored at
+   * the index of its high surrogate and a zero advance at the index of its low surrogate. Text is measured one
+   * extended grapheme cluster at a time, as found by {@link GraphemeClusterBreaker}, and all characters of a cluster
+   * share the prefix sum at the end of the cluster, so that text is never fitted within a cluster.</p>
+   *
+   * @param text
+   *     text to measure
+   * @param start
+   *     index of first character to measure
+   * @param end
+   *     index after last character to measure
+   * @param advances
+   *     if not null, receives the advance of each character, indexed from zero for the character at start
+   * @param prefixSums
+   *     if not null, receives at index <code>i</code> the width of the characters from start up to and including
+   *     the cluster of the character at <code>start + i</code>, as used by {@link #fitChars(int[], int, int)}
+   * @return the width of the text in millipoints
+   */
+  public int measureText(CharSequence text, int start, int end, int[] advances, int[] prefixSums) {
+    checkRange(text, start, end);
+    int n = end - start;
+    if (((advances != null) && (advances.length < n)) || ((prefixSums != null) && (prefixSums.length < n))) {
+      throw new IllegalArgumentException("output arrays must hold " + n + " values");
+    }
+    FontWidthCache cache = getWidthCache();
+    boolean kern = cache.hasKerning();
+    int width = 0;
+    char prev = 0;
+    for (int i = start; i < end; ) {
+      int clusterStart = i;
+      int clusterEnd = GraphemeClusterBreaker.nextBoundary(text, i, end);
+      while (i < clusterEnd) {
+        char c = text.charAt(i);
+        int k = codePointLength(text, i, end);
+        int w = cache.getWidth(c);
+        if (kern && (prev != 0) && (k == 1)) {
+          w += cache.getKerning(prev, c);
+        }
+        prev = (k == 1) ? c : 0;
+        width += w;
+        if (advances != null) {
+          advances[i - start] = w;
+          if (k == 2) {
+            advances[i - start + 1] = 0;
+          }
+        }
+        i += k;
+      }
+      if (prefixSums != null) {
+        Arrays.fill(prefixSums, clusterStart - start, clusterEnd - start, width);
+      }
+    }
+    return width;
+  }
+
+  /**
+   * Determines how many characters of a text fit within a width.
+   *
+   * @param text
+   *     text to fit
+   * @param maxWidth
+   *     available width in millipoints
+   * @return the number of leading characters whose width does not exceed maxWidth, never splitting a cluster
+   * @see #fitChars(CharSequence, int, int, int)
+   */
+  public int fitChars(CharSequence text, int maxWidth) {
+    return fitChars(text, 0, text.length(), maxWidth);
+  }
+
+  /**
+   * Determines how many characters of a range of text fit within a width, measuring only as far as needed and
+   * without allocating. Characters and clusters are measured as by
+   * {@link #measureText(CharSequence, int, int, int[], int[])}.
+   *
+   * @param text
+   *     text to fit
+   * @param start
+   *     index of first character to fit
+   * @param end
+   *     index after last character to fit
+   * @param maxWidth
+   *     available width in millipoints
+   * @return the number of characters from start whose width does not exceed maxWidth, never splitting a cluster
+   */
+  public int fitChars(CharSequence text, int start, int end, int maxWidth) {
+    checkRange(text, start, end);
+    FontWidthCache cache = getWidthCache();
+    boolean kern = cache.hasKerning();
+    int width = 0;
+    char prev = 0;
+    for (int i = start; i < end; ) {
+      int clusterStart = i;
+      int clusterEnd = GraphemeClusterBreaker.nextBoundary(text, i, end);
+      while (i < clusterEnd) {
+        char c = text.charAt(i);
+        int k = codePointLength(text, i, end);
+        width += cache.getWidth(c);
+        if (kern && (prev != 0) && (k == 1)) {
+          width += cache.getKerning(prev, c);
+        }
+        prev = (k == 1) ? c : 0;
+        i += k;
+      }
+      if (width > maxWidth) {
+        return clusterStart - start;
+      }
+    }
+    return end - start;
+  }
+
+  /**
+   * Determines how many characters fit within a width by binary search over prefix sums obtained from
+   * {@link #measureText(CharSequence, int, int, int[], int[])}, such that text measured once may be fitted to any
+   * number of widths. The characters of a cluster share its prefix sum, so a cluster is never split. Prefix sums do
+   * not decrease unless kerning exceeds an advance, in which case the count found may be smaller than the greatest
+   * that fits.
+   *
+   * @param prefixSums
+   *     prefix sums of measured text
+   * @param count
+   *     number of measured characters
+   * @param maxWidth
+   *     available width in millipoints
+   * @return the number of leading characters whose width does not exceed maxWidth, never splitting a cluster
+   */
+  public static int fitChars(int[] prefixSums, int count, int maxWidth) {
+    int lo = 0;
+    int hi = count;
+    // invariant: the first lo characters fit, and more than hi characters do not
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (prefixSums[mid - 1] <= maxWidth) {
+        lo = mid;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return lo;
+  }
+
+  private static int codePointLength(CharSequence text, int index, int end) {
+    if (Character.isHighSurrogate(text.charAt(index)) && ((index + 1) < end)
+        && Character.isLowSurrogate(text.charAt(index + 1))) {
+      return 2;
+    } else {
+      return 1;
+    }
+  }
+
+  private static void checkRange(CharSequence text, int start, int end) {
+    if ((start < 0) || (end > text.length()) || (start > end)) {
+      throw new IndexOutOfBoundsException("range [" + start + "," + end + ") out of range [0," + text.length() + ")");
+    }
+  }
+
   /** {@inheritDoc} */
   public boolean performsSubstitution() {
     if (metric instanceof Substitutable) {
@@ -469,6 +655,26 @@ public class Font implements Substitutable, Positionable {
     }
   }
 
+  /** {@inheritDoc} */
+  public boolean performPositioning(CharSequence cs, String script, String language, int fontSize,
+                                    PositionBuffer adjustments) {
+    if (metric instanceof BufferedPositionable) {
+      BufferedPositionable p = (BufferedPositionable) metric;
+      return p.performPositioning(cs, script, language, fontSize, adjustments);
+    } else if (metric instanceof Positionable) {
+      Positionable p = (Positionable) metric;
+      int[][] gpa = p.performPositioning(cs, script, language, fontSize);
+      adjustments.reset(cs.length());
+      if (gpa == null) {
+        return false;
+      }
+      adjustments.copyFrom(gpa);
+      return true;
+    } else {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   /** {@inheritDoc} */
   public int[][] performPositioning(CharSequence cs, String script, String language) {
     return performPositioning(cs, script, language, fontSize);
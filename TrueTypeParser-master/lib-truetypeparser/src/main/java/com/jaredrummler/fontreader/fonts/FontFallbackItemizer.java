@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.fonts;
+
+import com.jaredrummler.fontreader.complexscripts.util.GraphemeClusterBreaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits text into runs, each assigned to the first font of an ordered fallback list that
+ * covers the run's characters.
+ *
+ * <p>The coverage of all fonts is folded into a two-stage table giving, for each code point, a
+ * bit mask of the fonts that contain it. Identical blocks of 256 code points share storage, so
+ * the table stays small even though lookups are a couple of array reads. Text is itemized one
+ * extended grapheme cluster at a time, as found by {@link GraphemeClusterBreaker}, so that
+ * emoji sequences, flags and conjuncts are never split between fonts: a cluster goes to the
+ * first font covering all of its code points, or failing that to the first font covering its
+ * base character. Default ignorable code points such as joiners and variation selectors do not
+ * need to be covered. A whitespace cluster stays in the current run if the current font covers
+ * it, and a cluster no font covers continues the current run.</p>
+ *
+ * <p>An itemizer is immutable and may be shared between threads.</p>
+ */
+public final class FontFallbackItemizer {
+
+  private static final int BLOCK_SHIFT = 8;
+  private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+  private static final int BLOCK_COUNT = (CodePointSet.MAX_CODE_POINT >>> BLOCK_SHIFT) + 1;
+  private static final int CHUNK_WORDS = 1024;
+
+  private final int fontCount;
+  /** number of longs in the mask of one code point */
+  private final int words;
+  /** per block, the offset of the block's masks in {@link #masks} */
+  private final int[] blocks;
+  private final long[] masks;
+
+  /**
+   * Creates an itemizer from the coverage of each font in fallback order.
+   *
+   * @param coverage
+   *     the code points covered by each font, the first font is preferred
+   */
+  public FontFallbackItemizer(List<CodePointSet> coverage) {
+    fontCount = coverage.size();
+    words = Math.max(1, (fontCount + 63) >>> 6);
+    blocks = new int[BLOCK_COUNT];
+
+    int blockLength = BLOCK_SIZE * words;
+    long[] table = new long[blockLength * 4];
+    int tableSize = 0;
+    Map<BlockKey, Integer> shared = new HashMap<>();
+
+    long[][] chunks = new long[fontCount][CHUNK_WORDS];
+    boolean[] present = new boolean[fontCount];
+    long[] block = new long[blockLength];
+    for (int key = 0; key <= CodePointSet.MAX_CODE_POINT >>> 16; key++) {
+      for (int f = 0; f < fontCount; f++) {
+        present[f] = coverage.get(f).copyChunk(key, chunks[f]);
+      }
+      for (int b = 0; b < CHUNK_WORDS / 4; b++) {
+        Arrays.fill(block, 0);
+        for (int f = 0; f < fontCount; f++) {
+          if (!present[f]) {
+            continue;
+          }
+          long bit = 1L << f;
+          int wordIndex = f >>> 6;
+          for (int w = 0; w < 4; w++) {
+            long word = chunks[f][(b << 2) + w];
+            while (word != 0) {
+              int cp = (w << 6) + Long.numberOfTrailingZeros(word);
+              block[cp * words + wordIndex] |= bit;
+              word &= word - 1;
+            }
+          }
+        }
+        BlockKey blockKey = new BlockKey(block);
+        Integer offset = shared.get(blockKey);
+        if (offset == null) {
+          if (tableSize + blockLength > table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+          }
+          System.arraycopy(block, 0, table, tableSize, blockLength);
+          offset = tableSize;
+          tableSize += blockLength;
+          shared.put(new BlockKey(block.clone()), offset);
+        }
+        blocks[(key << 8) | b] = offset;
+      }
+    }
+    masks = Arrays.copyOf(table, tableSize);
+  }
+
+  /**
+   * Creates an itemizer for fonts in fallback order. Coverage is taken from
+   * {@link Font#hasChar(char)}, so only the Basic Multilingual Plane is covered; use
+   * {@link #FontFallbackItemizer(List)} with {@link CodePointSet#fromCMaps(List)} to include
+   * supplementary characters.
+   *
+   * @param fonts
+   *     the fonts, the first font is preferred
+   * @return the itemizer
+   */
+  public static FontFallbackItemizer forFonts(List<Font> fonts) {
+    List<CodePointSet> coverage = new ArrayList<>(fonts.size());
+    for (Font font : fonts) {
+      CodePointSet.Builder builder = new CodePointSet.Builder();
+      for (int c = 0; c <= 0xFFFF; c++) {
+        if (!Character.isSurrogate((char) c) && font.hasChar((char) c)) {
+          builder.add(c);
+        }
+      }
+      coverage.add(builder.build());
+    }
+    return new FontFallbackItemizer(coverage);
+  }
+
+  /**
+   * Returns the number of fonts.
+   *
+   * @return the number of fonts
+   */
+  public int getFontCount() {
+    return fontCount;
+  }
+
+  /**
+   * Determines whether a font covers a code point.
+   *
+   * @param font
+   *     the index of the font in the fallback list
+   * @param codePoint
+   *     the code point
+   * @return true if the font contains the code point
+   */
+  public boolean covers(int font, int codePoint) {
+    if (codePoint < 0 || codePoint > CodePointSet.MAX_CODE_POINT) {
+      return false;
+    }
+    return (masks[maskOffset(codePoint) + (font >>> 6)] & (1L << font)) != 0;
+  }
+
+  /**
+   * Splits text into runs.
+   *
+   * @param text
+   *     the text
+   * @return the runs, in text order
+   */
+  public List<Run> itemize(CharSequence text) {
+    int[] runs = new int[text.length() * 3];
+    int count = itemize(text, 0, text.length(), runs);
+    List<Run> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(new Run(runs[i * 3], runs[i * 3 + 1], runs[i * 3 + 2]));
+    }
+    return result;
+  }
+
+  /**
+   * Splits part of a text into runs without creating objects.
+   *
+   * @param text
+   *     the text
+   * @param start
+   *     the start index, inclusive
+   * @param end
+   *     the end index, exclusive
+   * @param runs
+   *     receives the start, end and font index of each run; must hold at least
+   *     {@code 3 * (end - start)} values
+   * @return the number of runs
+   */
+  public int itemize(CharSequence text, int start, int end, int[] runs) {
+    if (runs.length < 3 * (end - start)) {
+      throw new IllegalArgumentException("runs must hold " + 3 * (end - start) + " values");
+    }
+    long[] cluster = new long[words];
+    int count = 0;
+    int runStart = start;
+    int runFont = -1;
+    int i = start;
+    while (i < end) {
+      int clusterStart = i;
+      int clusterEnd = GraphemeClusterBreaker.nextBoundary(text, i, end);
+      int base = Character.codePointAt(text, i);
+      if (isIgnorable(base)) {
+        Arrays.fill(cluster, -1L);
+      } else {
+        System.arraycopy(masks, maskOffset(base), cluster, 0, words);
+      }
+      int baseFont = firstFont(cluster);
+      for (i += Character.charCount(base); i < clusterEnd; ) {
+        int next = Character.codePointAt(text, i);
+        if (!isIgnorable(next)) {
+          int offset = maskOffset(next);
+          for (int w = 0; w < words; w++) {
+            cluster[w] &= masks[offset + w];
+          }
+        }
+        i += Character.charCount(next);
+      }
+      i = clusterEnd;
+
+      int font = firstFont(cluster);
+      if (font < 0) {
+        font = baseFont;
+      }
+      if (font < 0 || font >= fontCount) {
+        font = runFont >= 0 ? runFont : 0;
+      } else if (runFont >= 0 && font != runFont && i - clusterStart == 1
+          && Character.isWhitespace(base) && covers(runFont, base)) {
+        font = runFont;
+      }
+      if (font != runFont) {
+        if (runFont >= 0) {
+          runs[count * 3] = runStart;
+          runs[count * 3 + 1] = clusterStart;
+          runs[count * 3 + 2] = runFont;
+          count++;
+        }
+        runStart = clusterStart;
+        runFont = font;
+      }
+    }
+    if (runFont >= 0) {
+      runs[count * 3] = runStart;
+      runs[count * 3 + 1] = end;
+      runs[count * 3 + 2] = runFont;
+      count++;
+    }
+    return count;
+  }
+
+  private int maskOffset(int codePoint) {
+    return blocks[codePoint >>> BLOCK_SHIFT] + (codePoint & (BLOCK_SIZE - 1)) * words;
+  }
+
+  private static int firstFont(long[] mask) {
+    for (int w = 0; w < mask.length; w++) {
+      if (mask[w] != 0) {
+        return (w << 6) + Long.numberOfTrailingZeros(mask[w]);
+      }
+    }
+    return -1;
+  }
+
+  /** Default ignorable code points that a font does not need to cover. */
+  private static boolean isIgnorable(int cp) {
+    return cp == 0x200C || cp == 0x200D
+        || (cp >= 0xFE00 && cp <= 0xFE0F)
+        || (cp >= 0xE0020 && cp <= 0xE007F)
+        || (cp >= 0xE0100 && cp <= 0xE01EF);
+  }
+
+  /**
+   * A range of text assigned to one font.
+   */
+  public static final class Run {
+
+    private final int start;
+    private final int end;
+    private final int fontIndex;
+
+    Run(int start, int end, int fontIndex) {
+      this.start = start;
+      this.end = end;
+      this.fontIndex = fontIndex;
+    }
+
+    /**
+     * Returns the start index of the run, inclusive.
+     *
+     * @return the start index
+     */
+    public int getStart() {
+      return start;
+    }
+
+    /**
+     * Returns the end index of the run, exclusive.
+     *
+     * @return the end index
+     */
+    public int getEnd() {
+      return end;
+    }
+
+    /**
+     * Returns the index of the run's font in the fallback list.
+     *
+     * @return the font index
+     */
+    public int getFontIndex() {
+      return fontIndex;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+      return "Run: { [" + start + ',' + end + "): font " + fontIndex + " }";
+    }
+
+  }
+
+  /** Wraps a block of masks so identical blocks can be shared. */
+  private static final class BlockKey {
+
+    private final long[] masks;
+    private final int hash;
+
+    BlockKey(long[] masks) {
+      this.masks = masks;
+      this.hash = Arrays.hashCode(masks);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof BlockKey && Arrays.equals(masks, ((BlockKey) o).masks);
+    }
+
+  }
+
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.fonts;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Scaled character widths of a font at one size, as returned by {@link Font#getCharWidth(char)}.</p>
+ *
+ * <p>Widths are held in pages of 256 characters, indexed by the high byte of a character and then by its low byte.
+ * A page is computed in full the first time one of its characters is measured, with the estimates for spaces the font
+ * does not contain already applied, so that measuring a character afterwards is two array loads. Kerning pairs of
+ * the font are compiled into a sorted array of scaled values when first requested.</p>
+ *
+ * <p>Caches are shared between all {@link Font} instances of the same metrics and size. The most recently used
+ * caches are retained, up to {@link #getCapacity()}; a font keeps using its cache after it is evicted. A cache may be
+ * shared between threads.</p>
+ */
+public final class FontWidthCache {
+
+  /** Default number of shared caches retained. */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  private static final int PAGE_SHIFT = 8;
+  private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  private static final int PAGE_COUNT = 0x10000 >> PAGE_SHIFT;
+
+  private static int capacity = DEFAULT_CAPACITY;
+
+  private static final Map<Key, FontWidthCache> CACHES = new LinkedHashMap<Key, FontWidthCache>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, FontWidthCache> eldest) {
+      return size() > capacity;
+    }
+  };
+
+  private final Font font;
+  private final Page[] pages;
+  private volatile KernPairs kernPairs;
+
+  private FontWidthCache(Font font) {
+    this.font = font;
+    this.pages = new Page[PAGE_COUNT];
+  }
+
+  /**
+   * Obtain the shared cache of a font's metrics and size, creating it on first use.
+   *
+   * @param font
+   *     a font
+   * @return the width cache
+   */
+  static FontWidthCache getInstance(Font font) {
+    Key key = new Key(font.getFontMetrics(), font.getFontSize());
+    synchronized (CACHES) {
+      FontWidthCache cache = CACHES.get(key);
+      if (cache == null) {
+        cache = new FontWidthCache(font);
+        CACHES.put(key, cache);
+      }
+      return cache;
+    }
+  }
+
+  /** @return maximum number of shared caches retained */
+  public static int getCapacity() {
+    synchronized (CACHES) {
+      return capacity;
+    }
+  }
+
+  /**
+   * Set the maximum number of shared caches retained, evicting the least recently used caches if necessary.
+   *
+   * @param capacity
+   *     maximum number of caches, which may be zero to disable sharing
+   */
+  public static void setCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must be non-negative: " + capacity);
+    }
+    synchronized (CACHES) {
+      FontWidthCache.capacity = capacity;
+      while (CACHES.size() > capacity) {
+        CACHES.remove(CACHES.keySet().iterator().next());
+      }
+    }
+  }
+
+  /** Evict all shared caches. */
+  public static void clear() {
+    synchronized (CACHES) {
+      CACHES.clear();
+    }
+  }
+
+  /**
+   * Obtain the width of a character.
+   *
+   * @param c
+   *     a character
+   * @return the width of the character in millipoints
+   */
+  public int getWidth(char c) {
+    Page page = pages[c >> PAGE_SHIFT];
+    if (page == null) {
+      page = createPage(c >> PAGE_SHIFT);
+    }
+    return page.widths[c & (PAGE_SIZE - 1)];
+  }
+
+  /**
+   * Obtain the width of a code point.
+   *
+   * @param codePoint
+   *     a Unicode code point
+   * @return the width of the code point in millipoints, or -1 if no width is available
+   */
+  public int getWidth(int codePoint) {
+    if ((codePoint >= 0) && (codePoint < 0x10000)) {
+      return getWidth((char) codePoint);
+    } else {
+      return font.computeCharWidth(codePoint);
+    }
+  }
+
+  /**
+   * Obtain the kerning between two characters, scaled as by {@link Font#getKernValue(char, char)}.
+   *
+   * @param left
+   *     first character
+   * @param right
+   *     second character
+   * @return the distance to adjust for kerning, 0 if there's no kerning
+   */
+  public int getKerning(char left, char right) {
+    KernPairs kp = kernPairs;
+    if (kp == null) {
+      kp = kernPairs = createKernPairs();
+    }
+    return kp.get(left, right);
+  }
+
+  /** @return true if the font kerns some pair of characters */
+  public boolean hasKerning() {
+    KernPairs kp = kernPairs;
+    if (kp == null) {
+      kp = kernPairs = createKernPairs();
+    }
+    return kp.keys.length > 0;
+  }
+
+  private KernPairs createKernPairs() {
+    Map<Integer, Map<Integer, Integer>> kerning = font.getKerning();
+    int count = 0;
+    for (Map<Integer, Integer> m : kerning.values()) {
+      count += m.size();
+    }
+    long[] pairs = new long[count];
+    int n = 0;
+    for (Map.Entry<Integer, Map<Integer, Integer>> e : kerning.entrySet()) {
+      int left = e.getKey();
+      if ((left < 0) || (left > 0xFFFF)) {
+        continue;
+      }
+      for (Map.Entry<Integer, Integer> f : e.getValue().entrySet()) {
+        int right = f.getKey();
+        int value = f.getValue() * font.getFontSize() / 1000;
+        if ((right >= 0) && (right <= 0xFFFF) && (value != 0)) {
+          pairs[n++] = ((long) ((left << 16) | right) << 32) | (value & 0xFFFFFFFFL);
+        }
+      }
+    }
+    Arrays.sort(pairs, 0, n);
+    int[] keys = new int[n];
+    int[] values = new int[n];
+    long[] lefts = new long[0x10000 >> 6];
+    int[] latin1Ranges = new int[0x101];
+    for (int i = 0; i < n; i++) {
+      keys[i] = (int) (pairs[i] >>> 32);
+      values[i] = (int) pairs[i];
+      int left = keys[i] >>> 16;
+      lefts[left >> 6] |= 1L << left;
+      if (left < 0x100) {
+        latin1Ranges[left + 1] = i + 1;
+      }
+    }
+    for (int i = 1; i < latin1Ranges.length; i++) {
+      latin1Ranges[i] = Math.max(latin1Ranges[i], latin1Ranges[i - 1]);
+    }
+    return new KernPairs(lefts, latin1Ranges, keys, values);
+  }
+
+  private Page createPage(int index) {
+    // a page may be computed more than once by racing threads, with identical results
+    int[] widths = new int[PAGE_SIZE];
+    for (int i = 0, c = index << PAGE_SHIFT; i < PAGE_SIZE; i++, c++) {
+      widths[i] = font.computeCharWidth(c);
+    }
+    Page page = new Page(widths);
+    pages[index] = page;
+    return page;
+  }
+
+  /** A page of widths, whose final field publishes its content safely to other threads. */
+  private static final class Page {
+
+    private final int[] widths;
+
+    Page(int[] widths) {
+      this.widths = widths;
+    }
+  }
+
+  /** Scaled kerning values of character pairs. */
+  private static final class KernPairs {
+
+    /** bit set of characters that begin some pair */
+    private final long[] lefts;
+    /** pairs beginning with Latin-1 character c are found from index latin1Ranges[c] to latin1Ranges[c + 1] */
+    private final int[] latin1Ranges;
+    /** pair keys <code>(left << 16) | right</code>, sorted as signed integers */
+    private final int[] keys;
+    private final int[] values;
+
+    KernPairs(long[] lefts, int[] latin1Ranges, int[] keys, int[] values) {
+      this.lefts = lefts;
+      this.latin1Ranges = latin1Ranges;
+      this.keys = keys;
+      this.values = values;
+    }
+
+    int get(char left, char right) {
+      if ((lefts[left >> 6] & (1L << left)) == 0) {
+        return 0;
+      }
+      int key = (left << 16) | right;
+      int i;
+      if (left < 0x100) {
+        i = Arrays.binarySearch(keys, latin1Ranges[left], latin1Ranges[left + 1], key);
+      } else {
+        i = Arrays.binarySearch(keys, key);
+      }
+      return (i >= 0) ? values[i] : 0;
+    }
+  }
+
+  private static final class Key {
+
+    private final FontMetrics metrics;
+    private final int size;
+
+    Key(FontMetrics metrics, int size) {
+      this.metrics = metrics;
+      this.size = size;
+    }
+
+    /** {@inheritDoc} */
+    public int hashCode() {
+      return System.identityHashCode(metrics) * 31 + size;
+    }
+
+    /** {@inheritDoc} */
+    public boolean equals(Object o) {
+      if (o instanceof Key) {
+        Key k = (Key) o;
+        return (k.metrics == metrics) && (k.size == size);
+      } else {
+        return false;
+      }
+    }
+  }
+
+}
@@ -19,13 +19,12 @@ package com.jaredrummler.fontreader.fonts;
 
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphProcessingState;
 import com.jaredrummler.fontreader.complexscripts.util.CharAssociation;
+import com.jaredrummler.fontreader.complexscripts.util.CharAssociationBuffer;
 import com.jaredrummler.fontreader.truetype.GlyphTable;
 import com.jaredrummler.fontreader.util.GlyphSequence;
 import com.jaredrummler.fontreader.util.ScriptContextTester;
 
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * <p>The <code>GlyphSubstitutionState</code> implements an state object used during glyph substitution
@@ -40,7 +39,7 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
   /** current output glyph sequence */
   private IntBuffer ogb;
   /** current output glyph to character associations */
-  private List oal;
+  private CharAssociationBuffer oal;
   /** character association predications */
   private boolean predications;
 
@@ -68,7 +67,7 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
                                 ScriptContextTester sct) {
     super(gs, script, language, feature, sct);
     this.ogb = IntBuffer.allocate(gs.getGlyphCount());
-    this.oal = new ArrayList(gs.getGlyphCount());
+    this.oal = new CharAssociationBuffer(gs.getGlyphCount());
     this.predications = gs.getPredications();
   }
 
@@ -82,7 +81,7 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
   public GlyphSubstitutionState(GlyphSubstitutionState ss) {
     super(ss);
     this.ogb = IntBuffer.allocate(indexLast);
-    this.oal = new ArrayList(indexLast);
+    this.oal = new CharAssociationBuffer(indexLast);
   }
 
   /**
@@ -104,7 +103,7 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
     super.reset(gs, script, language, feature, sct);
     this.alternatesIndex = null;
     this.ogb = IntBuffer.allocate(gs.getGlyphCount());
-    this.oal = new ArrayList(gs.getGlyphCount());
+    this.oal = new CharAssociationBuffer(gs.getGlyphCount());
     this.predications = gs.getPredications();
     return this;
   }
@@ -155,10 +154,36 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
       ogb = growBuffer(ogb);
     }
     ogb.put(glyph);
+    oal.add(a);
     if (predications && (predication != null)) {
-      a.setPredication(feature, predication);
+      oal.setPredication(oal.size() - 1, feature, predication);
+    }
+  }
+
+  /**
+   * Put (write) glyph into glyph output buffer, copying the association of an input glyph
+   * without creating a {@link CharAssociation}.
+   *
+   * @param glyph
+   *     to write
+   * @param offset
+   *     from current position of the input glyph whose association applies to glyph
+   * @param predication
+   *     a predication value to add to the association if predications enabled
+   */
+  public void putGlyph(int glyph, int offset, Object predication) {
+    int i = index + offset;
+    if ((i < 0) || (i >= indexLast)) {
+      throw new IndexOutOfBoundsException("attempting index at " + i);
+    }
+    if (!ogb.hasRemaining()) {
+      ogb = growBuffer(ogb);
+    }
+    ogb.put(glyph);
+    oal.add(igs.getAssociationBuffer(), i);
+    if (predications && (predication != null)) {
+      oal.setPredication(oal.size() - 1, feature, predication);
     }
-    oal.add(a);
   }
 
   /**
@@ -191,7 +216,7 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
     if (position > 0) {
       ogb.limit(position);
       ogb.rewind();
-      return new GlyphSequence(igs.getCharacters(), ogb, oal);
+      return new GlyphSequence(igs.getCharacters(), ogb, oal, false);
     } else {
       return igs;
     }
@@ -252,7 +277,9 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
         }
       }
       // output glyphs and associations
-      putGlyphs(getGlyphs(0, nog, false, null, null, null), getAssociations(0, nog, false, null, null, null), null);
+      for (int i = 0; i < nog; i++) {
+        putGlyph(getGlyph(i), i, null);
+      }
       // consume replaced input glyphs
       consume(nog);
       return true;
@@ -269,7 +296,7 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
     super.applyDefault();
     int gi = getGlyph();
     if (gi != 65535) {
-      putGlyph(gi, getAssociation(), null);
+      putGlyph(gi, 0, null);
     }
   }
 
@@ -21,6 +21,7 @@ import com.jaredrummler.fontreader.complexscripts.fonts.AdvancedTypographicTable
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphClassTable;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphCoverageTable;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphDefinitionTable;
+import com.jaredrummler.fontreader.complexscripts.fonts.GlyphScratchArena;
 import com.jaredrummler.fontreader.complexscripts.scripts.ScriptProcessor;
 import com.jaredrummler.fontreader.complexscripts.util.CharAssociation;
 import com.jaredrummler.fontreader.truetype.GlyphTable;
@@ -28,6 +29,8 @@ import com.jaredrummler.fontreader.util.GlyphSequence;
 import com.jaredrummler.fontreader.util.GlyphTester;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -282,7 +285,7 @@ public class GlyphSubstitutionTable extends GlyphTable {
         if ((go < 0) || (go > 65535)) {
           go = 65535;
         }
-        ss.putGlyph(go, ss.getAssociation(), Boolean.TRUE);
+        ss.putGlyph(go, 0, Boolean.TRUE);
         ss.consume(1);
         return true;
       }
@@ -551,7 +554,7 @@ public class GlyphSubstitutionTable extends GlyphTable {
         if ((go < 0) || (go > 65535)) {
           go = 65535;
         }
-        ss.putGlyph(go, ss.getAssociation(), Boolean.TRUE);
+        ss.putGlyph(go, 0, Boolean.TRUE);
         ss.consume(1);
         return true;
       }
@@ -656,12 +659,15 @@ public class GlyphSubstitutionTable extends GlyphTable {
         if (ls != null) {
           boolean reverse = false;
           GlyphTester ignores = ss.getIgnoreDefault();
-          int[] counts = ss.getGlyphsAvailable(0, reverse, ignores);
-          int nga = counts[0];
+          GlyphScratchArena scratch = ss.getScratch();
+          int[] counts = scratch.getCounts();
+          // fetch no more glyphs than the longest ligature in the set could consume
+          int ngm = Math.max(ls.getMaxComponents(), 2);
+          int[] iga = scratch.getGlyphs(ngm);
+          int nga = ss.fetchGlyphs(0, ngm, reverse, ignores, iga, counts);
           int ngi;
           if (nga > 1) {
-            int[] iga = ss.getGlyphs(0, nga, reverse, ignores, null, counts);
-            Ligature l = findLigature(ls, iga);
+            Ligature l = ls.findLigature(iga, nga);
             if (l != null) {
               int go = l.getLigature();
               if ((go < 0) || (go > 65535)) {
@@ -669,7 +675,7 @@ public class GlyphSubstitutionTable extends GlyphTable {
               }
               int nmg = 1 + l.getNumComponents();
               // fetch matched number of component glyphs to determine matched and ignored count
-              ss.getGlyphs(0, nmg, reverse, ignores, null, counts);
+              ss.fetchGlyphs(0, nmg, reverse, ignores, iga, counts);
               nga = counts[0];
               ngi = counts[1];
               // fetch associations of matched component glyphs
@@ -688,27 +694,6 @@ public class GlyphSubstitutionTable extends GlyphTable {
       }
     }
 
-    private Ligature findLigature(LigatureSet ls, int[] glyphs) {
-      Ligature[] la = ls.getLigatures();
-      int k = -1;
-      int maxComponents = -1;
-      for (int i = 0, n = la.length; i < n; i++) {
-        Ligature l = la[i];
-        if (l.matchesComponents(glyphs)) {
-          int nc = l.getNumComponents();
-          if (nc > maxComponents) {
-            maxComponents = nc;
-            k = i;
-          }
-        }
-      }
-      if (k >= 0) {
-        return la[k];
-      } else {
-        return null;
-      }
-    }
-
     /**
      * Obtain ligature set for coverage index.
      *
@@ -805,7 +790,7 @@ public class GlyphSubstitutionTable extends GlyphTable {
       if ((ci = getCoverageIndex(gi)) < 0) {
         return false;
       } else {
-        int[] rv = new int[1];
+        int[] rv = ss.getScratch().getReturnValues();
         RuleLookup[] la = getLookups(ci, gi, ss, rv);
         if (la != null) {
           ss.apply(la, rv[0]);
@@ -883,8 +868,9 @@ public class GlyphSubstitutionTable extends GlyphTable {
             Rule r = ra[i];
             if ((r != null) && (r instanceof ChainedGlyphSequenceRule)) {
               ChainedGlyphSequenceRule cr = (ChainedGlyphSequenceRule) r;
-              int[] iga = cr.getGlyphs(gi);
-              if (matches(ss, iga, 0, rv)) {
+              int[] iga = ss.getScratch().getSequence(cr.getGlyphs().length + 1);
+              int nig = cr.getGlyphs(gi, iga);
+              if (matches(ss, iga, nig, 0, rv)) {
                 return r.getLookups();
               }
             }
@@ -895,18 +881,21 @@ public class GlyphSubstitutionTable extends GlyphTable {
     }
 
     static boolean matches(GlyphSubstitutionState ss, int[] glyphs, int offset, int[] rv) {
-      if ((glyphs == null) || (glyphs.length == 0)) {
+      return matches(ss, glyphs, (glyphs != null) ? glyphs.length : 0, offset, rv);
+    }
+
+    static boolean matches(GlyphSubstitutionState ss, int[] glyphs, int ngm, int offset, int[] rv) {
+      if ((glyphs == null) || (ngm == 0)) {
         return true;                            // match null or empty glyph sequence
       } else {
         boolean reverse = offset < 0;
         GlyphTester ignores = ss.getIgnoreDefault();
-        int[] counts = ss.getGlyphsAvailable(offset, reverse, ignores);
-        int nga = counts[0];
-        int ngm = glyphs.length;
-        if (nga < ngm) {
+        GlyphScratchArena scratch = ss.getScratch();
+        int[] counts = scratch.getCounts();
+        int[] ga = scratch.getGlyphs(ngm);
+        if (ss.fetchGlyphs(offset, ngm, reverse, ignores, ga, counts) < ngm) {
           return false;                       // insufficient glyphs available to match
         } else {
-          int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, null, counts);
           for (int k = 0; k < ngm; k++) {
             if (ga[k] != glyphs[k]) {
               return false;               // match fails at ga [ k ]
@@ -981,8 +970,9 @@ public class GlyphSubstitutionTable extends GlyphTable {
             Rule r = ra[i];
             if ((r != null) && (r instanceof ChainedClassSequenceRule)) {
               ChainedClassSequenceRule cr = (ChainedClassSequenceRule) r;
-              int[] ca = cr.getClasses(cdt.getClassIndex(gi, ss.getClassMatchSet(gi)));
-              if (matches(ss, cdt, ca, 0, rv)) {
+              int[] ca = ss.getScratch().getSequence(cr.getClasses().length + 1);
+              int nic = cr.getClasses(cdt.getClassIndex(gi, ss.getClassMatchSet(gi)), ca);
+              if (matches(ss, cdt, ca, nic, 0, rv)) {
                 return r.getLookups();
               }
             }
@@ -993,18 +983,21 @@ public class GlyphSubstitutionTable extends GlyphTable {
     }
 
     static boolean matches(GlyphSubstitutionState ss, GlyphClassTable cdt, int[] classes, int offset, int[] rv) {
-      if ((cdt == null) || (classes == null) || (classes.length == 0)) {
+      return matches(ss, cdt, classes, (classes != null) ? classes.length : 0, offset, rv);
+    }
+
+    static boolean matches(GlyphSubstitutionState ss, GlyphClassTable cdt, int[] classes, int ngm, int offset, int[] rv) {
+      if ((cdt == null) || (classes == null) || (ngm == 0)) {
         return true;                            // match null class definitions, null or empty class sequence
       } else {
         boolean reverse = offset < 0;
         GlyphTester ignores = ss.getIgnoreDefault();
-        int[] counts = ss.getGlyphsAvailable(offset, reverse, ignores);
-        int nga = counts[0];
-        int ngm = classes.length;
-        if (nga < ngm) {
+        GlyphScratchArena scratch = ss.getScratch();
+        int[] counts = scratch.getCounts();
+        int[] ga = scratch.getGlyphs(ngm);
+        if (ss.fetchGlyphs(offset, ngm, reverse, ignores, ga, counts) < ngm) {
           return false;                       // insufficient glyphs available to match
         } else {
-          int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, null, counts);
           for (int k = 0; k < ngm; k++) {
             int gi = ga[k];
             int ms = ss.getClassMatchSet(gi);
@@ -1114,13 +1107,13 @@ public class GlyphSubstitutionTable extends GlyphTable {
       } else {
         boolean reverse = offset < 0;
         GlyphTester ignores = ss.getIgnoreDefault();
-        int[] counts = ss.getGlyphsAvailable(offset, reverse, ignores);
-        int nga = counts[0];
         int ngm = gca.length;
-        if (nga < ngm) {
+        GlyphScratchArena scratch = ss.getScratch();
+        int[] counts = scratch.getCounts();
+        int[] ga = scratch.getGlyphs(ngm);
+        if (ss.fetchGlyphs(offset, ngm, reverse, ignores, ga, counts) < ngm) {
           return false;                       // insufficient glyphs available to match
         } else {
-          int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, null, counts);
           for (int k = 0; k < ngm; k++) {
             GlyphCoverageTable ct = gca[k];
             if (ct != null) {
@@ -1179,7 +1172,7 @@ public class GlyphSubstitutionTable extends GlyphTable {
       if ((ci = getCoverageIndex(gi)) < 0) {
         return false;
       } else {
-        int[] rv = new int[1];
+        int[] rv = ss.getScratch().getReturnValues();
         RuleLookup[] la = getLookups(ci, gi, ss, rv);
         if (la != null) {
           ss.apply(la, rv[0]);
@@ -1258,8 +1251,9 @@ public class GlyphSubstitutionTable extends GlyphTable {
             Rule r = ra[i];
             if ((r != null) && (r instanceof ChainedGlyphSequenceRule)) {
               ChainedGlyphSequenceRule cr = (ChainedGlyphSequenceRule) r;
-              int[] iga = cr.getGlyphs(gi);
-              if (matches(ss, iga, 0, rv)) {
+              int[] iga = ss.getScratch().getSequence(cr.getGlyphs().length + 1);
+              int nig = cr.getGlyphs(gi, iga);
+              if (matches(ss, iga, nig, 0, rv)) {
                 int[] bga = cr.getBacktrackGlyphs();
                 if (matches(ss, bga, -1, null)) {
                   int[] lga = cr.getLookaheadGlyphs();
@@ -1279,6 +1273,10 @@ public class GlyphSubstitutionTable extends GlyphTable {
       return ContextualSubtableFormat1.matches(ss, glyphs, offset, rv);
     }
 
+    private boolean matches(GlyphSubstitutionState ss, int[] glyphs, int ngm, int offset, int[] rv) {
+      return ContextualSubtableFormat1.matches(ss, glyphs, ngm, offset, rv);
+    }
+
     private void populate(List entries) {
       if (entries == null) {
         throw new AdvancedTypographicTableFormatException("illegal entries, must be non-null");
@@ -1339,8 +1337,9 @@ public class GlyphSubstitutionTable extends GlyphTable {
             Rule r = ra[i];
             if ((r != null) && (r instanceof ChainedClassSequenceRule)) {
               ChainedClassSequenceRule cr = (ChainedClassSequenceRule) r;
-              int[] ica = cr.getClasses(icdt.getClassIndex(gi, ss.getClassMatchSet(gi)));
-              if (matches(ss, icdt, ica, 0, rv)) {
+              int[] ica = ss.getScratch().getSequence(cr.getClasses().length + 1);
+              int nic = cr.getClasses(icdt.getClassIndex(gi, ss.getClassMatchSet(gi)), ica);
+              if (matches(ss, icdt, ica, nic, 0, rv)) {
                 int[] bca = cr.getBacktrackClasses();
                 if (matches(ss, bcdt, bca, -1, null)) {
                   int[] lca = cr.getLookaheadClasses();
@@ -1360,6 +1359,10 @@ public class GlyphSubstitutionTable extends GlyphTable {
       return ContextualSubtableFormat2.matches(ss, cdt, classes, offset, rv);
     }
 
+    private boolean matches(GlyphSubstitutionState ss, GlyphClassTable cdt, int[] classes, int ngm, int offset, int[] rv) {
+      return ContextualSubtableFormat2.matches(ss, cdt, classes, ngm, offset, rv);
+    }
+
     /** {@inheritDoc} */
     public void resolveLookupReferences(Map/*<String,LookupTable>*/ lookupTables) {
       GlyphTable.resolveLookupReferences(rsa, lookupTables);
@@ -1598,7 +1601,20 @@ public class GlyphSubstitutionTable extends GlyphTable {
      * @return true if matches
      */
     public boolean matchesComponents(int[] glyphs) {
-      if (glyphs.length < (components.length + 1)) {
+      return matchesComponents(glyphs, glyphs.length);
+    }
+
+    /**
+     * Determine if input sequence at offset matches ligature's components.
+     *
+     * @param glyphs
+     *     array of glyph components to match (including first, implied glyph)
+     * @param ng
+     *     number of glyphs in array to consider
+     * @return true if matches
+     */
+    public boolean matchesComponents(int[] glyphs, int ng) {
+      if (ng < (components.length + 1)) {
         return false;
       } else {
         for (int i = 0, n = components.length; i < n; i++) {
@@ -1629,13 +1645,23 @@ public class GlyphSubstitutionTable extends GlyphTable {
   }
 
   /**
-   * The <code>LigatureSet</code> class implements a set of  ligatures.
+   * The <code>LigatureSet</code> class implements a set of  ligatures. On construction, the set is compiled
+   * into a trie over the <emph>N+1...</emph> components of its ligatures, so that the longest ligature
+   * matching an input sequence is found in a single walk of that sequence.
    */
   public static class LigatureSet {
 
     private final Ligature[] ligatures;
     // set of ligatures all of which share the first (implied) component
     private final int maxComponents;                        // maximum number of components (including first)
+    // component trie, where node 0 is the root (first component) and the edges of each node are sorted by glyph
+    private int[] nodeLigatures;                            // index of ligature ending at node, or -1
+    private int[] edgeStarts;                               // index of first edge of node
+    private int[] edgeCounts;                               // number of edges of node
+    private int[] edgeGlyphs;                               // component glyph of edge
+    private int[] edgeTargets;                              // target node of edge
+    private int numNodes;
+    private int numEdges;
 
     /**
      * Instantiate a set of ligatures.
@@ -1667,7 +1693,123 @@ public class GlyphSubstitutionTable extends GlyphTable {
           }
         }
         maxComponents = ncMax;
+        compile();
+      }
+    }
+
+    private void compile() {
+      int n = ligatures.length;
+      int maxNodes = 1;
+      Integer[] order = new Integer[n];
+      for (int i = 0; i < n; i++) {
+        maxNodes += ligatures[i].getNumComponents();
+        order[i] = i;
+      }
+      // sort (stably) by component sequence, such that a prefix precedes its extensions
+      Arrays.sort(order, new Comparator<Integer>() {
+
+        @Override
+        public int compare(Integer i1, Integer i2) {
+          int[] ca1 = ligatures[i1].getComponents();
+          int[] ca2 = ligatures[i2].getComponents();
+          for (int k = 0, m = Math.min(ca1.length, ca2.length); k < m; k++) {
+            if (ca1[k] != ca2[k]) {
+              return (ca1[k] < ca2[k]) ? -1 : 1;
+            }
+          }
+          return ca1.length - ca2.length;
+        }
+      });
+      int[] sorted = new int[n];
+      for (int i = 0; i < n; i++) {
+        sorted[i] = order[i];
+      }
+      nodeLigatures = new int[maxNodes];
+      edgeStarts = new int[maxNodes];
+      edgeCounts = new int[maxNodes];
+      edgeGlyphs = new int[maxNodes];
+      edgeTargets = new int[maxNodes];
+      numNodes = 1;
+      numEdges = 0;
+      compileNode(0, sorted, 0, n, 0);
+    }
+
+    private void compileNode(int node, int[] sorted, int from, int to, int depth) {
+      // the first ligature whose components end at this depth (if any) is the ligature of this node
+      int k = from;
+      nodeLigatures[node] = -1;
+      if ((k < to) && (ligatures[sorted[k]].getNumComponents() == depth)) {
+        nodeLigatures[node] = sorted[k];
+        while ((k < to) && (ligatures[sorted[k]].getNumComponents() == depth)) {
+          k++;
+        }
+      }
+      // reserve one edge per distinct component glyph at this depth
+      int first = numEdges;
+      for (int i = k; i < to; ) {
+        int gc = ligatures[sorted[i]].getComponents()[depth];
+        int j = i + 1;
+        while ((j < to) && (ligatures[sorted[j]].getComponents()[depth] == gc)) {
+          j++;
+        }
+        edgeGlyphs[numEdges] = gc;
+        edgeTargets[numEdges] = numNodes++;
+        numEdges++;
+        i = j;
+      }
+      edgeStarts[node] = first;
+      edgeCounts[node] = numEdges - first;
+      // compile targets of reserved edges
+      for (int i = k, e = first; i < to; e++) {
+        int gc = edgeGlyphs[e];
+        int j = i + 1;
+        while ((j < to) && (ligatures[sorted[j]].getComponents()[depth] == gc)) {
+          j++;
+        }
+        compileNode(edgeTargets[e], sorted, i, j, depth + 1);
+        i = j;
+      }
+    }
+
+    /**
+     * Find the longest ligature whose components match an input sequence. If more than one ligature
+     * has the same components, the first is found.
+     *
+     * @param glyphs
+     *     array of glyph components to match (including first, implied glyph)
+     * @param ng
+     *     number of glyphs in array to consider
+     * @return the longest matching ligature or null if none matches
+     */
+    public Ligature findLigature(int[] glyphs, int ng) {
+      int node = 0;
+      int best = nodeLigatures[0];
+      for (int i = 1; i < ng; i++) {
+        int gi = glyphs[i];
+        int lo = edgeStarts[node];
+        int hi = lo + edgeCounts[node] - 1;
+        int next = -1;
+        while (lo <= hi) {
+          int mid = (lo + hi) >>> 1;
+          int gc = edgeGlyphs[mid];
+          if (gc < gi) {
+            lo = mid + 1;
+          } else if (gc > gi) {
+            hi = mid - 1;
+          } else {
+            next = edgeTargets[mid];
+            break;
+          }
+        }
+        if (next < 0) {
+          break;
+        }
+        node = next;
+        if (nodeLigatures[node] >= 0) {
+          best = nodeLigatures[node];
+        }
       }
+      return (best >= 0) ? ligatures[best] : null;
     }
 
     /** @return array of ligatures in this ligature set */
@@ -27,6 +27,7 @@ import com.jaredrummler.fontreader.truetype.FontFileReader;
 import com.jaredrummler.fontreader.truetype.GlyphTable;
 import com.jaredrummler.fontreader.truetype.OFDirTabEntry;
 import com.jaredrummler.fontreader.truetype.OFTableName;
+import com.jaredrummler.fontreader.truetype.OFTag;
 import com.jaredrummler.fontreader.truetype.OpenFont;
 
 import java.io.IOException;
@@ -50,12 +51,13 @@ public final class OTFAdvancedTypographicTableReader {
   private GlyphSubstitutionTable gsub;                        // glyph substitution table
   private GlyphPositioningTable gpos;                         // glyph positioning table
   // transient parsing state
-  private transient Map/*<String,Object[3]>*/ seScripts;
+  private transient Map/*<Integer,Object[3]>*/ seScripts;
   // script-tag         => Object[3] : { default-language-tag, List(language-tag), seLanguages }
-  private transient Map/*<String,Object[2]>*/ seLanguages;
+  private transient Map/*<Integer,Object[2]>*/ seLanguages;
   // language-tag       => Object[2] : { "f<required-feature-index>", List("f<feature-index>")
   private transient Map/*<String,List<String>>*/ seFeatures;
   // "f<feature-index>" => Object[2] : { feature-tag, List("lu<lookup-index>") }
+  // (script, language and feature tags are packed, see OFTag)
   private transient GlyphMappingTable seMapping;              // subtable entry mappings
   private transient List seEntries;                           // subtable entry entries
   private transient List seSubtables;                         // subtable entry subtables
@@ -133,7 +135,7 @@ public final class OTFAdvancedTypographicTableReader {
     return gpos;
   }
 
-  private void readLangSysTable(OFTableName tableTag, long langSysTable, String langSysTag)
+  private void readLangSysTable(OFTableName tableTag, long langSysTable, int langSysTag)
       throws IOException {
     in.seekSet(langSysTable);
     // read lookup order (reorder) table offset
@@ -163,22 +165,22 @@ public final class OTFAdvancedTypographicTableReader {
     seLanguages.put(langSysTag, new Object[]{rfi, fl});
   }
 
-  private static String defaultTag = "dflt";
+  private static final int DEFAULT_TAG = OFTag.toInt("dflt");
 
-  private void readScriptTable(OFTableName tableTag, long scriptTable, String scriptTag) throws IOException {
+  private void readScriptTable(OFTableName tableTag, long scriptTable, int scriptTag) throws IOException {
     in.seekSet(scriptTable);
     // read default language system table offset
     int dl = in.readTTFUShort();
-    String dt = defaultTag;
+    int dt = DEFAULT_TAG;
     // read language system record count
     int nl = in.readTTFUShort();
     List ll = new java.util.ArrayList();
     if (nl > 0) {
-      String[] lta = new String[nl];
+      int[] lta = new int[nl];
       int[] loa = new int[nl];
       // read language system records
       for (int i = 0, n = nl; i < n; i++) {
-        String lt = in.readTTFString(4);
+        int lt = in.readTTFLong();
         int lo = in.readTTFUShort();
         lta[i] = lt;
         loa[i] = lo;
@@ -207,11 +209,11 @@ public final class OTFAdvancedTypographicTableReader {
     int ns = in.readTTFUShort();
 
     if (ns > 0) {
-      String[] sta = new String[ns];
+      int[] sta = new int[ns];
       int[] soa = new int[ns];
       // read script records
       for (int i = 0, n = ns; i < n; i++) {
-        String st = in.readTTFString(4);
+        int st = in.readTTFLong();
         int so = in.readTTFUShort();
 
         sta[i] = st;
@@ -225,7 +227,7 @@ public final class OTFAdvancedTypographicTableReader {
     }
   }
 
-  private void readFeatureTable(OFTableName tableTag, long featureTable, String featureTag, int featureIndex)
+  private void readFeatureTable(OFTableName tableTag, long featureTable, int featureTag, int featureIndex)
       throws IOException {
     in.seekSet(featureTable);
 
@@ -253,11 +255,11 @@ public final class OTFAdvancedTypographicTableReader {
     int nf = in.readTTFUShort();
 
     if (nf > 0) {
-      String[] fta = new String[nf];
+      int[] fta = new int[nf];
       int[] foa = new int[nf];
       // read feature records
       for (int i = 0, n = nf; i < n; i++) {
-        String ft = in.readTTFString(4);
+        int ft = in.readTTFLong();
         int fo = in.readTTFUShort();
 
         fta[i] = ft;
@@ -276,6 +278,7 @@ public final class OTFAdvancedTypographicTableReader {
     static final int ATTACHMENT_POINT = 2;
     static final int LIGATURE_CARET = 3;
     static final int MARK_ATTACHMENT = 4;
+    static final int MARK_GLYPH_SETS = 5;
 
     private GDEFLookupType() {
     }
@@ -295,6 +298,9 @@ public final class OTFAdvancedTypographicTableReader {
         case GDEFLookupType.MARK_ATTACHMENT:
           st = GlyphDefinitionTable.GDEF_LOOKUP_TYPE_MARK_ATTACHMENT;
           break;
+        case GDEFLookupType.MARK_GLYPH_SETS:
+          st = GlyphDefinitionTable.GDEF_LOOKUP_TYPE_MARK_GLYPH_SETS;
+          break;
         default:
           st = -1;
           break;
@@ -317,6 +323,9 @@ public final class OTFAdvancedTypographicTableReader {
         case MARK_ATTACHMENT:
           s = "MarkAttachment";
           break;
+        case MARK_GLYPH_SETS:
+          s = "MarkGlyphSets";
+          break;
         default:
           s = "?";
           break;
@@ -2963,12 +2972,11 @@ public final class OTFAdvancedTypographicTableReader {
     for (int i = 0; i < nmc; i++) {
       msca[i] = readCoverageTable(tableTag + " mark set coverage[" + i + "]", subtableOffset + mso[i]);
     }
-    // create combined class table from per-class coverage tables
-    GlyphClassTable ct = GlyphClassTable.createClassTable(Arrays.asList(msca));
-    // store results
-    seMapping = ct;
+    // store results, one coverage table per mark set
+    seMapping = GlyphClassTable.createClassTable(null);
+    seEntries.addAll(Arrays.asList(msca));
     // extract subtable
-    extractSESubState(GlyphTable.GLYPH_TABLE_TYPE_DEFINITION, GDEFLookupType.MARK_ATTACHMENT, 0, lookupSequence, 0, 1);
+    extractSESubState(GlyphTable.GLYPH_TABLE_TYPE_DEFINITION, GDEFLookupType.MARK_GLYPH_SETS, 0, lookupSequence, 0, 1);
     resetATSubState();
   }
 
@@ -3171,11 +3179,11 @@ public final class OTFAdvancedTypographicTableReader {
     return gpos;
   }
 
-  private void constructLookupsFeature(Map lookups, String st, String lt, String fid) {
+  private void constructLookupsFeature(Map lookups, int st, int lt, String fid) {
     Object[] fp = (Object[]) seFeatures.get(fid);
     if (fp != null) {
       assert fp.length == 2;
-      String ft = (String) fp[0];                 // feature tag
+      Integer ft = (Integer) fp[0];               // feature tag
       List/*<String>*/ lul = (List) fp[1];        // list of lookup table ids
       if ((ft != null) && (lul != null) && (lul.size() > 0)) {
         GlyphTable.LookupSpec ls = new GlyphTable.LookupSpec(st, lt, ft);
@@ -3184,14 +3192,14 @@ public final class OTFAdvancedTypographicTableReader {
     }
   }
 
-  private void constructLookupsFeatures(Map lookups, String st, String lt, List/*<String>*/ fids) {
+  private void constructLookupsFeatures(Map lookups, int st, int lt, List/*<String>*/ fids) {
     for (Iterator fit = fids.iterator(); fit.hasNext(); ) {
       String fid = (String) fit.next();
       constructLookupsFeature(lookups, st, lt, fid);
     }
   }
 
-  private void constructLookupsLanguage(Map lookups, String st, String lt, Map/*<String,Object[2]>*/ languages) {
+  private void constructLookupsLanguage(Map lookups, int st, int lt, Map/*<Integer,Object[2]>*/ languages) {
     Object[] lp = (Object[]) languages.get(lt);
     if (lp != null) {
       assert lp.length == 2;
@@ -3204,10 +3212,10 @@ public final class OTFAdvancedTypographicTableReader {
     }
   }
 
-  private void constructLookupsLanguages(Map lookups, String st, List/*<String>*/ ll,
-                                         Map/*<String,Object[2]>*/ languages) {
+  private void constructLookupsLanguages(Map lookups, int st, List/*<Integer>*/ ll,
+                                         Map/*<Integer,Object[2]>*/ languages) {
     for (Iterator lit = ll.iterator(); lit.hasNext(); ) {
-      String lt = (String) lit.next();
+      int lt = (Integer) lit.next();
       constructLookupsLanguage(lookups, st, lt, languages);
     }
   }
@@ -3215,13 +3223,13 @@ public final class OTFAdvancedTypographicTableReader {
   private Map constructLookups() {
     Map/*<GlyphTable.LookupSpec,List<String>>*/ lookups = new java.util.LinkedHashMap();
     for (Iterator sit = seScripts.keySet().iterator(); sit.hasNext(); ) {
-      String st = (String) sit.next();
+      int st = (Integer) sit.next();
       Object[] sp = (Object[]) seScripts.get(st);
       if (sp != null) {
         assert sp.length == 3;
-        Map/*<String,Object[2]>*/ languages = (Map) sp[2];
+        Map/*<Integer,Object[2]>*/ languages = (Map) sp[2];
         if (sp[0] != null) {                  // default language
-          constructLookupsLanguage(lookups, st, (String) sp[0], languages);
+          constructLookupsLanguage(lookups, st, (Integer) sp[0], languages);
         }
         if (sp[1] != null) {                  // non-default languages
           constructLookupsLanguages(lookups, st, (List) sp[1], languages);
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.layout;
+
+import com.jaredrummler.fontreader.fonts.Font;
+
+/**
+ * A run of glyphs of one font within a {@link Line}, positioned relative to the start of the line.
+ */
+public final class GlyphRun {
+
+  private final ShapedParagraph paragraph;
+  private final int start;
+  private final int end;
+  private final int x;
+
+  GlyphRun(ShapedParagraph paragraph, int start, int end, int x) {
+    this.paragraph = paragraph;
+    this.start = start;
+    this.end = end;
+    this.x = x;
+  }
+
+  /** @return the font of this run */
+  public Font getFont() {
+    return paragraph.getFonts().get(paragraph.getGlyphFont(start));
+  }
+
+  /** @return index of first glyph of this run in its paragraph */
+  public int getGlyphStart() {
+    return start;
+  }
+
+  /** @return index after last glyph of this run in its paragraph */
+  public int getGlyphEnd() {
+    return end;
+  }
+
+  /** @return number of glyphs */
+  public int getGlyphCount() {
+    return end - start;
+  }
+
+  /**
+   * Obtain a glyph of this run.
+   *
+   * @param index
+   *     index of glyph within this run
+   * @return the glyph, as a character code of this run's font
+   */
+  public int getGlyph(int index) {
+    return paragraph.getGlyph(glyphIndex(index));
+  }
+
+  /** @return the pen position of the first glyph, relative to the start of the line, in millipoints */
+  public int getX() {
+    return x;
+  }
+
+  /**
+   * Obtain the horizontal position of a glyph, including its placement, relative to the start of the line.
+   *
+   * @param index
+   *     index of glyph within this run
+   * @return the position in millipoints
+   */
+  public int getGlyphX(int index) {
+    int g = glyphIndex(index);
+    int pen = x;
+    for (int i = start; i < g; i++) {
+      pen += paragraph.getGlyphAdvance(i);
+    }
+    return pen + paragraph.getGlyphXOffset(g);
+  }
+
+  /**
+   * Obtain the positions of the glyphs of this run in one pass.
+   *
+   * @param positions
+   *     receives, for each glyph, its horizontal then vertical position relative to the start of the line and the
+   *     baseline, including placements; must hold at least <code>2 * getGlyphCount()</code> values
+   * @return the pen position after the last glyph
+   */
+  public int getPositions(int[] positions) {
+    if (positions.length < 2 * (end - start)) {
+      throw new IllegalArgumentException("positions must hold " + 2 * (end - start) + " values");
+    }
+    int pen = x;
+    for (int g = start, k = 0; g < end; g++, k += 2) {
+      positions[k] = pen + paragraph.getGlyphXOffset(g);
+      positions[k + 1] = paragraph.getGlyphYOffset(g);
+      pen += paragraph.getGlyphAdvance(g);
+    }
+    return pen;
+  }
+
+  /** @return the advance of all glyphs of this run, in millipoints */
+  public int getAdvance() {
+    int advance = 0;
+    for (int g = start; g < end; g++) {
+      advance += paragraph.getGlyphAdvance(g);
+    }
+    return advance;
+  }
+
+  private int glyphIndex(int index) {
+    if ((index < 0) || (index >= (end - start))) {
+      throw new IndexOutOfBoundsException("index " + index + " out of range [0," + (end - start) + ")");
+    }
+    return start + index;
+  }
+
+  /** {@inheritDoc} */
+  public String toString() {
+    return "{ glyphs = [" + start + "," + end + "), x = " + x + " }";
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A line of a {@link ShapedParagraph}, holding its glyphs as runs of one font positioned from the start of the line.
+ */
+public final class Line {
+
+  private final ShapedParagraph paragraph;
+  private final int start;
+  private final int end;
+  private final int width;
+  private final double ratio;
+  private List<GlyphRun> runs;
+
+  Line(ShapedParagraph paragraph, int start, int end, int width, double ratio) {
+    this.paragraph = paragraph;
+    this.start = start;
+    this.end = end;
+    this.width = width;
+    this.ratio = ratio;
+  }
+
+  /** @return index of first character of this line */
+  public int getStart() {
+    return start;
+  }
+
+  /** @return index after last character of this line, including trailing white space */
+  public int getEnd() {
+    return end;
+  }
+
+  /** @return index after last character of this line, excluding trailing white space */
+  public int getContentEnd() {
+    return paragraph.getContentEnd(start, end);
+  }
+
+  /** @return the natural width of this line, excluding trailing white space, in millipoints */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Obtain the ratio by which the breakable spaces of this line must stretch (if positive) or shrink (if negative)
+   * to justify the line to the width at which it was broken: a space is justified by adding the ratio times half its
+   * width when stretching, or times a third of its width when shrinking. The ratio is zero for the last line of a
+   * paragraph and before a mandatory break, and is infinite if the line must be adjusted but has no breakable
+   * spaces, or is less than -1 if the line overflows.
+   *
+   * @return the adjustment ratio
+   */
+  public double getAdjustmentRatio() {
+    return ratio;
+  }
+
+  /** @return true if this line ends with a mandatory break */
+  public boolean isMandatoryBreak() {
+    return paragraph.getBreak(end) == ShapedParagraph.BREAK_MANDATORY;
+  }
+
+  /** @return the text of this line */
+  public String getText() {
+    return paragraph.getText().substring(start, end);
+  }
+
+  /** @return runs of glyphs of this line, each of one font, in logical order */
+  public synchronized List<GlyphRun> getGlyphRuns() {
+    if (runs == null) {
+      List<GlyphRun> rl = new ArrayList<>();
+      int gs = paragraph.getGlyphStart(start);
+      int ge = paragraph.getGlyphStart(end);
+      int x = 0;
+      for (int g = gs; g < ge; ) {
+        int font = paragraph.getGlyphFont(g);
+        int rs = g;
+        int rx = x;
+        for (; (g < ge) && (paragraph.getGlyphFont(g) == font); g++) {
+          x += paragraph.getGlyphAdvance(g);
+        }
+        rl.add(new GlyphRun(paragraph, rs, g, rx));
+      }
+      runs = Collections.unmodifiableList(rl);
+    }
+    return runs;
+  }
+
+  /** {@inheritDoc} */
+  public String toString() {
+    return "{ [" + start + "," + end + "), width = " + width + ", ratio = " + ratio + " }";
+  }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Breaks a {@link ShapedParagraph} into lines of a given width.</p>
+ *
+ * <p>In {@link #GREEDY} mode, each line takes as much text as fits. In {@link #OPTIMAL} mode, lines are chosen as by
+ * the Knuth&ndash;Plass algorithm, minimizing the sum over the paragraph of the demerits of each line, where a line
+ * whose breakable spaces must stretch or shrink more is worse, and a line whose spacing differs markedly from the
+ * spacing of the line before it is penalized. At an adjustment ratio of one, breakable spaces stretch by half of
+ * their width, and they shrink by at most a third of their width; the last line of a paragraph, and a line before a
+ * mandatory break, need not be filled.</p>
+ *
+ * <p>In either mode, a line holding text wider than the line that cannot be broken overflows the line. Breaking
+ * a paragraph only reads its shaped widths, so a paragraph may be broken at any number of widths, from any number
+ * of threads, without shaping it again.</p>
+ */
+public final class LineBreaker {
+
+  /** Mode that fills each line in turn. */
+  public static final int GREEDY = 0;
+  /** Mode that minimizes the demerits of all lines of a paragraph. */
+  public static final int OPTIMAL = 1;
+
+  private static final int LINE_PENALTY = 10;
+  /** badness of a line that must but cannot be adjusted, having no breakable spaces or overflowing */
+  private static final double INFINITE_BADNESS = 1e8;
+  private static final int ADJACENT_FITNESS_DEMERITS = 3000;
+  private static final int FITNESS_CLASSES = 4;
+
+  private LineBreaker() {
+  }
+
+  /**
+   * Break a paragraph into lines.
+   *
+   * @param paragraph
+   *     a shaped paragraph
+   * @param width
+   *     width of a line in millipoints
+   * @param mode
+   *     {@link #GREEDY} or {@link #OPTIMAL}
+   * @return the lines of the paragraph, of which there is at least one
+   */
+  public static List<Line> breakLines(ShapedParagraph paragraph, int width, int mode) {
+    int[] breaks = new int[Math.max(1, paragraph.length())];
+    int count = findBreaks(paragraph, width, mode, breaks);
+    List<Line> lines = new ArrayList<>(count);
+    for (int i = 0, start = 0; i < count; i++) {
+      int end = breaks[i];
+      lines.add(new Line(paragraph, start, end, paragraph.getLineWidth(start, end),
+          getAdjustmentRatio(paragraph, start, end, width)));
+      start = end;
+    }
+    return lines;
+  }
+
+  /**
+   * Find the ends of the lines of a paragraph, without creating lines.
+   *
+   * @param paragraph
+   *     a shaped paragraph
+   * @param width
+   *     width of a line in millipoints
+   * @param mode
+   *     {@link #GREEDY} or {@link #OPTIMAL}
+   * @param breaks
+   *     receives the character index after the end of each line; must hold at least as many values as the
+   *     paragraph has characters, or one value if it has none
+   * @return the number of lines
+   */
+  public static int findBreaks(ShapedParagraph paragraph, int width, int mode, int[] breaks) {
+    if (breaks.length < Math.max(1, paragraph.length())) {
+      throw new IllegalArgumentException("breaks must hold " + Math.max(1, paragraph.length()) + " values");
+    }
+    if (paragraph.length() == 0) {
+      breaks[0] = 0;
+      return 1;
+    }
+    switch (mode) {
+      case GREEDY:
+        return findGreedyBreaks(paragraph, width, breaks);
+      case OPTIMAL:
+        return findOptimalBreaks(paragraph, width, breaks);
+      default:
+        throw new IllegalArgumentException("invalid mode: " + mode);
+    }
+  }
+
+  private static int findGreedyBreaks(ShapedParagraph p, int width, int[] breaks) {
+    int count = 0;
+    int start = 0;
+    int candidate = -1;
+    for (int i = 1, n = p.length(); i <= n; i++) {
+      int b = p.getBreak(i);
+      if (b == ShapedParagraph.BREAK_PROHIBITED) {
+        continue;
+      }
+      if ((candidate > start) && (p.getLineWidth(start, i) > width)) {
+        breaks[count++] = candidate;
+        start = candidate;
+      }
+      if (b == ShapedParagraph.BREAK_MANDATORY) {
+        breaks[count++] = i;
+        start = i;
+      } else {
+        candidate = i;
+      }
+    }
+    return count;
+  }
+
+  private static int findOptimalBreaks(ShapedParagraph p, int width, int[] breaks) {
+    int n = p.length();
+    // a node is a break at a character index that ends a line of a fitness class
+    double[] demerits = new double[(n + 1) * FITNESS_CLASSES];
+    int[] previous = new int[(n + 1) * FITNESS_CLASSES];
+    Arrays.fill(demerits, Double.POSITIVE_INFINITY);
+    demerits[1] = 0; // paragraph start, as if after a decent line
+    int[] active = new int[n + 1];
+    int activeCount = 1;
+    for (int i = 1; i <= n; i++) {
+      int b = p.getBreak(i);
+      if (b == ShapedParagraph.BREAK_PROHIBITED) {
+        continue;
+      }
+      boolean mandatory = b == ShapedParagraph.BREAK_MANDATORY;
+      boolean reached = false;
+      int overfull = -1;
+      int kept = 0;
+      for (int a = 0; a < activeCount; a++) {
+        int j = active[a];
+        double r = getAdjustmentRatio(p, j, i, width);
+        if (r < -1) {
+          overfull = Math.max(overfull, j); // wider than the line, as is any later line from j
+          continue;
+        }
+        active[kept++] = j;
+        double badness = Math.min(INFINITE_BADNESS, 100 * Math.abs(r * r * r));
+        int fc = getFitnessClass(r);
+        double d = (LINE_PENALTY + badness) * (LINE_PENALTY + badness);
+        for (int fcj = 0; fcj < FITNESS_CLASSES; fcj++) {
+          double total = demerits[j * FITNESS_CLASSES + fcj] + d
+              + ((Math.abs(fc - fcj) > 1) ? ADJACENT_FITNESS_DEMERITS : 0);
+          if (total < demerits[i * FITNESS_CLASSES + fc]) {
+            demerits[i * FITNESS_CLASSES + fc] = total;
+            previous[i * FITNESS_CLASSES + fc] = j * FITNESS_CLASSES + fcj;
+            reached = true;
+          }
+        }
+      }
+      activeCount = kept;
+      if (!reached && (activeCount == 0) && (overfull >= 0)) {
+        // no line can end here or later without overflowing, so let the line from the latest break overflow
+        int fcj = getBestFitnessClass(demerits, overfull);
+        double d = (LINE_PENALTY + INFINITE_BADNESS) * (LINE_PENALTY + INFINITE_BADNESS);
+        demerits[i * FITNESS_CLASSES] = demerits[overfull * FITNESS_CLASSES + fcj] + d;
+        previous[i * FITNESS_CLASSES] = overfull * FITNESS_CLASSES + fcj;
+        reached = true;
+      }
+      if (mandatory) {
+        activeCount = 0;
+      }
+      if (reached) {
+        active[activeCount++] = i;
+      }
+    }
+    // count lines, then store their ends in order
+    int node = n * FITNESS_CLASSES + getBestFitnessClass(demerits, n);
+    int count = 0;
+    for (int k = node; k >= FITNESS_CLASSES; k = previous[k]) {
+      count++;
+    }
+    for (int k = node, l = count - 1; k >= FITNESS_CLASSES; k = previous[k], l--) {
+      breaks[l] = k / FITNESS_CLASSES;
+    }
+    return count;
+  }
+
+  private static int getBestFitnessClass(double[] demerits, int index) {
+    int best = 0;
+    for (int fc = 1; fc < FITNESS_CLASSES; fc++) {
+      if (demerits[index * FITNESS_CLASSES + fc] < demerits[index * FITNESS_CLASSES + best]) {
+        best = fc;
+      }
+    }
+    return best;
+  }
+
+  private static int getFitnessClass(double r) {
+    if (r < -0.5) {
+      return 0; // tight
+    } else if (r <= 0.5) {
+      return 1; // decent
+    } else if (r <= 1) {
+      return 2; // loose
+    } else {
+      return 3; // very loose
+    }
+  }
+
+  /**
+   * Obtain the adjustment ratio of a line, being negative infinity if the line cannot shrink to fit, and positive
+   * infinity if it must but cannot stretch.
+   */
+  static double getAdjustmentRatio(ShapedParagraph p, int start, int end, int width) {
+    int natural = p.getLineWidth(start, end);
+    int spaces = p.getLineSpaceWidth(start, end);
+    if (natural > width) {
+      return (spaces > 0) ? (width - natural) / (spaces / 3.0) : Double.NEGATIVE_INFINITY;
+    } else if ((natural == width) || (p.getBreak(end) == ShapedParagraph.BREAK_MANDATORY)) {
+      return 0;
+    } else {
+      return (spaces > 0) ? (width - natural) / (spaces / 2.0) : Double.POSITIVE_INFINITY;
+    }
+  }
+
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.layout;
+
+import com.jaredrummler.fontreader.complexscripts.util.CharAssociation;
+import com.jaredrummler.fontreader.complexscripts.util.GraphemeClusterBreaker;
+import com.jaredrummler.fontreader.complexscripts.util.LineBreakClassifier;
+import com.jaredrummler.fontreader.fonts.Font;
+import com.jaredrummler.fontreader.fonts.FontFallbackItemizer;
+import com.jaredrummler.fontreader.util.CharUtilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A paragraph of text shaped once into glyphs, ready to be broken into lines at any width.</p>
+ *
+ * <p>Each run of text is shaped with its font: a font that performs substitution and positioning shapes the run as a
+ * whole, and any other font maps and measures the run one character (or surrogate pair) at a time, with kerning.
+ * Glyphs are kept in logical order, each associated with the first character of the cluster it was shaped from, and
+ * the advance of each glyph is accounted to that character. The width of any range of the paragraph is then the
+ * difference of two prefix sums, so that {@link LineBreaker} may wrap the paragraph at any number of widths without
+ * shaping it again; glyphs shaped across a line break (such as a kerned pair) keep their shaped advances.</p>
+ *
+ * <p>A paragraph also records, before each character, whether a line may or must break there, as found by
+ * {@link LineBreakClassifier}. A line may not break within an extended grapheme cluster, nor within a cluster of
+ * glyphs. A paragraph is immutable and may be shared between threads.</p>
+ */
+public final class ShapedParagraph {
+
+  /** A line may not break before the character. */
+  public static final byte BREAK_PROHIBITED = LineBreakClassifier.PROHIBITED;
+  /** A line may break before the character. */
+  public static final byte BREAK_ALLOWED = LineBreakClassifier.ALLOWED;
+  /** A line must break before the character. */
+  public static final byte BREAK_MANDATORY = LineBreakClassifier.MANDATORY;
+
+  private final String text;
+  private final Font[] fonts;
+  private final int glyphCount;
+  private final int[] glyphs;
+  private final int[] glyphFonts;
+  /** index of first character of the cluster of each glyph */
+  private final int[] glyphChars;
+  private final int[] advances;
+  private final int[] xOffsets;
+  private final int[] yOffsets;
+  /** width of the characters before each character index, of length + 1 entries */
+  private final int[] widths;
+  /** width of the breakable spaces before each character index, of length + 1 entries */
+  private final int[] spaceWidths;
+  /** for each character index, the index after the last character before it that is not trailing white space */
+  private final int[] contentEnds;
+  /** for each character index, the index of the first glyph at or after it, or -1 if glyphs cross the index */
+  private final int[] glyphStarts;
+  /** break action before each character index, of length + 1 entries */
+  private final byte[] breaks;
+
+  private ShapedParagraph(String text, Font[] fonts, int[] runs, int runCount, String script, String language) {
+    this.text = text;
+    this.fonts = fonts;
+    int n = text.length();
+    GlyphBuilder gb = new GlyphBuilder(n);
+    boolean[] continued = new boolean[n + 1];
+    int[] charAdvances = new int[n];
+    for (int r = 0; r < runCount; r++) {
+      int start = runs[r * 3];
+      int end = runs[r * 3 + 1];
+      int font = runs[r * 3 + 2];
+      if (fonts[font].performsSubstitution()) {
+        shapeRun(gb, text, start, end, font, fonts[font], script, language, continued);
+      } else {
+        measureRun(gb, text, start, end, font, fonts[font], charAdvances, continued);
+      }
+    }
+    this.glyphCount = gb.count;
+    this.glyphs = Arrays.copyOf(gb.glyphs, glyphCount);
+    this.glyphFonts = Arrays.copyOf(gb.fonts, glyphCount);
+    this.glyphChars = Arrays.copyOf(gb.chars, glyphCount);
+    this.advances = Arrays.copyOf(gb.advances, glyphCount);
+    this.xOffsets = Arrays.copyOf(gb.xOffsets, glyphCount);
+    this.yOffsets = Arrays.copyOf(gb.yOffsets, glyphCount);
+
+    Arrays.fill(charAdvances, 0);
+    for (int g = 0; g < glyphCount; g++) {
+      charAdvances[glyphChars[g]] += advances[g];
+    }
+    widths = new int[n + 1];
+    spaceWidths = new int[n + 1];
+    contentEnds = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      char c = text.charAt(i);
+      widths[i + 1] = widths[i] + charAdvances[i];
+      spaceWidths[i + 1] = spaceWidths[i] + (CharUtilities.isBreakableSpace(c) ? charAdvances[i] : 0);
+      contentEnds[i + 1] = isTrailingWhiteSpace(c) ? contentEnds[i] : (i + 1);
+    }
+
+    // a glyph boundary lies at index i if no glyph before it belongs to a character at or after i
+    glyphStarts = new int[n + 1];
+    Arrays.fill(glyphStarts, -1);
+    int[] minChars = new int[glyphCount + 1];
+    minChars[glyphCount] = n;
+    for (int g = glyphCount - 1; g >= 0; g--) {
+      minChars[g] = Math.min(minChars[g + 1], glyphChars[g]);
+    }
+    int maxChar = -1;
+    for (int g = 0, i = 0; i <= n; i++) {
+      while ((g < glyphCount) && (glyphChars[g] < i)) {
+        maxChar = Math.max(maxChar, glyphChars[g++]);
+      }
+      if ((maxChar < i) && (minChars[g] >= i)) {
+        glyphStarts[i] = g;
+      }
+    }
+
+    breaks = new byte[n + 1];
+    findBreaks(text, breaks);
+    for (int i = 1; i < n; i++) {
+      if (continued[i] || (glyphStarts[i] < 0)) {
+        breaks[i] = BREAK_PROHIBITED;
+      }
+    }
+  }
+
+  /**
+   * Shape a paragraph with one font.
+   *
+   * @param text
+   *     text of the paragraph
+   * @param font
+   *     the font
+   * @param script
+   *     a script identifier
+   * @param language
+   *     a language identifier
+   * @return the shaped paragraph
+   */
+  public static ShapedParagraph shape(CharSequence text, Font font, String script, String language) {
+    int[] runs = new int[] {0, text.length(), 0};
+    return new ShapedParagraph(text.toString(), new Font[] {font}, runs, (text.length() > 0) ? 1 : 0, script,
+        language);
+  }
+
+  /**
+   * Shape a paragraph with fallback fonts, shaping each run found by an itemizer with its font.
+   *
+   * @param text
+   *     text of the paragraph
+   * @param fonts
+   *     the fonts, in the order of the itemizer's fallback list
+   * @param itemizer
+   *     itemizer that assigns runs of text to fonts
+   * @param script
+   *     a script identifier
+   * @param language
+   *     a language identifier
+   * @return the shaped paragraph
+   */
+  public static ShapedParagraph shape(CharSequence text, List<Font> fonts, FontFallbackItemizer itemizer,
+                                      String script, String language) {
+    if (fonts.size() != itemizer.getFontCount()) {
+      throw new IllegalArgumentException(
+          "itemizer covers " + itemizer.getFontCount() + " fonts, but " + fonts.size() + " fonts given");
+    }
+    int[] runs = new int[text.length() * 3];
+    int runCount = itemizer.itemize(text, 0, text.length(), runs);
+    return new ShapedParagraph(text.toString(), fonts.toArray(new Font[fonts.size()]), runs, runCount, script,
+        language);
+  }
+
+  private static void shapeRun(GlyphBuilder gb, String text, int start, int end, int fontIndex, Font font,
+                               String script, String language, boolean[] continued) {
+    List<CharAssociation> associations = new ArrayList<CharAssociation>();
+    CharSequence gcs = font.performSubstitution(text.subSequence(start, end), script, language, associations, true);
+    int[][] gpa = font.performsPositioning() ? font.performPositioning(gcs, script, language) : null;
+    for (int k = 0, m = gcs.length(); k < m; k++) {
+      char gc = gcs.charAt(k);
+      CharAssociation ca = (k < associations.size()) ? associations.get(k) : null;
+      int c = start + Math.max(0, Math.min((ca != null) ? ca.getStart() : k, end - start - 1));
+      if (ca != null) {
+        for (int i = c + 1, e = Math.min(start + ca.getEnd(), end); i < e; i++) {
+          continued[i] = true;
+        }
+      }
+      int advance = font.getCharWidth(gc);
+      int xOffset = 0;
+      int yOffset = 0;
+      if (gpa != null) {
+        xOffset = gpa[k][0];
+        yOffset = gpa[k][1];
+        advance += gpa[k][2];
+      }
+      gb.add(font.mapChar(gc), fontIndex, c, advance, xOffset, yOffset);
+    }
+  }
+
+  private static void measureRun(GlyphBuilder gb, String text, int start, int end, int fontIndex, Font font,
+                                 int[] charAdvances, boolean[] continued) {
+    font.measureText(text, start, end, charAdvances, null);
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (Character.isLowSurrogate(c) && (i > start) && Character.isHighSurrogate(text.charAt(i - 1))) {
+        continued[i] = true;
+      } else {
+        gb.add(font.mapChar(c), fontIndex, i, charAdvances[i - start], 0, 0);
+      }
+    }
+  }
+
+  private static boolean isTrailingWhiteSpace(char c) {
+    return CharUtilities.isBreakableSpace(c) || CharUtilities.isExplicitBreak(c) || (c == CharUtilities.TAB);
+  }
+
+  /**
+   * Find break opportunities by the Unicode line breaking algorithm. A break within an extended grapheme cluster,
+   * including after a high surrogate, is prohibited.
+   */
+  private static void findBreaks(String text, byte[] breaks) {
+    int n = text.length();
+    int[] codePoints = new int[n];
+    int count = 0;
+    for (int i = 0; i < n; i += Character.charCount(codePoints[count++])) {
+      codePoints[count] = text.codePointAt(i);
+    }
+    byte[] actions = new byte[count];
+    LineBreakClassifier.findBreaks(codePoints, 0, count, actions, 0);
+    int[] clusters = new int[count + 1];
+    GraphemeClusterBreaker.findBoundaries(codePoints, 0, count, clusters);
+    for (int k = 0, i = 0, g = 1; k < count; k++) {
+      i += Character.charCount(codePoints[k]);
+      if (k + 1 == clusters[g]) {
+        breaks[i] = actions[k];
+        g++;
+      }
+    }
+    breaks[n] = BREAK_MANDATORY;
+  }
+
+  /** @return the text of this paragraph */
+  public String getText() {
+    return text;
+  }
+
+  /** @return number of characters */
+  public int length() {
+    return text.length();
+  }
+
+  /** @return the fonts of this paragraph, indexed by {@link #getGlyphFont(int)} */
+  public List<Font> getFonts() {
+    return Collections.unmodifiableList(Arrays.asList(fonts));
+  }
+
+  /** @return number of glyphs */
+  public int getGlyphCount() {
+    return glyphCount;
+  }
+
+  /**
+   * Obtain a glyph, as a character code of its font.
+   *
+   * @param index
+   *     glyph index
+   * @return the glyph's character code
+   */
+  public int getGlyph(int index) {
+    return glyphs[checkGlyph(index)];
+  }
+
+  /**
+   * Obtain the font of a glyph.
+   *
+   * @param index
+   *     glyph index
+   * @return index of the glyph's font in {@link #getFonts()}
+   */
+  public int getGlyphFont(int index) {
+    return glyphFonts[checkGlyph(index)];
+  }
+
+  /**
+   * Obtain the character a glyph was shaped from.
+   *
+   * @param index
+   *     glyph index
+   * @return index of the first character of the glyph's cluster
+   */
+  public int getGlyphChar(int index) {
+    return glyphChars[checkGlyph(index)];
+  }
+
+  /**
+   * Obtain the advance of a glyph, including positioning adjustments.
+   *
+   * @param index
+   *     glyph index
+   * @return the advance in millipoints
+   */
+  public int getGlyphAdvance(int index) {
+    return advances[checkGlyph(index)];
+  }
+
+  /**
+   * Obtain the placement of a glyph along the line, relative to its pen position.
+   *
+   * @param index
+   *     glyph index
+   * @return the placement in millipoints
+   */
+  public int getGlyphXOffset(int index) {
+    return xOffsets[checkGlyph(index)];
+  }
+
+  /**
+   * Obtain the placement of a glyph across the line, relative to the baseline.
+   *
+   * @param index
+   *     glyph index
+   * @return the placement in millipoints
+   */
+  public int getGlyphYOffset(int index) {
+    return yOffsets[checkGlyph(index)];
+  }
+
+  private int checkGlyph(int index) {
+    if ((index < 0) || (index >= glyphCount)) {
+      throw new IndexOutOfBoundsException("glyph index " + index + " out of range [0," + glyphCount + ")");
+    }
+    return index;
+  }
+
+  /**
+   * Obtain the break action before a character.
+   *
+   * @param index
+   *     character index, from 0 to {@link #length()}, where the end of the paragraph is a mandatory break
+   * @return {@link #BREAK_PROHIBITED}, {@link #BREAK_ALLOWED} or {@link #BREAK_MANDATORY}
+   */
+  public int getBreak(int index) {
+    return (index > 0) ? breaks[index] : BREAK_PROHIBITED;
+  }
+
+  /**
+   * Obtain the width of a range of characters, as shaped.
+   *
+   * @param start
+   *     index of first character
+   * @param end
+   *     index after last character
+   * @return the width in millipoints
+   */
+  public int getWidth(int start, int end) {
+    return widths[end] - widths[start];
+  }
+
+  /**
+   * Obtain the width of a line, excluding its trailing white space.
+   *
+   * @param start
+   *     index of first character of the line
+   * @param end
+   *     index after last character of the line
+   * @return the width in millipoints
+   */
+  public int getLineWidth(int start, int end) {
+    return widths[Math.max(start, contentEnds[end])] - widths[start];
+  }
+
+  /**
+   * Obtain the width of the breakable spaces within a line, excluding its trailing white space.
+   *
+   * @param start
+   *     index of first character of the line
+   * @param end
+   *     index after last character of the line
+   * @return the width in millipoints
+   */
+  public int getLineSpaceWidth(int start, int end) {
+    return spaceWidths[Math.max(start, contentEnds[end])] - spaceWidths[start];
+  }
+
+  /**
+   * Obtain the end of the content of a line, before its trailing white space.
+   *
+   * @param start
+   *     index of first character of the line
+   * @param end
+   *     index after last character of the line
+   * @return index after the last character of the line that is not trailing white space
+   */
+  public int getContentEnd(int start, int end) {
+    return Math.max(start, contentEnds[end]);
+  }
+
+  /**
+   * Obtain the first glyph of the characters at or after an index.
+   *
+   * @param index
+   *     character index at which a line may break, or 0 or {@link #length()}
+   * @return the glyph index
+   */
+  int getGlyphStart(int index) {
+    int g = glyphStarts[index];
+    if (g < 0) {
+      throw new IllegalArgumentException("glyphs are not separable at character index " + index);
+    }
+    return g;
+  }
+
+  /** {@inheritDoc} */
+  public String toString() {
+    return "{ length = " + text.length() + ", glyphs = " + glyphCount + ", fonts = " + fonts.length + " }";
+  }
+
+  /** Growable glyph arrays used while shaping. */
+  private static final class GlyphBuilder {
+
+    private int count;
+    private int[] glyphs;
+    private int[] fonts;
+    private int[] chars;
+    private int[] advances;
+    private int[] xOffsets;
+    private int[] yOffsets;
+
+    GlyphBuilder(int capacity) {
+      capacity = Math.max(capacity, 16);
+      glyphs = new int[capacity];
+      fonts = new int[capacity];
+      chars = new int[capacity];
+      advances = new int[capacity];
+      xOffsets = new int[capacity];
+      yOffsets = new int[capacity];
+    }
+
+    void add(int glyph, int font, int c, int advance, int xOffset, int yOffset) {
+      if (count == glyphs.length) {
+        int capacity = count * 2;
+        glyphs = Arrays.copyOf(glyphs, capacity);
+        fonts = Arrays.copyOf(fonts, capacity);
+        chars = Arrays.copyOf(chars, capacity);
+        advances = Arrays.copyOf(advances, capacity);
+        xOffsets = Arrays.copyOf(xOffsets, capacity);
+        yOffsets = Arrays.copyOf(yOffsets, capacity);
+      }
+      glyphs[count] = glyph;
+      fonts[count] = font;
+      chars[count] = c;
+      advances[count] = advance;
+      xOffsets[count] = xOffset;
+      yOffsets[count] = yOffset;
+      count++;
+    }
+  }
+
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Opens fonts stored inside a ZIP archive (for example the assets of an APK) without
+ * extracting them.
+ *
+ * <p>Entries that are STORED are read in place with positioned reads of the entry's byte
+ * range, one page at a time. Entries that are DEFLATED are inflated incrementally, only as
+ * far as the font reader has actually read. Reading the names of a font with
+ * {@link OpenFont#readFontInfo(FontFileReader)} therefore never touches the tables
+ * that follow the "name" table.</p>
+ *
+ * <pre>
+ * FontArchive archive = FontArchive.open(new File(apkPath));
+ * try {
+ *   for (String entry : archive.getFontEntryNames()) {
+ *     FontFileReader reader = archive.getReader(entry);
+ *     try {
+ *       FontInfo info = new TTFFile().readFontInfo(reader);
+ *     } finally {
+ *       reader.close();
+ *     }
+ *   }
+ * } finally {
+ *   archive.close();
+ * }
+ * </pre>
+ */
+public class FontArchive implements Closeable {
+
+  private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+  private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+  private static final int LOCAL_FILE_HEADER = 0x04034b50;
+
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int CENTRAL_DIRECTORY_ENTRY_SIZE = 46;
+  private static final int LOCAL_FILE_HEADER_SIZE = 30;
+  private static final int MAX_COMMENT_SIZE = 0xffff;
+
+  private static final int METHOD_STORED = 0;
+  private static final int METHOD_DEFLATED = 8;
+
+  /** Size of the pages read from STORED entries. */
+  static final int PAGE_SIZE = 16 * 1024;
+
+  /** Size of the compressed chunks fed to the inflater. */
+  static final int INPUT_SIZE = 8 * 1024;
+
+  private static final String[] FONT_EXTENSIONS = {".ttf", ".otf", ".ttc", ".otc"};
+
+  private final RandomAccessFile file;
+  private final Map<String, Entry> entries;
+
+  /**
+   * Opens a ZIP or APK archive.
+   *
+   * @param file
+   *     The archive
+   * @return the opened archive
+   * @throws IOException
+   *     if the file is not a ZIP archive or an IO error occurs
+   */
+  public static FontArchive open(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      return new FontArchive(raf);
+    } catch (IOException e) {
+      raf.close();
+      throw e;
+    }
+  }
+
+  private FontArchive(RandomAccessFile file) throws IOException {
+    this.file = file;
+    this.entries = readCentralDirectory();
+  }
+
+  /**
+   * Returns the names of all entries in the archive.
+   *
+   * @return the entry names in archive order
+   */
+  public List<String> getEntryNames() {
+    return Collections.unmodifiableList(new ArrayList<String>(entries.keySet()));
+  }
+
+  /**
+   * Returns the names of the entries that look like font files (.ttf, .otf, .ttc, .otc). For
+   * a collection, {@link OpenFont#readFontInfo(FontFileReader)} reads its first font and
+   * {@link OpenFont#getTTCFontInfo(FontFileReader)} reads all of them.
+   *
+   * @return the font entry names in archive order
+   */
+  public List<String> getFontEntryNames() {
+    List<String> names = new ArrayList<String>();
+    for (String name : entries.keySet()) {
+      String lower = name.toLowerCase(Locale.US);
+      for (String extension : FONT_EXTENSIONS) {
+        if (lower.endsWith(extension)) {
+          names.add(name);
+          break;
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Returns a source for an entry of the archive. The source stays valid until the archive
+   * is closed.
+   *
+   * @param name
+   *     The entry name
+   * @return a source reading the entry in place
+   * @throws IOException
+   *     if the entry does not exist or uses an unsupported compression method
+   */
+  public FontSource getSource(String name) throws IOException {
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      throw new IOException("No entry named " + name + " in archive");
+    }
+    if (entry.dataOffset < 0) {
+      byte[] header = new byte[LOCAL_FILE_HEADER_SIZE];
+      readFully(entry.headerOffset, header, 0, header.length);
+      if (getInt(header, 0) != LOCAL_FILE_HEADER) {
+        throw new IOException("Bad local header for entry " + name);
+      }
+      entry.dataOffset = entry.headerOffset + LOCAL_FILE_HEADER_SIZE
+          + getShort(header, 26) + getShort(header, 28);
+    }
+    switch (entry.method) {
+      case METHOD_STORED:
+        return new StoredSource(entry);
+      case METHOD_DEFLATED:
+        return new DeflatedSource(entry);
+      default:
+        throw new IOException("Unsupported compression method " + entry.method + " for " + name);
+    }
+  }
+
+  /**
+   * Returns a reader for an entry of the archive.
+   *
+   * @param name
+   *     The entry name
+   * @return a reader over the entry, which should be closed once it is no longer needed
+   * @throws IOException
+   *     if the entry does not exist or uses an unsupported compression method
+   */
+  public FontFileReader getReader(String name) throws IOException {
+    return new FontFileReader(getSource(name));
+  }
+
+  /**
+   * Closes the archive. Sources obtained from it can no longer load data.
+   *
+   * @throws IOException
+   *     In case of an I/O problem
+   */
+  @Override public void close() throws IOException {
+    file.close();
+  }
+
+  private Map<String, Entry> readCentralDirectory() throws IOException {
+    long length = file.length();
+    int tailSize = (int) Math.min(length, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+    byte[] tail = new byte[tailSize];
+    readFully(length - tailSize, tail, 0, tailSize);
+
+    int eocd = -1;
+    for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+      if (getInt(tail, i) == END_OF_CENTRAL_DIRECTORY) {
+        eocd = i;
+        break;
+      }
+    }
+    if (eocd < 0) {
+      throw new IOException("Not a ZIP archive: end of central directory not found");
+    }
+    int count = getShort(tail, eocd + 10);
+    long size = getInt(tail, eocd + 12) & 0xffffffffL;
+    long offset = getInt(tail, eocd + 16) & 0xffffffffL;
+    if (count == 0xffff || size == 0xffffffffL || offset == 0xffffffffL) {
+      throw new IOException("ZIP64 archives are not supported");
+    }
+
+    byte[] directory = new byte[(int) size];
+    readFully(offset, directory, 0, directory.length);
+
+    Map<String, Entry> result = new LinkedHashMap<String, Entry>();
+    int pos = 0;
+    for (int i = 0; i < count; i++) {
+      if (pos + CENTRAL_DIRECTORY_ENTRY_SIZE > directory.length
+          || getInt(directory, pos) != CENTRAL_DIRECTORY_ENTRY) {
+        throw new IOException("Corrupt central directory at entry " + i);
+      }
+      int flags = getShort(directory, pos + 8);
+      int method = getShort(directory, pos + 10);
+      long compressedSize = getInt(directory, pos + 20) & 0xffffffffL;
+      long size32 = getInt(directory, pos + 24) & 0xffffffffL;
+      int nameLength = getShort(directory, pos + 28);
+      int extraLength = getShort(directory, pos + 30);
+      int commentLength = getShort(directory, pos + 32);
+      long headerOffset = getInt(directory, pos + 42) & 0xffffffffL;
+      String name = new String(directory, pos + CENTRAL_DIRECTORY_ENTRY_SIZE, nameLength, "UTF-8");
+      pos += CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength + extraLength + commentLength;
+
+      if ((flags & 1) != 0 || name.endsWith("/") || size32 > Integer.MAX_VALUE) {
+        continue; // encrypted entries, directories and entries too large to be fonts
+      }
+      result.put(name, new Entry(method, headerOffset, compressedSize, (int) size32));
+    }
+    return result;
+  }
+
+  void readFully(long position, byte[] buffer, int offset, int length) throws IOException {
+    synchronized (file) {
+      if (position + length > file.length()) {
+        throw new EOFException("Reached end of archive at " + (position + length));
+      }
+      file.seek(position);
+      file.readFully(buffer, offset, length);
+    }
+  }
+
+  private static int getShort(byte[] b, int i) {
+    return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8);
+  }
+
+  private static int getInt(byte[] b, int i) {
+    return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8) | ((b[i + 2] & 0xff) << 16) | ((b[i + 3] & 0xff) << 24);
+  }
+
+  /**
+   * An entry of the central directory.
+   */
+  private static final class Entry {
+
+    final int method;
+    final long headerOffset;
+    final long compressedSize;
+    final int size;
+    long dataOffset = -1;
+
+    Entry(int method, long headerOffset, long compressedSize, int size) {
+      this.method = method;
+      this.headerOffset = headerOffset;
+      this.compressedSize = compressedSize;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Reads an uncompressed entry in place, caching the pages that were read.
+   */
+  private final class StoredSource extends FontSource {
+
+    private final Entry entry;
+    private final byte[][] pages;
+
+    StoredSource(Entry entry) {
+      this.entry = entry;
+      this.pages = new byte[(entry.size + PAGE_SIZE - 1) / PAGE_SIZE][];
+    }
+
+    @Override public int getSize() {
+      return entry.size;
+    }
+
+    @Override protected Segment load(int position, int length) throws IOException {
+      int index = position / PAGE_SIZE;
+      int pageStart = index * PAGE_SIZE;
+      if (position + length <= pageStart + PAGE_SIZE) {
+        byte[] page = pages[index];
+        if (page == null) {
+          page = new byte[Math.min(PAGE_SIZE, entry.size - pageStart)];
+          readFully(entry.dataOffset + pageStart, page, 0, page.length);
+          pages[index] = page;
+        }
+        return new Segment(page, 0, pageStart, page.length);
+      }
+      // the region spans pages, read it directly
+      byte[] region = new byte[length];
+      readFully(entry.dataOffset + position, region, 0, length);
+      return new Segment(region, 0, position, length);
+    }
+  }
+
+  /**
+   * Inflates a compressed entry only as far as it has been read.
+   */
+  private final class DeflatedSource extends FontSource {
+
+    private final Entry entry;
+    private final Inflater inflater = new Inflater(true);
+    private final byte[] input = new byte[INPUT_SIZE];
+    private byte[] data = new byte[0];
+    private int inflated;
+    private long consumed;
+
+    DeflatedSource(Entry entry) {
+      this.entry = entry;
+    }
+
+    @Override public int getSize() {
+      return entry.size;
+    }
+
+    @Override protected Segment load(int position, int length) throws IOException {
+      int required = position + length;
+      if (required > data.length) {
+        int capacity = Math.max(data.length, PAGE_SIZE);
+        while (capacity < required) {
+          capacity <<= 1;
+        }
+        byte[] grown = new byte[Math.min(capacity, entry.size)];
+        System.arraycopy(data, 0, grown, 0, inflated);
+        data = grown;
+      }
+      try {
+        while (inflated < required) {
+          if (inflater.needsInput()) {
+            int chunk = (int) Math.min(INPUT_SIZE, entry.compressedSize - consumed);
+            if (chunk <= 0) {
+              throw new EOFException("Unexpected end of compressed data");
+            }
+            readFully(entry.dataOffset + consumed, input, 0, chunk);
+            consumed += chunk;
+            inflater.setInput(input, 0, chunk);
+          }
+          int n = inflater.inflate(data, inflated, data.length - inflated);
+          if (n == 0 && (inflater.finished() || inflater.needsDictionary())) {
+            throw new EOFException("Unexpected end of compressed data");
+          }
+          inflated += n;
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("Corrupt compressed data: " + e.getMessage());
+      }
+      if (inflated == entry.size) {
+        inflater.end();
+      }
+      return new Segment(data, 0, 0, inflated);
+    }
+
+    @Override public void close() {
+      inflater.end();
+    }
+  }
+
+}
@@ -17,20 +17,31 @@
 
 package com.jaredrummler.fontreader.truetype;
 
+import com.jaredrummler.fontreader.io.Charsets;
 import com.jaredrummler.fontreader.io.IOUtils;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 
 /**
  * Reads a TrueType font file into a byte array and
  * provides file like functions for array access.
+ *
+ * <p>A reader may also be backed by a {@link FontSource}, in which case only the
+ * regions of the file that are actually read are loaded. Such a reader should be
+ * closed once it is no longer needed.</p>
  */
-public class FontFileReader {
+public class FontFileReader implements Closeable {
 
   private final int fsize; // file size
   private int current;    // current position in file
-  private final byte[] file;
+  private byte[] file;    // bytes of the current window
+  private int shift;      // array index of a file position is position + shift
+  private int winStart;   // first file position held by the current window
+  private int winEnd;     // file position after the current window
+  private FontSource source; // null once the whole file is in memory
 
   /**
    * Constructor
@@ -41,11 +52,61 @@ public class FontFileReader {
    *     In case of an I/O problem
    */
   public FontFileReader(InputStream in) throws IOException {
-    this.file = IOUtils.toByteArray(in);
-    this.fsize = this.file.length;
+    this(IOUtils.toByteArray(in));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param file
+   *     the complete font file
+   */
+  public FontFileReader(byte[] file) {
+    this.file = file;
+    this.fsize = file.length;
+    this.winEnd = fsize;
     this.current = 0;
   }
 
+  /**
+   * Constructor
+   *
+   * @param source
+   *     the source that loads regions of the font file on demand
+   */
+  public FontFileReader(FontSource source) {
+    this.source = source;
+    this.fsize = source.getSize();
+    this.current = 0;
+  }
+
+  /**
+   * Makes the given region of the file available in the current window.
+   *
+   * @param pos
+   *     The first file position of the region
+   * @param len
+   *     The length of the region
+   * @throws IOException
+   *     In case of an I/O problem
+   */
+  private void ensure(int pos, int len) throws IOException {
+    if (pos >= winStart && pos + len <= winEnd) {
+      return;
+    }
+    if (source == null || pos < 0 || pos + len > fsize) {
+      throw new java.io.EOFException("Reached EOF, file size=" + fsize);
+    }
+    FontSource.Segment segment = source.load(pos, len);
+    if (segment.position > pos || segment.position + segment.length < pos + len) {
+      throw new IOException("Font source returned a segment that does not contain offset " + pos);
+    }
+    file = segment.data;
+    shift = segment.start - segment.position;
+    winStart = segment.position;
+    winEnd = segment.position + segment.length;
+  }
+
   /**
    * Set current file position to offset
    *
@@ -104,7 +165,11 @@ public class FontFileReader {
       throw new java.io.EOFException("Reached EOF, file size=" + fsize);
     }
 
-    final byte ret = file[current++];
+    if (current < winStart || current >= winEnd) {
+      ensure(current, 1);
+    }
+    final byte ret = file[current + shift];
+    current++;
     return ret;
   }
 
@@ -175,6 +240,7 @@ public class FontFileReader {
     if ((pos + 2) > fsize) {
       throw new java.io.EOFException("Reached EOF");
     }
+    getAllBytes(); // writes must not go to a window that may be discarded
     final byte b1 = (byte) ((val >> 8) & 0xff);
     final byte b2 = (byte) (val & 0xff);
     final int fileIndex = (int) pos;
@@ -257,16 +323,19 @@ public class FontFileReader {
    */
   public final String readTTFString() throws IOException {
     int i = current;
-    while (file[i++] != 0) {
+    while (true) {
+      ensure(i, 1);
+      if (file[i++ + shift] == 0) {
+        break;
+      }
       if (i >= fsize) {
         throw new java.io.EOFException("Reached EOF, file size="
             + fsize);
       }
     }
 
-    byte[] tmp = new byte[i - current - 1];
-    System.arraycopy(file, current, tmp, 0, i - current - 1);
-    return new String(tmp, "ISO-8859-1");
+    ensure(current, i - current - 1);
+    return new String(file, current + shift, i - current - 1, Charsets.ISO_8859_1);
   }
 
   /**
@@ -283,16 +352,16 @@ public class FontFileReader {
       throw new java.io.EOFException("Reached EOF, file size=" + fsize);
     }
 
-    byte[] tmp = new byte[len];
-    System.arraycopy(file, current, tmp, 0, len);
+    ensure(current, len);
+    final int start = current + shift;
     current += len;
-    final String encoding;
-    if ((tmp.length > 0) && (tmp[0] == 0)) {
-      encoding = "UTF-16BE";
+    final Charset encoding;
+    if ((len > 0) && (file[start] == 0)) {
+      encoding = Charsets.UTF_16BE;
     } else {
-      encoding = "ISO-8859-1";
+      encoding = Charsets.ISO_8859_1;
     }
-    return new String(tmp, encoding);
+    return new String(file, start, len, encoding);
   }
 
   /**
@@ -311,12 +380,12 @@ public class FontFileReader {
       throw new java.io.EOFException("Reached EOF, file size=" + fsize);
     }
 
-    byte[] tmp = new byte[len];
-    System.arraycopy(file, current, tmp, 0, len);
+    ensure(current, len);
+    final int start = current + shift;
     current += len;
-    final String encoding;
-    encoding = "UTF-16BE"; //Use this for all known encoding IDs for now
-    return new String(tmp, encoding);
+    final Charset encoding;
+    encoding = Charsets.UTF_16BE; //Use this for all known encoding IDs for now
+    return new String(file, start, len, encoding);
   }
 
   /**
@@ -336,18 +405,61 @@ public class FontFileReader {
       throw new IOException("Reached EOF");
     }
 
+    ensure(offset, length);
     byte[] ret = new byte[length];
-    System.arraycopy(file, offset, ret, 0, length);
+    System.arraycopy(file, offset + shift, ret, 0, length);
     return ret;
   }
 
   /**
    * Returns the full byte array representation of the file.
+   * If the reader is backed by a {@link FontSource} the whole file is loaded and the source is closed.
    *
    * @return byte array.
+   * @throws IllegalStateException
+   *     if the file could not be loaded from its source
    */
   public byte[] getAllBytes() {
+    if (source != null) {
+      try {
+        ensure(0, fsize);
+        source.close();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      if (shift != 0 || file.length != fsize) {
+        byte[] all = new byte[fsize];
+        System.arraycopy(file, shift, all, 0, fsize);
+        file = all;
+        shift = 0;
+      }
+      winStart = 0;
+      winEnd = fsize;
+      source = null;
+    }
     return file;
   }
 
+  /**
+   * Returns the source backing this reader.
+   *
+   * @return the source or {@code null} if the whole file is held in memory
+   */
+  public FontSource getSource() {
+    return source;
+  }
+
+  /**
+   * Closes the source backing this reader, if any, releasing resources such as the inflater of a compressed
+   * archive entry. A reader holding the whole file in memory needs no closing.
+   *
+   * @throws IOException
+   *     In case of an I/O problem
+   */
+  @Override public void close() throws IOException {
+    if (source != null) {
+      source.close();
+    }
+  }
+
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Supplies the bytes of a font file to a {@link FontFileReader} on demand.
+ *
+ * <p>A source hands out segments of the file. The reader keeps reading from the last
+ * segment it received and only asks the source again when it moves outside of it, so
+ * a source only has to load the regions (usually whole tables) that are actually read.</p>
+ */
+public abstract class FontSource implements Closeable {
+
+  /**
+   * Returns the size of the font file.
+   *
+   * @return the size in bytes
+   */
+  public abstract int getSize();
+
+  /**
+   * Loads a region of the font file.
+   *
+   * @param position
+   *     the first file position that must be contained in the segment
+   * @param length
+   *     the number of bytes from {@code position} that must be contained in the segment
+   * @return a segment containing at least the requested region
+   * @throws IOException
+   *     In case of an I/O problem
+   */
+  protected abstract Segment load(int position, int length) throws IOException;
+
+  /**
+   * Releases resources held by this source. The default implementation does nothing.
+   *
+   * @throws IOException
+   *     In case of an I/O problem
+   */
+  @Override public void close() throws IOException {
+  }
+
+  /**
+   * A contiguous region of the font file held in a byte array.
+   */
+  public static final class Segment {
+
+    final byte[] data;
+    final int start;
+    final int position;
+    final int length;
+
+    /**
+     * Constructor
+     *
+     * @param data
+     *     the array holding the region
+     * @param start
+     *     the index in {@code data} of the first byte of the region
+     * @param position
+     *     the file position of the first byte of the region
+     * @param length
+     *     the length of the region
+     */
+    public Segment(byte[] data, int start, int position, int length) {
+      this.data = data;
+      this.start = start;
+      this.position = position;
+      this.length = length;
+    }
+
+  }
+
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Checks the structure of a font file before any table is decoded.
+ *
+ * <p>Every table directory entry is checked against the file size, the tables needed by
+ * {@link OpenFont#readFont(FontFileReader)} must be present, every table checksum is
+ * recomputed and the "head" table's checkSumAdjustment is verified. Nothing else is
+ * parsed, so a directory scanner can reject truncated or corrupted files cheaply:</p>
+ *
+ * <pre>
+ * FontValidator.Report report = FontValidator.validate(new FontFileReader(data));
+ * if (!report.isReadable()) {
+ *   // skip the file
+ * }
+ * </pre>
+ *
+ * <p>Tables larger than {@link #PARALLEL_THRESHOLD} are split into chunks that are
+ * checksummed on the given executor and added up.</p>
+ */
+public final class FontValidator {
+
+  /** Tables larger than this are checksummed in parallel chunks when an executor is given. */
+  public static final int PARALLEL_THRESHOLD = 256 * 1024;
+
+  /** Size of the chunks large tables are split into, a multiple of 4. */
+  static final int CHUNK_SIZE = 64 * 1024;
+
+  private static final int TTC_TAG = 0x74746366; // "ttcf"
+  private static final int HEAD_ADJUSTMENT_MAGIC = 0xB1B0AFBA;
+  private static final int DIRECTORY_HEADER_SIZE = 12;
+  private static final int DIRECTORY_ENTRY_SIZE = 16;
+
+  /**
+   * The result of checking one table.
+   */
+  public enum Status {
+    /** The table lies inside the file and its checksum matches. */
+    OK,
+    /** The table extends past the end of the file. */
+    OUT_OF_BOUNDS,
+    /** The checksum stored in the table directory does not match the table data. */
+    CHECKSUM_MISMATCH
+  }
+
+  private FontValidator() {
+  }
+
+  /**
+   * Validates a font on the calling thread.
+   *
+   * @param in
+   *     the font file
+   * @return the validation report
+   * @throws IOException
+   *     if the reader fails for a reason other than the font being malformed
+   */
+  public static Report validate(FontFileReader in) throws IOException {
+    return validate(in, null);
+  }
+
+  /**
+   * Validates a font.
+   *
+   * @param in
+   *     the font file
+   * @param executor
+   *     executor used to checksum large tables in parallel, or {@code null} to do all work on
+   *     the calling thread
+   * @return the validation report
+   * @throws IOException
+   *     if the reader fails for a reason other than the font being malformed
+   */
+  public static Report validate(FontFileReader in, ExecutorService executor) throws IOException {
+    final int size = in.getFileSize();
+    Report report = new Report(size);
+    if (size < DIRECTORY_HEADER_SIZE) {
+      report.problems.add("File is too small for a table directory: " + size + " bytes");
+      return report;
+    }
+
+    in.seekSet(0);
+    long[] directories;
+    if (in.readTTFLong() == TTC_TAG) {
+      in.skip(4);
+      long count = in.readTTFULong();
+      if (DIRECTORY_HEADER_SIZE + count * 4 > size) {
+        report.problems.add("Collection header claims " + count + " fonts, file is truncated");
+        return report;
+      }
+      directories = new long[(int) count];
+      for (int i = 0; i < count; i++) {
+        directories[i] = in.readTTFULong();
+      }
+      report.collection = true;
+    } else {
+      directories = new long[]{0};
+    }
+
+    int headerEnd = 0;
+    for (long directory : directories) {
+      headerEnd = Math.max(headerEnd, readDirectory(in, directory, report));
+    }
+    if (!report.problems.isEmpty()) {
+      return report;
+    }
+
+    byte[] data = in.getAllBytes();
+    checksumTables(data, report.tables, executor);
+    if (!report.collection) {
+      checkHeadAdjustment(data, headerEnd, report, executor);
+    }
+    return report;
+  }
+
+  /**
+   * Computes the checksum of a table: the sum of its big-endian 32 bit words, the last word
+   * padded with zeros.
+   *
+   * @param data
+   *     the array holding the table
+   * @param offset
+   *     the start of the table
+   * @param length
+   *     the length of the table
+   * @return the checksum
+   */
+  public static int checksum(byte[] data, int offset, int length) {
+    int s0 = 0;
+    int s1 = 0;
+    int s2 = 0;
+    int s3 = 0;
+    int i = offset;
+    int end = offset + length;
+    // four independent accumulators so the adds do not wait on each other
+    for (; i + 16 <= end; i += 16) {
+      s0 += word(data, i);
+      s1 += word(data, i + 4);
+      s2 += word(data, i + 8);
+      s3 += word(data, i + 12);
+    }
+    for (; i + 4 <= end; i += 4) {
+      s0 += word(data, i);
+    }
+    for (int shift = 24; i < end; i++, shift -= 8) {
+      s1 += (data[i] & 0xff) << shift;
+    }
+    return s0 + s1 + s2 + s3;
+  }
+
+  private static int word(byte[] b, int i) {
+    return (b[i] << 24) | ((b[i + 1] & 0xff) << 16) | ((b[i + 2] & 0xff) << 8) | (b[i + 3] & 0xff);
+  }
+
+  /**
+   * Reads one table directory, checking every entry against the file size.
+   *
+   * @return the end of the directory
+   */
+  private static int readDirectory(FontFileReader in, long offset, Report report)
+      throws IOException {
+    int size = in.getFileSize();
+    if (offset + DIRECTORY_HEADER_SIZE > size) {
+      report.problems.add("Table directory at " + offset + " lies past the end of the file");
+      return 0;
+    }
+    in.seekSet(offset + 4);
+    int numTables = in.readTTFUShort();
+    long end = offset + DIRECTORY_HEADER_SIZE + (long) numTables * DIRECTORY_ENTRY_SIZE;
+    if (end > size) {
+      report.problems.add("Table directory at " + offset + " with " + numTables
+          + " entries is truncated");
+      return 0;
+    }
+    in.skip(6);
+
+    boolean head = false;
+    boolean hhea = false;
+    boolean maxp = false;
+    boolean hmtx = false;
+    boolean name = false;
+    boolean glyf = false;
+    boolean loca = false;
+    boolean cff = false;
+    for (int i = 0; i < numTables; i++) {
+      OFDirTabEntry entry = new OFDirTabEntry();
+      String tag = entry.read(in);
+      TableReport table = new TableReport(entry);
+      if (entry.getOffset() + entry.getLength() > size) {
+        table.status = Status.OUT_OF_BOUNDS;
+        report.problems.add("Table '" + tag + "' (offset " + entry.getOffset() + ", length "
+            + entry.getLength() + ") extends past the end of the file (" + size + " bytes)");
+      }
+      report.tables.add(table);
+
+      head |= "head".equals(tag);
+      hhea |= "hhea".equals(tag);
+      maxp |= "maxp".equals(tag);
+      hmtx |= "hmtx".equals(tag);
+      name |= "name".equals(tag);
+      glyf |= "glyf".equals(tag);
+      loca |= "loca".equals(tag);
+      cff |= "CFF ".equals(tag);
+    }
+    String missing = (head ? "" : " head") + (hhea ? "" : " hhea") + (maxp ? "" : " maxp")
+        + (hmtx ? "" : " hmtx") + (name ? "" : " name")
+        + (cff || (glyf && loca) ? "" : " glyf/loca or CFF");
+    if (missing.length() > 0) {
+      report.problems.add("Required tables missing:" + missing);
+    }
+    return (int) end;
+  }
+
+  private static void checksumTables(byte[] data, List<TableReport> tables,
+                                     ExecutorService executor) throws IOException {
+    List<Future<Integer>> chunks = new ArrayList<Future<Integer>>();
+    List<TableReport> chunked = new ArrayList<TableReport>();
+    for (TableReport table : tables) {
+      int offset = (int) table.entry.getOffset();
+      int length = (int) table.entry.getLength();
+      if (executor != null && length > PARALLEL_THRESHOLD) {
+        for (int start = 0; start < length; start += CHUNK_SIZE) {
+          chunks.add(executor.submit(
+              new ChecksumTask(data, offset + start, Math.min(CHUNK_SIZE, length - start))));
+          chunked.add(table);
+        }
+      } else {
+        table.computed = checksum(data, offset, length);
+      }
+    }
+    for (int i = 0; i < chunks.size(); i++) {
+      chunked.get(i).computed += await(chunks.get(i));
+    }
+    for (TableReport table : tables) {
+      if ("head".equals(table.getTag()) && table.entry.getLength() >= 12) {
+        // the checksum of head is computed with checkSumAdjustment set to 0
+        table.computed -= word(data, (int) table.entry.getOffset() + 8);
+      }
+      if (table.status == Status.OK && table.computed != (int) table.entry.getChecksum()) {
+        table.status = Status.CHECKSUM_MISMATCH;
+      }
+    }
+  }
+
+  private static void checkHeadAdjustment(byte[] data, int headerEnd, Report report,
+                                          ExecutorService executor) throws IOException {
+    TableReport head = null;
+    for (TableReport table : report.tables) {
+      if ("head".equals(table.getTag())) {
+        head = table;
+      }
+    }
+    if (head == null || head.entry.getLength() < 12) {
+      return;
+    }
+
+    // When the tables tile the file exactly, each following the previous one with at most
+    // three bytes of zero padding and nothing after the last, the file checksum is the sum
+    // of the directory and the table checksums, so the data does not have to be read again.
+    List<TableReport> sorted = new ArrayList<TableReport>(report.tables);
+    Collections.sort(sorted, new Comparator<TableReport>() {
+
+      @Override public int compare(TableReport a, TableReport b) {
+        return a.entry.getOffset() < b.entry.getOffset() ? -1
+            : a.entry.getOffset() == b.entry.getOffset() ? 0 : 1;
+      }
+    });
+    boolean regular = headerEnd % 4 == 0;
+    long previousEnd = headerEnd;
+    for (TableReport table : sorted) {
+      if (!regular) {
+        break;
+      }
+      regular = table.entry.getOffset() == align(previousEnd)
+          && isZero(data, previousEnd, table.entry.getOffset());
+      previousEnd = table.entry.getOffset() + table.entry.getLength();
+    }
+    regular = regular && data.length == align(previousEnd) && isZero(data, previousEnd, data.length);
+
+    int fileSum;
+    if (regular) {
+      fileSum = checksum(data, 0, headerEnd);
+      for (TableReport table : report.tables) {
+        fileSum += table.computed;
+      }
+    } else {
+      fileSum = 0;
+      if (executor != null && data.length > PARALLEL_THRESHOLD) {
+        List<Future<Integer>> chunks = new ArrayList<Future<Integer>>();
+        for (int start = 0; start < data.length; start += CHUNK_SIZE) {
+          chunks.add(executor.submit(
+              new ChecksumTask(data, start, Math.min(CHUNK_SIZE, data.length - start))));
+        }
+        for (Future<Integer> chunk : chunks) {
+          fileSum += await(chunk);
+        }
+      } else {
+        fileSum = checksum(data, 0, data.length);
+      }
+      fileSum -= word(data, (int) head.entry.getOffset() + 8);
+    }
+
+    report.headAdjustmentChecked = true;
+    report.storedAdjustment = word(data, (int) head.entry.getOffset() + 8);
+    report.expectedAdjustment = HEAD_ADJUSTMENT_MAGIC - fileSum;
+  }
+
+  private static long align(long position) {
+    return (position + 3) & ~3L;
+  }
+
+  /** Returns whether the bytes from start up to end exist and are all zero. */
+  private static boolean isZero(byte[] data, long start, long end) {
+    if (end > data.length) {
+      return false;
+    }
+    for (int i = (int) start; i < end; i++) {
+      if (data[i] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int await(Future<Integer> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while computing checksums");
+    } catch (ExecutionException e) {
+      throw new IOException("Checksum computation failed: " + e.getCause());
+    }
+  }
+
+  private static final class ChecksumTask implements Callable<Integer> {
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    ChecksumTask(byte[] data, int offset, int length) {
+      this.data = data;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override public Integer call() {
+      return checksum(data, offset, length);
+    }
+  }
+
+  /**
+   * The result of checking one table directory entry.
+   */
+  public static final class TableReport {
+
+    private final OFDirTabEntry entry;
+    private Status status = Status.OK;
+    private int computed;
+
+    TableReport(OFDirTabEntry entry) {
+      this.entry = entry;
+    }
+
+    /**
+     * Returns the table directory entry.
+     *
+     * @return the entry
+     */
+    public OFDirTabEntry getEntry() {
+      return entry;
+    }
+
+    /**
+     * Returns the table tag.
+     *
+     * @return the tag
+     */
+    public String getTag() {
+      return entry.getTagString();
+    }
+
+    /**
+     * Returns the result of the check.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+      return status;
+    }
+
+    /**
+     * Returns the checksum computed from the table data. Only meaningful if the table
+     * is not {@link Status#OUT_OF_BOUNDS}.
+     *
+     * @return the checksum as an unsigned value
+     */
+    public long getComputedChecksum() {
+      return computed & 0xffffffffL;
+    }
+
+    @Override public String toString() {
+      return getTag() + " " + status + " stored=" + Long.toHexString(entry.getChecksum() & 0xffffffffL)
+          + " computed=" + Long.toHexString(getComputedChecksum());
+    }
+  }
+
+  /**
+   * The result of validating a font file.
+   */
+  public static final class Report {
+
+    private final int fileSize;
+    private final List<TableReport> tables = new ArrayList<TableReport>();
+    private final List<String> problems = new ArrayList<String>();
+    private boolean collection;
+    private boolean headAdjustmentChecked;
+    private int storedAdjustment;
+    private int expectedAdjustment;
+
+    Report(int fileSize) {
+      this.fileSize = fileSize;
+    }
+
+    /**
+     * Returns whether the font can be read safely: the table directory is complete, every
+     * table lies inside the file and the required tables are present. Checksums are not
+     * considered, as many fonts in use carry stale checksums.
+     *
+     * @return true if the font is structurally sound
+     */
+    public boolean isReadable() {
+      if (!problems.isEmpty()) {
+        return false;
+      }
+      for (TableReport table : tables) {
+        if (table.status == Status.OUT_OF_BOUNDS) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns whether the font is readable and all checksums, including the head table's
+     * checkSumAdjustment, match.
+     *
+     * @return true if the font passed every check
+     */
+    public boolean isValid() {
+      if (!isReadable() || !isHeadAdjustmentValid()) {
+        return false;
+      }
+      for (TableReport table : tables) {
+        if (table.status != Status.OK) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns whether the head table's checkSumAdjustment matches the file. Always true for
+     * collections and fonts without a head table, where it is not checked.
+     *
+     * @return false if the adjustment was checked and does not match
+     */
+    public boolean isHeadAdjustmentValid() {
+      return !headAdjustmentChecked || storedAdjustment == expectedAdjustment;
+    }
+
+    /**
+     * Returns the checkSumAdjustment the head table should hold.
+     *
+     * @return the expected adjustment as an unsigned value, or -1 if it was not checked
+     */
+    public long getExpectedHeadAdjustment() {
+      return headAdjustmentChecked ? expectedAdjustment & 0xffffffffL : -1;
+    }
+
+    /**
+     * Returns the size of the validated file.
+     *
+     * @return the size in bytes
+     */
+    public int getFileSize() {
+      return fileSize;
+    }
+
+    /**
+     * Returns whether the file is a font collection.
+     *
+     * @return true for TrueType/OpenType collections
+     */
+    public boolean isCollection() {
+      return collection;
+    }
+
+    /**
+     * Returns the result for every table directory entry, in directory order.
+     *
+     * @return the table reports
+     */
+    public List<TableReport> getTables() {
+      return Collections.unmodifiableList(tables);
+    }
+
+    /**
+     * Returns descriptions of the structural problems found.
+     *
+     * @return the problems, empty if the font is readable
+     */
+    public List<String> getProblems() {
+      return Collections.unmodifiableList(problems);
+    }
+
+    @Override public String toString() {
+      return "FontValidator.Report [readable=" + isReadable() + ", valid=" + isValid()
+          + ", tables=" + tables + ", problems=" + problems + "]";
+    }
+  }
+
+}
@@ -22,6 +22,8 @@ import com.jaredrummler.fontreader.complexscripts.fonts.GlyphCoverageTable;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphDefinitionTable;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphPositioningState;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphPositioningSubtable;
+import com.jaredrummler.fontreader.complexscripts.fonts.GlyphSetDigest;
+import com.jaredrummler.fontreader.complexscripts.fonts.PositionBuffer;
 import com.jaredrummler.fontreader.fonts.GlyphSubstitutionState;
 import com.jaredrummler.fontreader.fonts.GlyphSubstitutionSubtable;
 import com.jaredrummler.fontreader.fonts.GlyphSubtable;
@@ -190,23 +192,36 @@ public class GlyphTable {
    * @return a (possibly empty) array of matching lookup specifications
    */
   public List<LookupSpec> matchLookupSpecs(String script, String language, String feature) {
+    if (!OFTag.isTag(script) || !OFTag.isTag(language) || !OFTag.isTag(feature)) {
+      return new ArrayList<>();
+    }
+    return matchLookupSpecs(OFTag.toInt(script), OFTag.toInt(language), OFTag.toInt(feature));
+  }
+
+  /**
+   * Match lookup specifications according to <script,language,feature> tuple of packed tags, where
+   * {@link OFTag#WILDCARD} is a wildcard for a tuple component.
+   *
+   * @param script
+   *     a packed script tag
+   * @param language
+   *     a packed language tag
+   * @param feature
+   *     a packed feature tag
+   * @return a (possibly empty) array of matching lookup specifications
+   */
+  public List<LookupSpec> matchLookupSpecs(int script, int language, int feature) {
     Set<LookupSpec> keys = lookups.keySet();
     List<LookupSpec> matches = new ArrayList<>();
     for (LookupSpec ls : keys) {
-      if (!"*".equals(script)) {
-        if (!ls.getScript().equals(script)) {
-          continue;
-        }
+      if ((script != OFTag.WILDCARD) && (ls.scriptTag != script)) {
+        continue;
       }
-      if (!"*".equals(language)) {
-        if (!ls.getLanguage().equals(language)) {
-          continue;
-        }
+      if ((language != OFTag.WILDCARD) && (ls.languageTag != language)) {
+        continue;
       }
-      if (!"*".equals(feature)) {
-        if (!ls.getFeature().equals(feature)) {
-          continue;
-        }
+      if ((feature != OFTag.WILDCARD) && (ls.featureTag != feature)) {
+        continue;
       }
       matches.add(ls);
     }
@@ -226,11 +241,19 @@ public class GlyphTable {
    * @return a (possibly empty) map from matching lookup specifications to lists of corresponding lookup tables
    */
   public Map<LookupSpec, List<LookupTable>> matchLookups(String script, String language, String feature) {
+    if (!OFTag.isTag(script) || !OFTag.isTag(language) || !OFTag.isTag(feature)) {
+      // no lookup spec can match an identifier that is not a tag
+      if (OFTag.isTag(feature) && !OTFScript.isDefault(script)) {
+        return matchLookups(OTFScript.DEFAULT, OTFLanguage.DEFAULT, feature);
+      } else {
+        return new LinkedHashMap<>();
+      }
+    }
     LookupSpec lsm = new LookupSpec(script, language, feature, true, true);
     Map<LookupSpec, List<LookupTable>> lm = matchedLookups.get(lsm);
     if (lm == null) {
       lm = new LinkedHashMap<>();
-      List<LookupSpec> lsl = matchLookupSpecs(script, language, feature);
+      List<LookupSpec> lsl = matchLookupSpecs(lsm.scriptTag, lsm.languageTag, lsm.featureTag);
       for (LookupSpec ls : lsl) {
         lm.put(ls, findLookupTables(ls));
       }
@@ -280,9 +303,13 @@ public class GlyphTable {
   public UseSpec[] assembleLookups(String[] features, Map<LookupSpec, List<LookupTable>> lookups) {
     TreeSet<UseSpec> uss = new TreeSet<UseSpec>();
     for (String feature : features) {
+      if (!OFTag.isTag(feature)) {
+        continue;
+      }
+      int featureTag = OFTag.toInt(feature);
       for (Map.Entry<LookupSpec, List<LookupTable>> e : lookups.entrySet()) {
         LookupSpec ls = e.getKey();
-        if (ls.getFeature().equals(feature)) {
+        if (ls.featureTag == featureTag) {
           List<LookupTable> ltl = e.getValue();
           if (ltl != null) {
             for (LookupTable lt : ltl) {
@@ -372,9 +399,9 @@ public class GlyphTable {
    */
   public static class LookupSpec implements Comparable {
 
-    private final String script;
-    private final String language;
-    private final String feature;
+    private final int scriptTag;
+    private final int languageTag;
+    private final int featureTag;
 
     /**
      * Instantiate lookup spec.
@@ -390,6 +417,25 @@ public class GlyphTable {
       this(script, language, feature, false, false);
     }
 
+    /**
+     * Instantiate lookup spec from packed tags, as read from a font file.
+     *
+     * @param scriptTag
+     *     a packed script tag
+     * @param languageTag
+     *     a packed language tag
+     * @param featureTag
+     *     a packed feature tag
+     */
+    public LookupSpec(int scriptTag, int languageTag, int featureTag) {
+      if ((scriptTag == OFTag.WILDCARD) || (languageTag == OFTag.WILDCARD) || (featureTag == OFTag.WILDCARD)) {
+        throw new AdvancedTypographicTableFormatException("tags must not be wildcard");
+      }
+      this.scriptTag = scriptTag;
+      this.languageTag = languageTag;
+      this.featureTag = featureTag;
+    }
+
     /**
      * Instantiate lookup spec.
      *
@@ -418,32 +464,54 @@ public class GlyphTable {
       } else if (!permitWildcard && feature.equals("*")) {
         throw new AdvancedTypographicTableFormatException("feature must not be wildcard");
       }
-      this.script = script.trim();
-      this.language = language.trim();
-      this.feature = feature.trim();
+      this.scriptTag = toTag("script", script);
+      this.languageTag = toTag("language", language);
+      this.featureTag = toTag("feature", feature);
+    }
+
+    private static int toTag(String name, String identifier) {
+      String tag = identifier.trim();
+      if (!OFTag.isTag(tag)) {
+        throw new AdvancedTypographicTableFormatException(name + " must be a tag of at most four characters");
+      }
+      return OFTag.toInt(tag);
     }
 
     /** @return script identifier */
     public String getScript() {
-      return script;
+      return OFTag.toTrimmedString(scriptTag);
     }
 
     /** @return language identifier */
     public String getLanguage() {
-      return language;
+      return OFTag.toTrimmedString(languageTag);
     }
 
     /** @return feature identifier */
     public String getFeature() {
-      return feature;
+      return OFTag.toTrimmedString(featureTag);
+    }
+
+    /** @return packed script tag */
+    public int getScriptTag() {
+      return scriptTag;
+    }
+
+    /** @return packed language tag */
+    public int getLanguageTag() {
+      return languageTag;
+    }
+
+    /** @return packed feature tag */
+    public int getFeatureTag() {
+      return featureTag;
     }
 
     /** {@inheritDoc} */
     public int hashCode() {
-      int hc = 0;
-      hc = 7 * hc + (hc ^ script.hashCode());
-      hc = 11 * hc + (hc ^ language.hashCode());
-      hc = 17 * hc + (hc ^ feature.hashCode());
+      int hc = scriptTag;
+      hc = 31 * hc + languageTag;
+      hc = 31 * hc + featureTag;
       return hc;
     }
 
@@ -451,13 +519,7 @@ public class GlyphTable {
     public boolean equals(Object o) {
       if (o instanceof LookupSpec) {
         LookupSpec l = (LookupSpec) o;
-        if (!l.script.equals(script)) {
-          return false;
-        } else if (!l.language.equals(language)) {
-          return false;
-        } else {
-          return l.feature.equals(feature);
-        }
+        return (l.scriptTag == scriptTag) && (l.languageTag == languageTag) && (l.featureTag == featureTag);
       } else {
         return false;
       }
@@ -468,11 +530,9 @@ public class GlyphTable {
       int d;
       if (o instanceof LookupSpec) {
         LookupSpec ls = (LookupSpec) o;
-        if ((d = script.compareTo(ls.script)) == 0) {
-          if ((d = language.compareTo(ls.language)) == 0) {
-            if ((d = feature.compareTo(ls.feature)) == 0) {
-              d = 0;
-            }
+        if ((d = OFTag.compare(scriptTag, ls.scriptTag)) == 0) {
+          if ((d = OFTag.compare(languageTag, ls.languageTag)) == 0) {
+            d = OFTag.compare(featureTag, ls.featureTag);
           }
         }
       } else {
@@ -485,9 +545,9 @@ public class GlyphTable {
     public String toString() {
       StringBuffer sb = new StringBuffer(super.toString());
       sb.append("{");
-      sb.append("<'" + script + "'");
-      sb.append(",'" + language + "'");
-      sb.append(",'" + feature + "'");
+      sb.append("<'" + getScript() + "'");
+      sb.append(",'" + getLanguage() + "'");
+      sb.append(",'" + getFeature() + "'");
       sb.append(">}");
       return sb.toString();
     }
@@ -508,6 +568,7 @@ public class GlyphTable {
     private boolean frozen;                                 // if true, then don't permit further subtable additions
     // frozen state
     private GlyphSubtable[] subtablesArray;
+    private GlyphSetDigest digest;                          // union of subtables' coverage
     private static GlyphSubtable[] subtablesArrayEmpty = new GlyphSubtable[0];
 
     /**
@@ -637,10 +698,40 @@ public class GlyphTable {
         GlyphSubtable[] sta = getSubtables();
         resolveLookupReferences(sta, lookupTables);
         this.subtablesArray = sta;
+        this.digest = createDigest(sta);
         this.frozen = true;
       }
     }
 
+    private static GlyphSetDigest createDigest(GlyphSubtable[] subtables) {
+      GlyphSetDigest digest = new GlyphSetDigest();
+      if (subtables != null) {
+        for (GlyphSubtable st : subtables) {
+          if (st != null) {
+            digest.add(st.getCoverage());
+          }
+        }
+      }
+      return digest;
+    }
+
+    /** @return digest of the glyphs at which this lookup table may apply, or null if not frozen */
+    public GlyphSetDigest getDigest() {
+      return digest;
+    }
+
+    /**
+     * Determine if this lookup table may apply to a run of glyphs, i.e., if the run may contain a glyph
+     * covered by one of its subtables. If not, the lookup table can be skipped for the run.
+     *
+     * @param run
+     *     digest of the glyphs of a run
+     * @return false if this lookup table definitely does not apply to the run; otherwise, true
+     */
+    public boolean mayApply(GlyphSetDigest run) {
+      return (digest == null) || digest.mayIntersect(run);
+    }
+
     private void resolveLookupReferences(GlyphSubtable[] subtables, Map<String, LookupTable> lookupTables) {
       if (subtables != null) {
         for (GlyphSubtable st : subtables) {
@@ -728,16 +819,13 @@ public class GlyphTable {
      * @param widths
      *     array of default advancements for each glyph in font
      * @param adjustments
-     *     accumulated adjustments array (sequence) of 4-tuples of placement [PX,PY] and advance [AX,AY] adjustments,
-     *     in
-     *     that order,
-     *     with one 4-tuple for each element of glyph sequence
+     *     accumulated adjustments buffer, with one 4-tuple for each element of glyph sequence
      * @param sct
      *     a script specific context tester (or null)
      * @return true if some adjustment is not zero; otherwise, false
      */
     public boolean position(GlyphSequence gs, String script, String language, String feature, int fontSize,
-                            int[] widths, int[][] adjustments, ScriptContextTester sct) {
+                            int[] widths, PositionBuffer adjustments, ScriptContextTester sct) {
       return performsPositioning() && GlyphPositioningSubtable.position(gs, script, language, feature,
           fontSize, (GlyphPositioningSubtable[]) subtablesArray, widths, adjustments, sct);
     }
@@ -889,16 +977,13 @@ public class GlyphTable {
      * @param widths
      *     array of default advancements for each glyph in font
      * @param adjustments
-     *     accumulated adjustments array (sequence) of 4-tuples of placement [PX,PY] and advance [AX,AY] adjustments,
-     *     in
-     *     that order,
-     *     with one 4-tuple for each element of glyph sequence
+     *     accumulated adjustments buffer, with one 4-tuple for each element of glyph sequence
      * @param sct
      *     a script specific context tester (or null)
      * @return true if some adjustment is not zero; otherwise, false
      */
     public boolean position(GlyphSequence gs, String script, String language, int fontSize, int[] widths,
-                            int[][] adjustments, ScriptContextTester sct) {
+                            PositionBuffer adjustments, ScriptContextTester sct) {
       return lookupTable.position(gs, script, language, feature, fontSize, widths, adjustments, sct);
     }
 
@@ -1094,6 +1179,21 @@ public class GlyphTable {
       return ga;
     }
 
+    /**
+     * Copy glyphs augmented by specified first glyph entry into an existing array.
+     *
+     * @param firstGlyph
+     *     to fill in first glyph entry
+     * @param ga
+     *     array to receive glyphs, whose length is at least one more than the number of rule glyphs
+     * @return the number of glyphs copied
+     */
+    public int getGlyphs(int firstGlyph, int[] ga) {
+      ga[0] = firstGlyph;
+      System.arraycopy(glyphs, 0, ga, 1, glyphs.length);
+      return glyphs.length + 1;
+    }
+
     /** {@inheritDoc} */
     public String toString() {
       StringBuffer sb = new StringBuffer();
@@ -1154,6 +1254,21 @@ public class GlyphTable {
       return ca;
     }
 
+    /**
+     * Copy glyph classes augmented by specified first class entry into an existing array.
+     *
+     * @param firstClass
+     *     to fill in first class entry
+     * @param ca
+     *     array to receive classes, whose length is at least one more than the number of rule classes
+     * @return the number of classes copied
+     */
+    public int getClasses(int firstClass, int[] ca) {
+      ca[0] = firstClass;
+      System.arraycopy(classes, 0, ca, 1, classes.length);
+      return classes.length + 1;
+    }
+
     /** {@inheritDoc} */
     public String toString() {
       StringBuffer sb = new StringBuffer();
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Horizontal kerning of the <code>kern</code> table, kept in glyph space.</p>
+ *
+ * <p>Pair subtables (format 0) are held as a sorted array of glyph pairs. Class subtables (formats 2 and 3) are
+ * compiled into a class per glyph for each side and a matrix of values indexed by left and right class, so that a
+ * pair is kerned with two class loads and one value load. Values of all subtables are summed, and are in the
+ * units of the font's metrics (1/1000ths of the font size).</p>
+ */
+public final class KerningTable {
+
+  private final List<Subtable> subtables = new ArrayList<>();
+  private Subtable[] subtablesArray = new Subtable[0];
+
+  KerningTable() {
+  }
+
+  /**
+   * Add a pair subtable.
+   *
+   * @param left
+   *     left glyph of each pair
+   * @param right
+   *     right glyph of each pair
+   * @param values
+   *     kerning value of each pair
+   * @param count
+   *     number of pairs
+   */
+  void addPairs(int[] left, int[] right, int[] values, int count) {
+    // sort pair keys, each tagged with the index of its value
+    long[] pairs = new long[count];
+    int n = 0;
+    for (int i = 0; i < count; i++) {
+      if (values[i] != 0) {
+        pairs[n++] = ((long) ((left[i] << 16) | right[i]) << 32) | i;
+      }
+    }
+    Arrays.sort(pairs, 0, n);
+    int[] keys = new int[n];
+    int[] va = new int[n];
+    int m = 0;
+    for (int i = 0; i < n; i++) {
+      int key = (int) (pairs[i] >>> 32);
+      if ((m > 0) && (keys[m - 1] == key)) {
+        m--; // last of duplicated pairs applies
+      }
+      keys[m] = key;
+      va[m++] = values[(int) pairs[i]];
+    }
+    add(new PairSubtable(Arrays.copyOf(keys, m), Arrays.copyOf(va, m)));
+  }
+
+  /**
+   * Add a class subtable.
+   *
+   * @param leftClasses
+   *     left class of each glyph, where class zero does not kern
+   * @param rightClasses
+   *     right class of each glyph, where class zero does not kern
+   * @param rightClassCount
+   *     number of right classes, including class zero
+   * @param values
+   *     kerning values, indexed by <code>leftClass * rightClassCount + rightClass</code>
+   */
+  void addClasses(char[] leftClasses, char[] rightClasses, int rightClassCount, int[] values) {
+    add(new ClassSubtable(leftClasses, rightClasses, rightClassCount, values));
+  }
+
+  private void add(Subtable st) {
+    if (!st.isEmpty()) {
+      subtables.add(st);
+      subtablesArray = subtables.toArray(new Subtable[subtables.size()]);
+    }
+  }
+
+  /** @return true if no pair is kerned */
+  public boolean isEmpty() {
+    return subtablesArray.length == 0;
+  }
+
+  /** @return number of (non-empty) subtables */
+  public int getSubtableCount() {
+    return subtablesArray.length;
+  }
+
+  /**
+   * Obtain the kerning of a glyph pair.
+   *
+   * @param left
+   *     left glyph index
+   * @param right
+   *     right glyph index
+   * @return the kerning value, or zero if the pair is not kerned
+   */
+  public int getKerning(int left, int right) {
+    int v = 0;
+    for (Subtable st : subtablesArray) {
+      v += st.get(left, right);
+    }
+    return v;
+  }
+
+  /**
+   * Enumerate the kerned pairs of the pair subtables (format 0) of this table. A pair kerned by several subtables
+   * is reported once for each. Class subtables (formats 2 and 3) are not enumerated, since the pairs they kern
+   * may number as many as the square of the number of glyphs; use {@link #getKerning(int, int)} for them.
+   *
+   * @param visitor
+   *     receives each pair with a non-zero kerning value
+   */
+  public void visitPairs(PairVisitor visitor) {
+    for (Subtable st : subtablesArray) {
+      if (st instanceof PairSubtable) {
+        ((PairSubtable) st).visit(visitor);
+      }
+    }
+  }
+
+  /** Receives kerned glyph pairs. */
+  public interface PairVisitor {
+
+    /**
+     * Visit a kerned pair.
+     *
+     * @param left
+     *     left glyph index
+     * @param right
+     *     right glyph index
+     * @param value
+     *     kerning value
+     */
+    void visit(int left, int right, int value);
+  }
+
+  private abstract static class Subtable {
+
+    abstract int get(int left, int right);
+
+    abstract boolean isEmpty();
+  }
+
+  private static final class PairSubtable extends Subtable {
+
+    private final int[] keys;   // (left << 16) | right, sorted
+    private final int[] values;
+
+    PairSubtable(int[] keys, int[] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    int get(int left, int right) {
+      if (((left | right) & ~0xFFFF) != 0) {
+        return 0;
+      }
+      int i = Arrays.binarySearch(keys, (left << 16) | right);
+      return (i >= 0) ? values[i] : 0;
+    }
+
+    void visit(PairVisitor visitor) {
+      for (int i = 0, n = keys.length; i < n; i++) {
+        visitor.visit(keys[i] >>> 16, keys[i] & 0xFFFF, values[i]);
+      }
+    }
+
+    boolean isEmpty() {
+      return keys.length == 0;
+    }
+  }
+
+  private static final class ClassSubtable extends Subtable {
+
+    private final char[] leftClasses;
+    private final char[] rightClasses;
+    private final int rightClassCount;
+    private final int[] values;
+
+    ClassSubtable(char[] leftClasses, char[] rightClasses, int rightClassCount, int[] values) {
+      this.leftClasses = leftClasses;
+      this.rightClasses = rightClasses;
+      this.rightClassCount = rightClassCount;
+      this.values = values;
+    }
+
+    int get(int left, int right) {
+      if ((left >= 0) && (left < leftClasses.length) && (right >= 0) && (right < rightClasses.length)) {
+        return values[leftClasses[left] * rightClassCount + rightClasses[right]];
+      } else {
+        return 0;
+      }
+    }
+
+    boolean isEmpty() {
+      for (int v : values) {
+        if (v != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import com.jaredrummler.fontreader.io.Charsets;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * The "name" table of a font with all of its records.
+ *
+ * <p>The records are indexed in primitive arrays when the table is read. Strings are only
+ * decoded when they are asked for, and are then kept, so looking up a localized name costs
+ * a scan over the record arrays and a single decode.</p>
+ *
+ * <pre>
+ * NameTable names = ttfFile.getNameTable();
+ * String family = names.getName(NameTable.TYPOGRAPHIC_FAMILY, Locale.JAPANESE);
+ * if (family == null) {
+ *   family = names.getName(NameTable.FAMILY, Locale.JAPANESE);
+ * }
+ * </pre>
+ *
+ * <p>The table format is described at https://docs.microsoft.com/typography/opentype/spec/name</p>
+ */
+public final class NameTable {
+
+  /** Unicode platform. */
+  public static final int PLATFORM_UNICODE = 0;
+  /** Macintosh platform. */
+  public static final int PLATFORM_MACINTOSH = 1;
+  /** Windows platform. */
+  public static final int PLATFORM_WINDOWS = 3;
+
+  /** Copyright notice. */
+  public static final int COPYRIGHT = 0;
+  /** Font family name. */
+  public static final int FAMILY = 1;
+  /** Font subfamily name. */
+  public static final int SUBFAMILY = 2;
+  /** Unique font identifier. */
+  public static final int UNIQUE_ID = 3;
+  /** Full font name. */
+  public static final int FULL_NAME = 4;
+  /** Version string. */
+  public static final int VERSION = 5;
+  /** PostScript name. */
+  public static final int POSTSCRIPT_NAME = 6;
+  /** Trademark. */
+  public static final int TRADEMARK = 7;
+  /** Manufacturer name. */
+  public static final int MANUFACTURER = 8;
+  /** Designer name. */
+  public static final int DESIGNER = 9;
+  /** Description. */
+  public static final int DESCRIPTION = 10;
+  /** License description. */
+  public static final int LICENSE = 13;
+  /** Typographic (preferred) family name. */
+  public static final int TYPOGRAPHIC_FAMILY = 16;
+  /** Typographic (preferred) subfamily name. */
+  public static final int TYPOGRAPHIC_SUBFAMILY = 17;
+  /** Sample text. */
+  public static final int SAMPLE_TEXT = 19;
+
+  private static final int WINDOWS_ENGLISH_US = 0x0409;
+  private static final int MAC_ENGLISH = 0;
+
+  /** Mac OS Roman characters 0x80-0xFF. */
+  private static final String MAC_ROMAN_HIGH =
+      "\u00c4\u00c5\u00c7\u00c9\u00d1\u00d6\u00dc\u00e1"
+          + "\u00e0\u00e2\u00e4\u00e3\u00e5\u00e7\u00e9\u00e8"
+          + "\u00ea\u00eb\u00ed\u00ec\u00ee\u00ef\u00f1\u00f3"
+          + "\u00f2\u00f4\u00f6\u00f5\u00fa\u00f9\u00fb\u00fc"
+          + "\u2020\u00b0\u00a2\u00a3\u00a7\u2022\u00b6\u00df"
+          + "\u00ae\u00a9\u2122\u00b4\u00a8\u2260\u00c6\u00d8"
+          + "\u221e\u00b1\u2264\u2265\u00a5\u00b5\u2202\u2211"
+          + "\u220f\u03c0\u222b\u00aa\u00ba\u03a9\u00e6\u00f8"
+          + "\u00bf\u00a1\u00ac\u221a\u0192\u2248\u2206\u00ab"
+          + "\u00bb\u2026\u00a0\u00c0\u00c3\u00d5\u0152\u0153"
+          + "\u2013\u2014\u201c\u201d\u2018\u2019\u00f7\u25ca"
+          + "\u00ff\u0178\u2044\u20ac\u2039\u203a\ufb01\ufb02"
+          + "\u2021\u00b7\u201a\u201e\u2030\u00c2\u00ca\u00c1"
+          + "\u00cb\u00c8\u00cd\u00ce\u00cf\u00cc\u00d3\u00d4"
+          + "\uf8ff\u00d2\u00da\u00db\u00d9\u0131\u02c6\u02dc"
+          + "\u00af\u02d8\u02d9\u02da\u00b8\u02dd\u02db\u02c7";
+
+  // charsets resolved once; null when the platform does not support them
+  private static final Charset SHIFT_JIS = lookup("Shift_JIS");
+  private static final Charset GBK = lookup("GBK");
+  private static final Charset BIG5 = lookup("Big5");
+  private static final Charset EUC_KR = lookup("EUC-KR");
+  private static final Charset JOHAB = lookup("x-Johab");
+
+  /**
+   * Windows language IDs by ISO 639 language (and country) code. Languages not listed here
+   * can still be looked up through {@link #find(int, int, int, int)}.
+   */
+  private static final String[] WINDOWS_LANGUAGES = {
+      "ar", "0401", "bg", "0402", "ca", "0403", "zh_TW", "0404", "cs", "0405", "da", "0406",
+      "de", "0407", "el", "0408", "en", "0409", "es", "0c0a", "fi", "040b", "fr", "040c",
+      "he", "040d", "iw", "040d", "hu", "040e", "is", "040f", "it", "0410", "ja", "0411",
+      "ko", "0412", "nl", "0413", "nb", "0414", "no", "0414", "pl", "0415", "pt_BR", "0416",
+      "pt", "0816", "ro", "0418", "ru", "0419", "hr", "041a", "sk", "041b", "sv", "041d",
+      "th", "041e", "tr", "041f", "id", "0421", "in", "0421", "uk", "0422", "vi", "042a",
+      "hi", "0439", "zh_CN", "0804", "zh_HK", "0c04", "zh_SG", "1004", "zh", "0804",
+      "en_GB", "0809", "fr_CA", "0c0c", "es_MX", "080a"
+  };
+
+  /** Macintosh language codes by ISO 639 language (and country) code. */
+  private static final String[] MAC_LANGUAGES = {
+      "en", "0", "fr", "1", "de", "2", "it", "3", "nl", "4", "sv", "5", "es", "6", "da", "7",
+      "pt", "8", "no", "9", "nb", "9", "he", "10", "iw", "10", "ja", "11", "ar", "12",
+      "fi", "13", "el", "14", "is", "15", "tr", "17", "hr", "18", "zh_TW", "19", "ko", "23",
+      "zh_CN", "33", "zh", "33", "ru", "32", "pl", "25", "hu", "26", "cs", "38", "th", "22"
+  };
+
+  private final byte[] data;
+  private final int stringBase;
+  private final int count;
+  private final int[] platformId;
+  private final int[] encodingId;
+  private final int[] languageId;
+  private final int[] nameId;
+  private final int[] offset;
+  private final int[] length;
+  private final String[] strings;
+  private final String[] languageTags;
+
+  /**
+   * Reads the "name" table of a font.
+   *
+   * @param in
+   *     the font file
+   * @param entry
+   *     the directory entry of the "name" table
+   * @return the name table
+   * @throws IOException
+   *     if the table is truncated
+   */
+  public static NameTable read(FontFileReader in, OFDirTabEntry entry) throws IOException {
+    return new NameTable(in.getBytes((int) entry.getOffset(), (int) entry.getLength()));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param data
+   *     the contents of the "name" table
+   * @throws IOException
+   *     if the table is truncated
+   */
+  public NameTable(byte[] data) throws IOException {
+    this.data = data;
+    if (data.length < 6) {
+      throw new IOException("name table is too short: " + data.length + " bytes");
+    }
+    int format = u16(0);
+    int records = u16(2);
+    stringBase = u16(4);
+    if (6 + records * 12 > data.length) {
+      throw new IOException("name table with " + records + " records is truncated");
+    }
+    count = records;
+    platformId = new int[records];
+    encodingId = new int[records];
+    languageId = new int[records];
+    nameId = new int[records];
+    offset = new int[records];
+    length = new int[records];
+    strings = new String[records];
+    for (int i = 0, p = 6; i < records; i++, p += 12) {
+      platformId[i] = u16(p);
+      encodingId[i] = u16(p + 2);
+      languageId[i] = u16(p + 4);
+      nameId[i] = u16(p + 6);
+      length[i] = u16(p + 8);
+      offset[i] = u16(p + 10);
+    }
+
+    String[] tags = null;
+    int p = 6 + records * 12;
+    if (format == 1 && p + 2 <= data.length) {
+      int tagCount = u16(p);
+      if (p + 2 + tagCount * 4 <= data.length) {
+        tags = new String[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+          int tagLength = u16(p + 2 + i * 4);
+          int tagOffset = u16(p + 4 + i * 4);
+          if (stringBase + tagOffset + tagLength <= data.length) {
+            tags[i] = new String(data, stringBase + tagOffset, tagLength, Charsets.UTF_16BE);
+          }
+        }
+      }
+    }
+    languageTags = tags;
+  }
+
+  /**
+   * Returns the number of name records.
+   *
+   * @return the record count
+   */
+  public int getRecordCount() {
+    return count;
+  }
+
+  /**
+   * Returns the platform ID of a record.
+   *
+   * @param record
+   *     the record index
+   * @return the platform ID
+   */
+  public int getPlatformId(int record) {
+    return platformId[record];
+  }
+
+  /**
+   * Returns the platform specific encoding ID of a record.
+   *
+   * @param record
+   *     the record index
+   * @return the encoding ID
+   */
+  public int getEncodingId(int record) {
+    return encodingId[record];
+  }
+
+  /**
+   * Returns the language ID of a record.
+   *
+   * @param record
+   *     the record index
+   * @return the language ID
+   */
+  public int getLanguageId(int record) {
+    return languageId[record];
+  }
+
+  /**
+   * Returns the language tag of a record that uses a language-tag record (language IDs from
+   * 0x8000, name table format 1).
+   *
+   * @param record
+   *     the record index
+   * @return the BCP 47 language tag or {@code null}
+   */
+  public String getLanguageTag(int record) {
+    int index = languageId[record] - 0x8000;
+    if (languageTags == null || index < 0 || index >= languageTags.length) {
+      return null;
+    }
+    return languageTags[index];
+  }
+
+  /**
+   * Returns the name ID of a record.
+   *
+   * @param record
+   *     the record index
+   * @return the name ID
+   */
+  public int getNameId(int record) {
+    return nameId[record];
+  }
+
+  /**
+   * Returns the string of a record, decoding it the first time it is asked for.
+   *
+   * @param record
+   *     the record index
+   * @return the string or {@code null} if it lies outside the table
+   */
+  public String getString(int record) {
+    String s = strings[record];
+    if (s == null) {
+      int start = stringBase + offset[record];
+      int len = length[record];
+      if (start + len > data.length) {
+        return null;
+      }
+      s = decode(platformId[record], encodingId[record], start, len);
+      strings[record] = s;
+    }
+    return s;
+  }
+
+  /**
+   * Returns the first record matching all IDs.
+   *
+   * @param nameId
+   *     the name ID
+   * @param platformId
+   *     the platform ID
+   * @param encodingId
+   *     the encoding ID, or -1 for any
+   * @param languageId
+   *     the language ID, or -1 for any
+   * @return the record index or -1 if not present
+   */
+  public int find(int nameId, int platformId, int encodingId, int languageId) {
+    for (int i = 0; i < count; i++) {
+      if (this.nameId[i] == nameId && this.platformId[i] == platformId
+          && (encodingId < 0 || this.encodingId[i] == encodingId)
+          && (languageId < 0 || this.languageId[i] == languageId)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the English name, falling back to any name with the given ID. Windows records
+   * are preferred over Macintosh ones, then Unicode ones.
+   *
+   * @param nameId
+   *     the name ID
+   * @return the name or {@code null} if the font has no record with this ID
+   */
+  public String getName(int nameId) {
+    int record = find(nameId, PLATFORM_WINDOWS, -1, WINDOWS_ENGLISH_US);
+    if (record < 0) {
+      record = find(nameId, PLATFORM_MACINTOSH, 0, MAC_ENGLISH);
+    }
+    if (record < 0) {
+      record = find(nameId, PLATFORM_WINDOWS, -1, -1);
+    }
+    if (record < 0) {
+      record = find(nameId, PLATFORM_UNICODE, -1, -1);
+    }
+    if (record < 0) {
+      record = find(nameId, PLATFORM_MACINTOSH, -1, -1);
+    }
+    return record < 0 ? null : getString(record);
+  }
+
+  /**
+   * Returns the name in the given language.
+   *
+   * @param nameId
+   *     the name ID
+   * @param locale
+   *     the language to look for
+   * @return the localized name or {@code null} if the font has no record in this language
+   */
+  public String getName(int nameId, Locale locale) {
+    String language = locale.getLanguage();
+    String country = locale.getCountry();
+    int windows = languageCode(WINDOWS_LANGUAGES, language, country, 16);
+    int record = windows < 0 ? -1 : find(nameId, PLATFORM_WINDOWS, -1, windows);
+    if (record < 0 && windows >= 0) {
+      // same primary language, other region
+      for (int i = 0; i < count; i++) {
+        if (this.nameId[i] == nameId && platformId[i] == PLATFORM_WINDOWS
+            && languageId[i] < 0x8000 && (languageId[i] & 0x3ff) == (windows & 0x3ff)) {
+          record = i;
+          break;
+        }
+      }
+    }
+    if (record < 0 && languageTags != null) {
+      for (int i = 0; i < count && record < 0; i++) {
+        String tag = this.nameId[i] == nameId ? getLanguageTag(i) : null;
+        if (tag != null && (tag.equalsIgnoreCase(language) || tag.toLowerCase(Locale.US).startsWith(language + "-"))) {
+          record = i;
+        }
+      }
+    }
+    if (record < 0) {
+      int mac = languageCode(MAC_LANGUAGES, language, country, 10);
+      record = mac < 0 ? -1 : find(nameId, PLATFORM_MACINTOSH, -1, mac);
+    }
+    return record < 0 ? null : getString(record);
+  }
+
+  private static int languageCode(String[] table, String language, String country, int radix) {
+    String full = language + "_" + country;
+    int fallback = -1;
+    for (int i = 0; i < table.length; i += 2) {
+      if (table[i].equals(full)) {
+        return Integer.parseInt(table[i + 1], radix);
+      }
+      if (fallback < 0 && table[i].equals(language)) {
+        fallback = Integer.parseInt(table[i + 1], radix);
+      }
+    }
+    return fallback;
+  }
+
+  private String decode(int platform, int encoding, int start, int len) {
+    Charset charset = Charsets.UTF_16BE;
+    if (platform == PLATFORM_MACINTOSH) {
+      switch (encoding) {
+        case 0:
+          return decodeMacRoman(start, len);
+        case 1:
+          charset = SHIFT_JIS;
+          break;
+        case 2:
+          charset = BIG5;
+          break;
+        case 3:
+          charset = EUC_KR;
+          break;
+        case 25:
+          charset = GBK;
+          break;
+        default:
+          charset = null;
+          break;
+      }
+      if (charset == null) {
+        return decodeMacRoman(start, len);
+      }
+    } else if (platform == PLATFORM_WINDOWS) {
+      switch (encoding) {
+        case 2:
+          charset = SHIFT_JIS;
+          break;
+        case 3:
+          charset = GBK;
+          break;
+        case 4:
+          charset = BIG5;
+          break;
+        case 5:
+          charset = EUC_KR;
+          break;
+        case 6:
+          charset = JOHAB;
+          break;
+        default:
+          break;
+      }
+      if (charset == null) {
+        charset = Charsets.UTF_16BE;
+      } else if (charset != Charsets.UTF_16BE) {
+        return decodeWide(charset, start, len);
+      }
+    }
+    return new String(data, start, len, charset);
+  }
+
+  /**
+   * Decodes a string of a legacy Windows CJK encoding. These are stored as 16 bit units, with
+   * single byte characters padded by a zero high byte.
+   */
+  private String decodeWide(Charset charset, int start, int len) {
+    byte[] packed = new byte[len];
+    int n = 0;
+    for (int i = start; i < start + len; i++) {
+      if (data[i] != 0) {
+        packed[n++] = data[i];
+      }
+    }
+    return new String(packed, 0, n, charset);
+  }
+
+  private String decodeMacRoman(int start, int len) {
+    char[] chars = new char[len];
+    for (int i = 0; i < len; i++) {
+      int b = data[start + i] & 0xff;
+      chars[i] = b < 0x80 ? (char) b : MAC_ROMAN_HIGH.charAt(b - 0x80);
+    }
+    return new String(chars);
+  }
+
+  private int u16(int p) {
+    return ((data[p] & 0xff) << 8) | (data[p + 1] & 0xff);
+  }
+
+  private static Charset lookup(String name) {
+    try {
+      return Charset.isSupported(name) ? Charset.forName(name) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+}
@@ -17,6 +17,9 @@
 
 package com.jaredrummler.fontreader.truetype;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 /**
  * Represents table names as found in a TrueType font's Table Directory.
  * TrueType fonts may have custom tables so we cannot use an enum.
@@ -116,10 +119,41 @@ public final class OFTableName {
   /** Vertical Metrics. */
   public static final OFTableName VMTX = new OFTableName("vmtx");
 
+  /** Predefined table names, in ascending order of tag. */
+  private static final OFTableName[] KNOWN_NAMES;
+  private static final int[] KNOWN_TAGS;
+
+  static {
+    OFTableName[] names = {
+        BASE, CFF, EBDT, EBLC, EBSC, FFTM, GDEF, GPOS, GSUB, LTSH, OS2, PCLT, VDMX, CMAP, CVT, FPGM, GASP, GLYF,
+        HDMX, HEAD, HHEA, HMTX, KERN, LOCA, MAXP, NAME, POST, PREP, VHEA, VMTX
+    };
+    Arrays.sort(names, new Comparator<OFTableName>() {
+
+      @Override
+      public int compare(OFTableName n1, OFTableName n2) {
+        return OFTag.compare(n1.tag, n2.tag);
+      }
+    });
+    int[] tags = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      tags[i] = names[i].tag;
+    }
+    KNOWN_NAMES = names;
+    KNOWN_TAGS = tags;
+  }
+
   private final String name;
+  /** packed tag, or zero for the table directory, which has no tag */
+  private final int tag;
 
   private OFTableName(String name) {
+    this(name, OFTag.isTag(name) ? OFTag.toInt(name) : 0);
+  }
+
+  private OFTableName(String name, int tag) {
     this.name = name;
+    this.tag = tag;
   }
 
   /**
@@ -129,6 +163,13 @@ public final class OFTableName {
     return name;
   }
 
+  /**
+   * Returns the packed tag of the table.
+   */
+  public int getTag() {
+    return tag;
+  }
+
   /**
    * Returns an instance of this class corresponding to the given string representation.
    *
@@ -138,14 +179,41 @@ public final class OFTableName {
    */
   public static OFTableName getValue(String tableName) {
     if (tableName != null) {
+      if (OFTag.isTag(tableName)) {
+        return getValue(OFTag.toInt(tableName));
+      }
       return new OFTableName(tableName);
     }
     throw new IllegalArgumentException("A TrueType font table name must not be null");
   }
 
+  /**
+   * Returns an instance of this class corresponding to the given packed tag.
+   *
+   * @param tag
+   *     packed table tag as in the Table Directory
+   * @return the predefined table name for the tag, if any; otherwise, a new table name
+   */
+  public static OFTableName getValue(int tag) {
+    int lo = 0;
+    int hi = KNOWN_TAGS.length - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int d = OFTag.compare(KNOWN_TAGS[mid], tag);
+      if (d < 0) {
+        lo = mid + 1;
+      } else if (d > 0) {
+        hi = mid - 1;
+      } else {
+        return KNOWN_NAMES[mid];
+      }
+    }
+    return new OFTableName(OFTag.toString(tag), tag);
+  }
+
   @Override
   public int hashCode() {
-    return name.hashCode();
+    return (tag != 0) ? tag : name.hashCode();
   }
 
   @Override
@@ -157,7 +225,7 @@ public final class OFTableName {
       return false;
     }
     OFTableName to = (OFTableName) o;
-    return this.name.equals(to.getName());
+    return (this.tag == to.tag) && ((tag != 0) || this.name.equals(to.name));
   }
 
   @Override
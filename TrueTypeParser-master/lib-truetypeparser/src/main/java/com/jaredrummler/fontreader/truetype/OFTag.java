@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+/**
+ * <p>Utility methods for OpenType tags packed into an <code>int</code>.</p>
+ *
+ * <p>A tag is packed big-endian, one byte per character, and padded with spaces to four characters, so that
+ * <code>"lao"</code> and <code>"lao "</code> pack to the same value. Packed tags of printable characters compare in
+ * the same order as the strings they represent.</p>
+ */
+public final class OFTag {
+
+  /** Packed wildcard tag, <code>"*"</code>. */
+  public static final int WILDCARD = 0x2A202020;
+
+  private OFTag() {
+  }
+
+  /**
+   * Determine if a string can be packed as a tag.
+   *
+   * @param tag
+   *     a tag string
+   * @return true if <code>tag</code> is non-null, no longer than four characters, and all of its characters are
+   * in the range 0x00 to 0xFF
+   */
+  public static boolean isTag(String tag) {
+    if ((tag == null) || (tag.length() > 4)) {
+      return false;
+    }
+    for (int i = 0, n = tag.length(); i < n; i++) {
+      if (tag.charAt(i) > 0xFF) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Pack a tag string.
+   *
+   * @param tag
+   *     a tag string of at most four characters
+   * @return the packed tag
+   * @throws IllegalArgumentException
+   *     if <code>tag</code> cannot be packed
+   */
+  public static int toInt(String tag) {
+    if (!isTag(tag)) {
+      throw new IllegalArgumentException("invalid tag: " + tag);
+    }
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      value = (value << 8) | ((i < tag.length()) ? tag.charAt(i) : ' ');
+    }
+    return value;
+  }
+
+  /**
+   * Pack four tag bytes, as found in a font file.
+   *
+   * @param tag
+   *     an array of at least four bytes
+   * @return the packed tag
+   */
+  public static int toInt(byte[] tag) {
+    return ((tag[0] & 0xFF) << 24) | ((tag[1] & 0xFF) << 16) | ((tag[2] & 0xFF) << 8) | (tag[3] & 0xFF);
+  }
+
+  /**
+   * Unpack a tag, retaining any padding.
+   *
+   * @param tag
+   *     a packed tag
+   * @return the four character tag string
+   */
+  public static String toString(int tag) {
+    char[] ca = new char[4];
+    for (int i = 0; i < 4; i++) {
+      ca[i] = (char) ((tag >>> (24 - i * 8)) & 0xFF);
+    }
+    return new String(ca);
+  }
+
+  /**
+   * Unpack a tag, removing any trailing padding.
+   *
+   * @param tag
+   *     a packed tag
+   * @return the tag string, without trailing spaces
+   */
+  public static String toTrimmedString(int tag) {
+    int n = 4;
+    while ((n > 0) && (((tag >>> (32 - n * 8)) & 0xFF) == ' ')) {
+      n--;
+    }
+    char[] ca = new char[n];
+    for (int i = 0; i < n; i++) {
+      ca[i] = (char) ((tag >>> (24 - i * 8)) & 0xFF);
+    }
+    return new String(ca);
+  }
+
+  /**
+   * Compare two packed tags in the order of the strings they represent.
+   *
+   * @param t1
+   *     a packed tag
+   * @param t2
+   *     a packed tag
+   * @return a negative integer, zero, or a positive integer as <code>t1</code> is less than, equal to, or greater
+   * than <code>t2</code>
+   */
+  public static int compare(int t1, int t2) {
+    int u1 = t1 ^ Integer.MIN_VALUE;
+    int u2 = t2 ^ Integer.MIN_VALUE;
+    return (u1 < u2) ? -1 : ((u1 == u2) ? 0 : 1);
+  }
+
+}
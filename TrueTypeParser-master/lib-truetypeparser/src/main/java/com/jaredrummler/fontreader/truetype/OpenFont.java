@@ -22,6 +22,7 @@ import android.graphics.Rect;
 import com.jaredrummler.fontreader.complexscripts.fonts.AdvancedTypographicTableFormatException;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphDefinitionTable;
 import com.jaredrummler.fontreader.complexscripts.fonts.GlyphPositioningTable;
+import com.jaredrummler.fontreader.complexscripts.scripts.ShapePlan;
 import com.jaredrummler.fontreader.fonts.CMapSegment;
 import com.jaredrummler.fontreader.fonts.FontUtil;
 import com.jaredrummler.fontreader.fonts.GlyphSubstitutionTable;
@@ -95,8 +96,9 @@ public abstract class OpenFont {
    */
   protected Map<OFTableName, OFDirTabEntry> dirTabs;
 
-  private Map<Integer, Map<Integer, Integer>> kerningTab; // for CIDs
-  private Map<Integer, Map<Integer, Integer>> ansiKerningTab; // For winAnsiEncoding
+  private KerningTable kerning; // in glyph space
+  private Map<Integer, Map<Integer, Integer>> kerningTab; // for CIDs, derived from kerning on demand
+  private Map<Integer, Map<Integer, Integer>> ansiKerningTab; // For winAnsiEncoding, derived from kerningTab
   private List<CMapSegment> cmaps;
   protected List<UnicodeMapping> unicodeMappings;
 
@@ -122,6 +124,9 @@ public abstract class OpenFont {
   protected String subFamilyName = "";
   protected boolean cid = true;
 
+  /** All records of the "name" table. */
+  protected NameTable nameTable;
+
   private long italicAngle;
   private long isFixedPitch;
   private int fontBBox1;
@@ -162,6 +167,7 @@ public abstract class OpenFont {
   // advanced typographic table support
   protected boolean useAdvanced;
   protected OTFAdvancedTypographicTableReader advancedTableReader;
+  private final Map<ShapePlanKey, ShapePlan> shapePlans = new HashMap<ShapePlanKey, ShapePlan>();
 
   /**
    * Version of the PostScript table (<q>post</q>) contained in this font.
@@ -538,6 +544,34 @@ public abstract class OpenFont {
     readFont(in, header, null);
   }
 
+  /**
+   * Reads only the table directory and the "name" table. This is much cheaper than
+   * {@link #readFont(FontFileReader)} when only the names of a font are needed, as no
+   * other table is loaded from the reader. For a TrueType collection the names of its first
+   * font are returned; {@link #getTTCFontInfo(FontFileReader)} returns those of every font.
+   *
+   * @param in
+   *     The FontFileReader to use
+   * @return the names of the font
+   * @throws IOException
+   *     In case of an I/O problem
+   */
+  public FontInfo readFontInfo(FontFileReader in) throws IOException {
+    initializeFont(in);
+    if ("ttcf".equals(in.readTTFString(4))) {
+      in.skip(4);
+      if (in.readTTFULong() == 0) {
+        throw new IOException("TrueType collection holds no fonts");
+      }
+      in.seekSet(in.readTTFULong());
+    } else {
+      in.seekSet(0);
+    }
+    readDirTabs();
+    readName();
+    return new FontInfo(postScriptName, familyNames, subFamilyName, fullName, notice);
+  }
+
   /**
    * initialize the ansiWidths array (for winAnsiEncoding)
    * and fill with the missingwidth
@@ -705,6 +739,15 @@ public abstract class OpenFont {
     return familyNames;
   }
 
+  /**
+   * Returns all records of the "name" table, including the localized names.
+   *
+   * @return the name table or {@code null} if the font has none
+   */
+  public NameTable getNameTable() {
+    return nameTable;
+  }
+
   /**
    * Returns the font sub family name of the font.
    *
@@ -936,20 +979,39 @@ public abstract class OpenFont {
   }
 
   /**
-   * Returns the kerning table.
+   * Returns the kerning table in glyph space.
+   *
+   * @return the kerning table, or null if kerning was not read
+   */
+  public KerningTable getKerningTable() {
+    return kerning;
+  }
+
+  /**
+   * Returns the kerning table, keyed by unicode code point. The table is derived from the glyph space kerning
+   * table when first requested, and holds the pairs of its pair subtables (format 0) only. Class subtables
+   * (formats 2 and 3) would add a map entry for each pair of glyphs in kerned classes, so they are available
+   * only through {@link #getKerningTable()}.
    *
    * @return Map The kerning table
    */
-  public Map<Integer, Map<Integer, Integer>> getKerning() {
+  public synchronized Map<Integer, Map<Integer, Integer>> getKerning() {
+    if ((kerningTab == null) && (kerning != null)) {
+      kerningTab = createUnicodeKerning();
+    }
     return kerningTab;
   }
 
   /**
-   * Returns the ANSI kerning table.
+   * Returns the ANSI kerning table. The table is derived from the unicode kerning table when first requested,
+   * so it holds pairs of pair subtables (format 0) only.
    *
    * @return Map The ANSI kerning table
    */
-  public Map<Integer, Map<Integer, Integer>> getAnsiKerning() {
+  public synchronized Map<Integer, Map<Integer, Integer>> getAnsiKerning() {
+    if ((ansiKerningTab == null) && (kerning != null)) {
+      ansiKerningTab = createAnsiKerning(getKerning());
+    }
     return ansiKerningTab;
   }
 
@@ -991,7 +1053,7 @@ public abstract class OpenFont {
   /**
    * Read Table Directory from the current position in the
    * FontFileReader and fill the global HashMap dirTabs
-   * with the table name (String) as key and a TTFDirTabEntry
+   * with the table name (keyed by its packed tag) and a TTFDirTabEntry
    * as value.
    *
    * @throws IOException
@@ -1009,6 +1071,10 @@ public abstract class OpenFont {
         break;
       case 0x74797031: //"typ1"
         break;
+      case WoffFontSource.SIGNATURE:
+        throw new IOException("WOFF fonts must be read through a WoffFontSource");
+      case Woff2FontSource.SIGNATURE:
+        throw new IOException("WOFF2 fonts must be read through a Woff2FontSource");
       default:
         break;
     }
@@ -1020,8 +1086,8 @@ public abstract class OpenFont {
 
     for (int i = 0; i < ntabs; i++) {
       pd[i] = new OFDirTabEntry();
-      String tableName = pd[i].read(fontFile);
-      dirTabs.put(OFTableName.getValue(tableName), pd[i]);
+      pd[i].read(fontFile);
+      dirTabs.put(OFTableName.getValue(OFTag.toInt(pd[i].getTag())), pd[i]);
     }
     dirTabs.put(OFTableName.TABLE_DIRECTORY, new OFDirTabEntry(0L, fontFile.getCurrentPos()));
   }
@@ -1345,88 +1411,221 @@ public abstract class OpenFont {
   }
 
   /**
-   * Read the kerning table, create a table for both CIDs and
-   * winAnsiEncoding.
+   * Read the kerning table into glyph space. Horizontal subtables of formats 0 (glyph pairs), 2 (class
+   * offsets) and 3 (class indices) are read, in both the OpenType (version 0) and Apple (version 1) table layouts.
    *
    * @throws IOException
    *     In case of a I/O problem
    */
   protected void readKerning() throws IOException {
-    // Read kerning
-    kerningTab = new HashMap<Integer, Map<Integer, Integer>>();
-    ansiKerningTab = new HashMap<Integer, Map<Integer, Integer>>();
+    kerning = new KerningTable();
+    kerningTab = null;
+    ansiKerningTab = null;
     OFDirTabEntry dirTab = dirTabs.get(OFTableName.KERN);
     if (dirTab != null) {
-      seekTab(fontFile, OFTableName.KERN, 2);
-      for (int n = fontFile.readTTFUShort(); n > 0; n--) {
-        fontFile.skip(2 * 2);
-        int k = fontFile.readTTFUShort();
-        if (!((k & 1) != 0) || (k & 2) != 0 || (k & 4) != 0) {
-          return;
+      seekTab(fontFile, OFTableName.KERN, 0);
+      long tableEnd = dirTab.getOffset() + dirTab.getLength();
+      boolean apple = fontFile.readTTFUShort() == 1;
+      long n;
+      if (apple) {
+        fontFile.skip(2);
+        n = fontFile.readTTFULong();
+      } else {
+        n = fontFile.readTTFUShort();
+      }
+      long start = fontFile.getCurrentPos();
+      for (; (n > 0) && (start < tableEnd); n--) {
+        fontFile.seekSet(start);
+        long length;
+        int format;
+        boolean horizontal;
+        int headerSize;
+        if (apple) {
+          length = fontFile.readTTFULong();
+          int coverage = fontFile.readTTFUByte();
+          format = fontFile.readTTFUByte();
+          fontFile.skip(2);
+          // neither vertical, cross-stream nor variation
+          horizontal = (coverage & 0xE0) == 0;
+          headerSize = 8;
+        } else {
+          fontFile.skip(2);
+          length = fontFile.readTTFUShort();
+          int coverage = fontFile.readTTFUShort();
+          format = coverage >> 8;
+          // horizontal, neither minimum nor cross-stream
+          horizontal = (coverage & 0x07) == 1;
+          headerSize = 6;
         }
-        if ((k >> 8) != 0) {
-          continue;
+        if (format == 0) {
+          // pair subtable length may overflow its 16 bit field, so derive it from the pair count
+          int np = fontFile.readTTFUShort();
+          length = headerSize + 8 + np * 6L;
+          if (horizontal) {
+            readKerningFormat0(np);
+          }
+        } else if (horizontal && (format == 2)) {
+          readKerningFormat2(start, Math.min(length, tableEnd - start));
+        } else if (horizontal && (format == 3)) {
+          readKerningFormat3();
+        }
+        if (length <= 0) {
+          break;
         }
+        start += length;
+      }
+    }
+  }
 
-        k = fontFile.readTTFUShort();
-        fontFile.skip(3 * 2);
-        while (k-- > 0) {
-          int i = fontFile.readTTFUShort();
-          int j = fontFile.readTTFUShort();
-          int kpx = fontFile.readTTFShort();
-          if (kpx != 0) {
-            // CID kerning table entry, using unicode indexes
-            final Integer iObj = glyphToUnicode(i);
-            final Integer u2 = glyphToUnicode(j);
-            if (iObj != null && u2 != null) {
-              Map<Integer, Integer> adjTab = kerningTab.get(iObj);
-              if (adjTab == null) {
-                adjTab = new HashMap<Integer, Integer>();
-              }
-              adjTab.put(u2, new Integer(convertTTFUnit2PDFUnit(kpx)));
-              kerningTab.put(iObj, adjTab);
-            }
+  private void readKerningFormat0(int np) throws IOException {
+    fontFile.skip(3 * 2);
+    int[] left = new int[np];
+    int[] right = new int[np];
+    int[] values = new int[np];
+    for (int i = 0; i < np; i++) {
+      left[i] = fontFile.readTTFUShort();
+      right[i] = fontFile.readTTFUShort();
+      values[i] = convertTTFUnit2PDFUnit(fontFile.readTTFShort());
+    }
+    kerning.addPairs(left, right, values, np);
+  }
+
+  private void readKerningFormat2(long start, long length) throws IOException {
+    fontFile.skip(2); // row width, implied by class offsets
+    int lco = fontFile.readTTFUShort();
+    int rco = fontFile.readTTFUShort();
+    int ao = fontFile.readTTFUShort();
+    // class values are byte offsets from the start of the subtable; map each distinct value to a class
+    Map<Integer, Integer> lcm = new HashMap<Integer, Integer>();
+    Map<Integer, Integer> rcm = new HashMap<Integer, Integer>();
+    char[] leftClasses = readKerningClassOffsets(start + lco, lcm);
+    char[] rightClasses = readKerningClassOffsets(start + rco, rcm);
+    int nl = lcm.size() + 1;
+    int nr = rcm.size() + 1;
+    int[] lca = new int[nl];
+    int[] rca = new int[nr];
+    for (Entry<Integer, Integer> e : lcm.entrySet()) {
+      lca[e.getValue()] = e.getKey();
+    }
+    for (Entry<Integer, Integer> e : rcm.entrySet()) {
+      rca[e.getValue()] = e.getKey();
+    }
+    int[] values = new int[nl * nr];
+    for (int l = 1; l < nl; l++) {
+      for (int r = 1; r < nr; r++) {
+        int offset = lca[l] + rca[r];
+        if ((offset >= ao) && ((offset + 2) <= length) && (((offset - ao) & 1) == 0)) {
+          values[l * nr + r] = convertTTFUnit2PDFUnit(fontFile.readTTFShort(start + offset));
+        }
+      }
+    }
+    kerning.addClasses(leftClasses, rightClasses, nr, values);
+  }
+
+  private char[] readKerningClassOffsets(long offset, Map<Integer, Integer> classes) throws IOException {
+    fontFile.seekSet(offset);
+    int firstGlyph = fontFile.readTTFUShort();
+    int ng = fontFile.readTTFUShort();
+    char[] ca = new char[firstGlyph + ng];
+    for (int i = 0; i < ng; i++) {
+      Integer value = Integer.valueOf(fontFile.readTTFUShort());
+      Integer c = classes.get(value);
+      if (c == null) {
+        c = Integer.valueOf(classes.size() + 1);
+        classes.put(value, c);
+      }
+      ca[firstGlyph + i] = (char) c.intValue();
+    }
+    return ca;
+  }
+
+  private void readKerningFormat3() throws IOException {
+    int ng = fontFile.readTTFUShort();
+    int nv = fontFile.readTTFUByte();
+    int nl = fontFile.readTTFUByte() + 1;
+    int nr = fontFile.readTTFUByte() + 1;
+    fontFile.skip(1);
+    int[] kv = new int[nv];
+    for (int i = 0; i < nv; i++) {
+      kv[i] = convertTTFUnit2PDFUnit(fontFile.readTTFShort());
+    }
+    // classes are biased by one, so class zero denotes glyphs that do not kern
+    char[] leftClasses = new char[ng];
+    char[] rightClasses = new char[ng];
+    for (int i = 0; i < ng; i++) {
+      int c = fontFile.readTTFUByte() + 1;
+      leftClasses[i] = (char) ((c < nl) ? c : 0);
+    }
+    for (int i = 0; i < ng; i++) {
+      int c = fontFile.readTTFUByte() + 1;
+      rightClasses[i] = (char) ((c < nr) ? c : 0);
+    }
+    int[] values = new int[nl * nr];
+    for (int l = 1; l < nl; l++) {
+      for (int r = 1; r < nr; r++) {
+        int ki = fontFile.readTTFUByte();
+        values[l * nr + r] = (ki < nv) ? kv[ki] : 0;
+      }
+    }
+    kerning.addClasses(leftClasses, rightClasses, nr, values);
+  }
+
+  private Map<Integer, Map<Integer, Integer>> createUnicodeKerning() {
+    final Map<Integer, Map<Integer, Integer>> kerningTab = new HashMap<Integer, Map<Integer, Integer>>();
+    kerning.visitPairs(new KerningTable.PairVisitor() {
+
+      public void visit(int left, int right, int value) {
+        // CID kerning table entry, using unicode indexes
+        final Integer iObj = glyphToUnicode(left);
+        final Integer u2 = glyphToUnicode(right);
+        if (iObj != null && u2 != null) {
+          Map<Integer, Integer> adjTab = kerningTab.get(iObj);
+          if (adjTab == null) {
+            adjTab = new HashMap<Integer, Integer>();
+            kerningTab.put(iObj, adjTab);
           }
+          Integer v = adjTab.get(u2);
+          adjTab.put(u2, Integer.valueOf((v != null) ? v.intValue() + value : value));
         }
       }
+    });
+    return kerningTab;
+  }
 
-      // Create winAnsiEncoded kerning table from kerningTab
-      // (could probably be simplified, for now we remap back to CID indexes and
-      // then to winAnsi)
-
-      for (Entry<Integer, Map<Integer, Integer>> e1 : kerningTab.entrySet()) {
-        Integer unicodeKey1 = e1.getKey();
-        Integer cidKey1 = unicodeToGlyph(unicodeKey1);
-        Map<Integer, Integer> akpx = new HashMap<Integer, Integer>();
-        Map<Integer, Integer> ckpx = e1.getValue();
-
-        for (Entry<Integer, Integer> e : ckpx.entrySet()) {
-          Integer unicodeKey2 = e.getKey();
-          Integer cidKey2 = unicodeToGlyph(unicodeKey2.intValue());
-          Integer kern = e.getValue();
-
-          Iterator uniMap = mtxTab[cidKey2.intValue()].getUnicodeIndex().listIterator();
-          while (uniMap.hasNext()) {
-            Integer unicodeKey = (Integer) uniMap.next();
-            Integer[] ansiKeys = unicodeToWinAnsi(unicodeKey.intValue());
-            for (int u = 0; u < ansiKeys.length; u++) {
-              akpx.put(ansiKeys[u], kern);
-            }
+  private Map<Integer, Map<Integer, Integer>> createAnsiKerning(Map<Integer, Map<Integer, Integer>> kerningTab) {
+    // Create winAnsiEncoded kerning table from kerningTab, remapping back to CID indexes and then to winAnsi
+    Map<Integer, Map<Integer, Integer>> ansiKerningTab = new HashMap<Integer, Map<Integer, Integer>>();
+    for (Entry<Integer, Map<Integer, Integer>> e1 : kerningTab.entrySet()) {
+      Integer cidKey1 = unicodeToGlyphMap.get(e1.getKey());
+      Map<Integer, Integer> akpx = new HashMap<Integer, Integer>();
+      Map<Integer, Integer> ckpx = e1.getValue();
+
+      for (Entry<Integer, Integer> e : ckpx.entrySet()) {
+        Integer cidKey2 = unicodeToGlyphMap.get(e.getKey());
+        if (cidKey2 == null) {
+          continue;
+        }
+        Integer kern = e.getValue();
+        Iterator uniMap = mtxTab[cidKey2.intValue()].getUnicodeIndex().listIterator();
+        while (uniMap.hasNext()) {
+          Integer unicodeKey = (Integer) uniMap.next();
+          for (Integer ansiKey : unicodeToWinAnsi(unicodeKey.intValue())) {
+            akpx.put(ansiKey, kern);
           }
         }
+      }
 
-        if (akpx.size() > 0) {
-          Iterator uniMap = mtxTab[cidKey1.intValue()].getUnicodeIndex().listIterator();
-          while (uniMap.hasNext()) {
-            Integer unicodeKey = (Integer) uniMap.next();
-            Integer[] ansiKeys = unicodeToWinAnsi(unicodeKey.intValue());
-            for (Integer ansiKey : ansiKeys) {
-              ansiKerningTab.put(ansiKey, akpx);
-            }
+      if ((akpx.size() > 0) && (cidKey1 != null)) {
+        Iterator uniMap = mtxTab[cidKey1.intValue()].getUnicodeIndex().listIterator();
+        while (uniMap.hasNext()) {
+          Integer unicodeKey = (Integer) uniMap.next();
+          for (Integer ansiKey : unicodeToWinAnsi(unicodeKey.intValue())) {
+            ansiKerningTab.put(ansiKey, akpx);
           }
         }
       }
     }
+    return ansiKerningTab;
   }
 
   /**
@@ -1672,13 +1871,25 @@ public abstract class OpenFont {
    * doesn't matter...
    */
   private Integer[] unicodeToWinAnsi(int unicode) {
-    List<Integer> ret = new ArrayList<Integer>();
-    for (int i = 32; i < Glyphs.WINANSI_ENCODING.length; i++) {
-      if (unicode == Glyphs.WINANSI_ENCODING[i]) {
-        ret.add(new Integer(i));
+    Integer[] ret = WinAnsiInverse.TABLE.get(unicode);
+    return (ret != null) ? ret : WinAnsiInverse.NONE;
+  }
+
+  /** Inverse of {@link Glyphs#WINANSI_ENCODING}, from unicode to the (32 and above) codes that encode it. */
+  private static final class WinAnsiInverse {
+
+    static final Integer[] NONE = new Integer[0];
+    static final Map<Integer, Integer[]> TABLE = new HashMap<Integer, Integer[]>();
+
+    static {
+      for (int i = 32; i < Glyphs.WINANSI_ENCODING.length; i++) {
+        Integer unicode = Integer.valueOf(Glyphs.WINANSI_ENCODING[i]);
+        Integer[] codes = TABLE.get(unicode);
+        codes = (codes != null) ? Arrays.copyOf(codes, codes.length + 1) : new Integer[1];
+        codes[codes.length - 1] = Integer.valueOf(i);
+        TABLE.put(unicode, codes);
       }
     }
-    return ret.toArray(new Integer[ret.size()]);
   }
 
   private String formatUnitsForDebug(int units) {
@@ -1695,23 +1906,6 @@ public abstract class OpenFont {
     return glyphToUnicodeMap.get(new Integer(glyphIndex));
   }
 
-  /**
-   * Map a unicode code point to the corresponding glyph index
-   *
-   * @param unicodeIndex
-   *     unicode code point
-   * @return glyph index
-   */
-  private Integer unicodeToGlyph(int unicodeIndex) throws IOException {
-    final Integer result
-        = unicodeToGlyphMap.get(new Integer(unicodeIndex));
-    if (result == null) {
-      throw new IOException(
-          "Glyph index not found for unicode value " + unicodeIndex);
-    }
-    return result;
-  }
-
   String getGlyphName(int glyphIndex) {
     return mtxTab[glyphIndex].getName();
   }
@@ -1768,8 +1962,69 @@ public abstract class OpenFont {
     }
   }
 
+  /**
+   * Obtain the shape plan for a script, language and feature set, creating and caching it on
+   * first use. Callers shaping many runs with the same parameters should keep the returned plan
+   * rather than calling this for each run.
+   *
+   * @param script
+   *     a script identifier
+   * @param language
+   *     a language identifier
+   * @param features
+   *     feature identifiers to apply, or null to apply the script processor's default features
+   * @return the shape plan
+   * @throws IllegalArgumentException
+   *     if <code>script</code> or <code>language</code> is null
+   */
+  public ShapePlan getShapePlan(String script, String language, String[] features) {
+    if ((script == null) || (language == null)) {
+      throw new IllegalArgumentException("Script and language must not be null");
+    }
+    ShapePlanKey key = new ShapePlanKey(script, language, features);
+    synchronized (shapePlans) {
+      ShapePlan plan = shapePlans.get(key);
+      if (plan == null) {
+        plan = ShapePlan.create(getGSUB(), getGPOS(), getGDEF(), script, language, features);
+        shapePlans.put(key, plan);
+      }
+      return plan;
+    }
+  }
+
   public String getCopyrightNotice() {
     return notice;
   }
 
+  private static final class ShapePlanKey {
+
+    private final String script;
+    private final String language;
+    private final String[] features;
+
+    ShapePlanKey(String script, String language, String[] features) {
+      this.script = script;
+      this.language = language;
+      this.features = (features != null) ? features.clone() : null;
+    }
+
+    @Override
+    public int hashCode() {
+      int hc = script.hashCode();
+      hc = 31 * hc + language.hashCode();
+      hc = 31 * hc + Arrays.hashCode(features);
+      return hc;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof ShapePlanKey) {
+        ShapePlanKey k = (ShapePlanKey) o;
+        return script.equals(k.script) && language.equals(k.language) && Arrays.equals(features, k.features);
+      } else {
+        return false;
+      }
+    }
+  }
+
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import java.io.IOException;
+
+/**
+ * Base class for sources that present a container format (WOFF, WOFF2) as a plain sfnt
+ * file. The sfnt header and table directory are synthesized and the tables are laid out
+ * one after another on 4-byte boundaries; subclasses only supply the data of each table.
+ */
+abstract class SfntFontSource extends FontSource {
+
+  private static final int SFNT_HEADER_SIZE = 12;
+  private static final int SFNT_ENTRY_SIZE = 16;
+
+  private byte[] header;
+  private int[] tags;
+  private int[] tableStart;
+  private int[] tableLength;
+  private int size;
+
+  /**
+   * Builds the sfnt header and table directory.
+   *
+   * @param flavor
+   *     the sfnt version
+   * @param tags
+   *     the table tags, in directory order
+   * @param checksums
+   *     the table checksums
+   * @param lengths
+   *     the table lengths
+   * @throws IOException
+   *     if the resulting font would be too large
+   */
+  protected final void layout(int flavor, int[] tags, int[] checksums, int[] lengths)
+      throws IOException {
+    int numTables = tags.length;
+    this.tags = tags;
+    this.tableLength = lengths;
+    this.tableStart = new int[numTables];
+    this.header = new byte[SFNT_HEADER_SIZE + SFNT_ENTRY_SIZE * numTables];
+
+    int searchRange = 1;
+    int entrySelector = 0;
+    while (searchRange * 2 <= numTables) {
+      searchRange *= 2;
+      entrySelector++;
+    }
+    putInt(header, 0, flavor);
+    putShort(header, 4, numTables);
+    putShort(header, 6, searchRange * 16);
+    putShort(header, 8, entrySelector);
+    putShort(header, 10, numTables * 16 - searchRange * 16);
+
+    long position = header.length;
+    for (int i = 0; i < numTables; i++) {
+      tableStart[i] = (int) position;
+      int entry = SFNT_HEADER_SIZE + i * SFNT_ENTRY_SIZE;
+      putInt(header, entry, tags[i]);
+      putInt(header, entry + 4, checksums[i]);
+      putInt(header, entry + 8, (int) position);
+      putInt(header, entry + 12, lengths[i]);
+      position += (lengths[i] + 3L) & ~3L;
+      if (position > Integer.MAX_VALUE) {
+        throw new IOException("Decoded font is too large");
+      }
+    }
+    size = (int) position;
+  }
+
+  /**
+   * Returns the data of a table. Implementations should cache the returned segment.
+   *
+   * @param index
+   *     the index of the table in the directory
+   * @return a segment at the table's position holding at least the table's length
+   * @throws IOException
+   *     if the table could not be decoded
+   */
+  protected abstract Segment loadTable(int index) throws IOException;
+
+  @Override public int getSize() {
+    return size;
+  }
+
+  @Override protected Segment load(int position, int length) throws IOException {
+    if (position + length <= header.length) {
+      return new Segment(header, 0, 0, header.length);
+    }
+    int i = findTable(position);
+    if (i >= 0 && position + length <= tableStart[i] + tableLength[i]) {
+      return loadTable(i);
+    }
+    // the region spans tables or padding, assemble it
+    byte[] region = new byte[length];
+    int p = position;
+    int end = position + length;
+    while (p < end) {
+      int n;
+      if (p < header.length) {
+        n = Math.min(end, header.length) - p;
+        System.arraycopy(header, p, region, p - position, n);
+      } else {
+        int t = findTable(p);
+        int tableEnd = tableStart[t] + tableLength[t];
+        if (p < tableEnd) {
+          n = Math.min(end, tableEnd) - p;
+          Segment s = loadTable(t);
+          System.arraycopy(s.data, s.start + p - tableStart[t], region, p - position, n);
+        } else {
+          n = Math.min(end, tableStart[t] + ((tableLength[t] + 3) & ~3)) - p; // zero padding
+        }
+      }
+      p += n;
+    }
+    return new Segment(region, 0, position, length);
+  }
+
+  /**
+   * Returns the number of tables.
+   *
+   * @return the number of tables
+   */
+  protected final int getTableCount() {
+    return tags.length;
+  }
+
+  /**
+   * Returns the position of a table in the synthesized sfnt.
+   *
+   * @param index
+   *     the index of the table in the directory
+   * @return the file position
+   */
+  protected final int getTableStart(int index) {
+    return tableStart[index];
+  }
+
+  /**
+   * Returns the index of a table.
+   *
+   * @param tag
+   *     the table tag
+   * @return the index of the table in the directory or -1 if not present
+   */
+  protected final int indexOf(OFTableName tag) {
+    int value = tag.getTag();
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int findTable(int position) {
+    int lo = 0;
+    int hi = tableStart.length - 1;
+    int found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (tableStart[mid] <= position) {
+        found = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found;
+  }
+
+  static int toTag(String name) {
+    return OFTag.toInt(name);
+  }
+
+  static String tagToString(int tag) {
+    return OFTag.toString(tag);
+  }
+
+  static int getInt(byte[] b, int i) {
+    return ((b[i] & 0xff) << 24) | ((b[i + 1] & 0xff) << 16) | ((b[i + 2] & 0xff) << 8) | (b[i + 3] & 0xff);
+  }
+
+  static int getUShort(byte[] b, int i) {
+    return ((b[i] & 0xff) << 8) | (b[i + 1] & 0xff);
+  }
+
+  static void putInt(byte[] b, int i, int value) {
+    b[i] = (byte) (value >>> 24);
+    b[i + 1] = (byte) (value >>> 16);
+    b[i + 2] = (byte) (value >>> 8);
+    b[i + 3] = (byte) value;
+  }
+
+  static void putShort(byte[] b, int i, int value) {
+    b[i] = (byte) (value >>> 8);
+    b[i + 1] = (byte) value;
+  }
+
+}
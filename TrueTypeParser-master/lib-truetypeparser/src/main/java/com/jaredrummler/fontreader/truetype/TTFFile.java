@@ -17,6 +17,8 @@
 
 package com.jaredrummler.fontreader.truetype;
 
+import com.jaredrummler.fontreader.io.IOUtils;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -43,7 +45,7 @@ public class TTFFile extends OpenFont {
   }
 
   /**
-   * Reads a TTF file from an InputStream
+   * Reads a TTF file from an InputStream. WOFF and WOFF2 fonts are decoded transparently.
    *
    * @param is
    *     InputStream to read from
@@ -53,7 +55,32 @@ public class TTFFile extends OpenFont {
    */
   public static TTFFile open(InputStream is) throws IOException {
     TTFFile ttfFile = new TTFFile();
-    ttfFile.readFont(new FontFileReader(is));
+    ttfFile.readFont(newReader(IOUtils.toByteArray(is)));
+    return ttfFile;
+  }
+
+  private static FontFileReader newReader(byte[] data) throws IOException {
+    if (WoffFontSource.isWoff(data)) {
+      return new FontFileReader(new WoffFontSource(data));
+    }
+    if (Woff2FontSource.isWoff2(data)) {
+      return new FontFileReader(new Woff2FontSource(data, false));
+    }
+    return new FontFileReader(data);
+  }
+
+  /**
+   * Reads a TTF file from a FontFileReader, for example one obtained from a {@link FontArchive}
+   *
+   * @param reader
+   *     The reader to read from
+   * @return The TrueType file
+   * @throws IOException
+   *     if an IO error occurs
+   */
+  public static TTFFile open(FontFileReader reader) throws IOException {
+    TTFFile ttfFile = new TTFFile();
+    ttfFile.readFont(reader);
     return ttfFile;
   }
 
@@ -80,32 +107,26 @@ public class TTFFile extends OpenFont {
    *     In case of a I/O problem
    */
   protected void readName() throws IOException {
-    seekTab(fontFile, OFTableName.NAME, 2);
-    int i = fontFile.getCurrentPos();
-    int n = fontFile.readTTFUShort();
-    int j = fontFile.readTTFUShort() + i - 2;
-    i += 2 * 2;
-
-    while (n-- > 0) {
-      fontFile.seekSet(i);
-      final int platformID = fontFile.readTTFUShort();
-      final int encodingID = fontFile.readTTFUShort();
-      final int languageID = fontFile.readTTFUShort();
+    OFDirTabEntry entry = dirTabs.get(OFTableName.NAME);
+    if (entry == null) {
+      nameTable = null;
+      return;
+    }
+    nameTable = NameTable.read(fontFile, entry);
 
-      int k = fontFile.readTTFUShort();
-      int l = fontFile.readTTFUShort();
+    for (int i = 0; i < nameTable.getRecordCount(); i++) {
+      final int platformID = nameTable.getPlatformId(i);
+      final int encodingID = nameTable.getEncodingId(i);
+      final int languageID = nameTable.getLanguageId(i);
 
       if (((platformID == 1 || platformID == 3)
           && (encodingID == 0 || encodingID == 1))) {
-        fontFile.seekSet(j + fontFile.readTTFUShort());
-        String txt;
-        if (platformID == 3) {
-          txt = fontFile.readTTFString(l, encodingID);
-        } else {
-          txt = fontFile.readTTFString(l);
+        String txt = nameTable.getString(i);
+        if (txt == null) {
+          continue;
         }
 
-        switch (k) {
+        switch (nameTable.getNameId(i)) {
           case 0:
             if (notice.length() == 0) {
               notice = txt;
@@ -134,7 +155,6 @@ public class TTFFile extends OpenFont {
             break;
         }
       }
-      i += 6 * 2;
     }
   }
 
@@ -0,0 +1,753 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+
+/**
+ * Presents a WOFF2 font as the sfnt file it was made from.
+ *
+ * <p>The table data stream is decompressed once. Tables stored without a transform are
+ * handed to the reader straight out of the decompressed stream. The transformed "glyf" and
+ * "loca" tables are rebuilt in a single pass over the glyph streams into one output buffer,
+ * and a transformed "hmtx" table is rebuilt from the glyph bounding boxes.</p>
+ *
+ * <p>In metadata-only mode the transformed "glyf", "loca" and "hmtx" tables are left out
+ * of the table directory and never reconstructed. This is enough for
+ * {@link OpenFont#readFontInfo(FontFileReader)} and for reading the "name" and "OS/2"
+ * tables, but not for {@link OpenFont#readFont(FontFileReader)}.</p>
+ *
+ * <p>Neither the JDK nor Android ship a Brotli decoder. Unless a {@link Decompressor} is
+ * given, the decoder from {@code org.brotli:dec} is used if it is on the class path.</p>
+ *
+ * <p>The WOFF2 specification can be found at https://www.w3.org/TR/WOFF2/</p>
+ */
+public class Woff2FontSource extends SfntFontSource {
+
+  /** The signature of a WOFF2 file, "wOF2". */
+  public static final int SIGNATURE = 0x774F4632;
+
+  private static final int HEADER_SIZE = 48;
+  private static final int TTC_FLAVOR = 0x74746366; // "ttcf"
+
+  private static final int GLYF = toTag("glyf");
+  private static final int LOCA = toTag("loca");
+  private static final int HMTX = toTag("hmtx");
+  private static final int HHEA = toTag("hhea");
+
+  private static final String[] KNOWN_TAGS = {
+      "cmap", "head", "hhea", "hmtx", "maxp", "name", "OS/2", "post", "cvt ", "fpgm", "glyf",
+      "loca", "prep", "CFF ", "VORG", "EBDT", "EBLC", "gasp", "hdmx", "kern", "LTSH", "PCLT",
+      "VDMX", "vhea", "vmtx", "BASE", "GDEF", "GPOS", "GSUB", "EBSC", "JSTF", "MATH", "CBDT",
+      "CBLC", "COLR", "CPAL", "SVG ", "sbix", "acnt", "avar", "bdat", "bloc", "bsln", "cvar",
+      "fdsc", "feat", "fmtx", "fvar", "gvar", "hsty", "just", "lcar", "mort", "morx", "opbd",
+      "prop", "trak", "Zapf", "Silf", "Glat", "Gloc", "Feat", "Sill"
+  };
+
+  // composite glyph flags
+  private static final int ARG_1_AND_2_ARE_WORDS = 0x0001;
+  private static final int WE_HAVE_A_SCALE = 0x0008;
+  private static final int MORE_COMPONENTS = 0x0020;
+  private static final int WE_HAVE_AN_X_AND_Y_SCALE = 0x0040;
+  private static final int WE_HAVE_A_TWO_BY_TWO = 0x0080;
+  private static final int WE_HAVE_INSTRUCTIONS = 0x0100;
+
+  // simple glyph flags
+  private static final int ON_CURVE = 0x01;
+  private static final int X_SHORT = 0x02;
+  private static final int Y_SHORT = 0x04;
+  private static final int X_SAME_OR_POSITIVE = 0x10;
+  private static final int Y_SAME_OR_POSITIVE = 0x20;
+  private static final int OVERLAP_SIMPLE = 0x40;
+
+  /**
+   * Decompresses the Brotli compressed table data of a WOFF2 file.
+   */
+  public interface Decompressor {
+
+    /**
+     * Decompresses a Brotli stream.
+     *
+     * @param data
+     *     the array holding the compressed stream
+     * @param offset
+     *     the start of the compressed stream
+     * @param length
+     *     the length of the compressed stream
+     * @param decompressedLength
+     *     the expected length of the decompressed data
+     * @return the decompressed data, at least {@code decompressedLength} bytes long
+     * @throws IOException
+     *     if the stream is corrupt
+     */
+    byte[] decompress(byte[] data, int offset, int length, int decompressedLength) throws IOException;
+  }
+
+  private final Segment[] tables;
+  private final boolean metadataOnly;
+
+  /**
+   * Returns whether the data starts with the WOFF2 signature.
+   *
+   * @param data
+   *     The font data
+   * @return true if the data is a WOFF2 font
+   */
+  public static boolean isWoff2(byte[] data) {
+    return data.length >= 4 && getInt(data, 0) == SIGNATURE;
+  }
+
+  /**
+   * Constructor, using the Brotli decoder found on the class path.
+   *
+   * @param data
+   *     The WOFF2 file
+   * @param metadataOnly
+   *     true to skip the reconstruction of the transformed glyph tables
+   * @throws IOException
+   *     if the data is not a valid WOFF2 file or no Brotli decoder is available
+   */
+  public Woff2FontSource(byte[] data, boolean metadataOnly) throws IOException {
+    this(data, metadataOnly, new ClassPathBrotliDecompressor());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param data
+   *     The WOFF2 file
+   * @param metadataOnly
+   *     true to skip the reconstruction of the transformed glyph tables
+   * @param decompressor
+   *     the Brotli decoder to use
+   * @throws IOException
+   *     if the data is not a valid WOFF2 file
+   */
+  public Woff2FontSource(byte[] data, boolean metadataOnly, Decompressor decompressor)
+      throws IOException {
+    this.metadataOnly = metadataOnly;
+    if (!isWoff2(data) || data.length < HEADER_SIZE) {
+      throw new IOException("Not a WOFF2 file");
+    }
+    int flavor = getInt(data, 4);
+    if ((getInt(data, 8) & 0xffffffffL) != data.length) {
+      throw new IOException("WOFF2 length does not match file size " + data.length);
+    }
+    if (flavor == TTC_FLAVOR) {
+      throw new IOException("WOFF2 font collections are not supported");
+    }
+    int numTables = getUShort(data, 12);
+    long compressedLength = getInt(data, 20) & 0xffffffffL;
+
+    Cursor dir = new Cursor(data, HEADER_SIZE, data.length);
+    int[] tags = new int[numTables];
+    int[] origLength = new int[numTables];
+    int[] streamLength = new int[numTables];
+    boolean[] transformed = new boolean[numTables];
+    long total = 0;
+    for (int i = 0; i < numTables; i++) {
+      int flags = dir.u8();
+      int tagIndex = flags & 0x3f;
+      tags[i] = tagIndex == 0x3f ? dir.s32() : toTag(KNOWN_TAGS[tagIndex]);
+      int version = (flags >> 6) & 3;
+      origLength[i] = dir.base128();
+      if (tags[i] == GLYF || tags[i] == LOCA) {
+        transformed[i] = version == 0;
+      } else {
+        transformed[i] = version != 0;
+      }
+      streamLength[i] = transformed[i] ? dir.base128() : origLength[i];
+      total += streamLength[i];
+    }
+    if (dir.pos + compressedLength > data.length || total > Integer.MAX_VALUE) {
+      throw new IOException("Corrupt WOFF2 table directory");
+    }
+
+    byte[] stream = decompressor.decompress(data, dir.pos, (int) compressedLength, (int) total);
+    if (stream.length < total) {
+      throw new IOException("WOFF2 table data decompressed to " + stream.length
+          + " bytes, expected " + total);
+    }
+
+    Segment[] all = new Segment[numTables];
+    int glyf = -1;
+    int loca = -1;
+    int hmtx = -1;
+    int hhea = -1;
+    int offset = 0;
+    for (int i = 0; i < numTables; i++) {
+      if (!transformed[i]) {
+        all[i] = new Segment(stream, offset, 0, origLength[i]);
+      } else if (tags[i] == GLYF) {
+        glyf = i;
+      } else if (tags[i] == LOCA) {
+        loca = i;
+      } else if (tags[i] == HMTX) {
+        hmtx = i;
+      } else {
+        throw new IOException("Unknown transform for table " + tagToString(tags[i]));
+      }
+      if (tags[i] == HHEA) {
+        hhea = i;
+      }
+      offset += streamLength[i];
+    }
+    if ((glyf >= 0) != (loca >= 0)) {
+      throw new IOException("WOFF2 glyf and loca tables must both be transformed");
+    }
+
+    if (!metadataOnly && glyf >= 0) {
+      GlyfReconstruction r = new GlyfReconstruction(stream, streamStart(streamLength, glyf),
+          streamLength[glyf], origLength[glyf]);
+      all[glyf] = new Segment(r.glyf, 0, 0, r.glyfLength);
+      all[loca] = new Segment(r.loca, 0, 0, r.loca.length);
+      if (hmtx >= 0) {
+        if (hhea < 0 || all[hhea].length < 36) {
+          throw new IOException("hmtx transform requires an hhea table");
+        }
+        int numHMetrics = getUShort(all[hhea].data, all[hhea].start + 34);
+        byte[] metrics = reconstructHmtx(stream, streamStart(streamLength, hmtx),
+            streamLength[hmtx], numHMetrics, r.numGlyphs, r.xMin);
+        all[hmtx] = new Segment(metrics, 0, 0, metrics.length);
+      }
+    } else if (!metadataOnly && hmtx >= 0) {
+      throw new IOException("hmtx transform requires a transformed glyf table");
+    }
+
+    // lay out the tables that are present
+    int count = 0;
+    for (Segment s : all) {
+      if (s != null) {
+        count++;
+      }
+    }
+    int[] presentTags = new int[count];
+    int[] checksums = new int[count];
+    int[] lengths = new int[count];
+    Segment[] present = new Segment[count];
+    for (int i = 0, j = 0; i < numTables; i++) {
+      if (all[i] != null) {
+        presentTags[j] = tags[i];
+        checksums[j] = checksum(all[i]);
+        lengths[j] = all[i].length;
+        present[j++] = all[i];
+      }
+    }
+    layout(flavor, presentTags, checksums, lengths);
+    tables = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      tables[i] = new Segment(present[i].data, present[i].start, getTableStart(i), present[i].length);
+    }
+  }
+
+  /**
+   * Returns whether this source was created in metadata-only mode.
+   *
+   * @return true if the transformed glyph tables were skipped
+   */
+  public boolean isMetadataOnly() {
+    return metadataOnly;
+  }
+
+  @Override protected Segment loadTable(int index) {
+    return tables[index];
+  }
+
+  private static int streamStart(int[] streamLength, int index) {
+    int start = 0;
+    for (int i = 0; i < index; i++) {
+      start += streamLength[i];
+    }
+    return start;
+  }
+
+  private static int checksum(Segment s) {
+    int sum = 0;
+    int end = s.start + s.length;
+    int i = s.start;
+    for (; i + 4 <= end; i += 4) {
+      sum += getInt(s.data, i);
+    }
+    int shift = 24;
+    for (; i < end; i++, shift -= 8) {
+      sum += (s.data[i] & 0xff) << shift;
+    }
+    return sum;
+  }
+
+  private static byte[] reconstructHmtx(byte[] data, int offset, int length, int numHMetrics,
+                                        int numGlyphs, short[] xMin) throws IOException {
+    Cursor in = new Cursor(data, offset, offset + length);
+    int flags = in.u8();
+    boolean proportionalLsbOmitted = (flags & 1) != 0;
+    boolean monospacedLsbOmitted = (flags & 2) != 0;
+    if (numHMetrics < 1 || numHMetrics > numGlyphs) {
+      throw new IOException("Invalid numberOfHMetrics " + numHMetrics);
+    }
+    byte[] out = new byte[numHMetrics * 4 + (numGlyphs - numHMetrics) * 2];
+    for (int i = 0; i < numHMetrics; i++) {
+      putShort(out, i * 4, in.u16());
+    }
+    for (int i = 0; i < numHMetrics; i++) {
+      putShort(out, i * 4 + 2, proportionalLsbOmitted ? xMin[i] : in.u16());
+    }
+    for (int i = numHMetrics; i < numGlyphs; i++) {
+      int pos = numHMetrics * 4 + (i - numHMetrics) * 2;
+      putShort(out, pos, monospacedLsbOmitted ? xMin[i] : in.u16());
+    }
+    return out;
+  }
+
+  /**
+   * Rebuilds the "glyf" and "loca" tables from the transformed glyf stream.
+   */
+  private static final class GlyfReconstruction {
+
+    final int numGlyphs;
+    final short[] xMin;
+    final byte[] loca;
+    byte[] glyf;
+    int glyfLength;
+
+    // per glyph scratch, grown as needed and reused for every glyph
+    private int[] endPts = new int[16];
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private byte[] pointFlags = new byte[64];
+
+    GlyfReconstruction(byte[] data, int offset, int length, int origLength) throws IOException {
+      Cursor header = new Cursor(data, offset, offset + length);
+      header.u16(); // reserved
+      int optionFlags = header.u16();
+      numGlyphs = header.u16();
+      int indexFormat = header.u16();
+      int p = header.pos + 7 * 4;
+      Cursor nContourStream = header.sub(p);
+      Cursor nPointsStream = header.sub(nContourStream.end);
+      Cursor flagStream = header.sub(nPointsStream.end);
+      Cursor glyphStream = header.sub(flagStream.end);
+      Cursor compositeStream = header.sub(glyphStream.end);
+      Cursor bboxStream = header.sub(compositeStream.end);
+      Cursor instructionStream = header.sub(bboxStream.end);
+      int overlapBitmap = -1;
+      if ((optionFlags & 1) != 0) {
+        overlapBitmap = instructionStream.end;
+        if (overlapBitmap + ((numGlyphs + 7) >> 3) > offset + length) {
+          throw new IOException("Corrupt WOFF2 glyf transform: overlap bitmap out of bounds");
+        }
+      }
+      int bboxBitmap = bboxStream.pos;
+      bboxStream.skip(((numGlyphs + 31) >> 5) << 2);
+
+      xMin = new short[numGlyphs];
+      int[] offsets = new int[numGlyphs + 1];
+      glyf = new byte[Math.max(origLength, 1024)];
+      for (int i = 0; i < numGlyphs; i++) {
+        offsets[i] = glyfLength;
+        int nContours = nContourStream.s16();
+        boolean hasBbox = (data[bboxBitmap + (i >> 3)] & (0x80 >> (i & 7))) != 0;
+        if (nContours == 0) {
+          if (hasBbox) {
+            throw new IOException("Corrupt WOFF2 glyf transform: empty glyph " + i + " has a bbox");
+          }
+        } else if (nContours == -1) {
+          if (!hasBbox) {
+            throw new IOException("Corrupt WOFF2 glyf transform: composite glyph " + i + " has no bbox");
+          }
+          writeComposite(i, bboxStream, compositeStream, glyphStream, instructionStream);
+        } else if (nContours > 0) {
+          boolean overlap = overlapBitmap >= 0
+              && (data[overlapBitmap + (i >> 3)] & (0x80 >> (i & 7))) != 0;
+          writeSimple(i, nContours, hasBbox, overlap, nPointsStream, flagStream, glyphStream,
+              bboxStream, instructionStream);
+        } else {
+          throw new IOException("Corrupt WOFF2 glyf transform: glyph " + i + " has "
+              + nContours + " contours");
+        }
+        // pad glyphs to 4 bytes so both loca formats can address them
+        int padded = (glyfLength + 3) & ~3;
+        ensureCapacity(padded - glyfLength);
+        glyfLength = padded;
+      }
+      offsets[numGlyphs] = glyfLength;
+
+      if (indexFormat == 0) {
+        if (glyfLength > 0x1fffe) {
+          throw new IOException("glyf table too large for short loca format");
+        }
+        loca = new byte[(numGlyphs + 1) * 2];
+        for (int i = 0; i <= numGlyphs; i++) {
+          putShort(loca, i * 2, offsets[i] >> 1);
+        }
+      } else {
+        loca = new byte[(numGlyphs + 1) * 4];
+        for (int i = 0; i <= numGlyphs; i++) {
+          putInt(loca, i * 4, offsets[i]);
+        }
+      }
+    }
+
+    private void writeComposite(int glyph, Cursor bboxStream, Cursor compositeStream,
+                                Cursor glyphStream, Cursor instructionStream) throws IOException {
+      int start = compositeStream.pos;
+      boolean haveInstructions = false;
+      int flags;
+      do {
+        flags = compositeStream.u16();
+        compositeStream.skip(2); // glyph index
+        compositeStream.skip((flags & ARG_1_AND_2_ARE_WORDS) != 0 ? 4 : 2);
+        if ((flags & WE_HAVE_A_SCALE) != 0) {
+          compositeStream.skip(2);
+        } else if ((flags & WE_HAVE_AN_X_AND_Y_SCALE) != 0) {
+          compositeStream.skip(4);
+        } else if ((flags & WE_HAVE_A_TWO_BY_TWO) != 0) {
+          compositeStream.skip(8);
+        }
+        haveInstructions |= (flags & WE_HAVE_INSTRUCTIONS) != 0;
+      } while ((flags & MORE_COMPONENTS) != 0);
+      int compositeLength = compositeStream.pos - start;
+      int instructionLength = haveInstructions ? glyphStream.u255() : 0;
+
+      ensureCapacity(10 + compositeLength + 2 + instructionLength);
+      putShort(glyf, glyfLength, -1);
+      glyfLength += 2;
+      xMin[glyph] = (short) bboxStream.s16();
+      putShort(glyf, glyfLength, xMin[glyph]);
+      for (int k = 1; k < 4; k++) {
+        putShort(glyf, glyfLength + k * 2, bboxStream.s16());
+      }
+      glyfLength += 8;
+      System.arraycopy(compositeStream.data, start, glyf, glyfLength, compositeLength);
+      glyfLength += compositeLength;
+      if (haveInstructions) {
+        putShort(glyf, glyfLength, instructionLength);
+        glyfLength += 2;
+        instructionStream.copy(glyf, glyfLength, instructionLength);
+        glyfLength += instructionLength;
+      }
+    }
+
+    private void writeSimple(int glyph, int nContours, boolean hasBbox, boolean overlap,
+                             Cursor nPointsStream, Cursor flagStream, Cursor glyphStream,
+                             Cursor bboxStream, Cursor instructionStream) throws IOException {
+      if (endPts.length < nContours) {
+        endPts = new int[Math.max(nContours, endPts.length * 2)];
+      }
+      int numPoints = 0;
+      for (int c = 0; c < nContours; c++) {
+        numPoints += nPointsStream.u255();
+        endPts[c] = numPoints - 1;
+      }
+      if (numPoints > 0xffff) {
+        throw new IOException("Corrupt WOFF2 glyf transform: too many points in glyph " + glyph);
+      }
+      if (xs.length < numPoints) {
+        int n = Math.max(numPoints, xs.length * 2);
+        xs = new int[n];
+        ys = new int[n];
+        pointFlags = new byte[n];
+      }
+
+      // triplet decoding
+      int x = 0;
+      int y = 0;
+      int minX = Integer.MAX_VALUE;
+      int minY = Integer.MAX_VALUE;
+      int maxX = Integer.MIN_VALUE;
+      int maxY = Integer.MIN_VALUE;
+      for (int k = 0; k < numPoints; k++) {
+        int flag = flagStream.u8();
+        boolean onCurve = (flag & 0x80) == 0;
+        flag &= 0x7f;
+        int dx;
+        int dy;
+        if (flag < 10) {
+          dx = 0;
+          dy = withSign(flag, ((flag & 14) << 7) + glyphStream.u8());
+        } else if (flag < 20) {
+          dx = withSign(flag, (((flag - 10) & 14) << 7) + glyphStream.u8());
+          dy = 0;
+        } else if (flag < 84) {
+          int b0 = flag - 20;
+          int b1 = glyphStream.u8();
+          dx = withSign(flag, 1 + (b0 & 0x30) + (b1 >> 4));
+          dy = withSign(flag >> 1, 1 + ((b0 & 0x0c) << 2) + (b1 & 0x0f));
+        } else if (flag < 120) {
+          int b0 = flag - 84;
+          dx = withSign(flag, 1 + ((b0 / 12) << 8) + glyphStream.u8());
+          dy = withSign(flag >> 1, 1 + (((b0 % 12) >> 2) << 8) + glyphStream.u8());
+        } else if (flag < 124) {
+          int b1 = glyphStream.u8();
+          int b2 = glyphStream.u8();
+          int b3 = glyphStream.u8();
+          dx = withSign(flag, (b1 << 4) + (b2 >> 4));
+          dy = withSign(flag >> 1, ((b2 & 0x0f) << 8) + b3);
+        } else {
+          dx = withSign(flag, glyphStream.u16());
+          dy = withSign(flag >> 1, glyphStream.u16());
+        }
+        x += dx;
+        y += dy;
+        xs[k] = x;
+        ys[k] = y;
+        pointFlags[k] = (byte) (onCurve ? ON_CURVE : 0);
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+      }
+      int instructionLength = glyphStream.u255();
+
+      // encode flags and count coordinate bytes
+      int xBytes = 0;
+      int yBytes = 0;
+      int lastX = 0;
+      int lastY = 0;
+      for (int k = 0; k < numPoints; k++) {
+        int flag = pointFlags[k];
+        int dx = xs[k] - lastX;
+        int dy = ys[k] - lastY;
+        if (dx == 0) {
+          flag |= X_SAME_OR_POSITIVE;
+        } else if (dx > -256 && dx < 256) {
+          flag |= X_SHORT | (dx > 0 ? X_SAME_OR_POSITIVE : 0);
+          xBytes += 1;
+        } else {
+          xBytes += 2;
+        }
+        if (dy == 0) {
+          flag |= Y_SAME_OR_POSITIVE;
+        } else if (dy > -256 && dy < 256) {
+          flag |= Y_SHORT | (dy > 0 ? Y_SAME_OR_POSITIVE : 0);
+          yBytes += 1;
+        } else {
+          yBytes += 2;
+        }
+        pointFlags[k] = (byte) flag;
+        lastX = xs[k];
+        lastY = ys[k];
+      }
+      if (overlap && numPoints > 0) {
+        pointFlags[0] |= OVERLAP_SIMPLE;
+      }
+
+      ensureCapacity(10 + 2 * nContours + 2 + instructionLength + numPoints + xBytes + yBytes);
+      putShort(glyf, glyfLength, nContours);
+      glyfLength += 2;
+      if (hasBbox) {
+        minX = bboxStream.s16();
+        minY = bboxStream.s16();
+        maxX = bboxStream.s16();
+        maxY = bboxStream.s16();
+      } else if (numPoints == 0) {
+        minX = minY = maxX = maxY = 0;
+      }
+      xMin[glyph] = (short) minX;
+      putShort(glyf, glyfLength, minX);
+      putShort(glyf, glyfLength + 2, minY);
+      putShort(glyf, glyfLength + 4, maxX);
+      putShort(glyf, glyfLength + 6, maxY);
+      glyfLength += 8;
+      for (int c = 0; c < nContours; c++) {
+        putShort(glyf, glyfLength, endPts[c]);
+        glyfLength += 2;
+      }
+      putShort(glyf, glyfLength, instructionLength);
+      glyfLength += 2;
+      instructionStream.copy(glyf, glyfLength, instructionLength);
+      glyfLength += instructionLength;
+      System.arraycopy(pointFlags, 0, glyf, glyfLength, numPoints);
+      glyfLength += numPoints;
+      int xPos = glyfLength;
+      int yPos = glyfLength + xBytes;
+      lastX = 0;
+      lastY = 0;
+      for (int k = 0; k < numPoints; k++) {
+        int dx = xs[k] - lastX;
+        int dy = ys[k] - lastY;
+        if ((pointFlags[k] & X_SHORT) != 0) {
+          glyf[xPos++] = (byte) Math.abs(dx);
+        } else if (dx != 0) {
+          putShort(glyf, xPos, dx);
+          xPos += 2;
+        }
+        if ((pointFlags[k] & Y_SHORT) != 0) {
+          glyf[yPos++] = (byte) Math.abs(dy);
+        } else if (dy != 0) {
+          putShort(glyf, yPos, dy);
+          yPos += 2;
+        }
+        lastX = xs[k];
+        lastY = ys[k];
+      }
+      glyfLength = yPos;
+    }
+
+    private void ensureCapacity(int extra) {
+      if (glyfLength + extra > glyf.length) {
+        byte[] grown = new byte[Math.max(glyfLength + extra, glyf.length + (glyf.length >> 1))];
+        System.arraycopy(glyf, 0, grown, 0, glyfLength);
+        glyf = grown;
+      }
+    }
+
+    private static int withSign(int flag, int value) {
+      return (flag & 1) != 0 ? value : -value;
+    }
+  }
+
+  /**
+   * Bounds checked big-endian reader over a region of an array.
+   */
+  private static final class Cursor {
+
+    final byte[] data;
+    final int end;
+    int pos;
+
+    Cursor(byte[] data, int pos, int end) {
+      this.data = data;
+      this.pos = pos;
+      this.end = end;
+    }
+
+    /**
+     * Reads a 32 bit stream length and returns a cursor over the stream starting at start.
+     */
+    Cursor sub(int start) throws IOException {
+      long length = s32() & 0xffffffffL;
+      if (start + length > end) {
+        throw new IOException("Corrupt WOFF2 glyf transform: stream out of bounds");
+      }
+      return new Cursor(data, start, start + (int) length);
+    }
+
+    void skip(int n) throws IOException {
+      check(n);
+      pos += n;
+    }
+
+    void copy(byte[] dst, int dstPos, int n) throws IOException {
+      check(n);
+      System.arraycopy(data, pos, dst, dstPos, n);
+      pos += n;
+    }
+
+    int u8() throws IOException {
+      check(1);
+      return data[pos++] & 0xff;
+    }
+
+    int u16() throws IOException {
+      check(2);
+      int v = getUShort(data, pos);
+      pos += 2;
+      return v;
+    }
+
+    int s16() throws IOException {
+      return (short) u16();
+    }
+
+    int s32() throws IOException {
+      check(4);
+      int v = getInt(data, pos);
+      pos += 4;
+      return v;
+    }
+
+    int u255() throws IOException {
+      int code = u8();
+      if (code == 253) {
+        return u16();
+      } else if (code == 255) {
+        return u8() + 253;
+      } else if (code == 254) {
+        return u8() + 253 * 2;
+      }
+      return code;
+    }
+
+    int base128() throws IOException {
+      int value = 0;
+      for (int i = 0; i < 5; i++) {
+        int b = u8();
+        if (i == 0 && b == 0x80) {
+          throw new IOException("Corrupt WOFF2 directory: UIntBase128 with leading zeros");
+        }
+        if ((value & 0xfe000000) != 0) {
+          throw new IOException("Corrupt WOFF2 directory: UIntBase128 overflow");
+        }
+        value = (value << 7) | (b & 0x7f);
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Corrupt WOFF2 directory: UIntBase128 too long");
+    }
+
+    private void check(int n) throws IOException {
+      if (n < 0 || pos + n > end) {
+        throw new IOException("Corrupt WOFF2 data: read past end of stream");
+      }
+    }
+  }
+
+  /**
+   * Uses {@code org.brotli.dec.BrotliInputStream} if it is on the class path.
+   */
+  private static final class ClassPathBrotliDecompressor implements Decompressor {
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int decompressedLength)
+        throws IOException {
+      Constructor<?> constructor;
+      try {
+        constructor = Class.forName("org.brotli.dec.BrotliInputStream")
+            .getConstructor(InputStream.class);
+      } catch (Exception e) {
+        throw new IOException("WOFF2 needs a Brotli decoder: add org.brotli:dec to the class path"
+            + " or pass a Woff2FontSource.Decompressor");
+      }
+      InputStream in;
+      try {
+        in = (InputStream) constructor.newInstance(new ByteArrayInputStream(data, offset, length));
+      } catch (Exception e) {
+        throw new IOException("Could not create Brotli decoder: " + e);
+      }
+      try {
+        byte[] out = new byte[decompressedLength];
+        int n = 0;
+        while (n < decompressedLength) {
+          int r = in.read(out, n, decompressedLength - n);
+          if (r < 0) {
+            throw new IOException("Brotli stream ended after " + n + " bytes");
+          }
+          n += r;
+        }
+        return out;
+      } finally {
+        in.close();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Presents a WOFF 1.0 font as the sfnt file it was made from.
+ *
+ * <p>The sfnt header and table directory are built from the WOFF table directory, with the
+ * tables laid out one after another. A table is only inflated the first time the reader
+ * enters it and is then kept, so reading the names of a WOFF font only inflates the
+ * "name" table.</p>
+ *
+ * <p>The WOFF specification can be found at https://www.w3.org/TR/WOFF/</p>
+ */
+public class WoffFontSource extends SfntFontSource {
+
+  /** The signature of a WOFF 1.0 file, "wOFF". */
+  public static final int SIGNATURE = 0x774F4646;
+
+  private static final int WOFF_HEADER_SIZE = 44;
+  private static final int WOFF_ENTRY_SIZE = 20;
+
+  private final FontFileReader woff;
+  private final int[] tags;
+  private final int[] tableLength;
+  private final long[] woffOffset;
+  private final int[] compLength;
+  private final Segment[] tables;
+
+  /**
+   * Returns whether the data starts with the WOFF 1.0 signature.
+   *
+   * @param data
+   *     The font data
+   * @return true if the data is a WOFF 1.0 font
+   */
+  public static boolean isWoff(byte[] data) {
+    return data.length >= 4 && getInt(data, 0) == SIGNATURE;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param data
+   *     The WOFF file
+   * @throws IOException
+   *     if the data is not a valid WOFF file
+   */
+  public WoffFontSource(byte[] data) throws IOException {
+    this(new FontFileReader(data));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param woff
+   *     A reader over the WOFF file
+   * @throws IOException
+   *     if the data is not a valid WOFF file
+   */
+  public WoffFontSource(FontFileReader woff) throws IOException {
+    this.woff = woff;
+    woff.seekSet(0);
+    if (woff.readTTFLong() != SIGNATURE) {
+      throw new IOException("Not a WOFF file");
+    }
+    int flavor = woff.readTTFLong();
+    long length = woff.readTTFULong();
+    if (length != woff.getFileSize()) {
+      throw new IOException("WOFF length " + length + " does not match file size " + woff.getFileSize());
+    }
+    int numTables = woff.readTTFUShort();
+
+    tags = new int[numTables];
+    tableLength = new int[numTables];
+    woffOffset = new long[numTables];
+    compLength = new int[numTables];
+    tables = new Segment[numTables];
+    int[] checksums = new int[numTables];
+
+    for (int i = 0; i < numTables; i++) {
+      woff.seekSet(WOFF_HEADER_SIZE + i * WOFF_ENTRY_SIZE);
+      tags[i] = woff.readTTFLong();
+      long offset = woff.readTTFULong();
+      long comp = woff.readTTFULong();
+      long orig = woff.readTTFULong();
+      checksums[i] = woff.readTTFLong();
+      if (offset + comp > woff.getFileSize() || comp > orig || orig > Integer.MAX_VALUE) {
+        throw new IOException("Corrupt WOFF table directory entry " + i);
+      }
+      woffOffset[i] = offset;
+      compLength[i] = (int) comp;
+      tableLength[i] = (int) orig;
+    }
+    layout(flavor, tags, checksums, tableLength);
+  }
+
+  /**
+   * Returns whether a table has already been inflated.
+   *
+   * @param tag
+   *     The table tag
+   * @return true if the table is present and has been loaded
+   */
+  public boolean isTableLoaded(OFTableName tag) {
+    int i = indexOf(tag);
+    return i >= 0 && tables[i] != null;
+  }
+
+  @Override protected Segment loadTable(int i) throws IOException {
+    if (tables[i] != null) {
+      return tables[i];
+    }
+    byte[] compressed = woff.getBytes((int) woffOffset[i], compLength[i]);
+    byte[] table = compressed;
+    if (compLength[i] != tableLength[i]) {
+      table = new byte[tableLength[i]];
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(compressed);
+        int n = inflater.inflate(table, 0, tableLength[i]);
+        if (n != tableLength[i] || !inflater.finished()) {
+          throw new IOException("Table " + tagToString(tags[i]) + " inflated to " + n
+              + " bytes, expected " + tableLength[i]);
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("Corrupt compressed table " + tagToString(tags[i]) + ": " + e.getMessage());
+      } finally {
+        inflater.end();
+      }
+    }
+    tables[i] = new Segment(table, 0, getTableStart(i), tableLength[i]);
+    return tables[i];
+  }
+
+}
@@ -18,9 +18,9 @@
 package com.jaredrummler.fontreader.util;
 
 import com.jaredrummler.fontreader.complexscripts.util.CharAssociation;
+import com.jaredrummler.fontreader.complexscripts.util.CharAssociationBuffer;
 
 import java.nio.IntBuffer;
-import java.util.ArrayList;
 import java.util.List;
 
 // CSOFF: LineLengthCheck
@@ -32,6 +32,10 @@ import java.util.List;
  * relate the glyph codes in a glyph sequence to the specific characters in an original
  * character code sequence with which the glyph codes are associated.</p>
  *
+ * <p>Associations are stored in a {@link CharAssociationBuffer}, so joining, concatenating and
+ * reordering sequences copies primitive arrays; {@link CharAssociation} instances are only
+ * created when requested through {@link #getAssociation(int)} and related methods.</p>
+ *
  * <p>This work was originally authored by Glenn Adams (gadams@apache.org).</p>
  */
 public class GlyphSequence implements Cloneable {
@@ -43,8 +47,8 @@ public class GlyphSequence implements Cloneable {
   private IntBuffer characters;
   /** glyph buffer */
   private IntBuffer glyphs;
-  /** association list */
-  private List associations;
+  /** association buffer */
+  private CharAssociationBuffer associations;
   /** predications flag */
   private boolean predications;
 
@@ -64,7 +68,30 @@ public class GlyphSequence implements Cloneable {
    * @param predications
    *     true if predications are enabled
    */
+  @SuppressWarnings("unchecked")
   public GlyphSequence(IntBuffer characters, IntBuffer glyphs, List associations, boolean predications) {
+    this(characters, glyphs, (associations != null) ? CharAssociationBuffer.fromList(associations) : null,
+        predications);
+  }
+
+  /**
+   * Instantiate a glyph sequence, reusing (i.e., not copying) the referenced
+   * character and glyph buffers and association buffer. If characters is null, then
+   * an empty character buffer is created. If glyphs is null, then a glyph buffer
+   * is created whose capacity is that of the character buffer. If associations is
+   * null, then identity associations are created.
+   *
+   * @param characters
+   *     a (possibly null) buffer of associated (originating) characters
+   * @param glyphs
+   *     a (possibly null) buffer of glyphs
+   * @param associations
+   *     a (possibly null) buffer of glyph to character associations
+   * @param predications
+   *     true if predications are enabled
+   */
+  public GlyphSequence(IntBuffer characters, IntBuffer glyphs, CharAssociationBuffer associations,
+                       boolean predications) {
     if (characters == null) {
       characters = IntBuffer.allocate(DEFAULT_CHARS_CAPACITY);
     }
@@ -72,7 +99,7 @@ public class GlyphSequence implements Cloneable {
       glyphs = IntBuffer.allocate(characters.capacity());
     }
     if (associations == null) {
-      associations = makeIdentityAssociations(characters.limit(), glyphs.limit());
+      associations = CharAssociationBuffer.identity(characters.limit(), glyphs.limit());
     }
     this.characters = characters;
     this.glyphs = glyphs;
@@ -107,7 +134,7 @@ public class GlyphSequence implements Cloneable {
    *     an existing glyph sequence
    */
   public GlyphSequence(GlyphSequence gs) {
-    this(gs.characters.duplicate(), copyBuffer(gs.glyphs), copyAssociations(gs.associations), gs.predications);
+    this(gs.characters.duplicate(), copyBuffer(gs.glyphs), gs.associations.copy(), gs.predications);
   }
 
   /**
@@ -289,15 +316,24 @@ public class GlyphSequence implements Cloneable {
    *     or exceeds last valid position
    */
   public CharAssociation getAssociation(int index) throws IndexOutOfBoundsException {
-    return (CharAssociation) associations.get(index);
+    return associations.get(index);
   }
 
   /**
-   * Obtain reference to underlying associations list.
+   * Obtain a read-only list view of the associations, whose elements are created on demand.
    *
    * @return associations list
    */
   public List getAssociations() {
+    return associations.asList();
+  }
+
+  /**
+   * Obtain reference to underlying association buffer.
+   *
+   * @return association buffer reference
+   */
+  public CharAssociationBuffer getAssociationBuffer() {
     return associations;
   }
 
@@ -324,7 +360,7 @@ public class GlyphSequence implements Cloneable {
     CharAssociation[] aa = new CharAssociation[count];
     for (int i = offset, n = offset + count, k = 0; i < n; i++) {
       if (k < aa.length) {
-        aa[k++] = (CharAssociation) associations.get(i);
+        aa[k++] = associations.get(i);
       }
     }
     return aa;
@@ -361,9 +397,7 @@ public class GlyphSequence implements Cloneable {
    */
   public void setPredication(int offset, String key, Object value) {
     if (predications) {
-      CharAssociation[] aa = getAssociations(offset, 1);
-      CharAssociation ca = aa[0];
-      ca.setPredication(key, value);
+      associations.setPredication(offset, key, value);
     }
   }
 
@@ -378,9 +412,7 @@ public class GlyphSequence implements Cloneable {
    */
   public Object getPredication(int offset, String key) {
     if (predications) {
-      CharAssociation[] aa = getAssociations(offset, 1);
-      CharAssociation ca = aa[0];
-      return ca.getPredication(key);
+      return associations.getPredication(offset, key);
     } else {
       return null;
     }
@@ -418,7 +450,7 @@ public class GlyphSequence implements Cloneable {
       GlyphSequence gs = (GlyphSequence) super.clone();
       gs.characters = copyBuffer(characters);
       gs.glyphs = copyBuffer(glyphs);
-      gs.associations = copyAssociations(associations);
+      gs.associations = associations.copy();
       return gs;
     } catch (CloneNotSupportedException e) {
       return null;
@@ -511,9 +543,10 @@ public class GlyphSequence implements Cloneable {
    *     input association array
    * @param laa
    *     lookahead association array
-   * @return new list containing concatenated associations
+   * @return new buffer containing concatenated associations, or null if there are none
    */
-  public static List concatAssociations(CharAssociation[] baa, CharAssociation[] iaa, CharAssociation[] laa) {
+  public static CharAssociationBuffer concatAssociations(CharAssociation[] baa, CharAssociation[] iaa,
+                                                         CharAssociation[] laa) {
     int na = 0;
     if (baa != null) {
       na += baa.length;
@@ -525,23 +558,23 @@ public class GlyphSequence implements Cloneable {
       na += laa.length;
     }
     if (na > 0) {
-      List gl = new ArrayList(na);
+      CharAssociationBuffer ab = new CharAssociationBuffer(na);
       if (baa != null) {
         for (int i = 0; i < baa.length; i++) {
-          gl.add(baa[i]);
+          ab.add(baa[i]);
         }
       }
       if (iaa != null) {
         for (int i = 0; i < iaa.length; i++) {
-          gl.add(iaa[i]);
+          ab.add(iaa[i]);
         }
       }
       if (laa != null) {
         for (int i = 0; i < laa.length; i++) {
-          gl.add(laa[i]);
+          ab.add(laa[i]);
         }
       }
-      return gl;
+      return ab;
     } else {
       return null;
     }
@@ -565,21 +598,21 @@ public class GlyphSequence implements Cloneable {
       IntBuffer ga = s.getGlyphs();
       assert ga != null;
       int ng = ga.limit();
-      List al = s.getAssociations();
-      assert al != null;
-      int na = al.size();
+      CharAssociationBuffer ab = s.associations;
+      assert ab != null;
+      int na = ab.size();
       assert na == ng;
       tg += ng;
       ta += na;
     }
     IntBuffer uga = IntBuffer.allocate(tg);
-    ArrayList ual = new ArrayList(ta);
+    CharAssociationBuffer uab = new CharAssociationBuffer(ta);
     for (int i = 0, n = sa.length; i < n; i++) {
       GlyphSequence s = sa[i];
       uga.put(s.getGlyphs());
-      ual.addAll(s.getAssociations());
+      uab.add(s.associations, 0, s.associations.size());
     }
-    return new GlyphSequence(gs.getCharacters(), uga, ual, gs.getPredications());
+    return new GlyphSequence(gs.getCharacters(), uga, uab, gs.getPredications());
   }
 
   /**
@@ -599,52 +632,60 @@ public class GlyphSequence implements Cloneable {
     if (source != target) {
       int ng = gs.getGlyphCount();
       int[] ga = gs.getGlyphArray(false);
-      int[] nga = new int[ng];
-      CharAssociation[] aa = gs.getAssociations(0, ng);
-      CharAssociation[] naa = new CharAssociation[ng];
+      CharAssociationBuffer ab = gs.associations;
+      IntBuffer ngb = IntBuffer.allocate(ng);
+      CharAssociationBuffer nab = new CharAssociationBuffer(ng);
       if (source < target) {
-        int t = 0;
-        for (int s = 0, e = source; s < e; s++, t++) {
-          nga[t] = ga[s];
-          naa[t] = aa[s];
-        }
-        for (int s = source + count, e = target; s < e; s++, t++) {
-          nga[t] = ga[s];
-          naa[t] = aa[s];
-        }
-        for (int s = source, e = source + count; s < e; s++, t++) {
-          nga[t] = ga[s];
-          naa[t] = aa[s];
-        }
-        for (int s = target, e = ng; s < e; s++, t++) {
-          nga[t] = ga[s];
-          naa[t] = aa[s];
-        }
+        ngb.put(ga, 0, source);
+        nab.add(ab, 0, source);
+        ngb.put(ga, source + count, target - (source + count));
+        nab.add(ab, source + count, target);
+        ngb.put(ga, source, count);
+        nab.add(ab, source, source + count);
+        ngb.put(ga, target, ng - target);
+        nab.add(ab, target, ng);
       } else {
-        int t = 0;
-        for (int s = 0, e = target; s < e; s++, t++) {
-          nga[t] = ga[s];
-          naa[t] = aa[s];
-        }
-        for (int s = source, e = source + count; s < e; s++, t++) {
-          nga[t] = ga[s];
-          naa[t] = aa[s];
-        }
-        for (int s = target, e = source; s < e; s++, t++) {
-          nga[t] = ga[s];
-          naa[t] = aa[s];
-        }
-        for (int s = source + count, e = ng; s < e; s++, t++) {
-          nga[t] = ga[s];
-          naa[t] = aa[s];
-        }
+        ngb.put(ga, 0, target);
+        nab.add(ab, 0, target);
+        ngb.put(ga, source, count);
+        nab.add(ab, source, source + count);
+        ngb.put(ga, target, source - target);
+        nab.add(ab, target, source);
+        ngb.put(ga, source + count, ng - (source + count));
+        nab.add(ab, source + count, ng);
       }
-      return new GlyphSequence(gs, null, nga, null, null, naa, null);
+      ngb.flip();
+      return new GlyphSequence(gs.characters.duplicate(), ngb, nab, gs.predications);
     } else {
       return gs;
     }
   }
 
+  /**
+   * Select glyphs (and their associations) of a sequence by index.
+   *
+   * @param gs
+   *     input sequence
+   * @param indices
+   *     indices of the glyphs to select, in output order
+   * @param count
+   *     number of indices to use
+   * @return new sequence sharing the character array of GS and containing the selected glyphs
+   */
+  public static GlyphSequence select(GlyphSequence gs, int[] indices, int count) {
+    int[] ga = gs.getGlyphArray(false);
+    CharAssociationBuffer ab = gs.associations;
+    IntBuffer ngb = IntBuffer.allocate(count);
+    CharAssociationBuffer nab = new CharAssociationBuffer(count);
+    for (int i = 0; i < count; i++) {
+      int k = indices[i];
+      ngb.put(ga[k]);
+      nab.add(ab, k);
+    }
+    ngb.flip();
+    return new GlyphSequence(gs.characters.duplicate(), ngb, nab, gs.predications);
+  }
+
   private static int[] toArray(IntBuffer ib) {
     if (ib != null) {
       int n = ib.limit();
@@ -656,17 +697,6 @@ public class GlyphSequence implements Cloneable {
     }
   }
 
-  private static List makeIdentityAssociations(int numChars, int numGlyphs) {
-    int nc = numChars;
-    int ng = numGlyphs;
-    List av = new ArrayList(ng);
-    for (int i = 0, n = ng; i < n; i++) {
-      int k = (i > nc) ? nc : i;
-      av.add(new CharAssociation(i, (k == nc) ? 0 : 1));
-    }
-    return av;
-  }
-
   private static IntBuffer copyBuffer(IntBuffer ib) {
     if (ib != null) {
       int[] ia = new int[ib.capacity()];
@@ -679,12 +709,4 @@ public class GlyphSequence implements Cloneable {
     }
   }
 
-  private static List copyAssociations(List ca) {
-    if (ca != null) {
-      return new ArrayList(ca);
-    } else {
-      return ca;
-    }
-  }
-
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.bidi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Cases in the format of BidiCharacterTest.txt: code points, paragraph level and the resolved
+ * levels, where {@code x} marks a character removed by rule X9.
+ */
+public class BidiResolverTest {
+
+  private static void check(String text, int paragraphLevel, String expected) {
+    String[] hex = text.split(" ");
+    int[] cps = new int[hex.length];
+    for (int i = 0; i < hex.length; i++) {
+      cps[i] = Integer.parseInt(hex[i], 16);
+    }
+    byte[] levels = new byte[cps.length];
+    new BidiResolver().resolveLevels(cps, cps.length, paragraphLevel, levels);
+    String[] want = expected.split(" ");
+    assertEquals(text, want.length, levels.length);
+    for (int i = 0; i < want.length; i++) {
+      if (!want[i].equals("x")) {
+        assertEquals(text + " [" + i + "]", Integer.parseInt(want[i]), levels[i]);
+      }
+    }
+  }
+
+  @Test public void testSosFromEmbeddingLevel() {
+    // the space follows a run at embedding level 2, so sos is L even though U+05D0 resolves to 3
+    check("202A 05D0 202C 0020 05D1", 0, "x 3 x 0 1");
+  }
+
+  @Test public void testSosNotFromImplicitLevel() {
+    // 'a' resolves to 2, but sos of the following run comes from its embedding level 1
+    check("05D0 202B 0061 202C 0020 0031", 0, "1 x 2 x 1 2");
+  }
+
+  @Test public void testIsolate() {
+    check("0061 2067 05D0 2069 0062", 0, "0 0 1 0 0");
+    check("2067 05D0 2069 0020", 0, "0 1 0 0");
+  }
+
+  @Test public void testUnmatchedIsolateInitiator() {
+    check("0061 2067 0062", 0, "0 0 2");
+  }
+
+  @Test public void testTrailingWhitespace() {
+    check("0061 0020 0062 0020", 1, "2 2 2 1");
+  }
+
+  @Test public void testNumbers() {
+    check("05D0 0031 0032", 0, "1 2 2");
+    check("0627 0031", 0, "1 2");
+    check("0661", 0, "2");
+  }
+
+  @Test public void testBrackets() {
+    check("05D0 0028 0061 0029", 1, "1 1 2 1");
+    check("0061 0028 05D0 0029", 0, "0 0 1 0");
+    check("05D0 0028 0061 0029 0300", 1, "1 1 2 1 1");
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.complexscripts.fonts;
+
+import com.jaredrummler.fontreader.fonts.GlyphSubtable;
+import com.jaredrummler.fontreader.truetype.GlyphTable;
+import com.jaredrummler.fontreader.util.GlyphSequence;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.jaredrummler.fontreader.complexscripts.fonts.GlyphPositioningTable.Value.IDX_X_PLACEMENT;
+import static com.jaredrummler.fontreader.complexscripts.fonts.GlyphPositioningTable.Value.IDX_Y_PLACEMENT;
+import static org.junit.Assert.assertEquals;
+
+public class PositionBufferTest {
+
+  @Test public void testMarkThenMarkToMark() {
+    PositionBuffer pb = new PositionBuffer(4);
+    // mark: each mark is placed on the base
+    for (int i = 1; i < 4; i++) {
+      pb.attach(i, 0, PositionBuffer.ATTACH_MARK);
+      pb.add(i, IDX_X_PLACEMENT, 527);
+    }
+    // mkmk: the second and third mark are placed on the mark before them
+    pb.attach(2, 1, PositionBuffer.ATTACH_MARK);
+    pb.add(2, IDX_Y_PLACEMENT, 222);
+    pb.attach(3, 2, PositionBuffer.ATTACH_MARK);
+    pb.add(3, IDX_Y_PLACEMENT, 193);
+    pb.resolveAttachments();
+    assertPlacement(pb, 1, 527, 0);
+    assertPlacement(pb, 2, 527, 222);
+    assertPlacement(pb, 3, 527, 415);
+  }
+
+  @Test public void testCursiveReattachKeepsX() {
+    PositionBuffer pb = new PositionBuffer(2);
+    pb.add(0, IDX_X_PLACEMENT, 10);
+    pb.add(0, IDX_Y_PLACEMENT, 20);
+    pb.attach(0, 1, PositionBuffer.ATTACH_CURSIVE);
+    pb.add(1, IDX_Y_PLACEMENT, 5);
+    pb.resolveAttachments();
+    assertPlacement(pb, 0, 10, 5);
+  }
+
+  @Test public void testStackedMarks() {
+    // a base (1) followed by an acute (2) and two diaeresis marks (3), each mark stacked on the one before it
+    GlyphPositioningTable gpos = createMarkTable(527, 500, new int[]{222, 193});
+    GlyphSequence gs = new GlyphSequence(IntBuffer.wrap(new int[]{'a', 0x0301, 0x0308, 0x0308}),
+        IntBuffer.wrap(new int[]{1, 2, 3, 3}), null);
+    PositionBuffer pb = new PositionBuffer(4);
+    gpos.position(gs, "latn", "dflt", 1000, new int[]{556, 0, 0, 0}, pb);
+    assertPlacement(pb, 1, 527, 500);
+    assertPlacement(pb, 2, 527, 722);
+    assertPlacement(pb, 3, 527, 915);
+  }
+
+  /**
+   * Creates a table whose "mark" feature places marks 2 and 3 on base 1 at the base anchor, and whose "mkmk"
+   * feature places them on a preceding mark at the anchor of that mark, i.e., at <code>markY[0]</code> above mark 2
+   * and <code>markY[1]</code> above mark 3.
+   */
+  private static GlyphPositioningTable createMarkTable(int baseX, int baseY, int[] markY) {
+    List<GlyphMappingTable.MappingRange> classes = new ArrayList<GlyphMappingTable.MappingRange>();
+    classes.add(new GlyphMappingTable.MappingRange(1, 1, GlyphDefinitionTable.GLYPH_CLASS_BASE));
+    classes.add(new GlyphMappingTable.MappingRange(2, 3, GlyphDefinitionTable.GLYPH_CLASS_MARK));
+    GlyphDefinitionTable gdef = new GlyphDefinitionTable(Collections.singletonList(
+        GlyphDefinitionTable.createSubtable(GlyphDefinitionTable.GDEF_LOOKUP_TYPE_GLYPH_CLASS, "lu0", 0, 0, 1,
+            GlyphClassTable.createClassTable(classes), null)));
+
+    GlyphCoverageTable marks = GlyphCoverageTable.createCoverageTable(Arrays.asList(2, 3));
+    GlyphPositioningTable.MarkAnchor[] markAnchors = new GlyphPositioningTable.MarkAnchor[2];
+    Arrays.fill(markAnchors, new GlyphPositioningTable.MarkAnchor(0, new GlyphPositioningTable.Anchor(0, 0)));
+    GlyphPositioningTable.Anchor[][] baseAnchors = {{new GlyphPositioningTable.Anchor(baseX, baseY)}};
+    GlyphPositioningTable.Anchor[][] mark2Anchors = new GlyphPositioningTable.Anchor[markY.length][];
+    for (int i = 0; i < markY.length; i++) {
+      mark2Anchors[i] = new GlyphPositioningTable.Anchor[]{new GlyphPositioningTable.Anchor(0, markY[i])};
+    }
+    List<GlyphSubtable> subtables = new ArrayList<GlyphSubtable>();
+    subtables.add(GlyphPositioningTable.createSubtable(GlyphPositioningTable.GPOS_LOOKUP_TYPE_MARK_TO_BASE, "lu0", 0,
+        0, 1, marks, Arrays.asList(GlyphCoverageTable.createCoverageTable(Collections.singletonList(1)), 1,
+            markAnchors, baseAnchors)));
+    subtables.add(GlyphPositioningTable.createSubtable(GlyphPositioningTable.GPOS_LOOKUP_TYPE_MARK_TO_MARK, "lu1", 0,
+        0, 1, marks, Arrays.asList(marks, 1, markAnchors, mark2Anchors)));
+    Map<GlyphTable.LookupSpec, List<String>> lookups = new HashMap<GlyphTable.LookupSpec, List<String>>();
+    lookups.put(new GlyphTable.LookupSpec("latn", "dflt", "mark"), Collections.singletonList("lu0"));
+    lookups.put(new GlyphTable.LookupSpec("latn", "dflt", "mkmk"), Collections.singletonList("lu1"));
+    return new GlyphPositioningTable(gdef, lookups, subtables);
+  }
+
+  private static void assertPlacement(PositionBuffer pb, int index, int x, int y) {
+    assertEquals("x placement of " + index, x, pb.get(index, IDX_X_PLACEMENT));
+    assertEquals("y placement of " + index, y, pb.get(index, IDX_Y_PLACEMENT));
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.fonts;
+
+import com.jaredrummler.fontreader.complexscripts.fonts.GlyphCoverageTable;
+import com.jaredrummler.fontreader.truetype.GlyphTable;
+import com.jaredrummler.fontreader.util.GlyphSequence;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class GlyphSubstitutionTableTest {
+
+  @Test public void testDeletedGlyphInContextualMatch() {
+    // the rule matches 10 11 and substitutes 10 by the deleted glyph; exactly the matched glyphs are output, the
+    // deleted glyph included, so 12 is neither pulled into the match nor output twice
+    GlyphSubstitutionTable gsub = createTable(new int[]{10, 11}, new int[0], 10, 65535);
+    GlyphSequence out = gsub.substitute(createSequence(10, 11, 12), "latn", "dflt");
+    assertArrayEquals(new int[]{65535, 11, 12}, out.getGlyphs(0, -1));
+  }
+
+  /**
+   * Allocation benchmark for contextual matching: a rule that is tried at every glyph of a run, and fails on its
+   * backtrack, must allocate no more than the same lookup tried at a single glyph, so matching produces no garbage
+   * per attempt. Skipped where the JVM does not count allocated bytes per thread.
+   */
+  @Test public void testContextualMatchAllocatesNothingPerAttempt() throws Exception {
+    Object bean;
+    Method allocatedBytes;
+    try {
+      // looked up reflectively, as unit tests are compiled against android.jar
+      bean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+      allocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+          .getMethod("getThreadAllocatedBytes", long.class);
+    } catch (Exception e) {
+      bean = null;
+      allocatedBytes = null;
+    }
+    assumeTrue(bean != null);
+
+    // 1 is substituted by 3 only when preceded by 2, which never occurs
+    GlyphSubstitutionTable gsub = createTable(new int[]{1}, new int[]{2}, 1, 3);
+    int n = 4096;
+    int[] everyGlyph = new int[n];
+    int[] oneGlyph = new int[n];
+    Arrays.fill(everyGlyph, 1);
+    Arrays.fill(oneGlyph, 4);
+    oneGlyph[0] = 1;
+    GlyphSequence tried = createSequence(everyGlyph);
+    GlyphSequence once = createSequence(oneGlyph);
+
+    long threadId = Thread.currentThread().getId();
+    int runs = 200;
+    long triedBytes = Long.MAX_VALUE;
+    long onceBytes = Long.MAX_VALUE;
+    for (int round = 0; round < 5; round++) {
+      long b0 = (Long) allocatedBytes.invoke(bean, threadId);
+      for (int i = 0; i < runs; i++) {
+        gsub.substitute(tried, "latn", "dflt");
+      }
+      long b1 = (Long) allocatedBytes.invoke(bean, threadId);
+      for (int i = 0; i < runs; i++) {
+        gsub.substitute(once, "latn", "dflt");
+      }
+      long b2 = (Long) allocatedBytes.invoke(bean, threadId);
+      triedBytes = Math.min(triedBytes, b1 - b0);
+      onceBytes = Math.min(onceBytes, b2 - b1);
+    }
+    double perAttempt = (double) (triedBytes - onceBytes) / ((long) runs * (n - 1));
+    assertTrue("allocated " + perAttempt + " bytes per match attempt", perAttempt < 1);
+  }
+
+  private static GlyphSequence createSequence(int... glyphs) {
+    return new GlyphSequence(IntBuffer.wrap(glyphs.clone()), IntBuffer.wrap(glyphs.clone()), null);
+  }
+
+  /**
+   * Creates a table whose "ccmp" feature applies a chained contextual rule, which substitutes the first glyph of
+   * its input by a single substitution.
+   */
+  private static GlyphSubstitutionTable createTable(int[] input, int[] backtrack, int from, int to) {
+    GlyphCoverageTable[] ic = createCoverages(input);
+    GlyphCoverageTable[] bc = createCoverages(backtrack);
+    GlyphTable.RuleLookup[] rl = {new GlyphTable.RuleLookup(0, 1)};
+    GlyphTable.Rule rule = new GlyphTable.ChainedCoverageSequenceRule(rl, ic.length, ic, bc,
+        new GlyphCoverageTable[0]);
+    GlyphTable.RuleSet[] rsa = {new GlyphTable.HomogeneousRuleSet(new GlyphTable.Rule[]{rule})};
+    List<GlyphSubtable> subtables = new ArrayList<GlyphSubtable>();
+    subtables.add(GlyphSubstitutionTable.createSubtable(GlyphSubstitutionTable.GSUB_LOOKUP_TYPE_CHAINED_CONTEXTUAL,
+        "lu0", 0, 0, 3, ic[0], Collections.<Object>singletonList(rsa)));
+    subtables.add(GlyphSubstitutionTable.createSubtable(GlyphSubstitutionTable.GSUB_LOOKUP_TYPE_SINGLE,
+        "lu1", 0, 0, 2, createCoverages(new int[]{from})[0], Collections.<Object>singletonList(to)));
+    Map<GlyphTable.LookupSpec, List<String>> lookups = new HashMap<GlyphTable.LookupSpec, List<String>>();
+    lookups.put(new GlyphTable.LookupSpec("latn", "dflt", "ccmp"), Collections.singletonList("lu0"));
+    return new GlyphSubstitutionTable(null, lookups, subtables);
+  }
+
+  private static GlyphCoverageTable[] createCoverages(int[] glyphs) {
+    GlyphCoverageTable[] coverages = new GlyphCoverageTable[glyphs.length];
+    for (int i = 0; i < glyphs.length; i++) {
+      coverages[i] = GlyphCoverageTable.createCoverageTable(Collections.singletonList(glyphs[i]));
+    }
+    return coverages;
+  }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class FontArchiveTest {
+
+  @Test public void testCollectionEntry() throws IOException {
+    File file = File.createTempFile("fonts", ".zip");
+    try {
+      ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file));
+      try {
+        zip.putNextEntry(new ZipEntry("fonts/Test.ttc"));
+        zip.write(collection("First", "Second"));
+        zip.closeEntry();
+        zip.putNextEntry(new ZipEntry("fonts/Test.ttf"));
+        zip.write(font("Single", 0));
+        zip.closeEntry();
+      } finally {
+        zip.close();
+      }
+
+      FontArchive archive = FontArchive.open(file);
+      try {
+        assertEquals(Arrays.asList("fonts/Test.ttc", "fonts/Test.ttf"), archive.getFontEntryNames());
+
+        FontFileReader reader = archive.getReader("fonts/Test.ttc");
+        try {
+          assertEquals("First", new TTFFile().readFontInfo(reader).getFullName());
+        } finally {
+          reader.close();
+        }
+
+        reader = archive.getReader("fonts/Test.ttc");
+        try {
+          List<FontInfo> fonts = new TTFFile().getTTCFontInfo(reader);
+          assertEquals(2, fonts.size());
+          assertEquals("First", fonts.get(0).getFullName());
+          assertEquals("Second", fonts.get(1).getFullName());
+        } finally {
+          reader.close();
+        }
+
+        reader = archive.getReader("fonts/Test.ttf");
+        try {
+          assertEquals("Single", new TTFFile().readFontInfo(reader).getFullName());
+        } finally {
+          reader.close();
+        }
+      } finally {
+        archive.close();
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  /** Returns a collection of fonts that each hold only a "name" table with a full name. */
+  private static byte[] collection(String... names) throws IOException {
+    int header = 12 + 4 * names.length;
+    ByteArrayOutputStream fonts = new ByteArrayOutputStream();
+    int[] offsets = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      offsets[i] = header + fonts.size();
+      fonts.write(font(names[i], offsets[i]));
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeBytes("ttcf");
+    out.writeInt(0x00010000);
+    out.writeInt(names.length);
+    for (int offset : offsets) {
+      out.writeInt(offset);
+    }
+    fonts.writeTo(out);
+    return bytes.toByteArray();
+  }
+
+  /** Returns a font holding only a "name" table, with table offsets relative to {@code base}. */
+  private static byte[] font(String fullName, int base) throws IOException {
+    byte[] string = fullName.getBytes("UTF-16BE");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    // offset table and a single table record
+    out.writeInt(0x00010000);
+    out.writeShort(1);
+    out.writeShort(16);
+    out.writeShort(0);
+    out.writeShort(0);
+    out.writeBytes("name");
+    out.writeInt(0);
+    out.writeInt(base + 12 + 16);
+    out.writeInt(6 + 12 + string.length);
+    // name table with one Windows full name record
+    out.writeShort(0);
+    out.writeShort(1);
+    out.writeShort(6 + 12);
+    out.writeShort(3);
+    out.writeShort(1);
+    out.writeShort(0x409);
+    out.writeShort(4);
+    out.writeShort(string.length);
+    out.writeShort(0);
+    out.write(string);
+    return bytes.toByteArray();
+  }
+
+}
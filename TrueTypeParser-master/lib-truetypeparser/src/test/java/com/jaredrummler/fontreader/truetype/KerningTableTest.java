@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016 Jared Rummler <jared.rummler@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.jaredrummler.fontreader.truetype;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class KerningTableTest {
+
+  @Test public void testPairAndClassOffsetSubtables() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeShort(0);
+    out.writeShort(2);
+    // format 0: pairs 1 2 and 3 5
+    out.writeShort(0);
+    out.writeShort(6 + 8 + 2 * 6);
+    out.writeShort(0x0001);
+    out.writeShort(2);
+    out.writeShort(12);
+    out.writeShort(1);
+    out.writeShort(0);
+    out.writeShort(1);
+    out.writeShort(2);
+    out.writeShort(-50);
+    out.writeShort(3);
+    out.writeShort(5);
+    out.writeShort(-5);
+    // format 2: left classes of glyphs 3 and 4 are row offsets, right classes of glyphs 5 and 6 are column offsets
+    out.writeShort(0);
+    out.writeShort(38);
+    out.writeShort(0x0201);
+    out.writeShort(4);
+    out.writeShort(14);
+    out.writeShort(22);
+    out.writeShort(30);
+    writeShorts(out, 3, 2, 30, 34);
+    writeShorts(out, 5, 2, 0, 2);
+    writeShorts(out, -10, -20, -30, 0);
+
+    TTFFile font = readKerning(bytes.toByteArray());
+    KerningTable kerning = font.getKerningTable();
+    assertEquals(2, kerning.getSubtableCount());
+    assertEquals(-50, kerning.getKerning(1, 2));
+    assertEquals(-15, kerning.getKerning(3, 5));
+    assertEquals(-20, kerning.getKerning(3, 6));
+    assertEquals(-30, kerning.getKerning(4, 5));
+    assertEquals(0, kerning.getKerning(4, 6));
+    assertEquals(0, kerning.getKerning(5, 3));
+    // only pairs of the format 0 subtable are enumerated for the unicode kerning table
+    assertEquals(Arrays.asList("1 2 -50", "3 5 -5"), visitPairs(kerning));
+  }
+
+  @Test public void testAppleClassIndexSubtable() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeShort(1);
+    out.writeShort(0);
+    out.writeInt(1);
+    // format 3: four glyphs, two left and two right classes
+    out.writeInt(8 + 6 + 3 * 2 + 4 + 4 + 4);
+    out.writeByte(0);
+    out.writeByte(3);
+    out.writeShort(0);
+    out.writeShort(4);
+    out.writeByte(3);
+    out.writeByte(2);
+    out.writeByte(2);
+    out.writeByte(0);
+    writeShorts(out, 0, -40, 25);
+    out.write(new byte[]{0, 0, 1, 0});
+    out.write(new byte[]{0, 1, 0, 1});
+    out.write(new byte[]{0, 1, 2, 0});
+
+    KerningTable kerning = readKerning(bytes.toByteArray()).getKerningTable();
+    assertEquals(1, kerning.getSubtableCount());
+    assertEquals(-40, kerning.getKerning(0, 1));
+    assertEquals(-40, kerning.getKerning(1, 3));
+    assertEquals(25, kerning.getKerning(2, 0));
+    assertEquals(0, kerning.getKerning(2, 1));
+    assertEquals(0, kerning.getKerning(0, 0));
+    assertEquals(0, kerning.getKerning(0, 4));
+    assertEquals(0, visitPairs(kerning).size());
+  }
+
+  /** Reads the kerning of a font that holds only a "head" table, with 1000 units per em, and a "kern" table. */
+  private static TTFFile readKerning(byte[] kern) throws IOException {
+    byte[] head = new byte[54];
+    head[18] = (byte) (1000 >> 8);
+    head[19] = (byte) 1000;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0x00010000);
+    out.writeShort(2);
+    writeShorts(out, 32, 1, 0);
+    out.writeBytes("head");
+    out.writeInt(0);
+    out.writeInt(12 + 2 * 16);
+    out.writeInt(head.length);
+    out.writeBytes("kern");
+    out.writeInt(0);
+    out.writeInt(12 + 2 * 16 + head.length);
+    out.writeInt(kern.length);
+    out.write(head);
+    out.write(kern);
+
+    TTFFile font = new TTFFile();
+    font.initializeFont(new FontFileReader(bytes.toByteArray()));
+    font.readDirTabs();
+    font.readFontHeader();
+    font.readKerning();
+    return font;
+  }
+
+  private static List<String> visitPairs(KerningTable kerning) {
+    final List<String> pairs = new ArrayList<String>();
+    kerning.visitPairs(new KerningTable.PairVisitor() {
+
+      public void visit(int left, int right, int value) {
+        pairs.add(left + " " + right + " " + value);
+      }
+    });
+    return pairs;
+  }
+
+  private static void writeShorts(DataOutputStream out, int... values) throws IOException {
+    for (int v : values) {
+      out.writeShort(v);
+    }
+  }
+
+}